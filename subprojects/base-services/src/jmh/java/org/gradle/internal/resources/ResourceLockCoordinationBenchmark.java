@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resources;
+
+import org.gradle.api.Action;
+import org.gradle.internal.Actions;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures acquiring and releasing project locks from many threads, as done by parallel builds.
+ */
+@Fork(2)
+@Threads(16)
+@Warmup(iterations = 5)
+@State(Scope.Benchmark)
+public class ResourceLockCoordinationBenchmark {
+
+    @Param({"1", "4", "64"})
+    private int lockCount;
+
+    private final DefaultResourceLockCoordinationService coordinationService = new DefaultResourceLockCoordinationService();
+    private ResourceLock[] locks;
+
+    @Setup(Level.Trial)
+    public void createLocks() {
+        Action<ResourceLock> noOp = Actions.doNothing();
+        locks = new ResourceLock[lockCount];
+        for (int i = 0; i < lockCount; i++) {
+            locks[i] = new ProjectLock("project" + i, coordinationService, noOp, noOp);
+        }
+    }
+
+    @Benchmark
+    public void lockAndUnlock() {
+        ResourceLock lock = locks[ThreadLocalRandom.current().nextInt(lockCount)];
+        coordinationService.withStateLock(DefaultResourceLockCoordinationService.lock(lock));
+        coordinationService.withStateLock(DefaultResourceLockCoordinationService.unlock(lock));
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.service;
+
+import org.gradle.internal.Factory;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures locating services in a hierarchy of registries, similar to the build, project and task scopes, and creating a registry for each project.
+ */
+@Fork(2)
+@Threads(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class DefaultServiceRegistryBenchmark {
+
+    private DefaultServiceRegistry globalServices;
+    private DefaultServiceRegistry buildServices;
+    private DefaultServiceRegistry projectServices;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        globalServices = new DefaultServiceRegistry("global services");
+        globalServices.addProvider(new GlobalScopeServices());
+        buildServices = new DefaultServiceRegistry("build services", globalServices);
+        buildServices.addProvider(new BuildScopeServices());
+        projectServices = createProjectServices();
+        projectServices.get(ProjectService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        projectServices.close();
+        buildServices.close();
+        globalServices.close();
+    }
+
+    @Benchmark
+    public Object lookupOwnService() {
+        return projectServices.get(ProjectService.class);
+    }
+
+    @Benchmark
+    public Object lookupOwnServiceBySupertype() {
+        return projectServices.get(ProjectServiceApi.class);
+    }
+
+    @Benchmark
+    public Object lookupParentService() {
+        return projectServices.get(BuildService.class);
+    }
+
+    @Benchmark
+    public Object lookupGrandparentService() {
+        return projectServices.get(GlobalService.class);
+    }
+
+    @Benchmark
+    public Object lookupFactory() {
+        return projectServices.getFactory(ProjectObject.class);
+    }
+
+    @Benchmark
+    public Object lookupMissingService() {
+        return projectServices.find(MissingService.class);
+    }
+
+    @Benchmark
+    public Object createRegistry() {
+        DefaultServiceRegistry registry = createProjectServices();
+        Object service = registry.get(ProjectService.class);
+        registry.close();
+        return service;
+    }
+
+    private DefaultServiceRegistry createProjectServices() {
+        DefaultServiceRegistry registry = new DefaultServiceRegistry("project services", buildServices);
+        registry.addProvider(new ProjectScopeServices());
+        return registry;
+    }
+
+    public interface GlobalService {
+    }
+
+    public interface BuildService {
+    }
+
+    public interface ProjectServiceApi {
+    }
+
+    public interface MissingService {
+    }
+
+    public static class ProjectObject {
+    }
+
+    public static class DefaultGlobalService implements GlobalService {
+    }
+
+    public static class DefaultBuildService implements BuildService {
+        public DefaultBuildService(GlobalService globalService) {
+        }
+    }
+
+    public static class ProjectService implements ProjectServiceApi {
+        public ProjectService(BuildService buildService, GlobalService globalService) {
+        }
+    }
+
+    private static class GlobalScopeServices {
+        GlobalService createGlobalService() {
+            return new DefaultGlobalService();
+        }
+    }
+
+    private static class BuildScopeServices {
+        BuildService createBuildService(GlobalService globalService) {
+            return new DefaultBuildService(globalService);
+        }
+    }
+
+    private static class ProjectScopeServices {
+        ProjectService createProjectService(BuildService buildService, GlobalService globalService) {
+            return new ProjectService(buildService, globalService);
+        }
+
+        Factory<ProjectObject> createProjectObjectFactory() {
+            return new Factory<ProjectObject>() {
+                @Override
+                public ProjectObject create() {
+                    return new ProjectObject();
+                }
+            };
+        }
+    }
+}
@@ -21,12 +21,23 @@
 import org.gradle.api.Transformer;
 import org.gradle.internal.UncheckedException;
 
+import javax.annotation.Nullable;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Coordinates changes to the state of resource locks. All changes are made while holding a single state lock, so that multiple locks can be acquired
+ * or released atomically. Threads that have to retry a change wait until some other thread releases a lock. Threads that are only waiting to acquire
+ * an exclusive lock, for example a project lock, are woken up only when that particular lock is released, rather than on every change.
+ */
 public class DefaultResourceLockCoordinationService implements ResourceLockCoordinationService {
-    private final Object lock = new Object();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Waiter> waiters = new LinkedList<Waiter>();
     private final ThreadLocal<List<ResourceLockState>> currentState = new ThreadLocal<List<ResourceLockState>>() {
         @Override
         protected List<ResourceLockState> initialValue() {
@@ -39,7 +50,8 @@ public boolean withStateLock(Transformer<ResourceLockState.Disposition, Resource
         while (true) {
             DefaultResourceLockState resourceLockState = new DefaultResourceLockState();
             ResourceLockState.Disposition disposition;
-            synchronized (lock) {
+            lock.lock();
+            try {
                 try {
                     currentState.get().add(resourceLockState);
                     disposition = stateLockAction.transform(resourceLockState);
@@ -47,11 +59,8 @@ public boolean withStateLock(Transformer<ResourceLockState.Disposition, Resource
                     switch (disposition) {
                         case RETRY:
                             resourceLockState.releaseLocks();
-                            try {
-                                lock.wait();
-                            } catch (InterruptedException e) {
-                                throw UncheckedException.throwAsUncheckedException(e);
-                            }
+                            // Only a plain lock action is known to be waiting for nothing but the lock it failed to acquire
+                            awaitStateChange(stateLockAction instanceof AcquireLocks ? resourceLockState.blockedOn : null);
                             break;
                         case FINISHED:
                             maybeNotifyStateChange(resourceLockState);
@@ -68,6 +77,8 @@ public boolean withStateLock(Transformer<ResourceLockState.Disposition, Resource
                 } finally {
                     currentState.get().remove(resourceLockState);
                 }
+            } finally {
+                lock.unlock();
             }
         }
     }
@@ -83,22 +94,63 @@ public ResourceLockState getCurrent() {
         }
     }
 
+    /**
+     * Waits until another thread changes the state of the locks. Must be called while holding the state lock.
+     *
+     * @param blockedOn the only lock the current thread is waiting for, or null when waiting for any change.
+     */
+    private void awaitStateChange(@Nullable ResourceLock blockedOn) {
+        Waiter waiter = new Waiter(lock.newCondition(), blockedOn);
+        waiters.add(waiter);
+        try {
+            waiter.condition.await();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            waiters.remove(waiter);
+        }
+    }
+
     private void maybeNotifyStateChange(DefaultResourceLockState resourceLockState) {
         if (resourceLockState.hasUnlockedResources()) {
-            notifyStateChange();
+            Iterator<Waiter> iterator = waiters.iterator();
+            while (iterator.hasNext()) {
+                Waiter waiter = iterator.next();
+                if (waiter.blockedOn == null || resourceLockState.unlockedResources.contains(waiter.blockedOn)) {
+                    iterator.remove();
+                    waiter.condition.signal();
+                }
+            }
         }
     }
 
     @Override
     public void notifyStateChange() {
-        synchronized (lock) {
-            lock.notifyAll();
+        lock.lock();
+        try {
+            for (Waiter waiter : waiters) {
+                waiter.condition.signal();
+            }
+            waiters.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Waiter {
+        private final Condition condition;
+        private final ResourceLock blockedOn;
+
+        Waiter(Condition condition, @Nullable ResourceLock blockedOn) {
+            this.condition = condition;
+            this.blockedOn = blockedOn;
         }
     }
 
     private static class DefaultResourceLockState implements ResourceLockState {
         private Set<ResourceLock> lockedResources;
         private Set<ResourceLock> unlockedResources;
+        private ResourceLock blockedOn;
         boolean rollback;
 
         @Override
@@ -196,6 +248,10 @@ private static class AcquireLocks implements Transformer<ResourceLockState.Dispo
         public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
             for (ResourceLock resourceLock : resourceLocks) {
                 if (!resourceLock.tryLock()) {
+                    if (resourceLockState instanceof DefaultResourceLockState && resourceLock instanceof ExclusiveAccessResourceLock) {
+                        // Only releasing this lock can make it available again
+                        ((DefaultResourceLockState) resourceLockState).blockedOn = resourceLock;
+                    }
                     return blocking ? ResourceLockState.Disposition.RETRY : ResourceLockState.Disposition.FAILED;
                 }
             }
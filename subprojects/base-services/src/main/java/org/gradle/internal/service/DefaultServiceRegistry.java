@@ -15,13 +15,17 @@
  */
 package org.gradle.internal.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.gradle.api.Action;
 import org.gradle.internal.Cast;
 import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.CompositeStoppable;
 
+import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
@@ -34,13 +38,15 @@
 import java.util.Collections;
 import java.util.Formatter;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -68,6 +74,9 @@
  * org.gradle.internal.concurrent.Stoppable} then the appropriate close() or stop() method is called. Instances are closed in reverse dependency order.</p>
  *
  * <p>Service registries are arranged in a hierarchy. If a service of a given type cannot be located, the registry uses its parent registry, if any, to locate the service.</p>
+ *
+ * <p>Once a registry is no longer mutable, the service located for each type is remembered by the registry, so that later lookups of the same type do not search
+ * the registry and its parents again. Lookups that fail are not remembered, as services may still be added to the parent registries.</p>
  */
 public class DefaultServiceRegistry implements ServiceRegistry, Closeable, ContainsServices {
     private enum State {INIT, STARTED, CLOSED}
@@ -75,12 +84,16 @@ private enum State {INIT, STARTED, CLOSED}
     private final static ServiceRegistry[] NO_PARENTS = new ServiceRegistry[0];
     private final static Service[] NO_DEPENDENTS = new Service[0];
     private final static Object[] NO_PARAMS = new Object[0];
+    // Weak keys, as the services of a build can be implemented by types loaded from the build's class loaders
+    private final static Cache<Class<?>, ServiceTypes> SERVICE_TYPES_CACHE = CacheBuilder.newBuilder().weakKeys().build();
 
     private final OwnServices ownServices;
     private final ServiceProvider allServices;
     private final ServiceProvider parentServices;
     private final String displayName;
     private final ServiceProvider thisAsServiceProvider;
+    private final ConcurrentMap<Type, Service> resolvedServices = new ConcurrentHashMap<Type, Service>();
+    private final ConcurrentMap<Class<?>, Service> resolvedFactories = new ConcurrentHashMap<Class<?>, Service>();
 
     private final AtomicReference<State> state = new AtomicReference<State>(State.INIT);
 
@@ -258,6 +271,8 @@ public DefaultServiceRegistry addProvider(Object provider) {
     public void close() {
         noLongerMutable();
         if (state.compareAndSet(State.STARTED, State.CLOSED)) {
+            resolvedServices.clear();
+            resolvedFactories.clear();
             CompositeStoppable.stoppable(allServices).stop();
         }
     }
@@ -270,9 +285,7 @@ private void serviceRequested() {
     }
 
     private void noLongerMutable() {
-        if (state.compareAndSet(State.INIT, State.STARTED)) {
-            ownServices.noLongerMutable();
-        }
+        state.compareAndSet(State.INIT, State.STARTED);
     }
 
     public boolean isClosed() {
@@ -307,7 +320,15 @@ public Object find(Type serviceType) throws ServiceLookupException {
 
     private Service getService(Type serviceType) {
         serviceRequested();
-        return find(serviceType, allServices);
+        Service service = resolvedServices.get(serviceType);
+        if (service == null) {
+            service = find(serviceType, allServices);
+            // A collection of services is assembled for each lookup
+            if (service != null && !(service instanceof CollectionService)) {
+                resolvedServices.putIfAbsent(serviceType, service);
+            }
+        }
+        return service;
     }
 
     @Override
@@ -323,7 +344,14 @@ public <T> Factory<T> getFactory(Class<T> type) {
 
     private Service getFactoryService(Class<?> serviceType) {
         serviceRequested();
-        return allServices.getFactory(serviceType);
+        Service service = resolvedFactories.get(serviceType);
+        if (service == null) {
+            service = allServices.getFactory(serviceType);
+            if (service != null) {
+                resolvedFactories.putIfAbsent(serviceType, service);
+            }
+        }
+        return service;
     }
 
     @Override
@@ -376,7 +404,6 @@ public <T> T newInstance(Class<T> type) {
     private class OwnServices implements ServiceProvider {
         private final Map<Class<?>, List<ServiceProvider>> providersByType = new HashMap<Class<?>, List<ServiceProvider>>(16, 0.5f);
         private final CompositeStoppable stoppable = CompositeStoppable.stoppable();
-        private ProviderAnalyser analyser = new ProviderAnalyser();
 
         public OwnServices() {
             providersByType.put(ServiceRegistry.class, Collections.<ServiceProvider>singletonList(new ThisAsService()));
@@ -483,46 +510,84 @@ public void add(ServiceProvider serviceProvider) {
                 throw new UnsupportedOperationException("Unsupported service provider type: " + serviceProvider);
             }
             stoppable.add(serviceProvider);
-            analyser.addProviderForClassHierarchy(((SingletonService) serviceProvider).serviceClass, serviceProvider);
+            for (Class<?> type : serviceTypesOf(((SingletonService) serviceProvider).serviceClass)) {
+                if (type.equals(ServiceRegistry.class)) {
+                    // Disallow custom services of type ServiceRegistry, as these are automatically provided
+                    throw new IllegalArgumentException("Cannot define a service of type ServiceRegistry: " + serviceProvider);
+                }
+                putServiceType(type, serviceProvider);
+            }
         }
 
-        public void noLongerMutable() {
-            analyser = null;
+        private void putServiceType(Class<?> type, ServiceProvider serviceProvider) {
+            List<ServiceProvider> serviceProviders = providersByType.get(type);
+            if (serviceProviders == null) {
+                serviceProviders = new ArrayList<ServiceProvider>(2);
+                providersByType.put(type, serviceProviders);
+            }
+            serviceProviders.add(serviceProvider);
         }
+    }
 
-        private class ProviderAnalyser {
-            private final Set<Class<?>> seen = new HashSet<Class<?>>(4, 0.5f);
+    /**
+     * Returns the types that a service of the given type can be located by. The result is shared by all registries, so that registries created from the
+     * same providers, such as those for each project, do not each have to walk the type hierarchy of each service.
+     */
+    private static List<Class<?>> serviceTypesOf(Class<?> serviceClass) {
+        ServiceTypes cached = SERVICE_TYPES_CACHE.getIfPresent(serviceClass);
+        if (cached != null) {
+            List<Class<?>> serviceTypes = cached.get();
+            if (serviceTypes != null) {
+                return serviceTypes;
+            }
+        }
+        Set<Class<?>> seen = new LinkedHashSet<Class<?>>();
+        collectServiceTypes(serviceClass, seen);
+        List<Class<?>> serviceTypes = new ArrayList<Class<?>>(seen);
+        SERVICE_TYPES_CACHE.put(serviceClass, new ServiceTypes(serviceTypes));
+        return serviceTypes;
+    }
 
-            public void addProviderForClassHierarchy(Class<?> serviceType, ServiceProvider serviceProvider) {
-                analyseType(serviceType, serviceProvider);
-                seen.clear();
+    private static void collectServiceTypes(Class<?> type, Set<Class<?>> seen) {
+        if (type == null || type == Object.class) {
+            return;
+        }
+        if (seen.add(type)) {
+            collectServiceTypes(type.getSuperclass(), seen);
+            for (Class<?> iface : type.getInterfaces()) {
+                collectServiceTypes(iface, seen);
             }
+        }
+    }
 
-            private void analyseType(Class<?> type, ServiceProvider serviceProvider) {
-                if (type == null || type == Object.class) {
-                    return;
-                }
-                if (seen.add(type)) {
-                    if (type.equals(ServiceRegistry.class)) {
-                        // Disallow custom services of type ServiceRegistry, as these are automatically provided
-                        throw new IllegalArgumentException("Cannot define a service of type ServiceRegistry: " + serviceProvider);
-                    }
-                    putServiceType(type, serviceProvider);
-                    analyseType(type.getSuperclass(), serviceProvider);
-                    for (Class<?> iface : type.getInterfaces()) {
-                        analyseType(iface, serviceProvider);
-                    }
-                }
+    /**
+     * The types that a service can be located by. Holds the types weakly, as they are usually loaded by the same class loader as the service type,
+     * and so would otherwise keep the service type reachable from the cache.
+     */
+    private static class ServiceTypes {
+        private final List<WeakReference<Class<?>>> types;
+
+        ServiceTypes(List<Class<?>> types) {
+            this.types = new ArrayList<WeakReference<Class<?>>>(types.size());
+            for (Class<?> type : types) {
+                this.types.add(new WeakReference<Class<?>>(type));
             }
+        }
 
-            private void putServiceType(Class<?> type, ServiceProvider serviceProvider) {
-                List<ServiceProvider> serviceProviders = providersByType.get(type);
-                if (serviceProviders == null) {
-                    serviceProviders = new ArrayList<ServiceProvider>(2);
-                    providersByType.put(type, serviceProviders);
+        /**
+         * Returns the types, or null when any of them has been collected.
+         */
+        @Nullable
+        List<Class<?>> get() {
+            List<Class<?>> result = new ArrayList<Class<?>>(types.size());
+            for (WeakReference<Class<?>> reference : types) {
+                Class<?> type = reference.get();
+                if (type == null) {
+                    return null;
                 }
-                serviceProviders.add(serviceProvider);
+                result.add(type);
             }
+            return result;
         }
     }
 
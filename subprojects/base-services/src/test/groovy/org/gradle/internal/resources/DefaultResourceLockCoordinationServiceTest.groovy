@@ -21,6 +21,8 @@ import org.gradle.api.Transformer
 import org.gradle.test.fixtures.ConcurrentTestUtil
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 
+import java.util.concurrent.atomic.AtomicInteger
+
 import static org.gradle.internal.resources.ResourceLockState.Disposition.*
 import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.*
 
@@ -108,6 +110,62 @@ class DefaultResourceLockCoordinationServiceTest extends ConcurrentSpec {
         lock2.lockedState
     }
 
+    def "thread blocked on an exclusive lock is woken up when that lock is released"() {
+        def lock1 = new ExclusiveAccessResourceLock("lock1", coordinationService, Mock(Action), Mock(Action))
+        def lock2 = new ExclusiveAccessResourceLock("lock2", coordinationService, Mock(Action), Mock(Action))
+
+        when:
+        async {
+            coordinationService.withStateLock(lock(lock1, lock2))
+            start {
+                coordinationService.withStateLock(lock(lock1))
+                assert coordinationService.withStateLock(unlock(lock1))
+                instant.acquired
+            }
+            coordinationService.withStateLock(unlock(lock2))
+            coordinationService.withStateLock(unlock(lock1))
+            thread.blockUntil.acquired
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "thread blocked on an exclusive lock is not woken up when another lock is released"() {
+        def attempts = new AtomicInteger()
+        def lock1 = new ExclusiveAccessResourceLock("lock1", coordinationService, Mock(Action), Mock(Action)) {
+            @Override
+            protected boolean acquireLock() {
+                attempts.incrementAndGet()
+                return super.acquireLock()
+            }
+        }
+        def lock2 = new ExclusiveAccessResourceLock("lock2", coordinationService, Mock(Action), Mock(Action))
+
+        when:
+        async {
+            coordinationService.withStateLock(lock(lock1, lock2))
+            start {
+                coordinationService.withStateLock(lock(lock1))
+                assert coordinationService.withStateLock(unlock(lock1))
+                instant.acquired
+            }
+            ConcurrentTestUtil.poll { assert attempts.get() == 2 }
+            3.times {
+                coordinationService.withStateLock(unlock(lock2))
+                // Give a woken up thread the chance to try to acquire its lock again
+                sleep(50)
+                coordinationService.withStateLock(lock(lock2))
+            }
+            coordinationService.withStateLock(unlock(lock2, lock1))
+            thread.blockUntil.acquired
+        }
+
+        then:
+        // Once when first locked by this thread, once when blocking and once when the lock is released
+        attempts.get() == 3
+    }
+
     def "can nest multiple calls to withStateLock"() {
         def lock = [
             resourceLock("lock1"),
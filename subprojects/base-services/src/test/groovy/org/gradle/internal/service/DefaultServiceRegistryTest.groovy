@@ -17,13 +17,16 @@
 package org.gradle.internal.service
 
 import com.google.common.reflect.TypeToken
+import groovy.transform.CompileStatic
 import org.gradle.api.Action
 import org.gradle.internal.Factory
 import org.gradle.internal.concurrent.Stoppable
+import org.gradle.test.fixtures.ConcurrentTestUtil
 import org.gradle.util.TextUtil
 import spock.lang.Specification
 
 import java.lang.annotation.Annotation
+import java.lang.ref.WeakReference
 import java.lang.reflect.Type
 import java.util.concurrent.Callable
 
@@ -71,6 +74,54 @@ class DefaultServiceRegistryTest extends Specification {
         1 * parent2.get(BigDecimal) >> value
     }
 
+    def "locates service in parent once"() {
+        def value = BigDecimal.TEN
+        def parent = Mock(ParentServices)
+        def registry = new TestRegistry(registry(parent))
+
+        when:
+        def result1 = registry.get(BigDecimal)
+        def result2 = registry.get(BigDecimal)
+        def result3 = registry.find(BigDecimal)
+
+        then:
+        result1 == value
+        result2 == value
+        result3 == value
+
+        and:
+        1 * parent.get(BigDecimal) >> value
+        0 * parent._
+    }
+
+    def "locates unknown service in parent on each lookup"() {
+        def value = BigDecimal.TEN
+        def parent = Mock(ParentServices)
+        def registry = new TestRegistry(registry(parent))
+
+        when:
+        def result1 = registry.find(BigDecimal)
+        def result2 = registry.find(BigDecimal)
+
+        then:
+        result1 == null
+        result2 == value
+
+        and:
+        2 * parent.get(BigDecimal) >>> [null, value]
+    }
+
+    def "does not keep types of services alive once the registry is discarded"() {
+        given:
+        def serviceType = registerServiceFromOtherClassLoader()
+
+        expect:
+        ConcurrentTestUtil.poll(10) {
+            System.gc()
+            assert serviceType.get() == null
+        }
+    }
+
     def throwsExceptionForUnknownParentService() {
         def parent = Mock(ParentServices);
         def registry = new TestRegistry(registry(parent))
@@ -1629,6 +1680,22 @@ class DefaultServiceRegistryTest extends Specification {
     private interface StringFactory extends Factory<String> {
     }
 
+    @CompileStatic
+    // must be compile static to avoid call sites being created with soft class refs
+    private static WeakReference<Class<?>> registerServiceFromOtherClassLoader() {
+        def classLoader = new GroovyClassLoader(DefaultServiceRegistryTest.classLoader)
+        Class<?> serviceType = classLoader.parseClass("""
+            class CustomService implements CustomServiceType { }
+            interface CustomServiceType { }
+        """)
+        def registry = new DefaultServiceRegistry()
+        registry.add(serviceType as Class<Object>, serviceType.newInstance())
+        assert registry.get(classLoader.loadClass("CustomServiceType")) != null
+        registry.close()
+        classLoader.clearCache()
+        return new WeakReference<Class<?>>(serviceType)
+    }
+
     private static class TestRegistry extends DefaultServiceRegistry {
         public TestRegistry() {
         }
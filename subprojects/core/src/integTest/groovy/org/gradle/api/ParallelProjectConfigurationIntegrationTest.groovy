@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api
+
+import org.gradle.api.internal.project.ParallelProjectConfiguration
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.test.fixtures.server.http.BlockingHttpServer
+import org.junit.Rule
+
+class ParallelProjectConfigurationIntegrationTest extends AbstractIntegrationSpec {
+    @Rule
+    public final BlockingHttpServer blockingServer = new BlockingHttpServer()
+
+    def setup() {
+        blockingServer.start()
+        executer.beforeExecute {
+            withArguments("--parallel", "--max-workers=4", "-D${ParallelProjectConfiguration.PARALLEL_CONFIGURATION_PROPERTY}=true")
+        }
+    }
+
+    def "configures subprojects in parallel"() {
+        given:
+        settingsFile << "include 'a', 'b'"
+        file("a/build.gradle") << """
+            ${blockingServer.callFromBuild("a")}
+            task thing
+        """
+        file("b/build.gradle") << """
+            ${blockingServer.callFromBuild("b")}
+            task thing
+        """
+
+        expect:
+        blockingServer.expectConcurrent("a", "b")
+        succeeds "thing"
+        result.assertTasksExecuted(":a:thing", ":b:thing")
+    }
+
+    def "configures a multi-project build that uses the same build script and plugins in many projects"() {
+        given:
+        def projects = (1..20).collect { "p$it" }
+        settingsFile << "include ${projects.collect { "'$it'" }.join(", ")}"
+        projects.each { name ->
+            file("${name}/build.gradle") << """
+                plugins {
+                    id 'java-library'
+                }
+                def generated = objects.newInstance(Generated)
+                generated.prop.set(project.name)
+                task report {
+                    doLast {
+                        println "\${generated.prop.get()} configured"
+                    }
+                }
+
+                abstract class Generated {
+                    abstract Property<String> getProp()
+                }
+            """
+            file("${name}/src/main/java/${name}/Thing.java") << "package ${name}; public class Thing { }"
+        }
+
+        when:
+        succeeds "compileJava", "report"
+
+        then:
+        projects.each { name ->
+            outputContains("$name configured")
+            result.assertTaskExecuted(":${name}:compileJava")
+        }
+
+        when:
+        succeeds "compileJava", "report"
+
+        then:
+        projects.each { name ->
+            outputContains("$name configured")
+        }
+    }
+
+    def "falls back to serial configuration for cross-project configuration and dependencies"() {
+        given:
+        settingsFile << "include 'lib', 'app', 'other'"
+        buildFile << """
+            subprojects {
+                apply plugin: 'java-library'
+            }
+        """
+        file("lib/build.gradle") << """
+            ext.configuredBy = 'lib'
+        """
+        file("lib/src/main/java/lib/Lib.java") << "package lib; public class Lib { }"
+        file("app/build.gradle") << """
+            evaluationDependsOn(':lib')
+            dependencies {
+                implementation project(':lib')
+            }
+            task report {
+                def configuredBy = project(':lib').configuredBy
+                doLast {
+                    println "lib configured by \$configuredBy"
+                }
+            }
+        """
+        file("app/src/main/java/app/App.java") << "package app; public class App { lib.Lib lib; }"
+        file("other/build.gradle") << """
+            def names = rootProject.subprojects*.name.sort()
+            task report {
+                dependsOn ':app:compileJava'
+                doLast {
+                    println "subprojects \$names"
+                }
+            }
+        """
+
+        when:
+        succeeds "report"
+
+        then:
+        outputContains("lib configured by lib")
+        outputContains("subprojects [app, lib, other]")
+        result.assertTaskExecuted(":lib:compileJava")
+        result.assertTaskExecuted(":app:compileJava")
+    }
+
+    def "reports failure in one project"() {
+        given:
+        settingsFile << "include 'a', 'b'"
+        file("a/build.gradle") << """
+            throw new RuntimeException("broken")
+        """
+        file("b/build.gradle") << """
+            task thing
+        """
+
+        expect:
+        fails "thing"
+        failure.assertHasDescription("A problem occurred evaluating project ':a'.")
+        failure.assertHasCause("broken")
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.test.fixtures.server.http.BlockingHttpServer
+import org.junit.Rule
+
+class ParallelProjectConfigurationIntegrationTest extends AbstractIntegrationSpec {
+    @Rule
+    public final BlockingHttpServer blockingServer = new BlockingHttpServer()
+
+    def setup() {
+        blockingServer.start()
+        executer.beforeExecute {
+            withArguments("--parallel", "--max-workers=4", "-D${ParallelProjectConfiguration.PARALLEL_CONFIGURATION_PROPERTY}=true")
+        }
+        settingsFile << "include 'a', 'b'"
+        file("b/build.gradle") << """
+            ${blockingServer.callFromBuild("b-started")}
+            ${blockingServer.callFromBuild("b-finished")}
+        """
+    }
+
+    def "configures projects in parallel"() {
+        given:
+        file("a/build.gradle") << """
+            ${blockingServer.callFromBuild("a-started")}
+        """
+
+        expect:
+        blockingServer.expectConcurrent("a-started", "b-started")
+        blockingServer.expect("b-finished")
+        succeeds "help"
+    }
+
+    def "continues serially when a project writes an extra property of the root project"() {
+        given:
+        buildFile << """
+            ext.values = []
+            task show {
+                doLast {
+                    println "values = \${values}"
+                }
+            }
+        """
+        file("a/build.gradle") << """
+            ${blockingServer.callFromBuild("a-started")}
+            rootProject.ext.values += 'a'
+            ${blockingServer.callFromBuild("a-wrote")}
+        """
+
+        when:
+        blockingServer.expectConcurrent("a-started", "b-started")
+        blockingServer.expect("b-finished")
+        blockingServer.expect("a-wrote")
+        succeeds ":show"
+
+        then:
+        outputContains("values = [a]")
+    }
+
+    def "continues serially when a project writes to a project looked up by path"() {
+        given:
+        buildFile << """
+            task show {
+                doLast {
+                    println "fromA = \${project(':b').fromA}"
+                }
+            }
+        """
+        file("a/build.gradle") << """
+            ${blockingServer.callFromBuild("a-started")}
+            project(':b').ext.fromA = 'a'
+            project(':b').tasks.register('fromA')
+            ${blockingServer.callFromBuild("a-wrote")}
+        """
+
+        when:
+        blockingServer.expectConcurrent("a-started", "b-started")
+        blockingServer.expect("b-finished")
+        blockingServer.expect("a-wrote")
+        succeeds ":show", ":b:fromA"
+
+        then:
+        outputContains("fromA = a")
+        result.assertTaskExecuted(":b:fromA")
+    }
+}
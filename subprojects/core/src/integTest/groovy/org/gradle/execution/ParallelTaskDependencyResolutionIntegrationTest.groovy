@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.execution.plan.ParallelTaskDependencyResolution
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.test.fixtures.server.http.BlockingHttpServer
+import org.junit.Rule
+
+class ParallelTaskDependencyResolutionIntegrationTest extends AbstractIntegrationSpec {
+    @Rule
+    public final BlockingHttpServer blockingServer = new BlockingHttpServer()
+
+    def setup() {
+        blockingServer.start()
+        executer.beforeExecute {
+            withArguments("--parallel", "--max-workers=4", "-D${ParallelTaskDependencyResolution.PARALLEL_RESOLUTION_PROPERTY}=true")
+        }
+    }
+
+    def "resolves the dependencies of the tasks of different projects in parallel"() {
+        given:
+        settingsFile << "include 'a', 'b'"
+        buildFile << """
+            task all {
+                dependsOn ':a:thing', ':b:thing'
+            }
+        """
+        ["a", "b"].each { name ->
+            file("${name}/build.gradle") << """
+                task thing {
+                    dependsOn {
+                        ${blockingServer.callFromBuild(name)}
+                        []
+                    }
+                }
+            """
+        }
+
+        expect:
+        blockingServer.expectConcurrent("a", "b")
+        succeeds "all"
+        result.assertTasksExecuted(":a:thing", ":b:thing", ":all")
+    }
+
+    def "schedules tasks that depend on and are finalized by tasks of other projects"() {
+        given:
+        settingsFile << "include 'a', 'b', 'c'"
+        file("a/build.gradle") << """
+            task thing {
+                dependsOn ':b:thing'
+                finalizedBy ':c:cleanup'
+            }
+        """
+        file("b/build.gradle") << """
+            task thing {
+                dependsOn tasks.named('other')
+            }
+            task other {
+                dependsOn ':c:thing'
+            }
+        """
+        file("c/build.gradle") << """
+            task thing
+            task cleanup
+        """
+
+        when:
+        succeeds ":a:thing"
+
+        then:
+        result.assertTasksExecutedInOrder(":c:thing", ":b:other", ":b:thing", ":a:thing", ":c:cleanup")
+    }
+
+    def "schedules the tasks of project dependencies"() {
+        given:
+        settingsFile << "include 'lib', 'app', 'other'"
+        buildFile << """
+            subprojects {
+                apply plugin: 'java-library'
+            }
+        """
+        file("lib/src/main/java/lib/Lib.java") << "package lib; public class Lib { }"
+        file("other/src/main/java/other/Other.java") << "package other; public class Other { }"
+        file("app/build.gradle") << """
+            dependencies {
+                implementation project(':lib')
+                runtimeOnly project(':other')
+            }
+        """
+        file("app/src/main/java/app/App.java") << "package app; public class App { lib.Lib lib; }"
+
+        when:
+        succeeds ":app:test"
+
+        then:
+        result.assertTaskExecuted(":lib:compileJava")
+        result.assertTaskExecuted(":lib:jar")
+        result.assertTaskExecuted(":other:jar")
+        result.assertTaskExecuted(":app:compileJava")
+        result.assertTaskExecuted(":app:test")
+
+        when:
+        succeeds ":app:test"
+
+        then:
+        result.assertTaskSkipped(":app:compileJava")
+    }
+
+    def "reports failure to resolve the dependencies of a task"() {
+        given:
+        settingsFile << "include 'a', 'b'"
+        file("a/build.gradle") << """
+            task thing {
+                dependsOn ':b:thing'
+            }
+        """
+        file("b/build.gradle") << """
+            task thing {
+                dependsOn { throw new RuntimeException("broken") }
+            }
+        """
+
+        when:
+        fails ":a:thing"
+
+        then:
+        failure.assertHasDescription("Could not determine the dependencies of task ':b:thing'.")
+        failure.assertHasCause("broken")
+    }
+}
@@ -67,6 +67,8 @@
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class DefaultNamedDomainObjectCollection<T> extends DefaultDomainObjectCollection<T> implements NamedDomainObjectCollection<T>, MethodMixIn, PropertyMixIn {
 
@@ -561,6 +563,11 @@ private boolean isConfigureMethod(String name, Object... arguments) {
 
         NavigableMap<String, T> asMap();
 
+        /**
+         * Returns the elements that are instances of the given type, by name.
+         */
+        NavigableMap<String, T> asMap(Class<?> type);
+
         <S extends T> Index<S> filter(CollectionFilter<S> filter);
 
         @Nullable
@@ -573,20 +580,59 @@ private boolean isConfigureMethod(String name, Object... arguments) {
         void removePending(ProviderInternal<? extends T> provider);
 
         Map<String, ProviderInternal<? extends T>> getPendingAsMap();
+
+        /**
+         * Returns the pending elements whose type is known to be a subtype of the given type, by name.
+         */
+        Map<String, ProviderInternal<? extends T>> getPendingAsMap(Class<?> type);
     }
 
+    /**
+     * Indexes the elements of a collection by name. Also maintains an index of the elements of each type that is queried through {@link #asMap(Class)}
+     * or {@link #getPendingAsMap(Class)}, such as for {@code withType()} views, which is updated as elements are added and removed.
+     *
+     * <p>The index of a type is built in full on first query and then published, so that querying the collection from multiple threads does not
+     * modify any map that another thread may be reading. Adding and removing elements is not thread-safe, as for the rest of the collection.</p>
+     */
     protected static class UnfilteredIndex<T> implements Index<T> {
         private final Map<String, ProviderInternal<? extends T>> pendingMap = Maps.newLinkedHashMap();
         private final NavigableMap<String, T> map = new TreeMap<String, T>();
+        private final ConcurrentMap<Class<?>, NavigableMap<String, T>> mapsByType = new ConcurrentHashMap<Class<?>, NavigableMap<String, T>>();
+        private final ConcurrentMap<Class<?>, Map<String, ProviderInternal<? extends T>>> pendingMapsByType = new ConcurrentHashMap<Class<?>, Map<String, ProviderInternal<? extends T>>>();
 
         @Override
         public NavigableMap<String, T> asMap() {
             return map;
         }
 
+        @Override
+        public NavigableMap<String, T> asMap(Class<?> type) {
+            NavigableMap<String, T> typeMap = mapsByType.get(type);
+            if (typeMap == null) {
+                typeMap = new TreeMap<String, T>();
+                for (Map.Entry<String, T> entry : map.entrySet()) {
+                    if (type.isInstance(entry.getValue())) {
+                        typeMap.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                NavigableMap<String, T> existing = mapsByType.putIfAbsent(type, typeMap);
+                if (existing != null) {
+                    return existing;
+                }
+            }
+            return typeMap;
+        }
+
         @Override
         public void put(String name, T value) {
             map.put(name, value);
+            for (Map.Entry<Class<?>, NavigableMap<String, T>> entry : mapsByType.entrySet()) {
+                if (entry.getKey().isInstance(value)) {
+                    entry.getValue().put(name, value);
+                } else {
+                    entry.getValue().remove(name);
+                }
+            }
         }
 
         @Override
@@ -597,12 +643,17 @@ public T get(String name) {
         @Override
         public void remove(String name) {
             map.remove(name);
+            for (NavigableMap<String, T> typeMap : mapsByType.values()) {
+                typeMap.remove(name);
+            }
         }
 
         @Override
         public void clear() {
             map.clear();
             pendingMap.clear();
+            mapsByType.clear();
+            pendingMapsByType.clear();
         }
 
         @Override
@@ -619,22 +670,67 @@ public ProviderInternal<? extends T> getPending(String name) {
         @Override
         public void putPending(String name, ProviderInternal<? extends T> provider) {
             pendingMap.put(name, provider);
+            for (Map.Entry<Class<?>, Map<String, ProviderInternal<? extends T>>> entry : pendingMapsByType.entrySet()) {
+                if (hasType(provider, entry.getKey())) {
+                    entry.getValue().put(name, provider);
+                } else {
+                    entry.getValue().remove(name);
+                }
+            }
         }
 
         @Override
         public void removePending(String name) {
             pendingMap.remove(name);
+            for (Map<String, ProviderInternal<? extends T>> typeMap : pendingMapsByType.values()) {
+                typeMap.remove(name);
+            }
         }
 
         @Override
         public void removePending(ProviderInternal<? extends T> provider) {
-            pendingMap.values().remove(provider);
+            if (provider instanceof Named) {
+                // Avoid searching all pending elements for the common case
+                String name = ((Named) provider).getName();
+                if (pendingMap.get(name) == provider) {
+                    removePending(name);
+                    return;
+                }
+            }
+            for (Map.Entry<String, ProviderInternal<? extends T>> entry : pendingMap.entrySet()) {
+                if (entry.getValue().equals(provider)) {
+                    removePending(entry.getKey());
+                    return;
+                }
+            }
         }
 
         @Override
         public Map<String, ProviderInternal<? extends T>> getPendingAsMap() {
             return pendingMap;
         }
+
+        @Override
+        public Map<String, ProviderInternal<? extends T>> getPendingAsMap(Class<?> type) {
+            Map<String, ProviderInternal<? extends T>> typeMap = pendingMapsByType.get(type);
+            if (typeMap == null) {
+                typeMap = Maps.newLinkedHashMap();
+                for (Map.Entry<String, ProviderInternal<? extends T>> entry : pendingMap.entrySet()) {
+                    if (hasType(entry.getValue(), type)) {
+                        typeMap.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                Map<String, ProviderInternal<? extends T>> existing = pendingMapsByType.putIfAbsent(type, typeMap);
+                if (existing != null) {
+                    return existing;
+                }
+            }
+            return typeMap;
+        }
+
+        private static boolean hasType(ProviderInternal<?> provider, Class<?> type) {
+            return provider.getType() != null && type.isAssignableFrom(provider.getType());
+        }
     }
 
     private static class FilteredIndex<T> implements Index<T> {
@@ -669,7 +765,17 @@ public void clear() {
 
         @Override
         public NavigableMap<String, T> asMap() {
-            NavigableMap<String, ? super T> delegateMap = delegate.asMap();
+            return asMap(filter.getType());
+        }
+
+        @Override
+        public NavigableMap<String, T> asMap(Class<?> type) {
+            // Use the index of the delegate for the more specific of the types
+            Class<?> indexType = type.isAssignableFrom(filter.getType()) ? filter.getType() : type;
+            NavigableMap<String, ? super T> delegateMap = delegate.asMap(indexType);
+            if (filter.isTypeOnly() && filter.getType().isAssignableFrom(indexType)) {
+                return new TreeMap<String, T>(Cast.<NavigableMap<String, T>>uncheckedNonnullCast(delegateMap));
+            }
 
             NavigableMap<String, T> filtered = new TreeMap<String, T>();
             for (Map.Entry<String, ? super T> entry : delegateMap.entrySet()) {
@@ -715,13 +821,22 @@ public void removePending(ProviderInternal<? extends T> provider) {
 
         @Override
         public Map<String, ProviderInternal<? extends T>> getPendingAsMap() {
-            // TODO not sure if we can clean up the generics here and do less unchecked casting
-            Map<String, ProviderInternal<?>> delegateMap = Cast.uncheckedCast(delegate.getPendingAsMap());
+            return getPendingAsMap(filter.getType());
+        }
+
+        @Override
+        public Map<String, ProviderInternal<? extends T>> getPendingAsMap(Class<?> type) {
+            // Pending elements are filtered by type only
+            Class<?> indexType = type.isAssignableFrom(filter.getType()) ? filter.getType() : type;
+            Map<String, ProviderInternal<? extends T>> typeMap = Cast.uncheckedCast(delegate.getPendingAsMap(indexType));
+            if (filter.getType().isAssignableFrom(indexType)) {
+                return Maps.newLinkedHashMap(typeMap);
+            }
+            // The types are unrelated, so also need to check the type of each pending element
             Map<String, ProviderInternal<? extends T>> filteredMap = Maps.newLinkedHashMap();
-            for (Map.Entry<String, ProviderInternal<?>> entry : delegateMap.entrySet()) {
-                if (entry.getValue().getType() != null && filter.getType().isAssignableFrom(entry.getValue().getType())) {
-                    ProviderInternal<? extends T> typedValue = Cast.uncheckedCast(entry.getValue());
-                    filteredMap.put(entry.getKey(), typedValue);
+            for (Map.Entry<String, ProviderInternal<? extends T>> entry : typeMap.entrySet()) {
+                if (filter.getType().isAssignableFrom(entry.getValue().getType())) {
+                    filteredMap.put(entry.getKey(), entry.getValue());
                 }
             }
             return filteredMap;
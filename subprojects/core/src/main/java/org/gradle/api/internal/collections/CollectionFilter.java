@@ -37,6 +37,13 @@ public Class<? extends T> getType() {
         return type;
     }
 
+    /**
+     * Returns true when this filter selects elements by type only.
+     */
+    public boolean isTypeOnly() {
+        return spec == Specs.SATISFIES_ALL;
+    }
+
     public T filter(Object object) {
         if (!type.isInstance(object)) {
             return null;
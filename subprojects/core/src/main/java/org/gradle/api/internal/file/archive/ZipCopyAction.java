@@ -15,6 +15,13 @@
  */
 package org.gradle.api.internal.file.archive;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.tools.zip.UnixStat;
 import org.apache.tools.zip.Zip64RequiredException;
 import org.apache.tools.zip.ZipEntry;
@@ -27,18 +34,46 @@
 import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
 import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.CopyActionProcessingStream;
+import org.gradle.api.internal.file.copy.DefaultZipCompressor;
 import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
 import org.gradle.api.internal.file.copy.ZipCompressor;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.WorkResults;
 import org.gradle.api.tasks.bundling.Zip;
 import org.gradle.internal.IoActions;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.work.WorkerLeaseRegistry;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.Calendar;
+import java.util.Deque;
 import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 public class ZipCopyAction implements CopyAction {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZipCopyAction.class);
+
     /**
      * Note that setting the January 1st 1980 (or even worse, "0", as time) won't work due
      * to Java 8 doing some interesting time processing: It checks if this date is before January 1st 1980
@@ -56,22 +91,63 @@ public class ZipCopyAction implements CopyAction {
      */
     public static final long CONSTANT_TIME_FOR_ZIP_ENTRIES = new GregorianCalendar(1980, Calendar.FEBRUARY, 1, 0, 0, 0).getTimeInMillis();
 
+    /**
+     * Extensions of files whose content is already compressed, so compressing them again gains little.
+     */
+    private static final Set<String> COMPRESSED_FILE_EXTENSIONS = ImmutableSet.of(
+        "jar", "war", "ear", "aar", "zip", "gz", "tgz", "bz2", "xz", "7z",
+        "png", "jpg", "jpeg", "gif", "webp", "woff", "woff2", "mp3", "mp4"
+    );
+
+    /**
+     * Files larger than this are streamed into the archive instead of being compressed in parallel, to bound memory usage.
+     */
+    private static final long MAX_PARALLEL_ENTRY_SIZE = 4 * 1024 * 1024;
+    private static final long MAX_PENDING_BYTES = 64 * 1024 * 1024;
+
     private final File zipFile;
     private final ZipCompressor compressor;
     private final DocumentationRegistry documentationRegistry;
     private final String encoding;
     private final boolean preserveFileTimestamps;
+    private final boolean storeCompressedFiles;
+    private final ExecutorFactory executorFactory;
+    private final WorkerLeaseRegistry.WorkerLease parentWorkerLease;
+    private final int compressionThreads;
+    private final boolean reuseUnchangedEntries;
 
     public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding, boolean preserveFileTimestamps) {
+        this(zipFile, compressor, documentationRegistry, encoding, preserveFileTimestamps, false, null, null, 1, false);
+    }
+
+    /**
+     * @param storeCompressedFiles whether files that are already compressed, such as jars and images, are stored without compressing them again.
+     * @param executorFactory used to compress entries on {@code compressionThreads} threads, or null to compress them on the calling thread.
+     * @param parentWorkerLease the lease of the calling thread, from which each compression takes a child lease, or null to compress entries on the calling thread.
+     * @param reuseUnchangedEntries whether the compressed content of entries that did not change is copied from the existing archive, if any.
+     */
+    public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding, boolean preserveFileTimestamps,
+                         boolean storeCompressedFiles, @Nullable ExecutorFactory executorFactory, @Nullable WorkerLeaseRegistry.WorkerLease parentWorkerLease,
+                         int compressionThreads, boolean reuseUnchangedEntries) {
         this.zipFile = zipFile;
         this.compressor = compressor;
         this.documentationRegistry = documentationRegistry;
         this.encoding = encoding;
         this.preserveFileTimestamps = preserveFileTimestamps;
+        this.storeCompressedFiles = storeCompressedFiles;
+        this.executorFactory = executorFactory;
+        this.parentWorkerLease = parentWorkerLease;
+        this.compressionThreads = compressionThreads;
+        this.reuseUnchangedEntries = reuseUnchangedEntries;
     }
 
     @Override
     public WorkResult execute(final CopyActionProcessingStream stream) {
+        boolean parallel = executorFactory != null && parentWorkerLease != null && compressionThreads > 1;
+        if ((parallel || reuseUnchangedEntries) && compressor instanceof DefaultZipCompressor) {
+            return executeWithRawEntries(stream, (DefaultZipCompressor) compressor, parallel);
+        }
+
         final ZipOutputStream zipOutStr;
 
         try {
@@ -89,15 +165,69 @@ public void execute(ZipOutputStream outputStream) {
             });
         } catch (UncheckedIOException e) {
             if (e.getCause() instanceof Zip64RequiredException) {
-                throw new org.gradle.api.tasks.bundling.internal.Zip64RequiredException(
-                        String.format("%s\n\nTo build this archive, please enable the zip64 extension.\nSee: %s", e.getCause().getMessage(), documentationRegistry.getDslRefForProperty(Zip.class, "zip64"))
-                );
+                throw zip64Required(e.getCause());
+            }
+        }
+
+        return WorkResults.didWork(true);
+    }
+
+    private WorkResult executeWithRawEntries(final CopyActionProcessingStream stream, DefaultZipCompressor zipCompressor, boolean parallel) {
+        PreviousArchive previousArchive = reuseUnchangedEntries ? PreviousArchive.open(zipFile, encoding) : null;
+        final ZipArchiveOutputStream zipOutStr;
+
+        try {
+            zipOutStr = zipCompressor.createRawArchiveOutputStream(zipFile);
+        } catch (Exception e) {
+            IoActions.closeQuietly(previousArchive);
+            throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
+        }
+
+        ManagedExecutor executor = parallel ? executorFactory.create("Compress ZIP entries", compressionThreads) : null;
+        try {
+            IoActions.withResource(zipOutStr, new Action<ZipArchiveOutputStream>() {
+                @Override
+                public void execute(ZipArchiveOutputStream outputStream) {
+                    Executor compressionExecutor = executor != null ? executor : MoreExecutors.directExecutor();
+                    WorkerLeaseRegistry.WorkerLease workerLease = executor != null ? parentWorkerLease : null;
+                    RawStreamAction action = new RawStreamAction(outputStream, zipCompressor.getEntryCompressionMethod(), compressionExecutor, workerLease, previousArchive);
+                    stream.process(action);
+                    action.finish();
+                }
+            });
+        } catch (RuntimeException e) {
+            // Unlike the ant stream, the entry size is checked as each entry is added, so the failure may be wrapped by the failure to add the entry
+            for (Throwable cause : Throwables.getCausalChain(e)) {
+                if (cause instanceof org.apache.commons.compress.archivers.zip.Zip64RequiredException) {
+                    throw zip64Required(cause);
+                }
             }
+            throw e;
+        } finally {
+            if (executor != null) {
+                executor.stop();
+            }
+            IoActions.closeQuietly(previousArchive);
         }
 
         return WorkResults.didWork(true);
     }
 
+    private org.gradle.api.tasks.bundling.internal.Zip64RequiredException zip64Required(Throwable cause) {
+        return new org.gradle.api.tasks.bundling.internal.Zip64RequiredException(
+            String.format("%s\n\nTo build this archive, please enable the zip64 extension.\nSee: %s", cause.getMessage(), documentationRegistry.getDslRefForProperty(Zip.class, "zip64"))
+        );
+    }
+
+    private boolean shouldStore(FileCopyDetails fileDetails) {
+        if (!storeCompressedFiles) {
+            return false;
+        }
+        String name = fileDetails.getName();
+        int extensionStart = name.lastIndexOf('.');
+        return extensionStart >= 0 && COMPRESSED_FILE_EXTENSIONS.contains(name.substring(extensionStart + 1).toLowerCase(Locale.ROOT));
+    }
+
     private class StreamAction implements CopyActionProcessingStreamAction {
         private final ZipOutputStream zipOutStr;
 
@@ -122,6 +252,9 @@ private void visitFile(FileCopyDetails fileDetails) {
                 ZipEntry archiveEntry = new ZipEntry(fileDetails.getRelativePath().getPathString());
                 archiveEntry.setTime(getArchiveTimeFor(fileDetails));
                 archiveEntry.setUnixMode(UnixStat.FILE_FLAG | fileDetails.getMode());
+                if (zipOutStr.isSeekable() && shouldStore(fileDetails)) {
+                    archiveEntry.setMethod(ZipEntry.STORED);
+                }
                 zipOutStr.putNextEntry(archiveEntry);
                 fileDetails.copyTo(zipOutStr);
                 zipOutStr.closeEntry();
@@ -144,6 +277,251 @@ private void visitDir(FileCopyDetails dirDetails) {
         }
     }
 
+    /**
+     * Compresses the content of entries using the given executor, possibly on multiple threads, and adds the compressed entries to the archive
+     * in the order they were received, so the archive is the same regardless of how the work was scheduled.
+     */
+    private class RawStreamAction implements CopyActionProcessingStreamAction {
+        private final ZipArchiveOutputStream zipOutStr;
+        private final int compressionMethod;
+        private final Executor executor;
+        private final WorkerLeaseRegistry.WorkerLease workerLease;
+        private final PreviousArchive previousArchive;
+        private final Deque<PendingEntry> pendingEntries = new ArrayDeque<>();
+        private long pendingBytes;
+
+        RawStreamAction(ZipArchiveOutputStream zipOutStr, int compressionMethod, Executor executor, @Nullable WorkerLeaseRegistry.WorkerLease workerLease,
+                        @Nullable PreviousArchive previousArchive) {
+            this.zipOutStr = zipOutStr;
+            this.compressionMethod = compressionMethod;
+            this.executor = executor;
+            this.workerLease = workerLease;
+            this.previousArchive = previousArchive;
+            if (encoding != null) {
+                this.zipOutStr.setEncoding(encoding);
+            }
+        }
+
+        @Override
+        public void processFile(FileCopyDetailsInternal details) {
+            if (details.isDirectory()) {
+                visitDir(details);
+            } else {
+                visitFile(details);
+            }
+        }
+
+        private void visitFile(FileCopyDetails fileDetails) {
+            ZipArchiveEntry archiveEntry = new ZipArchiveEntry(fileDetails.getRelativePath().getPathString());
+            archiveEntry.setTime(getArchiveTimeFor(fileDetails));
+            archiveEntry.setUnixMode(UnixStat.FILE_FLAG | fileDetails.getMode());
+            int method = shouldStore(fileDetails) ? ZipArchiveEntry.STORED : compressionMethod;
+            boolean streamed = fileDetails.getSize() > MAX_PARALLEL_ENTRY_SIZE;
+            if (streamed) {
+                writePendingEntries(0);
+            }
+            try {
+                if (streamed) {
+                    archiveEntry.setMethod(method);
+                    zipOutStr.putArchiveEntry(archiveEntry);
+                    fileDetails.copyTo(zipOutStr);
+                    zipOutStr.closeArchiveEntry();
+                    return;
+                }
+                // Read the content on this thread, as the details may only be valid until this method returns
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                fileDetails.copyTo(content);
+                byte[] bytes = content.toByteArray();
+                CompletableFuture<byte[]> compressed = CompletableFuture.supplyAsync(() -> compressWithLease(archiveEntry, bytes, method), executor);
+                add(new PendingEntry(fileDetails, archiveEntry, compressed), bytes.length);
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", fileDetails, zipFile), e);
+            }
+        }
+
+        private void visitDir(FileCopyDetails dirDetails) {
+            // Trailing slash in name indicates that entry is a directory
+            ZipArchiveEntry archiveEntry = new ZipArchiveEntry(dirDetails.getRelativePath().getPathString() + '/');
+            archiveEntry.setTime(getArchiveTimeFor(dirDetails));
+            archiveEntry.setUnixMode(UnixStat.DIR_FLAG | dirDetails.getMode());
+            add(new PendingEntry(dirDetails, archiveEntry, CompletableFuture.completedFuture(compress(archiveEntry, new byte[0], ZipArchiveEntry.STORED, null))), 0);
+        }
+
+        private byte[] compressWithLease(ZipArchiveEntry archiveEntry, byte[] content, int method) {
+            if (workerLease == null) {
+                return compress(archiveEntry, content, method, previousArchive);
+            }
+            WorkerLeaseRegistry.WorkerLeaseCompletion lease = workerLease.startChild();
+            try {
+                return compress(archiveEntry, content, method, previousArchive);
+            } finally {
+                lease.leaseFinish();
+            }
+        }
+
+        private void add(PendingEntry entry, long size) {
+            pendingEntries.add(entry);
+            pendingBytes += size;
+            writePendingEntries(compressionThreads * 4);
+        }
+
+        void finish() {
+            writePendingEntries(0);
+        }
+
+        /**
+         * Writes completed entries in order, until at most the given number of entries and {@link #MAX_PENDING_BYTES} are pending.
+         */
+        private void writePendingEntries(int maxPendingEntries) {
+            while (!pendingEntries.isEmpty() && (pendingEntries.size() > maxPendingEntries || pendingBytes > MAX_PENDING_BYTES)) {
+                PendingEntry entry = pendingEntries.removeFirst();
+                try {
+                    byte[] data = entry.data.get();
+                    pendingBytes -= entry.archiveEntry.getSize();
+                    zipOutStr.addRawArchiveEntry(entry.archiveEntry, new ByteArrayInputStream(data));
+                } catch (ExecutionException e) {
+                    throw new GradleException(String.format("Could not add %s to ZIP '%s'.", entry.details, zipFile), e.getCause());
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    private static byte[] compress(ZipArchiveEntry archiveEntry, byte[] content, int method, @Nullable PreviousArchive previousArchive) {
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length);
+        archiveEntry.setMethod(method);
+        archiveEntry.setSize(content.length);
+        archiveEntry.setCrc(crc.getValue());
+        if (method == ZipArchiveEntry.STORED) {
+            archiveEntry.setCompressedSize(content.length);
+            return content;
+        }
+        if (previousArchive != null) {
+            byte[] reused = previousArchive.findCompressedContent(archiveEntry, content);
+            if (reused != null) {
+                archiveEntry.setCompressedSize(reused.length);
+                return reused;
+            }
+        }
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2 + 64);
+            DeflaterOutputStream deflaterStream = new DeflaterOutputStream(compressed, deflater);
+            deflaterStream.write(content);
+            deflaterStream.finish();
+            archiveEntry.setCompressedSize(compressed.size());
+            return compressed.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * The archive built by a previous execution, moved aside so that the compressed content of entries that did not change can be copied from it.
+     * An entry is only reused once its previous content was inflated and found to be the same as the new content, so a reused entry always holds the
+     * new content. The compressed bytes are not guaranteed to be the same as when building the archive from scratch, for example when the previous
+     * archive was built with another deflater implementation.
+     */
+    private static class PreviousArchive implements Closeable {
+        private final File file;
+        private final ZipFile zip;
+
+        private PreviousArchive(File file, ZipFile zip) {
+            this.file = file;
+            this.zip = zip;
+        }
+
+        @Nullable
+        static PreviousArchive open(File zipFile, @Nullable String encoding) {
+            if (!zipFile.isFile()) {
+                return null;
+            }
+            File previousFile = new File(zipFile.getParentFile(), zipFile.getName() + ".previous");
+            try {
+                Files.move(zipFile.toPath(), previousFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                return new PreviousArchive(previousFile, new ZipFile(previousFile, encoding));
+            } catch (IOException e) {
+                LOGGER.debug("Could not reuse the entries of ZIP '{}', building it from scratch.", zipFile, e);
+                GFileUtils.deleteQuietly(previousFile);
+                return null;
+            }
+        }
+
+        /**
+         * Returns the compressed content of the entry with the same name, method and uncompressed content, or null if there is no such entry.
+         * The name, method, CRC and size are only used to skip entries that cannot match, the content itself is always compared.
+         */
+        @Nullable
+        byte[] findCompressedContent(ZipArchiveEntry archiveEntry, byte[] content) {
+            ZipArchiveEntry previousEntry = zip.getEntry(archiveEntry.getName());
+            if (previousEntry == null
+                || previousEntry.getMethod() != archiveEntry.getMethod()
+                || previousEntry.getCrc() != archiveEntry.getCrc()
+                || previousEntry.getSize() != archiveEntry.getSize()
+                || !zip.canReadEntryData(previousEntry)) {
+                return null;
+            }
+            try {
+                try (InputStream inputStream = zip.getInputStream(previousEntry)) {
+                    if (!hasContent(inputStream, content)) {
+                        return null;
+                    }
+                }
+                try (InputStream inputStream = zip.getRawInputStream(previousEntry)) {
+                    return inputStream == null ? null : ByteStreams.toByteArray(inputStream);
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Could not read entry '{}' of the previous ZIP '{}', compressing it again.", archiveEntry.getName(), file, e);
+                return null;
+            }
+        }
+
+        private static boolean hasContent(InputStream inputStream, byte[] content) throws IOException {
+            byte[] buffer = new byte[8192];
+            int offset = 0;
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                if (offset + read > content.length) {
+                    return false;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != content[offset + i]) {
+                        return false;
+                    }
+                }
+                offset += read;
+            }
+            return offset == content.length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                zip.close();
+            } finally {
+                GFileUtils.deleteQuietly(file);
+            }
+        }
+    }
+
+    private static class PendingEntry {
+        private final FileCopyDetails details;
+        private final ZipArchiveEntry archiveEntry;
+        private final CompletableFuture<byte[]> data;
+
+        PendingEntry(FileCopyDetails details, ZipArchiveEntry archiveEntry, CompletableFuture<byte[]> data) {
+            this.details = details;
+            this.archiveEntry = archiveEntry;
+            this.data = data;
+        }
+    }
+
     private long getArchiveTimeFor(FileCopyDetails details) {
         return preserveFileTimestamps ? details.getLastModified() : CONSTANT_TIME_FOR_ZIP_ENTRIES;
     }
@@ -15,6 +15,8 @@
  */
 package org.gradle.api.internal.file.archive;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import org.apache.tools.zip.ZipEntry;
 import org.apache.tools.zip.ZipFile;
 import org.gradle.api.GradleException;
@@ -28,18 +30,29 @@
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.internal.file.Chmod;
 import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.util.GFileUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
 
 public class ZipFileTree extends AbstractArchiveFileTree {
+    /**
+     * Expanded directories of other versions of the archive at the same location that have not been used for this long are removed when a new version is expanded.
+     */
+    private static final long MAX_UNUSED_EXPANDED_DIR_AGE = TimeUnit.HOURS.toMillis(1);
+
     private final File zipFile;
     private final File tmpDir;
     private final Chmod chmod;
@@ -82,7 +95,8 @@ public void visit(FileVisitor visitor) {
 
         try {
             ZipFile zip = new ZipFile(zipFile);
-            File expandedDir = getExpandedDir();
+            // Only hash the archive and set up the expanded directory when an entry is actually extracted
+            Supplier<File> expandedDir = Suppliers.memoize(this::useExpandedDir);
             try {
                 // The iteration order of zip.getEntries() is based on the hash of the zip entry. This isn't much use
                 // to us. So, collect the entries in a map and iterate over them in alphabetical order.
@@ -115,19 +129,55 @@ public File getBackingFile() {
     }
 
     private File getExpandedDir() {
-        String expandedDirName = zipFile.getName() + "_" + fileHasher.hash(zipFile);
+        String expandedDirName = getExpandedDirPrefix() + fileHasher.hash(zipFile);
         return new File(tmpDir, expandedDirName);
     }
 
+    /**
+     * Returns the start of the name of the expanded directories of this archive, which is followed by the hash of the content of the archive.
+     * The prefix includes a hash of the location of the archive, so archives with the same name in different locations never share expanded directories.
+     */
+    private String getExpandedDirPrefix() {
+        return zipFile.getName() + "_" + Hashing.hashString(zipFile.getAbsolutePath()) + "_";
+    }
+
+    private File useExpandedDir() {
+        File expandedDir = getExpandedDir();
+        if (expandedDir.isDirectory()) {
+            expandedDir.setLastModified(System.currentTimeMillis());
+        } else {
+            GFileUtils.mkdirs(expandedDir);
+            removeUnusedExpandedDirs(expandedDir);
+        }
+        return expandedDir;
+    }
+
+    private void removeUnusedExpandedDirs(File currentExpandedDir) {
+        File[] expandedDirs = tmpDir.listFiles();
+        if (expandedDirs == null) {
+            return;
+        }
+        long removeUnusedBefore = System.currentTimeMillis() - MAX_UNUSED_EXPANDED_DIR_AGE;
+        Pattern otherVersionName = Pattern.compile(Pattern.quote(getExpandedDirPrefix()) + "[0-9a-f]+");
+        for (File expandedDir : expandedDirs) {
+            if (!expandedDir.equals(currentExpandedDir)
+                && otherVersionName.matcher(expandedDir.getName()).matches()
+                && expandedDir.isDirectory()
+                && expandedDir.lastModified() < removeUnusedBefore) {
+                GFileUtils.deleteQuietly(expandedDir);
+            }
+        }
+    }
+
     private static class DetailsImpl extends AbstractFileTreeElement implements FileVisitDetails {
         private final File originalFile;
-        private final File expandedDir;
+        private final Supplier<File> expandedDir;
         private final ZipEntry entry;
         private final ZipFile zip;
         private final AtomicBoolean stopFlag;
         private File file;
 
-        public DetailsImpl(File originalFile, File expandedDir, ZipEntry entry, ZipFile zip, AtomicBoolean stopFlag, Chmod chmod) {
+        public DetailsImpl(File originalFile, Supplier<File> expandedDir, ZipEntry entry, ZipFile zip, AtomicBoolean stopFlag, Chmod chmod) {
             super(chmod);
             this.originalFile = originalFile;
             this.expandedDir = expandedDir;
@@ -149,14 +199,36 @@ public void stopVisiting() {
         @Override
         public File getFile() {
             if (file == null) {
-                file = new File(expandedDir, entry.getName());
+                file = new File(expandedDir.get(), entry.getName());
                 if (!file.exists()) {
-                    copyTo(file);
+                    extractTo(file);
                 }
             }
             return file;
         }
 
+        private void extractTo(File target) {
+            if (entry.isDirectory()) {
+                copyTo(target);
+                return;
+            }
+            // Extract to a temporary file first, so that a partially extracted file is never picked up by a later visit
+            File parentDir = target.getParentFile();
+            GFileUtils.mkdirs(parentDir);
+            File tmpFile = null;
+            try {
+                tmpFile = File.createTempFile("." + target.getName() + ".", ".tmp", parentDir);
+                copyTo(tmpFile);
+                Files.move(tmpFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                if (tmpFile != null) {
+                    GFileUtils.deleteQuietly(tmpFile);
+                }
+            }
+        }
+
         @Override
         public long getLastModified() {
             return entry.getTime();
@@ -23,6 +23,7 @@
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
+import org.gradle.api.internal.file.DefaultFileTreeElement;
 import org.gradle.internal.file.Chmod;
 
 import javax.annotation.Nullable;
@@ -128,6 +129,13 @@ public boolean copyTo(File target) {
         }
     }
 
+    /**
+     * Returns true when this is a file that is copied as is from a file on disk, so it can still be copied after the visit has moved on.
+     */
+    public boolean isUnfilteredFile() {
+        return !filterChain.hasFilters() && !fileDetails.isDirectory() && fileDetails instanceof DefaultFileTreeElement;
+    }
+
     private void adaptPermissions(File target) {
         int specMode = getMode();
         getChmod().chmod(target, specMode);
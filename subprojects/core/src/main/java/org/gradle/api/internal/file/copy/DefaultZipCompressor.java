@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.file.copy;
 
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.tools.zip.Zip64Mode;
 import org.apache.tools.zip.ZipOutputStream;
 import org.gradle.api.UncheckedIOException;
@@ -25,10 +26,12 @@
 
 public class DefaultZipCompressor implements ZipCompressor {
     private final int entryCompressionMethod;
+    private final boolean allowZip64Mode;
     private final Zip64Mode zip64Mode;
 
     public DefaultZipCompressor(boolean allowZip64Mode, int entryCompressionMethod) {
         this.entryCompressionMethod = entryCompressionMethod;
+        this.allowZip64Mode = allowZip64Mode;
         zip64Mode = allowZip64Mode ? Zip64Mode.AsNeeded : Zip64Mode.Never;
     }
 
@@ -46,4 +49,17 @@ public ZipOutputStream createArchiveOutputStream(File destination) throws IOExce
         }
     }
 
+    /**
+     * Creates a stream that entries, whose content has been compressed up front, can be added to using {@link ZipArchiveOutputStream#addRawArchiveEntry}.
+     */
+    public ZipArchiveOutputStream createRawArchiveOutputStream(File destination) throws IOException {
+        ZipArchiveOutputStream outStream = new ZipArchiveOutputStream(destination);
+        outStream.setUseZip64(allowZip64Mode ? org.apache.commons.compress.archivers.zip.Zip64Mode.AsNeeded : org.apache.commons.compress.archivers.zip.Zip64Mode.Never);
+        outStream.setMethod(entryCompressionMethod);
+        return outStream;
+    }
+
+    public int getEntryCompressionMethod() {
+        return entryCompressionMethod;
+    }
 }
@@ -19,21 +19,57 @@
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.WorkResults;
 import org.gradle.internal.FileUtils;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.file.PathToFileResolver;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 public class FileCopyAction implements CopyAction {
+    /**
+     * When set, Copy and Sync tasks copy files on up to max-workers threads.
+     */
+    public static final String PARALLEL_COPY_PROPERTY = "org.gradle.internal.file.parallel-copy";
 
     private final PathToFileResolver fileResolver;
+    private final ExecutorFactory executorFactory;
+    private final int copyThreads;
 
     public FileCopyAction(PathToFileResolver fileResolver) {
+        this(fileResolver, null, 1);
+    }
+
+    /**
+     * @param executorFactory used to copy files on {@code copyThreads} threads, or null to copy them on the calling thread.
+     */
+    public FileCopyAction(PathToFileResolver fileResolver, @Nullable ExecutorFactory executorFactory, int copyThreads) {
         this.fileResolver = fileResolver;
+        this.executorFactory = executorFactory;
+        this.copyThreads = copyThreads;
     }
 
     @Override
     public WorkResult execute(CopyActionProcessingStream stream) {
+        if (executorFactory != null && copyThreads > 1) {
+            ManagedExecutor executor = executorFactory.create("Copy files", copyThreads);
+            try {
+                ParallelFileCopyDetailsInternalAction action = new ParallelFileCopyDetailsInternalAction(executor);
+                stream.process(action);
+                action.waitForCopies(0);
+                return WorkResults.didWork(action.didWork || action.copyOnThisThread.didWork);
+            } finally {
+                executor.stop();
+            }
+        }
         FileCopyDetailsInternalAction action = new FileCopyDetailsInternalAction();
         stream.process(action);
         return WorkResults.didWork(action.didWork);
@@ -61,4 +97,64 @@ private void renameIfCaseChanged(File target) {
             }
         }
     }
+
+    /**
+     * Copies plain files on the given executor, while directories and files that need to be read during the visit, such as filtered files
+     * or archive entries, are still copied on the calling thread. Copies to the same target happen in the order they were received.
+     */
+    private class ParallelFileCopyDetailsInternalAction implements CopyActionProcessingStreamAction {
+        private final FileCopyDetailsInternalAction copyOnThisThread = new FileCopyDetailsInternalAction();
+        private final ManagedExecutor executor;
+        private final Deque<CompletableFuture<Boolean>> pendingCopies = new ArrayDeque<>();
+        private final Map<File, CompletableFuture<Boolean>> pendingCopiesByTarget = new HashMap<>();
+        private boolean didWork;
+
+        ParallelFileCopyDetailsInternalAction(ManagedExecutor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void processFile(FileCopyDetailsInternal details) {
+            File target = fileResolver.resolve(details.getRelativePath().getPathString());
+            CompletableFuture<Boolean> previousCopy = pendingCopiesByTarget.get(target);
+            if (previousCopy != null) {
+                waitFor(previousCopy);
+            }
+            if (!(details instanceof DefaultFileCopyDetails) || !((DefaultFileCopyDetails) details).isUnfilteredFile()) {
+                copyOnThisThread.processFile(details);
+                return;
+            }
+            copyOnThisThread.renameIfCaseChanged(target);
+            CompletableFuture<Boolean> copy = CompletableFuture.supplyAsync(() -> details.copyTo(target), executor);
+            pendingCopies.add(copy);
+            pendingCopiesByTarget.put(target, copy);
+            waitForCopies(copyThreads * 16);
+        }
+
+        /**
+         * Waits for the oldest copies to complete, until at most the given number of copies is pending.
+         */
+        void waitForCopies(int maxPendingCopies) {
+            while (pendingCopies.size() > maxPendingCopies) {
+                waitFor(pendingCopies.removeFirst());
+            }
+            if (pendingCopies.isEmpty()) {
+                pendingCopiesByTarget.clear();
+            } else {
+                pendingCopiesByTarget.values().removeIf(CompletableFuture::isDone);
+            }
+        }
+
+        private void waitFor(CompletableFuture<Boolean> copy) {
+            try {
+                if (copy.get()) {
+                    didWork = true;
+                }
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
 }
@@ -431,6 +431,7 @@ public ProjectIdentifier getParentIdentifier() {
 
     @Override
     public DynamicObject getAsDynamicObject() {
+        ParallelProjectConfiguration.beforeAccessTo(this);
         return extensibleDynamicObject;
     }
 
@@ -547,6 +548,7 @@ public RepositoryHandler getRepositories() {
 
     @Override
     public ConfigurationContainer getConfigurations() {
+        ParallelProjectConfiguration.beforeAccessTo(this);
         if (configurationContainer == null) {
             configurationContainer = services.get(ConfigurationContainer.class);
         }
@@ -559,6 +561,7 @@ public void setConfigurationContainer(ConfigurationContainer configurationContai
 
     @Override
     public Convention getConvention() {
+        ParallelProjectConfiguration.beforeAccessTo(this);
         return extensibleDynamicObject.getConvention();
     }
 
@@ -658,11 +661,13 @@ public ProjectInternal findProject(String path) {
 
     @Override
     public Set<Project> getAllprojects() {
+        ParallelProjectConfiguration.beforeCrossProjectAccess(null);
         return new TreeSet<Project>(getProjectRegistry().getAllProjects(getPath()));
     }
 
     @Override
     public Set<Project> getSubprojects() {
+        ParallelProjectConfiguration.beforeCrossProjectAccess(null);
         return new TreeSet<Project>(getProjectRegistry().getSubProjects(getPath()));
     }
 
@@ -723,6 +728,7 @@ public ProjectInternal bindAllModelRules() {
 
     @Override
     public TaskContainerInternal getTasks() {
+        ParallelProjectConfiguration.beforeAccessTo(this);
         return taskContainer;
     }
 
@@ -783,6 +789,7 @@ public Project evaluationDependsOn(String path) {
     }
 
     private Project evaluationDependsOn(DefaultProject projectToEvaluate) {
+        ParallelProjectConfiguration.beforeEvaluationDependsOn(projectToEvaluate.getMutationState());
         if (projectToEvaluate.getState().isConfiguring()) {
             throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
                 projectToEvaluate));
@@ -989,6 +996,7 @@ public Factory<AntBuilder> getAntBuilderFactory() {
 
     @Override
     public DependencyHandler getDependencies() {
+        ParallelProjectConfiguration.beforeAccessTo(this);
         if (dependencyHandler == null) {
             dependencyHandler = services.get(DependencyHandler.class);
         }
@@ -1070,7 +1078,7 @@ public SoftwareComponentContainer getComponents() {
 
     @Override
     public Object property(String propertyName) throws MissingPropertyException {
-        return extensibleDynamicObject.getProperty(propertyName);
+        return getAsDynamicObject().getProperty(propertyName);
     }
 
     @Override
@@ -1080,12 +1088,12 @@ public Object findProperty(String propertyName) {
 
     @Override
     public void setProperty(String name, Object value) {
-        extensibleDynamicObject.setProperty(name, value);
+        getAsDynamicObject().setProperty(name, value);
     }
 
     @Override
     public boolean hasProperty(String propertyName) {
-        return extensibleDynamicObject.hasProperty(propertyName);
+        return getAsDynamicObject().hasProperty(propertyName);
     }
 
     @Override
@@ -1093,7 +1101,7 @@ public boolean hasProperty(String propertyName) {
         return DeprecationLogger.whileDisabled(new Factory<Map<String, ?>>() {
             @Override
             public Map<String, ?> create() {
-                return extensibleDynamicObject.getProperties();
+                return getAsDynamicObject().getProperties();
             }
         });
     }
@@ -144,6 +144,23 @@ public <T> T withMutableStateOfAllProjects(Factory<T> factory) {
         }
     }
 
+    @Override
+    public void withoutMutableStateOfAllProjects(Runnable runnable) {
+        Thread currentThread = Thread.currentThread();
+        if (!ownerOfAllProjects.compareAndSet(currentThread, null)) {
+            // Do not own all the projects
+            runnable.run();
+            return;
+        }
+        try {
+            runnable.run();
+        } finally {
+            if (!ownerOfAllProjects.compareAndSet(null, currentThread)) {
+                throw new IllegalStateException(String.format("Another thread (%s) currently holds the state lock for all projects.", ownerOfAllProjects));
+            }
+        }
+    }
+
     @Override
     public void allowUncontrolledAccessToAnyProject(Runnable runnable) {
         allowUncontrolledAccessToAnyProject(Factories.toFactory(runnable));
@@ -252,6 +269,7 @@ public void applyToMutableState(Consumer<? super ProjectInternal> action) {
 
         @Override
         public <S> S fromMutableState(Function<? super ProjectInternal, ? extends S> function) {
+            ParallelProjectConfiguration.beforeCrossProjectAccess(this);
             Thread currentThread = Thread.currentThread();
             if (canDoAnythingToAnyProject.contains(currentThread) || canDoAnythingToThisProject.contains(currentThread)) {
                 // Current thread is allowed to access anything at any time, so run the function
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project;
+
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.resources.ProjectLeaseRegistry;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Coordinates the configuration of a set of projects on multiple threads, for the opt-in parallel configuration mode. Also used to resolve the
+ * dependencies of the tasks of different projects in parallel.
+ *
+ * <p>Each project is configured while holding its project lock, once its parent project has been configured. When the configuration of a project
+ * accesses another project, the rest of that configuration falls back to serial configuration: the thread waits until every other project is either
+ * configured or itself waiting to access another project, and then continues on its own. Waiting threads release their project lock, so the thread
+ * that continues can access any project.</p>
+ *
+ * <p>The following are detected as cross-project access: locking the state of another project, for example to cross-configure it with
+ * {@code allprojects {}}, {@code subprojects {}} or {@code project(path) {}}, or to resolve a dependency on it; querying
+ * {@link Project#getAllprojects()} or {@link Project#getSubprojects()}; {@link Project#evaluationDependsOn(String)}; looking up a task of another
+ * project by name or realizing it through its provider; and using the mutable state of another project, that is its properties, extensions, tasks,
+ * configurations or dependencies. The latter covers project objects obtained from {@link Project#project(String)}, {@link Project#getParent()} or
+ * {@link Project#getRootProject()}, so that, for example, writing {@code rootProject.ext} from a subproject continues serially. Reading the properties
+ * that a project inherits from its parent is not detected, as the parent is always configured before its children, and any thread that writes to it
+ * first waits for the other projects.</p>
+ */
+public class ParallelProjectConfiguration {
+    /**
+     * When set to true and parallel project execution is enabled, the subprojects of a build are configured in parallel.
+     */
+    public static final String PARALLEL_CONFIGURATION_PROPERTY = "org.gradle.internal.project.parallel-configuration";
+
+    private static final Logger LOGGER = Logging.getLogger(ParallelProjectConfiguration.class);
+    private static final ThreadLocal<ProjectConfiguration> CURRENT = new ThreadLocal<>();
+
+    private final ProjectLeaseRegistry projectLeaseRegistry;
+    private final Object lock = new Object();
+    private final Set<ProjectState> pending = new HashSet<>();
+    private final Map<ProjectState, Thread> configuring = new HashMap<>();
+    private final Map<Thread, ProjectState> waitingForProject = new HashMap<>();
+    private int running;
+    private int waitingForExclusiveAccess;
+    private Thread exclusiveOwner;
+
+    public ParallelProjectConfiguration(ProjectLeaseRegistry projectLeaseRegistry, Iterable<? extends Project> projects) {
+        this.projectLeaseRegistry = projectLeaseRegistry;
+        for (Project project : projects) {
+            pending.add(((ProjectInternal) project).getMutationState());
+        }
+    }
+
+    public static boolean isEnabled(ProjectInternal project) {
+        // Without parallel project execution, all projects of a build share the same lock
+        return Boolean.getBoolean(PARALLEL_CONFIGURATION_PROPERTY) && project.getGradle().getStartParameter().isParallelProjectExecutionEnabled();
+    }
+
+    /**
+     * Runs the given action on the current thread while holding the lock of the given project, once its parent project is configured.
+     */
+    public void configure(ProjectInternal project, Runnable configureAction) {
+        ProjectState state = project.getMutationState();
+        ProjectState parent = state.getParent();
+        Thread currentThread = Thread.currentThread();
+        synchronized (lock) {
+            while (exclusiveOwner != null || waitingForExclusiveAccess > 0 || (parent != null && pending.contains(parent))) {
+                waitForStateChange();
+            }
+            configuring.put(state, currentThread);
+            running++;
+        }
+        try {
+            state.applyToMutableState(p -> {
+                CURRENT.set(new ProjectConfiguration(this, state));
+                try {
+                    configureAction.run();
+                } finally {
+                    CURRENT.remove();
+                }
+            });
+        } finally {
+            synchronized (lock) {
+                pending.remove(state);
+                configuring.remove(state);
+                running--;
+                if (exclusiveOwner == currentThread) {
+                    exclusiveOwner = null;
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Called before the current thread accesses the given project, or some other projects when null. Blocks until the current thread can access
+     * other projects, when it is configuring a project in parallel with others.
+     */
+    public static void beforeCrossProjectAccess(@Nullable ProjectState target) {
+        ProjectConfiguration current = CURRENT.get();
+        if (current == null || current.exclusive || current.state == target) {
+            return;
+        }
+        current.owner.acquireExclusiveAccess(current, target);
+    }
+
+    /**
+     * Same as {@link #beforeCrossProjectAccess(ProjectState)}, for code that has the project object rather than its state. Called by the accessors
+     * of the mutable state of a project, so this does nothing unless the current thread is configuring a project in parallel with others.
+     */
+    public static void beforeAccessTo(ProjectInternal target) {
+        if (CURRENT.get() != null) {
+            beforeCrossProjectAccess(target.getMutationState());
+        }
+    }
+
+    /**
+     * Called before the current thread configures the given project on behalf of another. Also waits for any other thread that is configuring
+     * that project, unless that thread is waiting for the current one.
+     */
+    public static void beforeEvaluationDependsOn(ProjectState target) {
+        ProjectConfiguration current = CURRENT.get();
+        if (current == null || current.state == target) {
+            return;
+        }
+        beforeCrossProjectAccess(target);
+        current.owner.waitForConfiguration(target);
+    }
+
+    private void acquireExclusiveAccess(ProjectConfiguration current, @Nullable ProjectState target) {
+        LOGGER.info("Work for {} accesses {}, continuing serially.", current.state, target == null ? "other projects" : target);
+        Thread currentThread = Thread.currentThread();
+        projectLeaseRegistry.withoutProjectLock(() -> {
+            synchronized (lock) {
+                running--;
+                lock.notifyAll();
+                waitForExclusiveAccess(currentThread);
+            }
+        });
+        current.exclusive = true;
+    }
+
+    private void waitForConfiguration(ProjectState target) {
+        Thread currentThread = Thread.currentThread();
+        synchronized (lock) {
+            if (!configuring.containsKey(target) || isWaitingFor(target, currentThread)) {
+                // Either the project can be configured by the current thread, or this is a circular reference that the caller reports
+                return;
+            }
+        }
+        projectLeaseRegistry.withoutProjectLock(() -> {
+            synchronized (lock) {
+                exclusiveOwner = null;
+                running--;
+                waitingForProject.put(currentThread, target);
+                lock.notifyAll();
+                while (configuring.containsKey(target)) {
+                    waitForStateChange();
+                }
+                waitingForProject.remove(currentThread);
+                waitForExclusiveAccess(currentThread);
+            }
+        });
+    }
+
+    private void waitForExclusiveAccess(Thread currentThread) {
+        waitingForExclusiveAccess++;
+        while (exclusiveOwner != null || running > 0) {
+            waitForStateChange();
+        }
+        waitingForExclusiveAccess--;
+        exclusiveOwner = currentThread;
+        running++;
+    }
+
+    /**
+     * Returns true when the thread configuring the given project is waiting, directly or through other threads, for the given thread.
+     */
+    private boolean isWaitingFor(ProjectState project, Thread thread) {
+        Thread owner = configuring.get(project);
+        while (owner != null) {
+            if (owner == thread) {
+                return true;
+            }
+            ProjectState awaited = waitingForProject.get(owner);
+            owner = awaited == null ? null : configuring.get(awaited);
+        }
+        return false;
+    }
+
+    private void waitForStateChange() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static class ProjectConfiguration {
+        final ParallelProjectConfiguration owner;
+        final ProjectState state;
+        boolean exclusive;
+
+        ProjectConfiguration(ParallelProjectConfiguration owner, ProjectState state) {
+            this.owner = owner;
+            this.state = state;
+        }
+    }
+}
@@ -79,6 +79,12 @@ public interface ProjectStateRegistry {
      */
     <T> T withMutableStateOfAllProjects(Factory<T> factory);
 
+    /**
+     * Runs the given action without the lock for all projects, when the current thread holds it, so that other threads can lock individual projects while the action is running.
+     * The lock is reacquired once the action completes.
+     */
+    void withoutMutableStateOfAllProjects(Runnable runnable);
+
     /**
      * Allows the given code to access the mutable state of any project, regardless of which other threads may be accessing the project.
      *
@@ -34,6 +34,7 @@
 import org.gradle.api.internal.NamedDomainObjectContainerConfigureDelegate;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.project.CrossProjectConfigurator;
+import org.gradle.api.internal.project.ParallelProjectConfiguration;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.taskfactory.ITaskFactory;
 import org.gradle.api.internal.project.taskfactory.TaskIdentity;
@@ -559,6 +560,7 @@ private boolean maybeCreateTasks(String name) {
 
     @Override
     public Task findByName(String name) {
+        ParallelProjectConfiguration.beforeAccessTo(project);
         Task task = super.findByName(name);
         if (task != null) {
             return task;
@@ -677,6 +679,7 @@ public ValueProducer getProducer() {
 
         @Override
         protected void tryCreate() {
+            ParallelProjectConfiguration.beforeAccessTo(project);
             buildOperationExecutor.run(new RunnableBuildOperation() {
                 @Override
                 public void run(BuildOperationContext context) {
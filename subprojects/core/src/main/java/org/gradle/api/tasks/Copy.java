@@ -16,11 +16,13 @@
 
 package org.gradle.api.tasks;
 
+import org.gradle.StartParameter;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.CopySpecInternal;
 import org.gradle.api.internal.file.copy.DestinationRootCopySpec;
 import org.gradle.api.internal.file.copy.FileCopyAction;
+import org.gradle.internal.concurrent.ExecutorFactory;
 
 import java.io.File;
 
@@ -73,7 +75,8 @@ protected CopyAction createCopyAction() {
         if (destinationDir == null) {
             throw new InvalidUserDataException("No copy destination directory has been specified, use 'into' to specify a target directory.");
         }
-        return new FileCopyAction(getFileLookup().getFileResolver(destinationDir));
+        ExecutorFactory executorFactory = Boolean.getBoolean(FileCopyAction.PARALLEL_COPY_PROPERTY) ? getServices().get(ExecutorFactory.class) : null;
+        return new FileCopyAction(getFileLookup().getFileResolver(destinationDir), executorFactory, getServices().get(StartParameter.class).getMaxWorkerCount());
     }
 
     @Override
@@ -16,6 +16,7 @@
 
 package org.gradle.api.tasks;
 
+import org.gradle.StartParameter;
 import org.gradle.api.Action;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.internal.file.copy.CopyAction;
@@ -25,6 +26,7 @@
 import org.gradle.api.internal.file.copy.SyncCopyActionDecorator;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.file.Deleter;
 
 import javax.inject.Inject;
@@ -73,9 +75,10 @@ protected CopyAction createCopyAction() {
         if (destinationDir == null) {
             throw new InvalidUserDataException("No copy destination directory has been specified, use 'into' to specify a target directory.");
         }
+        ExecutorFactory executorFactory = Boolean.getBoolean(FileCopyAction.PARALLEL_COPY_PROPERTY) ? getServices().get(ExecutorFactory.class) : null;
         return new SyncCopyActionDecorator(
             destinationDir,
-            new FileCopyAction(getFileLookup().getFileResolver(destinationDir)),
+            new FileCopyAction(getFileLookup().getFileResolver(destinationDir), executorFactory, getServices().get(StartParameter.class).getMaxWorkerCount()),
             preserveInDestination,
             getDeleter(),
             getDirectoryFileTreeFactory()
@@ -16,6 +16,8 @@
 package org.gradle.api.tasks.bundling;
 
 import org.apache.tools.zip.ZipOutputStream;
+import org.gradle.StartParameter;
+import org.gradle.api.Incubating;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.file.archive.ZipCopyAction;
@@ -25,6 +27,8 @@
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Optional;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.work.WorkerLeaseRegistry;
 
 import javax.annotation.Nullable;
 import java.nio.charset.Charset;
@@ -39,6 +43,9 @@ public class Zip extends AbstractArchiveTask {
     private ZipEntryCompression entryCompression = ZipEntryCompression.DEFLATED;
     private boolean allowZip64;
     private String metadataCharset;
+    private boolean parallelCompression;
+    private boolean storeCompressedFiles;
+    private boolean reuseUnchangedEntries;
 
     public Zip() {
         getArchiveExtension().set(ZIP_EXTENSION);
@@ -60,7 +67,11 @@ protected ZipCompressor getCompressor() {
     @Override
     protected CopyAction createCopyAction() {
         DocumentationRegistry documentationRegistry = getServices().get(DocumentationRegistry.class);
-        return new ZipCopyAction(getArchiveFile().get().getAsFile(), getCompressor(), documentationRegistry, metadataCharset, isPreserveFileTimestamps());
+        ExecutorFactory executorFactory = parallelCompression ? getServices().get(ExecutorFactory.class) : null;
+        WorkerLeaseRegistry.WorkerLease workerLease = parallelCompression ? getServices().get(WorkerLeaseRegistry.class).getCurrentWorkerLease() : null;
+        int compressionThreads = getServices().get(StartParameter.class).getMaxWorkerCount();
+        return new ZipCopyAction(getArchiveFile().get().getAsFile(), getCompressor(), documentationRegistry, metadataCharset, isPreserveFileTimestamps(),
+            storeCompressedFiles, executorFactory, workerLease, compressionThreads, reuseUnchangedEntries);
     }
 
     /**
@@ -138,4 +149,79 @@ public void setMetadataCharset(String metadataCharset) {
         this.metadataCharset = metadataCharset;
     }
 
+    /**
+     * Whether the entries of the archive are compressed in parallel, using up to {@code --max-workers} threads.
+     * <p>
+     * The entries are still written in the same order, so for a given set of inputs the resulting archive does not depend on the number of threads used.
+     * It is not necessarily byte for byte identical to the archive built with parallel compression disabled, for example when {@link #isZip64()} is set.
+     * Defaults to {@code false}.
+     *
+     * @since 6.8
+     */
+    @Incubating
+    @Input
+    public boolean isParallelCompression() {
+        return parallelCompression;
+    }
+
+    /**
+     * Sets whether the entries of the archive are compressed in parallel.
+     *
+     * @see #isParallelCompression()
+     * @since 6.8
+     */
+    @Incubating
+    public void setParallelCompression(boolean parallelCompression) {
+        this.parallelCompression = parallelCompression;
+    }
+
+    /**
+     * Whether files that are already compressed, such as JARs, archives and images, are stored in the archive without compressing them again.
+     * Defaults to {@code false}.
+     *
+     * @since 6.8
+     */
+    @Incubating
+    @Input
+    public boolean isStoreCompressedFiles() {
+        return storeCompressedFiles;
+    }
+
+    /**
+     * Sets whether files that are already compressed are stored in the archive without compressing them again.
+     *
+     * @see #isStoreCompressedFiles()
+     * @since 6.8
+     */
+    @Incubating
+    public void setStoreCompressedFiles(boolean storeCompressedFiles) {
+        this.storeCompressedFiles = storeCompressedFiles;
+    }
+
+    /**
+     * Whether entries whose content did not change since the archive was last built are copied from the existing archive, instead of being compressed again.
+     * <p>
+     * An entry is only copied once its content in the existing archive was found to be the same as the new content, so the entries of the archive
+     * hold the same content either way. The archive is not necessarily byte for byte identical to an archive built from scratch, for example when the
+     * existing archive was built by another JVM. Defaults to {@code false}.
+     *
+     * @since 6.8
+     */
+    @Incubating
+    @Internal
+    public boolean isReuseUnchangedEntries() {
+        return reuseUnchangedEntries;
+    }
+
+    /**
+     * Sets whether entries whose content did not change since the archive was last built are copied from the existing archive.
+     *
+     * @see #isReuseUnchangedEntries()
+     * @since 6.8
+     */
+    @Incubating
+    public void setReuseUnchangedEntries(boolean reuseUnchangedEntries) {
+        this.reuseUnchangedEntries = reuseUnchangedEntries;
+    }
+
 }
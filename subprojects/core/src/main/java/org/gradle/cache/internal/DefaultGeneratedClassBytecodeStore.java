@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.internal.file.FileAccessTimeJournal;
+import org.gradle.internal.file.impl.SingleDepthFileAccessTracker;
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.instantiation.generator.GeneratedClassBytecodeStore;
+import org.gradle.internal.instantiation.generator.SharedGeneratedClassBytecodeStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup.DEFAULT_MAX_AGE_IN_DAYS_FOR_RECREATABLE_CACHE_ENTRIES;
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Stores the bytecode of generated classes in the Gradle user home, keyed by the name of the generated class and the hash of the class loader hierarchy
+ * of the type it was generated for. Types whose class loader hierarchy cannot be hashed are not stored. Each class is written to its own file, which
+ * is moved into place once complete, so no lock needs to be held to read or write the store. Classes that have not been used for a while are removed
+ * by the cache cleanup.
+ */
+public class DefaultGeneratedClassBytecodeStore implements GeneratedClassBytecodeStore, Closeable {
+    /**
+     * When set to false, decorated classes are generated again by each daemon.
+     */
+    public static final String PERSISTENT_GENERATED_CLASSES_PROPERTY = "org.gradle.internal.instantiation.persistent-generated-classes";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultGeneratedClassBytecodeStore.class);
+    // Change this when the generated bytecode changes in a way that is not reflected by the hash of the class loader hierarchy
+    private static final int GENERATOR_VERSION = 1;
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+    private static final int FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP = 1;
+
+    private final PersistentCache cache;
+    private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
+    private final SingleDepthFileAccessTracker fileAccessTracker;
+    private final SharedGeneratedClassBytecodeStore sharedStore;
+    private final boolean enabled;
+
+    /**
+     * Creates the store and adds it to the given shared store until it is closed, unless disabled with {@link #PERSISTENT_GENERATED_CLASSES_PROPERTY}.
+     */
+    public DefaultGeneratedClassBytecodeStore(CacheRepository cacheRepository, ClassLoaderHierarchyHasher classLoaderHierarchyHasher, FileAccessTimeJournal fileAccessTimeJournal, SharedGeneratedClassBytecodeStore sharedStore) {
+        this.cache = cacheRepository.cache("generated-classes")
+            .withDisplayName("generated classes")
+            .withLockOptions(mode(FileLockManager.LockMode.OnDemand))
+            .withCleanup(new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP), fileAccessTimeJournal, DEFAULT_MAX_AGE_IN_DAYS_FOR_RECREATABLE_CACHE_ENTRIES))
+            .open();
+        this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
+        this.fileAccessTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, cache.getBaseDir(), FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
+        this.sharedStore = sharedStore;
+        this.enabled = !"false".equals(System.getProperty(PERSISTENT_GENERATED_CLASSES_PROPERTY));
+        if (enabled) {
+            sharedStore.add(this);
+        }
+    }
+
+    @Nullable
+    @Override
+    public byte[] load(Class<?> type, String generatedClassName) {
+        File classFile = classFile(type, generatedClassName);
+        if (classFile == null || !classFile.isFile()) {
+            return null;
+        }
+        try {
+            byte[] bytecode = Files.readAllBytes(classFile.toPath());
+            if (bytecode.length < 4 || readInt(bytecode) != CLASS_FILE_MAGIC) {
+                return null;
+            }
+            fileAccessTracker.markAccessed(classFile);
+            return bytecode;
+        } catch (IOException e) {
+            LOGGER.debug("Could not read generated class {} from {}.", generatedClassName, classFile, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void store(Class<?> type, String generatedClassName, byte[] bytecode) {
+        File classFile = classFile(type, generatedClassName);
+        if (classFile == null) {
+            return;
+        }
+        try {
+            File tmpFile = File.createTempFile("class", ".tmp", cache.getBaseDir());
+            try {
+                Files.write(tmpFile.toPath(), bytecode);
+                Files.move(tmpFile.toPath(), classFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                fileAccessTracker.markAccessed(classFile);
+            } finally {
+                Files.deleteIfExists(tmpFile.toPath());
+            }
+        } catch (IOException e) {
+            // The class will be generated again by the next daemon
+            LOGGER.debug("Could not store generated class {} in {}.", generatedClassName, classFile, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (enabled) {
+            sharedStore.remove(this);
+        }
+        cache.close();
+    }
+
+    @Nullable
+    private File classFile(Class<?> type, String generatedClassName) {
+        ClassLoader classLoader = type.getClassLoader();
+        HashCode classLoaderHash = classLoader == null ? null : classLoaderHierarchyHasher.getClassLoaderHash(classLoader);
+        if (classLoaderHash == null) {
+            return null;
+        }
+        Hasher hasher = Hashing.newHasher();
+        hasher.putInt(GENERATOR_VERSION);
+        hasher.putString(generatedClassName);
+        hasher.putHash(classLoaderHash);
+        return new File(cache.getBaseDir(), hasher.hash().toString() + ".class");
+    }
+
+    private static int readInt(byte[] bytes) {
+        return (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.api.Project;
+import org.gradle.api.internal.initialization.ClassLoaderScope;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.internal.FileCacheBackedScriptClassCompiler;
+import org.gradle.internal.Actions;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.resources.ResourceLockCoordinationService;
+import org.gradle.internal.work.WorkerLeaseRegistry;
+import org.gradle.model.dsl.internal.transform.ClosureCreationInterceptingVerifier;
+
+import javax.annotation.Nullable;
+import java.io.File;
+
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.tryLock;
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock;
+
+/**
+ * Compiles the Groovy build scripts of the child projects of a project on background threads, as soon as the class loader scope
+ * of the project is locked, so that they are usually found in the script cache when the child projects are configured.
+ *
+ * <p>Both passes of a child build script are compiled against the export class loader of the parent project. This is the class loader
+ * they are compiled against when the child project does not add anything to its build script class path, which is the common case.
+ * Otherwise the compiled classes are simply not used. Failures are ignored, as the script is compiled again, and the failure reported,
+ * when the child project is configured.</p>
+ *
+ * <p>Each script is compiled while holding a worker lease, so that pre-compilation does not run more threads than the build is allowed to use.
+ * A script is not pre-compiled when no worker lease is free, rather than waiting for one, so that the threads that configure
+ * the projects are never held up.</p>
+ */
+public class BuildScriptPrecompiler implements Stoppable {
+    /**
+     * When set to {@code true}, the build scripts of child projects are compiled ahead of their configuration.
+     */
+    public static final String PRECOMPILE_BUILD_SCRIPTS_PROPERTY = "org.gradle.internal.precompile-build-scripts";
+
+    private static final Logger LOGGER = Logging.getLogger(BuildScriptPrecompiler.class);
+
+    private final FileCacheBackedScriptClassCompiler scriptClassCompiler;
+    private final CompileOperationFactory compileOperationFactory;
+    private final ExecutorFactory executorFactory;
+    private final WorkerLeaseRegistry workerLeaseRegistry;
+    private final ResourceLockCoordinationService coordinationService;
+    private final int maxWorkerCount;
+    private final boolean enabled;
+    private ManagedExecutor executor;
+    private volatile boolean stopped;
+
+    public BuildScriptPrecompiler(FileCacheBackedScriptClassCompiler scriptClassCompiler, CompileOperationFactory compileOperationFactory, ExecutorFactory executorFactory,
+                                  WorkerLeaseRegistry workerLeaseRegistry, ResourceLockCoordinationService coordinationService, int maxWorkerCount, boolean enabled) {
+        this.scriptClassCompiler = scriptClassCompiler;
+        this.compileOperationFactory = compileOperationFactory;
+        this.executorFactory = executorFactory;
+        this.workerLeaseRegistry = workerLeaseRegistry;
+        this.coordinationService = coordinationService;
+        this.maxWorkerCount = maxWorkerCount;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Schedules the compilation of the Groovy build scripts of the child projects of the given project.
+     *
+     * @param projectScope the locked class loader scope of the project.
+     */
+    public void precompileChildBuildScriptsOf(ProjectInternal project, ClassLoaderScope projectScope) {
+        if (!enabled || stopped || project.getChildProjects().isEmpty()) {
+            return;
+        }
+        ClassLoader classLoader = projectScope.getExportClassLoader();
+        for (Project child : project.getChildProjects().values()) {
+            ScriptSource scriptSource = ((ProjectInternal) child).getBuildScriptSource();
+            if (!isGroovyBuildScript(scriptSource)) {
+                continue;
+            }
+            ProjectScriptTarget scriptTarget = new ProjectScriptTarget((ProjectInternal) child);
+            executor().execute(() -> {
+                if (stopped) {
+                    return;
+                }
+                WorkerLeaseRegistry.WorkerLease workerLease = workerLeaseRegistry.getWorkerLease();
+                if (!coordinationService.withStateLock(tryLock(workerLease))) {
+                    LOGGER.debug("Not pre-compiling {}, as no worker lease is available.", scriptSource.getDisplayName());
+                    return;
+                }
+                try {
+                    precompile(scriptSource, classLoader, scriptTarget);
+                } finally {
+                    coordinationService.withStateLock(unlock(workerLease));
+                }
+            });
+        }
+    }
+
+    private void precompile(ScriptSource scriptSource, ClassLoader classLoader, ProjectScriptTarget scriptTarget) {
+        try {
+            scriptClassCompiler.precompile(scriptSource, classLoader, compileOperationFactory.getPluginsBlockCompileOperation(scriptTarget), scriptTarget.getScriptClass(), Actions.doNothing());
+            scriptClassCompiler.precompile(scriptSource, classLoader, compileOperationFactory.getScriptCompileOperation(scriptSource, scriptTarget), scriptTarget.getScriptClass(), ClosureCreationInterceptingVerifier.INSTANCE);
+        } catch (Exception e) {
+            LOGGER.debug("Could not pre-compile {}.", scriptSource.getDisplayName(), e);
+        }
+    }
+
+    private static boolean isGroovyBuildScript(ScriptSource scriptSource) {
+        File scriptFile = scriptSource.getResource().getLocation().getFile();
+        // Reads and caches the content of the script on this thread, as the resource is not thread-safe
+        return scriptFile != null && !scriptFile.getName().endsWith(".kts") && scriptSource.getResource().getExists() && !scriptSource.getResource().getHasEmptyContent();
+    }
+
+    private synchronized ManagedExecutor executor() {
+        if (executor == null) {
+            executor = executorFactory.create("Build script pre-compilation", maxWorkerCount);
+        }
+        return executor;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        ManagedExecutor executor = currentExecutor();
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+
+    @Nullable
+    private synchronized ManagedExecutor currentExecutor() {
+        return executor;
+    }
+}
@@ -49,17 +49,19 @@ public class DefaultScriptPluginFactory implements ScriptPluginFactory {
     private final AutoAppliedPluginHandler autoAppliedPluginHandler;
     private final PluginRequestApplicator pluginRequestApplicator;
     private final CompileOperationFactory compileOperationFactory;
+    private final BuildScriptPrecompiler buildScriptPrecompiler;
     private ScriptPluginFactory scriptPluginFactory;
 
     public DefaultScriptPluginFactory(ServiceRegistry scriptServices, ScriptCompilerFactory scriptCompilerFactory, Factory<LoggingManagerInternal> loggingFactoryManager,
                                       AutoAppliedPluginHandler autoAppliedPluginHandler, PluginRequestApplicator pluginRequestApplicator,
-                                      CompileOperationFactory compileOperationFactory) {
+                                      CompileOperationFactory compileOperationFactory, BuildScriptPrecompiler buildScriptPrecompiler) {
         this.scriptServices = scriptServices;
         this.scriptCompilerFactory = scriptCompilerFactory;
         this.loggingFactoryManager = loggingFactoryManager;
         this.autoAppliedPluginHandler = autoAppliedPluginHandler;
         this.pluginRequestApplicator = pluginRequestApplicator;
         this.compileOperationFactory = compileOperationFactory;
+        this.buildScriptPrecompiler = buildScriptPrecompiler;
         this.scriptPluginFactory = this;
     }
 
@@ -116,6 +118,10 @@ public void apply(final Object target) {
             PluginManagerInternal pluginManager = topLevelScript ? initialPassScriptTarget.getPluginManager() : null;
             pluginRequestApplicator.applyPlugins(mergedPluginRequests, scriptHandler, pluginManager, targetScope);
 
+            if (target instanceof ProjectInternal && topLevelScript) {
+                buildScriptPrecompiler.precompileChildBuildScriptsOf((ProjectInternal) target, targetScope);
+            }
+
             // Pass 2, compile everything except buildscript {}, pluginManagement{}, and plugin requests, then run
             final ScriptTarget scriptTarget = secondPassTarget(target);
             scriptType = scriptTarget.getScriptClass();
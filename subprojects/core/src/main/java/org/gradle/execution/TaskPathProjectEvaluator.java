@@ -18,14 +18,28 @@
 
 import org.gradle.api.BuildCancelledException;
 import org.gradle.api.Project;
+import org.gradle.api.internal.project.ParallelProjectConfiguration;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.MultipleBuildOperationFailures;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.resources.ProjectLeaseRegistry;
+
+import java.util.Set;
 
 public class TaskPathProjectEvaluator implements ProjectConfigurer {
     private final BuildCancellationToken cancellationToken;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final ProjectLeaseRegistry projectLeaseRegistry;
 
-    public TaskPathProjectEvaluator(BuildCancellationToken cancellationToken) {
+    public TaskPathProjectEvaluator(BuildCancellationToken cancellationToken, BuildOperationExecutor buildOperationExecutor, ProjectLeaseRegistry projectLeaseRegistry) {
         this.cancellationToken = cancellationToken;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.projectLeaseRegistry = projectLeaseRegistry;
     }
 
     @Override
@@ -65,6 +79,10 @@ private void bindAllModelRules(ProjectInternal project) {
     @Override
     public void configureHierarchy(ProjectInternal project) {
         configure(project);
+        if (ParallelProjectConfiguration.isEnabled(project)) {
+            configureInParallel(project.getSubprojects());
+            return;
+        }
         for (Project sub : project.getSubprojects()) {
             configure((ProjectInternal) sub);
         }
@@ -77,4 +95,42 @@ public void configureHierarchyFully(ProjectInternal project) {
             configureFully((ProjectInternal) sub);
         }
     }
+
+    private void configureInParallel(Set<Project> projects) {
+        // Parent projects sort before their children, so a child is only started once its parent has been started
+        ParallelProjectConfiguration parallelConfiguration = new ParallelProjectConfiguration(projectLeaseRegistry, projects);
+        try {
+            buildOperationExecutor.runAll(queue -> {
+                for (Project project : projects) {
+                    queue.add(new ConfigureProjectInParallel((ProjectInternal) project, parallelConfiguration));
+                }
+            });
+        } catch (MultipleBuildOperationFailures e) {
+            if (e.getCauses().size() == 1) {
+                // Report the failure the same way as when configuring serially
+                throw UncheckedException.throwAsUncheckedException(e.getCauses().get(0));
+            }
+            throw e;
+        }
+    }
+
+    private class ConfigureProjectInParallel implements RunnableBuildOperation {
+        private final ProjectInternal project;
+        private final ParallelProjectConfiguration parallelConfiguration;
+
+        ConfigureProjectInParallel(ProjectInternal project, ParallelProjectConfiguration parallelConfiguration) {
+            this.project = project;
+            this.parallelConfiguration = parallelConfiguration;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            parallelConfiguration.configure(project, () -> configure(project));
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Configure " + project.getDisplayName() + " in parallel");
+        }
+    }
 }
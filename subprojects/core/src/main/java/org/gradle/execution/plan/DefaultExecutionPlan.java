@@ -132,6 +132,7 @@ public void addEntryTasks(Collection<? extends Task> tasks) {
             queue.add(node);
         }
 
+        dependencyResolver.resolveInParallel(queue, filter);
         doAddNodes(queue);
     }
 
@@ -335,7 +336,6 @@ public NodeInVisitingSegment apply(Node node) {
             }
         }
         executionQueue.clear();
-        dependencyResolver.clear();
         nodeMapping.removeIf(Node::requiresMonitoring);
         executionQueue.addAll(nodeMapping);
         for (Node node : executionQueue) {
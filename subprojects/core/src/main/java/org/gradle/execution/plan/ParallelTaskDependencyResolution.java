@@ -0,0 +1,242 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import com.google.common.collect.Iterables;
+import org.gradle.api.Action;
+import org.gradle.api.NonNullApi;
+import org.gradle.api.Task;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.project.ParallelProjectConfiguration;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectStateRegistry;
+import org.gradle.api.internal.tasks.CachingTaskDependencyResolveContext;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.resources.ProjectLeaseRegistry;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Resolves the dependencies of tasks on multiple threads ahead of building the execution plan, for the opt-in parallel task dependency resolution mode.
+ *
+ * <p>The tasks are resolved in rounds. In each round, the tasks of each project are resolved on a separate thread while holding the lock of that project,
+ * and the dependencies and finalizers of each task are followed to the other tasks of the same project. The tasks of other projects are resolved in the
+ * next round. When resolving the dependencies of a task accesses another project, the rest of the work for the project continues serially, in the same
+ * way as for parallel project configuration. See {@link ParallelProjectConfiguration}.</p>
+ *
+ * <p>The dependencies of a task are resolved again while building the execution plan when they cannot be resolved up-front, either because resolution
+ * fails or because it attaches an action to another task, such as for artifacts that are produced by a task. The tasks can be realized in a different
+ * order to when the execution plan is built serially, which is only visible to builds where realizing one task changes the dependencies of another.</p>
+ */
+@NonNullApi
+public class ParallelTaskDependencyResolution {
+    /**
+     * When set to true and parallel project execution is enabled, the dependencies of the tasks of different projects are resolved in parallel.
+     */
+    public static final String PARALLEL_RESOLUTION_PROPERTY = "org.gradle.internal.execution.parallel-dependency-resolution";
+
+    private final List<DependencyResolver> dependencyResolvers = new ArrayList<>();
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final ProjectStateRegistry projectStateRegistry;
+    private final ProjectLeaseRegistry projectLeaseRegistry;
+
+    public ParallelTaskDependencyResolution(List<DependencyResolver> dependencyResolvers, BuildOperationExecutor buildOperationExecutor, ProjectStateRegistry projectStateRegistry, ProjectLeaseRegistry projectLeaseRegistry) {
+        for (DependencyResolver dependencyResolver : dependencyResolvers) {
+            this.dependencyResolvers.add(new DeferredActionDependencyResolver(dependencyResolver));
+        }
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.projectStateRegistry = projectStateRegistry;
+        this.projectLeaseRegistry = projectLeaseRegistry;
+    }
+
+    public static boolean isEnabled(GradleInternal gradle) {
+        // Without parallel project execution, all projects of a build share the same lock
+        return Boolean.getBoolean(PARALLEL_RESOLUTION_PROPERTY) && gradle.getStartParameter().isParallelProjectExecutionEnabled();
+    }
+
+    /**
+     * Resolves the dependencies of the given nodes and the tasks they depend on, and adds them to the given map, keyed by the dependencies object of each task.
+     */
+    void resolve(Collection<? extends Node> nodes, Spec<? super Task> filter, Map<Object, Set<Node>> results) {
+        Resolution resolution = new Resolution(filter, results);
+        for (Node node : nodes) {
+            LocalTaskNode taskNode = resolution.maybeSchedule(node);
+            if (taskNode != null) {
+                resolution.nextRound.add(taskNode);
+            }
+        }
+        if (resolution.nextRound.isEmpty()) {
+            return;
+        }
+        // Let the worker threads lock the projects whose tasks they resolve
+        projectStateRegistry.withoutMutableStateOfAllProjects(() -> projectLeaseRegistry.withoutProjectLock(() -> {
+            while (!resolution.nextRound.isEmpty()) {
+                resolution.runRound();
+            }
+        }));
+    }
+
+    private class Resolution {
+        private final Spec<? super Task> filter;
+        private final Map<Object, Set<Node>> results;
+        private final Set<Node> seen = ConcurrentHashMap.newKeySet();
+        private final Queue<LocalTaskNode> nextRound = new ConcurrentLinkedQueue<>();
+        private final Queue<CachingTaskDependencyResolveContext<Node>> contexts = new ConcurrentLinkedQueue<>();
+
+        Resolution(Spec<? super Task> filter, Map<Object, Set<Node>> results) {
+            this.filter = filter;
+            this.results = results;
+        }
+
+        void runRound() {
+            Map<ProjectInternal, List<LocalTaskNode>> tasksByProject = new LinkedHashMap<>();
+            LocalTaskNode taskNode;
+            while ((taskNode = nextRound.poll()) != null) {
+                tasksByProject.computeIfAbsent((ProjectInternal) taskNode.getTask().getProject(), p -> new ArrayList<>()).add(taskNode);
+            }
+            ParallelProjectConfiguration coordination = new ParallelProjectConfiguration(projectLeaseRegistry, Collections.emptyList());
+            buildOperationExecutor.runAll(queue -> {
+                for (Map.Entry<ProjectInternal, List<LocalTaskNode>> entry : tasksByProject.entrySet()) {
+                    queue.add(new ResolveTaskDependenciesOfProject(entry.getKey(), entry.getValue(), this, coordination));
+                }
+            });
+        }
+
+        void resolveTasksOf(ProjectInternal project, List<LocalTaskNode> taskNodes) {
+            Deque<LocalTaskNode> queue = new ArrayDeque<>(taskNodes);
+            CachingTaskDependencyResolveContext<Node> context = contexts.poll();
+            if (context == null) {
+                context = new CachingTaskDependencyResolveContext<>(dependencyResolvers);
+            }
+            while (!queue.isEmpty()) {
+                if (!resolveDependenciesOf(queue.removeFirst(), project, context, queue)) {
+                    // The context may have been left part way through a traversal
+                    context = new CachingTaskDependencyResolveContext<>(dependencyResolvers);
+                }
+            }
+            contexts.add(context);
+        }
+
+        private boolean resolveDependenciesOf(LocalTaskNode taskNode, ProjectInternal project, CachingTaskDependencyResolveContext<Node> context, Deque<LocalTaskNode> queue) {
+            TaskInternal task = taskNode.getTask();
+            Set<Node> dependencies;
+            Set<Node> finalizers;
+            Set<Node> mustRunAfter;
+            Set<Node> shouldRunAfter;
+            try {
+                taskNode.prepareForExecution();
+                dependencies = context.getDependencies(task, task.getTaskDependencies());
+                finalizers = context.getDependencies(task, task.getFinalizedBy());
+                mustRunAfter = context.getDependencies(task, task.getMustRunAfter());
+                shouldRunAfter = context.getDependencies(task, task.getShouldRunAfter());
+            } catch (RuntimeException e) {
+                // Leave the task to the serial resolution, which also reports the failure
+                return false;
+            }
+            results.put(task.getTaskDependencies(), dependencies);
+            results.put(task.getFinalizedBy(), finalizers);
+            results.put(task.getMustRunAfter(), mustRunAfter);
+            results.put(task.getShouldRunAfter(), shouldRunAfter);
+            for (Node successor : Iterables.concat(dependencies, finalizers)) {
+                LocalTaskNode successorTaskNode = maybeSchedule(successor);
+                if (successorTaskNode == null) {
+                    continue;
+                }
+                if (successorTaskNode.getTask().getProject() == project) {
+                    queue.add(successorTaskNode);
+                } else {
+                    nextRound.add(successorTaskNode);
+                }
+            }
+            return true;
+        }
+
+        @Nullable
+        LocalTaskNode maybeSchedule(Node node) {
+            if (!(node instanceof LocalTaskNode) || node.getDependenciesProcessed()) {
+                return null;
+            }
+            LocalTaskNode taskNode = (LocalTaskNode) node;
+            if (!filter.isSatisfiedBy(taskNode.getTask()) || !seen.add(taskNode)) {
+                return null;
+            }
+            return taskNode;
+        }
+    }
+
+    private static class ResolveTaskDependenciesOfProject implements RunnableBuildOperation {
+        private final ProjectInternal project;
+        private final List<LocalTaskNode> taskNodes;
+        private final Resolution resolution;
+        private final ParallelProjectConfiguration coordination;
+
+        ResolveTaskDependenciesOfProject(ProjectInternal project, List<LocalTaskNode> taskNodes, Resolution resolution, ParallelProjectConfiguration coordination) {
+            this.project = project;
+            this.taskNodes = taskNodes;
+            this.resolution = resolution;
+            this.coordination = coordination;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            coordination.configure(project, () -> resolution.resolveTasksOf(project, taskNodes));
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Resolve task dependencies of " + project.getDisplayName());
+        }
+    }
+
+    /**
+     * Fails instead of attaching an action to a node, so that the action is attached once, when the execution plan is built.
+     */
+    private static class DeferredActionDependencyResolver implements DependencyResolver {
+        private final DependencyResolver delegate;
+
+        DeferredActionDependencyResolver(DependencyResolver delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean resolve(Task task, Object node, Action<? super Node> resolveAction) {
+            return delegate.resolve(task, node, resolveAction);
+        }
+
+        @Override
+        public boolean attachActionTo(Node value, Action<? super Task> action) {
+            throw new IllegalStateException("Cannot attach an action to " + value + " while resolving task dependencies in parallel.");
+        }
+    }
+}
@@ -17,32 +17,64 @@
 package org.gradle.execution.plan;
 
 import org.gradle.api.NonNullApi;
+import org.gradle.api.Task;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.tasks.CachingTaskDependencyResolveContext;
+import org.gradle.api.specs.Spec;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Resolves the dependencies of the nodes of an execution plan. The results for each {@link org.gradle.api.internal.tasks.TaskDependencyContainer} are kept
+ * until the execution plan is cleared, so that containers shared by many tasks, such as file collections and configurations, are only visited once.
+ */
 @NonNullApi
 public class TaskDependencyResolver {
     private final List<DependencyResolver> dependencyResolvers;
+    @Nullable
+    private final ParallelTaskDependencyResolution parallelResolution;
+    private final Map<Object, Set<Node>> resolvedInParallel = new ConcurrentHashMap<>();
     private CachingTaskDependencyResolveContext<Node> context;
 
     public TaskDependencyResolver(List<DependencyResolver> dependencyResolvers) {
+        this(dependencyResolvers, null);
+    }
+
+    public TaskDependencyResolver(List<DependencyResolver> dependencyResolvers, @Nullable ParallelTaskDependencyResolution parallelResolution) {
         this.dependencyResolvers = dependencyResolvers;
+        this.parallelResolution = parallelResolution;
         this.context = createTaskDependencyResolverContext(dependencyResolvers);
     }
 
     public void clear() {
         context = createTaskDependencyResolverContext(dependencyResolvers);
+        resolvedInParallel.clear();
     }
 
     private static CachingTaskDependencyResolveContext<Node> createTaskDependencyResolverContext(List<DependencyResolver> workResolvers) {
         return new CachingTaskDependencyResolveContext<Node>(workResolvers);
     }
 
+    /**
+     * Resolves the dependencies of the given nodes, and of the tasks they depend on, ahead of the calls to {@link #resolveDependenciesFor(TaskInternal, Object)}
+     * for them, when parallel task dependency resolution is enabled. Does nothing otherwise.
+     */
+    public void resolveInParallel(Collection<? extends Node> nodes, Spec<? super Task> filter) {
+        if (parallelResolution != null) {
+            parallelResolution.resolve(nodes, filter, resolvedInParallel);
+        }
+    }
+
     public Set<Node> resolveDependenciesFor(@Nullable TaskInternal task, Object dependencies) {
+        Set<Node> resolved = resolvedInParallel.remove(dependencies);
+        if (resolved != null) {
+            return resolved;
+        }
         return context.getDependencies(task, dependencies);
     }
 }
@@ -44,7 +44,7 @@ public Set<Task> getTasks() {
         return nodes.keySet();
     }
 
-    public TaskNode getOrCreateNode(Task task) {
+    public synchronized TaskNode getOrCreateNode(Task task) {
         TaskNode node = nodes.get(task);
         if (node == null) {
             if (task.getProject().getGradle() == thisBuild) {
@@ -57,7 +57,7 @@ public TaskNode getOrCreateNode(Task task) {
         return node;
     }
 
-    public void clear() {
+    public synchronized void clear() {
         nodes.clear();
     }
 
@@ -38,7 +38,7 @@ public boolean resolve(Task task, final Object node, Action<? super Node> resolv
         return true;
     }
 
-    private ActionNode actionNodeFor(WorkNodeAction action) {
+    private synchronized ActionNode actionNodeFor(WorkNodeAction action) {
         ActionNode actionNode = nodesForAction.get(action);
         if (actionNode == null) {
             actionNode = new ActionNode(action);
@@ -15,7 +15,6 @@
  */
 package org.gradle.groovy.scripts.internal;
 
-import com.google.common.collect.Maps;
 import groovy.lang.Script;
 import org.codehaus.groovy.ast.ClassNode;
 import org.gradle.api.Action;
@@ -24,18 +23,20 @@
 import org.gradle.internal.Cast;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This in-memory cache is responsible for caching compiled build scripts during a build.
  * If the compiled script is not found in this cache, it will try to find it in the global cache,
  * which will use the delegate script class compiler in case of a miss. The lookup in this cache is
  * more efficient than looking in the global cache, as we do not check the script's hash code here,
- * assuming that it did not change during the build.
+ * assuming that it did not change during the build. Scripts may be compiled by several threads at once,
+ * when projects are configured in parallel.
  */
 public class BuildScopeInMemoryCachingScriptClassCompiler implements ScriptClassCompiler {
     private final CrossBuildInMemoryCachingScriptClassCache cache;
     private final ScriptClassCompiler scriptClassCompiler;
-    private final Map<ScriptCacheKey, CompiledScript<?, ?>> cachedCompiledScripts = Maps.newHashMap();
+    private final Map<ScriptCacheKey, CompiledScript<?, ?>> cachedCompiledScripts = new ConcurrentHashMap<>();
 
     public BuildScopeInMemoryCachingScriptClassCompiler(CrossBuildInMemoryCachingScriptClassCache cache, ScriptClassCompiler scriptClassCompiler) {
         this.cache = cache;
@@ -45,12 +46,7 @@ public BuildScopeInMemoryCachingScriptClassCompiler(CrossBuildInMemoryCachingScr
     @Override
     public <T extends Script, M> CompiledScript<T, M> compile(ScriptSource source, ClassLoaderScope targetScope, CompileOperation<M> operation, Class<T> scriptBaseClass, Action<? super ClassNode> verifier) {
         ScriptCacheKey key = new ScriptCacheKey(source.getClassName(), targetScope.getExportClassLoader(), operation.getId());
-        CompiledScript<T, M> compiledScript = Cast.uncheckedCast(cachedCompiledScripts.get(key));
-        if (compiledScript == null) {
-            compiledScript = cache.getOrCompile(source, targetScope, operation, scriptBaseClass, verifier, scriptClassCompiler);
-            cachedCompiledScripts.put(key, compiledScript);
-        }
-        return compiledScript;
+        return Cast.uncheckedCast(cachedCompiledScripts.computeIfAbsent(key, k -> cache.getOrCompile(source, targetScope, operation, scriptBaseClass, verifier, scriptClassCompiler)));
     }
 
 }
@@ -89,18 +89,9 @@ public <T extends Script, M> CompiledScript<T, M> compile(final ScriptSource sou
         ClassLoader classLoader = targetScope.getExportClassLoader();
         HashCode sourceHashCode = source.getResource().getContentHash();
         final String dslId = operation.getId();
-        HashCode classLoaderHash = classLoaderHierarchyHasher.getClassLoaderHash(classLoader);
-        if (classLoaderHash == null) {
-            throw new IllegalArgumentException("Unknown classloader: " + classLoader);
-        }
+        String key = cacheKeyFor(dslId, sourceHashCode, classLoader);
         final RemappingScriptSource remapped = new RemappingScriptSource(source);
 
-        PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
-        hasher.putString(dslId);
-        hasher.putHash(sourceHashCode);
-        hasher.putHash(classLoaderHash);
-        String key = HashUtil.compactStringFor(hasher.hash().toByteArray());
-
         // Caching involves 2 distinct caches, so that 2 scripts with the same (hash, classpath) do not get compiled twice
         // 1. First, we look for a cache script which (path, hash) matches. This cache is invalidated when the compile classpath of the script changes
         // 2. Then we look into the 2d cache for a "generic script" with the same hash, that will be remapped to the script class name
@@ -124,6 +115,38 @@ public <T extends Script, M> CompiledScript<T, M> compile(final ScriptSource sou
         }
     }
 
+    /**
+     * Compiles the given script into the cache, if not already there, without loading it. A subsequent call to
+     * {@link #compile(ScriptSource, ClassLoaderScope, CompileOperation, Class, Action)} for a scope whose export class loader
+     * is the given class loader then only needs to load the compiled classes.
+     *
+     * <p>The content of the script must already be cached.</p>
+     */
+    public void precompile(ScriptSource source, ClassLoader classLoader, CompileOperation<?> operation, Class<? extends Script> scriptBaseClass, Action<? super ClassNode> verifier) {
+        if (source.getResource().getHasEmptyContent()) {
+            return;
+        }
+        String dslId = operation.getId();
+        String key = cacheKeyFor(dslId, source.getResource().getContentHash(), classLoader);
+        cacheRepository.cache("scripts/" + key)
+            .withDisplayName(dslId + " generic class cache for " + source.getDisplayName())
+            .withInitializer(new CompileToCrossBuildCacheAction(new RemappingScriptSource(source), classLoader, operation, verifier, scriptBaseClass))
+            .open()
+            .close();
+    }
+
+    private String cacheKeyFor(String dslId, HashCode sourceHashCode, ClassLoader classLoader) {
+        HashCode classLoaderHash = classLoaderHierarchyHasher.getClassLoaderHash(classLoader);
+        if (classLoaderHash == null) {
+            throw new IllegalArgumentException("Unknown classloader: " + classLoader);
+        }
+        PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
+        hasher.putString(dslId);
+        hasher.putHash(sourceHashCode);
+        hasher.putHash(classLoaderHash);
+        return HashUtil.compactStringFor(hasher.hash().toByteArray());
+    }
+
     private <T extends Script, M> CompiledScript<T, M> emptyCompiledScript(CompileOperation<M> operation) {
         return new EmptyCompiledScript<>(operation);
     }
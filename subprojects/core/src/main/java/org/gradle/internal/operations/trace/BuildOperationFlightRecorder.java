@@ -0,0 +1,304 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import org.gradle.StartParameter;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.BuildOperationListenerManager;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+import org.gradle.util.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the build operation stream of a build in a compact binary form, with little enough overhead to be left enabled for production builds.
+ * Can be enabled for any build with `-Dorg.gradle.internal.operations.flight-recorder=«path-base»`, which writes «path-base»-flight.bin.
+ *
+ * Unlike {@link BuildOperationTrace}, only the structure and timing of the operations is recorded, along with the types of their details and results.
+ * Each thread encodes its events into a buffer owned by that thread, without any locking. A buffer is handed to a background thread, which writes
+ * it to disk, when it is full or when it holds events older than a second, and is then reused. The remaining events are written when the build
+ * session finishes, whether the build failed or not.
+ *
+ * The recording file can be read while the build is running. It then misses the events of the last second, and the events of threads that have
+ * not recorded anything since. These are also the events that are lost when the process crashes.
+ *
+ * Memory usage is bounded by one buffer per thread that records events, plus a fixed number of buffers waiting to be written. When the
+ * disk cannot keep up, further full buffers are dropped rather than queued, and the number of dropped bytes is logged when the recorder stops.
+ *
+ * Use {@link BuildOperationFlightRecording} to convert a recording to the JSON tree written by {@link BuildOperationTrace} or to the Chrome trace format.
+ */
+public class BuildOperationFlightRecorder implements Stoppable {
+
+    public static final String SYSPROP = "org.gradle.internal.operations.flight-recorder";
+
+    private static final Logger LOGGER = Logging.getLogger(BuildOperationFlightRecorder.class);
+
+    static final int MAGIC = 0x474f5052;
+    static final int VERSION = 1;
+
+    static final byte START = 1;
+    static final byte PROGRESS = 2;
+    static final byte FINISH = 3;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_STRING_LENGTH = 4 * 1024;
+    private static final int MAX_EVENT_SIZE = 1 + 3 * 8 + 2 * (4 + MAX_STRING_LENGTH);
+    private static final long SPILL_INTERVAL_MILLIS = 1000;
+    static final int MAX_PENDING_BUFFERS = 64;
+
+    private final BuildOperationListenerManager buildOperationListenerManager;
+    private final ManagedExecutor writer;
+    private final DataOutputStream outputStream;
+    private final Queue<EventBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingBuffers = new AtomicInteger();
+    private final AtomicLong droppedBytes = new AtomicLong();
+    private final ThreadLocal<EventBuffer> currentBuffer = new ThreadLocal<EventBuffer>() {
+        @Override
+        protected EventBuffer initialValue() {
+            EventBuffer buffer = new EventBuffer(Thread.currentThread().getId(), allocate());
+            buffers.add(buffer);
+            return buffer;
+        }
+    };
+    private volatile IOException failure;
+
+    private final BuildOperationListener listener = new BuildOperationListener() {
+        @Override
+        public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+            EventBuffer buffer = currentBuffer.get();
+            ByteBuffer events = buffer.reserve(startEvent.getStartTime());
+            events.put(START);
+            events.putLong(buildOperation.getId().getId());
+            events.putLong(buildOperation.getParentId() == null ? -1 : buildOperation.getParentId().getId());
+            events.putLong(startEvent.getStartTime());
+            putString(events, buildOperation.getDisplayName());
+            putString(events, className(buildOperation.getDetails()));
+            buffer.commit();
+        }
+
+        @Override
+        public void progress(OperationIdentifier buildOperationId, OperationProgressEvent progressEvent) {
+            if (buildOperationId == null) {
+                return;
+            }
+            EventBuffer buffer = currentBuffer.get();
+            ByteBuffer events = buffer.reserve(progressEvent.getTime());
+            events.put(PROGRESS);
+            events.putLong(buildOperationId.getId());
+            events.putLong(progressEvent.getTime());
+            putString(events, className(progressEvent.getDetails()));
+            buffer.commit();
+        }
+
+        @Override
+        public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+            EventBuffer buffer = currentBuffer.get();
+            ByteBuffer events = buffer.reserve(finishEvent.getEndTime());
+            events.put(FINISH);
+            events.putLong(buildOperation.getId().getId());
+            events.putLong(finishEvent.getEndTime());
+            putString(events, className(finishEvent.getResult()));
+            putString(events, finishEvent.getFailure() == null ? null : String.valueOf(finishEvent.getFailure().getMessage()));
+            buffer.commit();
+        }
+    };
+
+    public BuildOperationFlightRecorder(StartParameter startParameter, BuildOperationListenerManager buildOperationListenerManager, ExecutorFactory executorFactory) {
+        this.buildOperationListenerManager = buildOperationListenerManager;
+
+        Map<String, String> sysProps = startParameter.getSystemPropertiesArgs();
+        String basePath = sysProps.get(SYSPROP);
+        if (basePath == null) {
+            basePath = System.getProperty(SYSPROP);
+        }
+        if (basePath == null || basePath.equals(Boolean.FALSE.toString())) {
+            this.writer = null;
+            this.outputStream = null;
+            return;
+        }
+
+        try {
+            File recordingFile = recordingFile(basePath);
+            GFileUtils.mkdirs(recordingFile.getParentFile());
+            this.outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(recordingFile)));
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(VERSION);
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        this.writer = executorFactory.create("Build operation flight recorder", 1);
+
+        buildOperationListenerManager.addListener(listener);
+    }
+
+    public static File recordingFile(@Nullable String basePath) {
+        return new File((basePath == null || basePath.trim().isEmpty() ? "operations" : basePath) + "-flight.bin").getAbsoluteFile();
+    }
+
+    @Override
+    public void stop() {
+        if (outputStream == null) {
+            return;
+        }
+        buildOperationListenerManager.removeListener(listener);
+        // All build operations of the session have completed by now, so the buffers of the other threads are no longer written to
+        for (EventBuffer buffer : buffers) {
+            buffer.spillCommitted();
+        }
+        writer.stop();
+        try {
+            outputStream.close();
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        if (droppedBytes.get() > 0) {
+            LOGGER.warn("The build operation flight recorder dropped {} bytes of events, as they could not be written to disk fast enough.", droppedBytes.get());
+        }
+        if (failure != null) {
+            throw UncheckedException.throwAsUncheckedException(failure);
+        }
+    }
+
+    private ByteBuffer allocate() {
+        ByteBuffer buffer = freeBuffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    private void write(final long threadId, final ByteBuffer events) {
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (failure == null) {
+                        outputStream.writeLong(threadId);
+                        outputStream.writeInt(events.position());
+                        outputStream.write(events.array(), 0, events.position());
+                        // Keep the file readable while the build is running
+                        outputStream.flush();
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                } finally {
+                    events.clear();
+                    freeBuffers.add(events);
+                    pendingBuffers.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    @Nullable
+    private static String className(@Nullable Object object) {
+        return object == null ? null : object.getClass().getName();
+    }
+
+    private static void putString(ByteBuffer buffer, @Nullable String string) {
+        if (string == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        if (length > MAX_STRING_LENGTH) {
+            length = MAX_STRING_LENGTH;
+            // Do not cut through the encoding of a character, whose continuation bytes start with the bits 10
+            while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+                length--;
+            }
+        }
+        buffer.putInt(length);
+        buffer.put(bytes, 0, length);
+    }
+
+    /**
+     * The events of a single thread that have not been written yet. Only used by the owning thread, except by {@link #stop()}.
+     */
+    private class EventBuffer {
+        private final long threadId;
+        private ByteBuffer events;
+        private long spillTime;
+        // Written by the owning thread after each event, so that the events are visible to the thread that stops the recorder
+        private volatile int committed;
+
+        EventBuffer(long threadId, ByteBuffer events) {
+            this.threadId = threadId;
+            this.events = events;
+        }
+
+        ByteBuffer reserve(long time) {
+            if (events.remaining() < MAX_EVENT_SIZE || (events.position() > 0 && time >= spillTime)) {
+                spill(false);
+            }
+            if (events.position() == 0) {
+                spillTime = time + SPILL_INTERVAL_MILLIS;
+            }
+            return events;
+        }
+
+        void commit() {
+            committed = events.position();
+        }
+
+        /**
+         * Writes the events of a thread that no longer records events.
+         */
+        void spillCommitted() {
+            int length = committed;
+            if (length > 0) {
+                events.position(length);
+                spill(true);
+            }
+        }
+
+        private void spill(boolean force) {
+            if (events.position() == 0) {
+                return;
+            }
+            if (pendingBuffers.incrementAndGet() > MAX_PENDING_BUFFERS && !force) {
+                pendingBuffers.decrementAndGet();
+                droppedBytes.addAndGet(events.position());
+                events.clear();
+                return;
+            }
+            write(threadId, events);
+            events = allocate();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import groovy.json.JsonOutput;
+import org.gradle.internal.UncheckedException;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a recording written by {@link BuildOperationFlightRecorder}, and converts it to the JSON tree written by {@link BuildOperationTrace}
+ * or to the Chrome trace format, which can be opened with chrome://tracing.
+ *
+ * Can be run offline with `java -cp «gradle-core and dependencies» org.gradle.internal.operations.trace.BuildOperationFlightRecording «recording» «tree|chrome» «output»`.
+ *
+ * Operations that had not finished when the recording was written, for example because the daemon crashed, end at the last recorded time.
+ */
+public class BuildOperationFlightRecording {
+
+    private final Map<Long, RecordedOperation> operations;
+    private final long lastTime;
+
+    private BuildOperationFlightRecording(Map<Long, RecordedOperation> operations, long lastTime) {
+        this.operations = operations;
+        this.lastTime = lastTime;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3 || !(args[1].equals("tree") || args[1].equals("chrome"))) {
+            System.err.println("Usage: BuildOperationFlightRecording <recording> tree|chrome <output>");
+            System.exit(1);
+        }
+        BuildOperationFlightRecording recording = read(new File(args[0]));
+        File output = new File(args[2]);
+        if (args[1].equals("tree")) {
+            recording.writeJsonTree(output);
+        } else {
+            recording.writeChromeTrace(output);
+        }
+    }
+
+    public static BuildOperationFlightRecording read(File recordingFile) {
+        Map<Long, RecordedOperation> operations = new LinkedHashMap<>();
+        long lastTime = 0;
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(recordingFile)))) {
+            if (inputStream.readInt() != BuildOperationFlightRecorder.MAGIC || inputStream.readInt() != BuildOperationFlightRecorder.VERSION) {
+                throw new IllegalArgumentException(String.format("%s is not a build operation flight recording.", recordingFile));
+            }
+            while (true) {
+                long threadId;
+                try {
+                    threadId = inputStream.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                byte[] chunk = new byte[inputStream.readInt()];
+                inputStream.readFully(chunk);
+                ByteBuffer events = ByteBuffer.wrap(chunk);
+                while (events.hasRemaining()) {
+                    byte type = events.get();
+                    RecordedOperation operation = operation(operations, events.getLong());
+                    switch (type) {
+                        case BuildOperationFlightRecorder.START:
+                            long parentId = events.getLong();
+                            operation.parentId = parentId < 0 ? null : parentId;
+                            operation.startTime = events.getLong();
+                            operation.displayName = getString(events);
+                            operation.detailsClassName = getString(events);
+                            operation.threadId = threadId;
+                            lastTime = Math.max(lastTime, operation.startTime);
+                            break;
+                        case BuildOperationFlightRecorder.PROGRESS:
+                            long time = events.getLong();
+                            String detailsClassName = getString(events);
+                            operation.progress.add(new BuildOperationRecord.Progress(time, detailsOfType(detailsClassName), detailsClassName));
+                            lastTime = Math.max(lastTime, time);
+                            break;
+                        case BuildOperationFlightRecorder.FINISH:
+                            operation.endTime = events.getLong();
+                            operation.resultClassName = getString(events);
+                            operation.failure = getString(events);
+                            lastTime = Math.max(lastTime, operation.endTime);
+                            break;
+                        default:
+                            throw new IllegalArgumentException(String.format("Unexpected event type %s in %s.", type, recordingFile));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        return new BuildOperationFlightRecording(operations, lastTime);
+    }
+
+    public BuildOperationTree toTree() {
+        return new BuildOperationTree(toRecords());
+    }
+
+    /**
+     * Writes the operations in the format of the «path-base»-tree.json file written by {@link BuildOperationTrace}.
+     */
+    public void writeJsonTree(File outputFile) {
+        try {
+            String rawJson = JsonOutput.toJson(BuildOperationTree.serialize(toTree().roots));
+            Files.asCharSink(outputFile, Charsets.UTF_8).write(JsonOutput.prettyPrint(rawJson));
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    /**
+     * Writes the operations as complete events of the Chrome trace event format, with one track per thread.
+     */
+    public void writeChromeTrace(File outputFile) {
+        List<Map<String, ?>> traceEvents = new ArrayList<>(operations.size());
+        for (RecordedOperation operation : operations.values()) {
+            if (operation.startTime < 0) {
+                continue;
+            }
+            Map<String, Object> args = new LinkedHashMap<>();
+            args.put("id", operation.id);
+            if (operation.detailsClassName != null) {
+                args.put("detailsClassName", operation.detailsClassName);
+            }
+            if (operation.failure != null) {
+                args.put("failure", operation.failure);
+            }
+            traceEvents.add(ImmutableMap.<String, Object>builder()
+                .put("name", operation.displayName == null ? "" : operation.displayName)
+                .put("ph", "X")
+                .put("ts", operation.startTime * 1000)
+                .put("dur", (endTime(operation) - operation.startTime) * 1000)
+                .put("pid", 1)
+                .put("tid", operation.threadId)
+                .put("args", args)
+                .build());
+        }
+        try {
+            Files.asCharSink(outputFile, Charsets.UTF_8).write(JsonOutput.toJson(Collections.singletonMap("traceEvents", traceEvents)));
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private List<BuildOperationRecord> toRecords() {
+        Map<Long, List<BuildOperationRecord>> children = new HashMap<>();
+        List<RecordedOperation> started = new ArrayList<>();
+        for (RecordedOperation operation : operations.values()) {
+            if (operation.startTime >= 0) {
+                started.add(operation);
+                children.put(operation.id, new ArrayList<>());
+            }
+        }
+        // Children always start after their parent, so build the records of the latest operations first
+        Collections.sort(started, new Comparator<RecordedOperation>() {
+            @Override
+            public int compare(RecordedOperation o1, RecordedOperation o2) {
+                int result = Long.compare(o2.startTime, o1.startTime);
+                return result != 0 ? result : Long.compare(o2.id, o1.id);
+            }
+        });
+        List<BuildOperationRecord> roots = new ArrayList<>();
+        for (RecordedOperation operation : started) {
+            BuildOperationRecord record = new BuildOperationRecord(
+                operation.id,
+                operation.parentId,
+                operation.displayName,
+                operation.startTime,
+                endTime(operation),
+                detailsOfType(operation.detailsClassName),
+                operation.detailsClassName,
+                detailsOfType(operation.resultClassName),
+                operation.resultClassName,
+                operation.failure,
+                operation.progress,
+                BuildOperationRecord.ORDERING.immutableSortedCopy(children.get(operation.id))
+            );
+            List<BuildOperationRecord> siblings = operation.parentId == null ? null : children.get(operation.parentId);
+            if (siblings != null) {
+                siblings.add(record);
+            } else {
+                roots.add(record);
+            }
+        }
+        return roots;
+    }
+
+    private long endTime(RecordedOperation operation) {
+        return operation.endTime >= 0 ? operation.endTime : lastTime;
+    }
+
+    /**
+     * The content of details and results is not recorded, only their type.
+     */
+    @Nullable
+    private static Map<String, ?> detailsOfType(@Nullable String className) {
+        return className == null ? null : Collections.<String, Object>emptyMap();
+    }
+
+    private static RecordedOperation operation(Map<Long, RecordedOperation> operations, long id) {
+        RecordedOperation operation = operations.get(id);
+        if (operation == null) {
+            operation = new RecordedOperation(id);
+            operations.put(id, operation);
+        }
+        return operation;
+    }
+
+    @Nullable
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String string = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+
+    private static class RecordedOperation {
+        final long id;
+        Long parentId;
+        long threadId;
+        String displayName;
+        long startTime = -1;
+        long endTime = -1;
+        String detailsClassName;
+        String resultClassName;
+        String failure;
+        final List<BuildOperationRecord.Progress> progress = new ArrayList<>();
+
+        RecordedOperation(long id) {
+            this.id = id;
+        }
+    }
+}
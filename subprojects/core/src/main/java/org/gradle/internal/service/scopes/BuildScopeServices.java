@@ -84,6 +84,7 @@
 import org.gradle.cache.FileLockManager;
 import org.gradle.caching.internal.BuildCacheServices;
 import org.gradle.configuration.BuildOperationFiringProjectsPreparer;
+import org.gradle.configuration.BuildScriptPrecompiler;
 import org.gradle.configuration.BuildTreePreparingProjectsPreparer;
 import org.gradle.configuration.CompileOperationFactory;
 import org.gradle.configuration.DefaultInitScriptProcessor;
@@ -177,10 +178,13 @@
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.resource.DefaultTextFileResourceLoader;
 import org.gradle.internal.resource.TextFileResourceLoader;
+import org.gradle.internal.resources.ProjectLeaseRegistry;
+import org.gradle.internal.resources.ResourceLockCoordinationService;
 import org.gradle.internal.scripts.ScriptExecutionListener;
 import org.gradle.internal.service.CachingServiceLocator;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.model.internal.inspect.ModelRuleSourceDetector;
 import org.gradle.plugin.management.internal.autoapply.AutoAppliedPluginHandler;
 import org.gradle.plugin.use.internal.PluginRequestApplicator;
@@ -411,7 +415,15 @@ private DefaultScriptPluginFactory defaultScriptPluginFactory() {
             getFactory(LoggingManagerInternal.class),
             get(AutoAppliedPluginHandler.class),
             get(PluginRequestApplicator.class),
-            get(CompileOperationFactory.class));
+            get(CompileOperationFactory.class),
+            get(BuildScriptPrecompiler.class));
+    }
+
+    protected BuildScriptPrecompiler createBuildScriptPrecompiler(FileCacheBackedScriptClassCompiler scriptClassCompiler, CompileOperationFactory compileOperationFactory,
+                                                                  ExecutorFactory executorFactory, WorkerLeaseRegistry workerLeaseRegistry,
+                                                                  ResourceLockCoordinationService coordinationService, StartParameter startParameter) {
+        return new BuildScriptPrecompiler(scriptClassCompiler, compileOperationFactory, executorFactory, workerLeaseRegistry, coordinationService, startParameter.getMaxWorkerCount(),
+            Boolean.getBoolean(BuildScriptPrecompiler.PRECOMPILE_BUILD_SCRIPTS_PROPERTY));
     }
 
     protected SettingsLoaderFactory createSettingsLoaderFactory(
@@ -511,8 +523,8 @@ protected ScriptHandlerFactory createScriptHandlerFactory(DependencyManagementSe
             instantiator);
     }
 
-    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken) {
-        return new TaskPathProjectEvaluator(cancellationToken);
+    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken, BuildOperationExecutor buildOperationExecutor, ProjectLeaseRegistry projectLeaseRegistry) {
+        return new TaskPathProjectEvaluator(cancellationToken, buildOperationExecutor, projectLeaseRegistry);
     }
 
     protected ProjectsPreparer createBuildConfigurer(ProjectConfigurer projectConfigurer, BuildSourceBuilder buildSourceBuilder, BuildStateRegistry buildStateRegistry, BuildLoader buildLoader, ListenerManager listenerManager, BuildOperationExecutor buildOperationExecutor) {
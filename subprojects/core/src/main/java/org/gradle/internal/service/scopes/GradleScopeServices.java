@@ -66,6 +66,7 @@
 import org.gradle.execution.plan.DependencyResolver;
 import org.gradle.execution.plan.LocalTaskNodeExecutor;
 import org.gradle.execution.plan.NodeExecutor;
+import org.gradle.execution.plan.ParallelTaskDependencyResolution;
 import org.gradle.execution.plan.PlanExecutor;
 import org.gradle.execution.plan.TaskDependencyResolver;
 import org.gradle.execution.plan.TaskNodeDependencyResolver;
@@ -91,6 +92,7 @@
 import org.gradle.internal.logging.text.StyledTextOutputFactory;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.reflect.Instantiator;
+import org.gradle.internal.resources.ProjectLeaseRegistry;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
 import org.gradle.internal.resources.SharedResourceLeaseRegistry;
 import org.gradle.internal.scopeids.id.BuildInvocationScopeId;
@@ -187,7 +189,10 @@ WorkNodeDependencyResolver createWorkNodeResolver() {
         return new WorkNodeDependencyResolver();
     }
 
-    TaskDependencyResolver createTaskDependencyResolver(List<DependencyResolver> dependencyResolvers) {
+    TaskDependencyResolver createTaskDependencyResolver(List<DependencyResolver> dependencyResolvers, GradleInternal gradle, BuildOperationExecutor buildOperationExecutor, ProjectStateRegistry projectStateRegistry, ProjectLeaseRegistry projectLeaseRegistry) {
+        if (ParallelTaskDependencyResolution.isEnabled(gradle)) {
+            return new TaskDependencyResolver(dependencyResolvers, new ParallelTaskDependencyResolution(dependencyResolvers, buildOperationExecutor, projectStateRegistry, projectLeaseRegistry));
+        }
         return new TaskDependencyResolver(dependencyResolvers);
     }
 
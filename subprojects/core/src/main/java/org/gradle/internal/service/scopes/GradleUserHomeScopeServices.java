@@ -35,6 +35,7 @@
 import org.gradle.cache.internal.CacheScopeMapping;
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
 import org.gradle.cache.internal.DefaultFileContentCacheFactory;
+import org.gradle.cache.internal.DefaultGeneratedClassBytecodeStore;
 import org.gradle.cache.internal.DefaultGeneratedGradleJarCache;
 import org.gradle.cache.internal.DefaultGlobalCacheLocations;
 import org.gradle.cache.internal.FileContentCacheFactory;
@@ -64,6 +65,7 @@
 import org.gradle.internal.file.FileAccessTimeJournal;
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
 import org.gradle.internal.id.LongIdGenerator;
+import org.gradle.internal.instantiation.generator.SharedGeneratedClassBytecodeStore;
 import org.gradle.internal.jvm.JavaModuleDetector;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.logging.LoggingManagerInternal;
@@ -127,6 +129,10 @@ ClassLoaderHierarchyHasher createClassLoaderHierarchyHasher(ClassLoaderRegistry
         return new RegistryAwareClassLoaderHierarchyHasher(registry, classLoaderFactory);
     }
 
+    DefaultGeneratedClassBytecodeStore createGeneratedClassBytecodeStore(CacheRepository cacheRepository, ClassLoaderHierarchyHasher classLoaderHierarchyHasher, FileAccessTimeJournal fileAccessTimeJournal, SharedGeneratedClassBytecodeStore sharedStore) {
+        return new DefaultGeneratedClassBytecodeStore(cacheRepository, classLoaderHierarchyHasher, fileAccessTimeJournal, sharedStore);
+    }
+
     HashingClassLoaderFactory createClassLoaderFactory(ClasspathHasher classpathHasher) {
         return new DefaultHashingClassLoaderFactory(classpathHasher);
     }
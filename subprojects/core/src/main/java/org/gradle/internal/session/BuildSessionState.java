@@ -17,6 +17,7 @@
 package org.gradle.internal.session;
 
 import org.gradle.StartParameter;
+import org.gradle.cache.internal.DefaultGeneratedClassBytecodeStore;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.initialization.BuildClientMetaData;
 import org.gradle.initialization.BuildEventConsumer;
@@ -48,6 +49,8 @@ public BuildSessionState(GradleUserHomeScopeServiceRegistry userHomeScopeService
                              BuildEventConsumer buildEventConsumer) {
         this.userHomeScopeServiceRegistry = userHomeScopeServiceRegistry;
         userHomeServices = userHomeScopeServiceRegistry.getServicesFor(startParameter.getGradleUserHomeDir());
+        // Trigger store to wire itself in
+        userHomeServices.get(DefaultGeneratedClassBytecodeStore.class);
         sessionScopeServices = ServiceRegistryBuilder.builder()
             .displayName("build session services")
             .parent(userHomeServices)
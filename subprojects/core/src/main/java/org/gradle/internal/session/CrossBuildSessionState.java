@@ -41,6 +41,7 @@
 import org.gradle.internal.operations.logging.LoggingBuildOperationProgressBroadcaster;
 import org.gradle.internal.operations.notify.BuildOperationNotificationBridge;
 import org.gradle.internal.operations.notify.BuildOperationNotificationValve;
+import org.gradle.internal.operations.trace.BuildOperationFlightRecorder;
 import org.gradle.internal.operations.trace.BuildOperationTrace;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
 import org.gradle.internal.service.ServiceRegistry;
@@ -73,6 +74,7 @@ public CrossBuildSessionState(ServiceRegistry parent, StartParameter startParame
             .build();
         // Trigger listener to wire itself in
         services.get(BuildOperationTrace.class);
+        services.get(BuildOperationFlightRecorder.class);
     }
 
     public ServiceRegistry getServices() {
@@ -147,6 +149,10 @@ BuildOperationTrace createBuildOperationTrace(BuildOperationListenerManager buil
             return new BuildOperationTrace(startParameter, buildOperationListenerManager);
         }
 
+        BuildOperationFlightRecorder createBuildOperationFlightRecorder(BuildOperationListenerManager buildOperationListenerManager, ExecutorFactory executorFactory) {
+            return new BuildOperationFlightRecorder(startParameter, buildOperationListenerManager, executorFactory);
+        }
+
         BuildOperationNotificationBridge createBuildOperationNotificationBridge(BuildOperationListenerManager buildOperationListenerManager, ListenerManager generalListenerManager) {
             return new BuildOperationNotificationBridge(buildOperationListenerManager, generalListenerManager);
         }
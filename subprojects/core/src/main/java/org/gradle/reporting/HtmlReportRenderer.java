@@ -51,6 +51,13 @@ public <T> void render(T model, ReportRenderer<T, HtmlReportBuilder> renderer, F
         }
     }
 
+    /**
+     * Formats the given date the way it is rendered into the pages of a report.
+     */
+    static String formatDate(Date date) {
+        return DateFormat.getDateTimeInstance().format(date);
+    }
+
     /**
      * Renders a single page HTML report from the given model, into the given output file.
      */
@@ -63,6 +70,13 @@ public void render(T model, HtmlReportBuilder output) throws IOException {
         }, outputFile.getParentFile());
     }
 
+    /**
+     * Formats the given date the way it is rendered into the pages of a report.
+     */
+    static String formatDate(Date date) {
+        return DateFormat.getDateTimeInstance().format(date);
+    }
+
     /**
      * Renders a single page HTML report from the given model, into the given output file.
      */
@@ -170,7 +184,7 @@ public String requireResource(URL source) {
 
             @Override
             public String formatDate(Date date) {
-                return DateFormat.getDateTimeInstance().format(date);
+                return HtmlReportRenderer.formatDate(date);
             }
 
             @Override
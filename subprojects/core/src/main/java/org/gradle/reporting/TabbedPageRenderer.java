@@ -18,13 +18,19 @@
 import org.gradle.internal.html.SimpleHtmlWriter;
 import org.gradle.util.GradleVersion;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.net.URL;
 import java.util.Date;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public abstract class TabbedPageRenderer<T> extends ReportRenderer<T, HtmlPageBuilder<SimpleHtmlWriter>> {
     private static final URL BASE_STYLE_URL = TabbedPageRenderer.class.getResource("/org/gradle/reporting/base-style.css");
     private static final URL REPORT_JS_URL = TabbedPageRenderer.class.getResource("/org/gradle/reporting/report.js");
+    private static final String GENERATED_BY = "Generated by ";
+    private static final String GENERATED_AT = " at ";
+    private static final Pattern GENERATED_DATE = Pattern.compile("(" + Pattern.quote(GENERATED_BY) + "<a [^>]*>[^<]*</a>" + Pattern.quote(GENERATED_AT) + ")[^<]*");
 
     private T model;
 
@@ -85,12 +91,26 @@ public void render(final T model, HtmlPageBuilder<SimpleHtmlWriter> builder) thr
                                 .endElement()
                             .endElement()
                         .endElement()
-                    .characters("Generated by ")
+                    .characters(GENERATED_BY)
                         .startElement("a").attribute("href", "http://www.gradle.org").characters("Gradle " + GradleVersion.current().getVersion()).endElement()
-                        .characters(String.format(" at %s", builder.formatDate(new Date())))
+                        .characters(GENERATED_AT + builder.formatDate(new Date()))
                     .endElement()
                 .endElement()
             .endElement()
         .endElement();
     }
+
+    /**
+     * Replaces the date in the footer of a page previously rendered by this renderer with the given date.
+     *
+     * @return the updated page, or null when the page has no footer.
+     */
+    @Nullable
+    public static String withGeneratedDate(String page, Date date) {
+        Matcher matcher = GENERATED_DATE.matcher(page);
+        if (!matcher.find()) {
+            return null;
+        }
+        return matcher.replaceFirst(Matcher.quoteReplacement(matcher.group(1) + HtmlReportRenderer.formatDate(date)));
+    }
 }
@@ -87,6 +87,39 @@ class DefaultNamedDomainObjectCollectionTest extends AbstractNamedDomainObjectCo
         container.names == ["bean1", "bean2", "bean3"] as SortedSet
     }
 
+    def "filtered views track elements added and removed after they are queried"() {
+        container.add(a)
+        container.add(d)
+        def sub1 = container.withType(BeanSub1)
+        def sub2 = container.withType(BeanSub2)
+        def matching = container.withType(BeanSub1).matching { it.name != "b" }
+
+        expect:
+        sub1.names == ["a"] as SortedSet
+        sub2.asMap == [d: d]
+        matching.names == ["a"] as SortedSet
+
+        when:
+        container.add(b)
+        container.add(c)
+        container.remove(a)
+
+        then:
+        sub1.names == ["b", "c"] as SortedSet
+        sub1.asMap == [b: b, c: c]
+        sub2.names == ["d"] as SortedSet
+        matching.names == ["c"] as SortedSet
+        container.names == ["b", "c", "d"] as SortedSet
+
+        when:
+        container.clear()
+        container.add(a)
+
+        then:
+        sub1.names == ["a"] as SortedSet
+        sub2.names.empty
+    }
+
     def "returns null element with name is not present and there are no rules to create it"() {
         expect:
         container.findByName("bean") == null
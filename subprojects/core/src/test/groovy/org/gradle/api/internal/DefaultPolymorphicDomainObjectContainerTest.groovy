@@ -443,6 +443,46 @@ class DefaultPolymorphicDomainObjectContainerTest extends AbstractPolymorphicDom
         e.message == "The domain object 'fred' (${Person.class.canonicalName}) is not a subclass of the given type (${AgeAwarePerson.class.canonicalName})."
     }
 
+    def "filtered views track registered elements as they are added and realized"() {
+        given:
+        container.registerFactory(Person, { new DefaultPerson(name: it) } as NamedDomainObjectFactory)
+        container.registerFactory(AgeAwarePerson, { new DefaultAgeAwarePerson(name: it) } as NamedDomainObjectFactory)
+        container.register("fred", Person)
+        container.register("alice", AgeAwarePerson)
+        container.add(new DefaultAgeAwarePerson(name: "janis"))
+        def people = container.withType(Person)
+        def aged = container.withType(AgeAwarePerson)
+
+        expect:
+        people.names == ["alice", "fred", "janis"] as SortedSet
+        aged.names == ["alice", "janis"] as SortedSet
+
+        when:
+        container.register("bob", AgeAwarePerson)
+        container.register("mike", Person)
+
+        then:
+        people.names == ["alice", "bob", "fred", "janis", "mike"] as SortedSet
+        aged.names == ["alice", "bob", "janis"] as SortedSet
+        aged.findByName("bob").age == 0
+
+        when:
+        container.getByName("alice")
+        container.getByName("fred")
+
+        then:
+        aged.names == ["alice", "bob", "janis"] as SortedSet
+        aged.asMap.keySet() == ["alice", "bob", "janis"] as Set
+        people.names == ["alice", "bob", "fred", "janis", "mike"] as SortedSet
+
+        when:
+        container.remove(container.getByName("alice"))
+
+        then:
+        aged.names == ["bob", "janis"] as SortedSet
+        people.names == ["bob", "fred", "janis", "mike"] as SortedSet
+    }
+
     protected void assertSchemaIs(Map<String, String> expectedSchema) {
         def actualSchema = container.collectionSchema
         Map<String, String> actualSchemaMap = actualSchema.elements.collectEntries { schema ->
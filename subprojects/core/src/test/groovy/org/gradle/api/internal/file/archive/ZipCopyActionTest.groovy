@@ -15,6 +15,8 @@
  */
 package org.gradle.api.internal.file.archive
 
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream
 import org.apache.tools.zip.Zip64RequiredException
 import org.apache.tools.zip.ZipOutputStream
 import org.gradle.api.file.RelativePath
@@ -24,6 +26,8 @@ import org.gradle.api.internal.file.copy.CopyActionProcessingStream
 import org.gradle.api.internal.file.copy.DefaultZipCompressor
 import org.gradle.api.internal.file.copy.FileCopyDetailsInternal
 import org.gradle.api.tasks.bundling.Zip
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.work.WorkerLeaseRegistry
 import org.gradle.test.fixtures.archive.ZipTestFixture
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -31,6 +35,12 @@ import org.junit.Rule
 import org.junit.Test
 import spock.lang.Specification
 
+import java.util.zip.CRC32
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+
 import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
 import static org.hamcrest.CoreMatchers.equalTo
 
@@ -42,6 +52,9 @@ class ZipCopyActionTest extends Specification {
     ZipCopyAction visitor
     TestFile zipFile
     def encoding = 'UTF-8'
+    def workerLease = Stub(WorkerLeaseRegistry.WorkerLease) {
+        startChild() >> Stub(WorkerLeaseRegistry.WorkerLeaseCompletion)
+    }
 
     def setup() {
         zipFile = tmpDir.getTestDirectory().file("test.zip")
@@ -129,6 +142,166 @@ class ZipCopyActionTest extends Specification {
         e.message == "xyz\n\nTo build this archive, please enable the zip64 extension.\nSee: doc url"
     }
 
+    void compressesEntriesInParallel() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, false, executorFactory, workerLease, 4, false)
+        def files = [dir("dir")] + (1..20).collect { file("dir/file$it") }
+
+        when:
+        zip(files as FileCopyDetailsInternal[])
+        def firstRun = zipFile.bytes
+        zip(files as FileCopyDetailsInternal[])
+
+        then:
+        zipFile.bytes == firstRun
+        new ZipFile(zipFile).withCloseable { zip ->
+            assert zip.entries().collect { it.name } == ["dir/"] + (1..20).collect { "dir/file$it" }
+            assert zip.getEntry("dir/file1").method == ZipEntry.DEFLATED
+            assert zip.getInputStream(zip.getEntry("dir/file7")).text == "contents of dir/file7"
+            true
+        }
+
+        cleanup:
+        executorFactory.stop()
+    }
+
+    void compressesEntriesInParallelWithZip64Allowed() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def files = [dir("dir")] + (1..50).collect { file("dir/file$it", "contents of dir/file$it\n" * it) }
+        def compressor = new DefaultZipCompressor(true, ZipOutputStream.DEFLATED)
+
+        when:
+        visitor = new ZipCopyAction(zipFile, compressor, new DocumentationRegistry(), encoding, false, false, executorFactory, workerLease, 2, false)
+        zip(files as FileCopyDetailsInternal[])
+        def withTwoThreads = zipFile.bytes
+        visitor = new ZipCopyAction(zipFile, compressor, new DocumentationRegistry(), encoding, false, false, executorFactory, workerLease, 8, false)
+        zip(files as FileCopyDetailsInternal[])
+
+        then:
+        zipFile.bytes == withTwoThreads
+        new ZipFile(zipFile).withCloseable { zip ->
+            assert zip.entries().collect { it.name } == ["dir/"] + (1..50).collect { "dir/file$it" }
+            assert zip.getInputStream(zip.getEntry("dir/file7")).text == "contents of dir/file7\n" * 7
+            true
+        }
+
+        cleanup:
+        executorFactory.stop()
+    }
+
+    void compressesEachEntryInParallelUsingAChildWorkerLease() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def parentLease = Mock(WorkerLeaseRegistry.WorkerLease)
+        def childLease = Mock(WorkerLeaseRegistry.WorkerLeaseCompletion)
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, false, executorFactory, parentLease, 4, false)
+
+        when:
+        zip(file("file1"), file("file2"), file("file3"))
+
+        then:
+        3 * parentLease.startChild() >> childLease
+        3 * childLease.leaseFinish()
+
+        cleanup:
+        executorFactory.stop()
+    }
+
+    void wrapsZip64FailureWhenCompressingInParallel() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def zipOutputStream = Mock(ZipArchiveOutputStream)
+        zipOutputStream.close() >> {
+            throw new org.apache.commons.compress.archivers.zip.Zip64RequiredException("xyz")
+        }
+
+        def compressor = new DefaultZipCompressor(false, ZipOutputStream.DEFLATED) {
+            @Override
+            ZipArchiveOutputStream createRawArchiveOutputStream(File destination) {
+                zipOutputStream
+            }
+        }
+
+        def docRegistry = Mock(DocumentationRegistry)
+        1 * docRegistry.getDslRefForProperty(Zip, "zip64") >> "doc url"
+        0 * docRegistry._
+
+        visitor = new ZipCopyAction(zipFile, compressor, docRegistry, encoding, false, false, executorFactory, workerLease, 4, false)
+
+        when:
+        zip(file("file2"))
+
+        then:
+        def e = thrown(org.gradle.api.tasks.bundling.internal.Zip64RequiredException)
+        e.message == "xyz\n\nTo build this archive, please enable the zip64 extension.\nSee: doc url"
+
+        cleanup:
+        executorFactory.stop()
+    }
+
+    void storesAlreadyCompressedFiles() {
+        given:
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, true, null, null, 1, false)
+
+        when:
+        zip(file("lib/some.jar"), file("lib/some.txt"))
+
+        then:
+        new ZipFile(zipFile).withCloseable { zip ->
+            assert zip.getEntry("lib/some.jar").method == ZipEntry.STORED
+            assert zip.getEntry("lib/some.txt").method == ZipEntry.DEFLATED
+            assert zip.getInputStream(zip.getEntry("lib/some.jar")).text == "contents of lib/some.jar"
+            true
+        }
+    }
+
+    void reusesUnchangedEntriesOfPreviousArchive() {
+        given:
+        def compressor = new DefaultZipCompressor(false, ZipOutputStream.DEFLATED)
+        visitor = new ZipCopyAction(zipFile, compressor, new DocumentationRegistry(), encoding, false, false, null, null, 1, true)
+        zip(dir("dir"), file("dir/file1"), file("dir/file2"))
+
+        when:
+        zip(dir("dir"), file("dir/file1"), file("dir/file2", "changed"), file("dir/file3"))
+
+        then:
+        def expectedFile = tmpDir.getTestDirectory().file("expected.zip")
+        visitor = new ZipCopyAction(expectedFile, compressor, new DocumentationRegistry(), encoding, false)
+        zip(dir("dir"), file("dir/file1"), file("dir/file2", "changed"), file("dir/file3"))
+        zipFile.bytes == expectedFile.bytes
+        !tmpDir.getTestDirectory().file("test.zip.previous").exists()
+    }
+
+    void doesNotReuseEntriesOfPreviousArchiveWithSameChecksumButDifferentContent() {
+        given:
+        def compressor = new DefaultZipCompressor(false, ZipOutputStream.DEFLATED)
+        def content = "contents of dir/file1".bytes
+        def crc = new CRC32()
+        crc.update(content)
+        // An entry whose name, method, CRC and size match the new content, but whose data does not
+        def previousData = deflate("contents of dir/other".bytes)
+        def previousEntry = new ZipArchiveEntry("dir/file1")
+        previousEntry.method = ZipEntry.DEFLATED
+        previousEntry.crc = crc.value
+        previousEntry.size = content.length
+        previousEntry.compressedSize = previousData.length
+        new ZipArchiveOutputStream(zipFile).withCloseable {
+            it.addRawArchiveEntry(previousEntry, new ByteArrayInputStream(previousData))
+        }
+
+        when:
+        visitor = new ZipCopyAction(zipFile, compressor, new DocumentationRegistry(), encoding, false, false, null, null, 1, true)
+        zip(file("dir/file1"))
+
+        then:
+        new ZipFile(zipFile).withCloseable { zip ->
+            assert zip.getInputStream(zip.getEntry("dir/file1")).bytes == content
+            true
+        }
+    }
+
     @Test
     void wrapsFailureToAddElement() {
         given:
@@ -144,6 +317,19 @@ class ZipCopyActionTest extends Specification {
         e.cause.is(failure)
     }
 
+    private static byte[] deflate(byte[] content) {
+        def deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true)
+        try {
+            def compressed = new ByteArrayOutputStream()
+            def deflaterStream = new DeflaterOutputStream(compressed, deflater)
+            deflaterStream.write(content)
+            deflaterStream.finish()
+            return compressed.toByteArray()
+        } finally {
+            deflater.end()
+        }
+    }
+
     private void zip(final FileCopyDetailsInternal... files) {
         visitor.execute(new CopyActionProcessingStream() {
             void process(CopyActionProcessingStreamAction action) {
@@ -155,13 +341,18 @@ class ZipCopyActionTest extends Specification {
     }
 
     private FileCopyDetailsInternal file(final String path) {
+        file(path, "contents of $path")
+    }
+
+    private FileCopyDetailsInternal file(final String path, final String content) {
         def mock = Mock(FileCopyDetailsInternal)
         mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getName() >> RelativePath.parse(false, path).lastName
         mock.getLastModified() >> 1000L
         mock.isDirectory() >> false
         mock.getMode() >> 1
         mock.copyTo(_ as OutputStream) >> { OutputStream out ->
-            out << "contents of $path"
+            out << content
         }
         mock
     }
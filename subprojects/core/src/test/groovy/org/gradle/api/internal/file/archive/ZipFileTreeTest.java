@@ -17,12 +17,15 @@
 
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.EmptyFileVisitor;
+import org.gradle.api.file.FileVisitDetails;
 import org.gradle.test.fixtures.file.TestFile;
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider;
 import org.gradle.util.Resources;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -33,6 +36,8 @@
 import static org.gradle.util.WrapUtil.toList;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class ZipFileTreeTest {
@@ -135,4 +140,51 @@ public void doesNotOverwriteFilesOnSecondVisit() throws InterruptedException {
         assertVisits(tree, toList("file1.txt"), new ArrayList<String>());
         content.assertHasNotChangedSince(snapshot);
     }
+
+    @Test
+    public void doesNotExpandZipFileWhenOnlyContentOfEntriesIsRead() {
+        rootDir.file("subdir/file1.txt").write("content");
+        rootDir.zipTo(zipFile);
+
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        tree.visit(new EmptyFileVisitor() {
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                fileDetails.copyTo(content);
+            }
+        });
+
+        assertThat(content.toString(), equalTo("content"));
+        assertFalse(expandDir.exists());
+    }
+
+    @Test
+    public void removesUnusedExpandedDirectoriesOfPreviousVersionsOfTheSameArchive() {
+        rootDir.file("file1.txt").write("content");
+        rootDir.zipTo(zipFile);
+        assertVisits(tree, toList("file1.txt"), new ArrayList<String>());
+        TestFile currentVersion = expandDir.listFiles()[0];
+        String prefix = currentVersion.getName().substring(0, currentVersion.getName().lastIndexOf('_') + 1);
+
+        TestFile previousVersion = expandDir.createDir(prefix + "0123456789abcdef");
+        TestFile recentlyUsedVersion = expandDir.createDir(prefix + "fedcba9876543210");
+        TestFile notAnExpandedDir = expandDir.createDir(prefix + "previous");
+        TestFile sameNameInOtherLocation = expandDir.createDir("test.zip_0123456789abcdef_0123456789abcdef");
+        TestFile otherArchive = expandDir.createDir("other.zip_0123456789abcdef_0123456789abcdef");
+        long twoHoursAgo = System.currentTimeMillis() - 2 * 60 * 60 * 1000;
+        for (TestFile dir : toList(currentVersion, previousVersion, notAnExpandedDir, sameNameInOtherLocation, otherArchive)) {
+            dir.setLastModified(twoHoursAgo);
+        }
+
+        rootDir.file("file2.txt").write("content");
+        rootDir.zipTo(zipFile);
+        assertVisits(tree, toList("file1.txt", "file2.txt"), new ArrayList<String>());
+
+        assertFalse(currentVersion.exists());
+        assertFalse(previousVersion.exists());
+        assertTrue(recentlyUsedVersion.exists());
+        assertTrue(notAnExpandedDir.exists());
+        assertTrue(sameNameInOtherLocation.exists());
+        assertTrue(otherArchive.exists());
+    }
 }
@@ -17,11 +17,15 @@
 package org.gradle.api.internal.file.copy
 
 import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.DefaultFileVisitDetails
 import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.atomic.AtomicBoolean
+
 import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
 
 class FileCopyActionTest extends Specification {
@@ -44,6 +48,40 @@ class FileCopyActionTest extends Specification {
         )
     }
 
+    def copiesUnfilteredFilesInParallel() {
+        def executorFactory = new DefaultExecutorFactory()
+        FileCopyAction visitor = new FileCopyAction(TestFiles.resolver(destDir), executorFactory, 4)
+        def sourceDir = tmpDir.createDir("source")
+        def details = (1..50).collect { i ->
+            def source = sourceDir.file("dir${i % 5}/file${i}.txt").createFile()
+            source.text = "content $i"
+            copyDetails(source, new RelativePath(true, "dir${i % 5}", "file${i}.txt"))
+        }
+        def duplicate = sourceDir.file("duplicate.txt").createFile()
+        duplicate.text = "last copy wins"
+        details << copyDetails(duplicate, new RelativePath(true, "dir1", "file1.txt"))
+
+        when:
+        def result = visit(visitor, details as FileCopyDetailsInternal[])
+
+        then:
+        result.didWork
+        (2..50).every { i -> new File(destDir, "dir${i % 5}/file${i}.txt").text == "content $i" }
+        new File(destDir, "dir1/file1.txt").text == "last copy wins"
+
+        cleanup:
+        executorFactory.stop()
+    }
+
+    private FileCopyDetailsInternal copyDetails(File source, RelativePath relativePath) {
+        def specResolver = Stub(CopySpecResolver) {
+            getFilteringCharset() >> "UTF-8"
+            getDestPath() >> new RelativePath(false)
+        }
+        def fileSystem = TestFiles.fileSystem()
+        return new DefaultFileCopyDetails(new DefaultFileVisitDetails(source, relativePath, new AtomicBoolean(), fileSystem, fileSystem), specResolver, fileSystem)
+    }
+
     private FileCopyDetailsInternal file(final RelativePath relativePath, final File targetFile) {
         final FileCopyDetailsInternal details = Mock(FileCopyDetailsInternal)
         _ * details.relativePath >> relativePath
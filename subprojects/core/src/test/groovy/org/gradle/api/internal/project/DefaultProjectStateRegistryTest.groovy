@@ -255,6 +255,32 @@ class DefaultProjectStateRegistryTest extends ConcurrentSpec {
         thrown(IllegalStateException)
     }
 
+    def "other threads can lock project state while all projects are temporarily unlocked"() {
+        given:
+        registry.registerProjects(build("p1", "p2"))
+        def project1 = project("p1")
+        def state = registry.stateFor(project1)
+        state.attachMutableModel(project1)
+
+        when:
+        registry.withMutableStateOfAllProjects {
+            registry.withoutMutableStateOfAllProjects {
+                assert !state.hasMutableState()
+                async {
+                    start {
+                        state.applyToMutableState {
+                            assert state.hasMutableState()
+                        }
+                    }
+                }
+            }
+            assert state.hasMutableState()
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
     def "thread can be granted uncontrolled access to all projects"() {
         given:
         registry.registerProjects(build("p1", "p2"))
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project
+
+import org.gradle.internal.resources.ProjectLeaseRegistry
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import java.util.function.Consumer
+
+class ParallelProjectConfigurationTest extends ConcurrentSpec {
+    def projectLeaseRegistry = Stub(ProjectLeaseRegistry) {
+        withoutProjectLock(_ as Runnable) >> { Runnable action -> action.run() }
+    }
+
+    def "configures projects concurrently"() {
+        def project1 = project()
+        def project2 = project()
+        def configuration = new ParallelProjectConfiguration(projectLeaseRegistry, [project1, project2])
+
+        when:
+        async {
+            start {
+                configuration.configure(project1) {
+                    instant.started1
+                    thread.blockUntil.started2
+                }
+            }
+            start {
+                configuration.configure(project2) {
+                    instant.started2
+                    thread.blockUntil.started1
+                }
+            }
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "configures child project once its parent is configured"() {
+        def parent = project()
+        def child = project(parent)
+        def configuration = new ParallelProjectConfiguration(projectLeaseRegistry, [parent, child])
+
+        when:
+        async {
+            start {
+                configuration.configure(parent) {
+                    instant.parentStarted
+                    thread.block()
+                    instant.parentFinished
+                }
+            }
+            start {
+                thread.blockUntil.parentStarted
+                configuration.configure(child) {
+                    instant.childStarted
+                }
+            }
+        }
+
+        then:
+        instant.childStarted > instant.parentFinished
+    }
+
+    def "configuration that accesses another project continues once the other projects are configured"() {
+        def project1 = project()
+        def project2 = project()
+        def configuration = new ParallelProjectConfiguration(projectLeaseRegistry, [project1, project2])
+
+        when:
+        async {
+            start {
+                configuration.configure(project1) {
+                    thread.blockUntil.started2
+                    ParallelProjectConfiguration.beforeCrossProjectAccess(project2.mutationState)
+                    instant.accessed
+                }
+            }
+            start {
+                configuration.configure(project2) {
+                    instant.started2
+                    thread.block()
+                    instant.finished2
+                }
+            }
+        }
+
+        then:
+        instant.accessed > instant.finished2
+    }
+
+    def "projects that access each other are configured one at a time"() {
+        def project1 = project()
+        def project2 = project()
+        def configuration = new ParallelProjectConfiguration(projectLeaseRegistry, [project1, project2])
+
+        when:
+        async {
+            start {
+                configuration.configure(project1) {
+                    instant.started1
+                    thread.blockUntil.started2
+                    ParallelProjectConfiguration.beforeCrossProjectAccess(null)
+                    instant.accessed1
+                    thread.block()
+                    instant.finished1
+                }
+            }
+            start {
+                configuration.configure(project2) {
+                    instant.started2
+                    thread.blockUntil.started1
+                    ParallelProjectConfiguration.beforeCrossProjectAccess(null)
+                    instant.accessed2
+                    thread.block()
+                    instant.finished2
+                }
+            }
+        }
+
+        then:
+        instant.accessed2 > instant.finished1 || instant.accessed1 > instant.finished2
+    }
+
+    def "access to the project being configured or from outside parallel configuration does not block"() {
+        def project1 = project()
+        def configuration = new ParallelProjectConfiguration(projectLeaseRegistry, [project1])
+
+        when:
+        ParallelProjectConfiguration.beforeCrossProjectAccess(project1.mutationState)
+        ParallelProjectConfiguration.beforeCrossProjectAccess(null)
+        configuration.configure(project1) {
+            ParallelProjectConfiguration.beforeCrossProjectAccess(project1.mutationState)
+            ParallelProjectConfiguration.beforeAccessTo(project1)
+            ParallelProjectConfiguration.beforeCrossProjectAccess(null)
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
+    private ProjectInternal project(ProjectInternal parent = null) {
+        def project = Stub(ProjectInternal)
+        def state = Stub(ProjectState)
+        project.mutationState >> state
+        state.parent >> parent?.mutationState
+        state.applyToMutableState(_) >> { Consumer<ProjectInternal> action -> action.accept(project) }
+        return project
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.cache.CacheBuilder
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.file.FileAccessTimeJournal
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.instantiation.generator.SharedGeneratedClassBytecodeStore
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class DefaultGeneratedClassBytecodeStoreTest extends Specification {
+
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def cacheRepository = Stub(CacheRepository)
+    def cache = Stub(PersistentCache)
+    def classLoaderHierarchyHasher = Mock(ClassLoaderHierarchyHasher)
+    def fileAccessTimeJournal = Mock(FileAccessTimeJournal)
+    def sharedStore = Mock(SharedGeneratedClassBytecodeStore)
+    def bytecode = [0xCA, 0xFE, 0xBA, 0xBE, 0, 0, 0, 52] as byte[]
+    DefaultGeneratedClassBytecodeStore store
+
+    def setup() {
+        def cacheBuilder = Stub(CacheBuilder)
+        cacheRepository.cache("generated-classes") >> cacheBuilder
+        cacheBuilder.withDisplayName(_) >> cacheBuilder
+        cacheBuilder.withLockOptions(_) >> cacheBuilder
+        cacheBuilder.withCleanup(_) >> cacheBuilder
+        cacheBuilder.open() >> cache
+        cache.baseDir >> tmpDir.testDirectory
+        store = new DefaultGeneratedClassBytecodeStore(cacheRepository, classLoaderHierarchyHasher, fileAccessTimeJournal, sharedStore)
+    }
+
+    def "is added to shared store until closed"() {
+        when:
+        def store = new DefaultGeneratedClassBytecodeStore(cacheRepository, classLoaderHierarchyHasher, fileAccessTimeJournal, sharedStore)
+
+        then:
+        1 * sharedStore.add({ it.is(store) })
+
+        when:
+        store.close()
+
+        then:
+        1 * sharedStore.remove({ it.is(store) })
+    }
+
+    def "loads stored bytecode for the same class loader hierarchy"() {
+        given:
+        classLoaderHierarchyHasher.getClassLoaderHash(_) >> HashCode.fromInt(1)
+
+        when:
+        store.store(DefaultGeneratedClassBytecodeStoreTest, "Thing_Decorated", bytecode)
+
+        then:
+        store.load(DefaultGeneratedClassBytecodeStoreTest, "Thing_Decorated") == bytecode
+        store.load(DefaultGeneratedClassBytecodeStoreTest, "Other_Decorated") == null
+    }
+
+    def "marks class files as accessed when stored and loaded"() {
+        given:
+        classLoaderHierarchyHasher.getClassLoaderHash(_) >> HashCode.fromInt(1)
+
+        when:
+        store.store(DefaultGeneratedClassBytecodeStoreTest, "Thing_Decorated", bytecode)
+
+        then:
+        1 * fileAccessTimeJournal.setLastAccessTime({ it.name.endsWith(".class") && it.parentFile == tmpDir.testDirectory }, _)
+
+        when:
+        store.load(DefaultGeneratedClassBytecodeStoreTest, "Thing_Decorated")
+        store.load(DefaultGeneratedClassBytecodeStoreTest, "Other_Decorated")
+
+        then:
+        1 * fileAccessTimeJournal.setLastAccessTime({ it.name.endsWith(".class") && it.parentFile == tmpDir.testDirectory }, _)
+    }
+
+    def "does not load bytecode stored for another class loader hierarchy"() {
+        when:
+        store.store(DefaultGeneratedClassBytecodeStoreTest, "Thing_Decorated", bytecode)
+        def loaded = store.load(DefaultGeneratedClassBytecodeStoreTest, "Thing_Decorated")
+
+        then:
+        2 * classLoaderHierarchyHasher.getClassLoaderHash(_) >>> [HashCode.fromInt(1), HashCode.fromInt(2)]
+        loaded == null
+    }
+
+    def "does not store bytecode when class loader hierarchy is not known"() {
+        given:
+        classLoaderHierarchyHasher.getClassLoaderHash(_) >> null
+
+        when:
+        store.store(DefaultGeneratedClassBytecodeStoreTest, "Thing_Decorated", bytecode)
+
+        then:
+        store.load(DefaultGeneratedClassBytecodeStoreTest, "Thing_Decorated") == null
+        tmpDir.testDirectory.list().length == 0
+    }
+}
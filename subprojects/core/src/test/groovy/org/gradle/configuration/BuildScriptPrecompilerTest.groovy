@@ -0,0 +1,205 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration
+
+import org.gradle.api.internal.initialization.ClassLoaderScope
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.groovy.scripts.internal.CompileOperation
+import org.gradle.groovy.scripts.internal.FileCacheBackedScriptClassCompiler
+import org.gradle.internal.concurrent.DefaultParallelismConfiguration
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.resource.ResourceLocation
+import org.gradle.internal.resource.TextResource
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService
+import org.gradle.internal.work.DefaultWorkerLeaseService
+import org.gradle.model.dsl.internal.transform.ClosureCreationInterceptingVerifier
+import spock.lang.Specification
+
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.tryLock
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock
+
+class BuildScriptPrecompilerTest extends Specification {
+    def scriptClassCompiler = Mock(FileCacheBackedScriptClassCompiler)
+    def pluginsBlockOperation = Stub(CompileOperation)
+    def scriptOperation = Stub(CompileOperation)
+    def compileOperationFactory = Stub(CompileOperationFactory) {
+        getPluginsBlockCompileOperation(_) >> pluginsBlockOperation
+        getScriptCompileOperation(_, _) >> scriptOperation
+    }
+    def pending = []
+    def executor = Mock(ManagedExecutor) {
+        execute(_) >> { Runnable action -> pending << action }
+    }
+    def executorFactory = Mock(ExecutorFactory)
+    def coordinationService = new DefaultResourceLockCoordinationService()
+    def workerLeaseService = new DefaultWorkerLeaseService(coordinationService, new DefaultParallelismConfiguration(false, 1))
+    def classLoader = new URLClassLoader([] as URL[])
+    def projectScope = Stub(ClassLoaderScope) {
+        getExportClassLoader() >> classLoader
+    }
+
+    def cleanup() {
+        workerLeaseService.stop()
+    }
+
+    def "compiles both passes of the Groovy build scripts of child projects while holding a worker lease"() {
+        def precompiler = precompiler(true)
+        def child1 = project("build.gradle")
+        def child2 = project("child2.gradle")
+        def parent = project("build.gradle", child1, child2)
+        def leases = []
+
+        when:
+        precompiler.precompileChildBuildScriptsOf(parent, projectScope)
+
+        then:
+        1 * executorFactory.create(_, 1) >> executor
+        pending.size() == 2
+        0 * scriptClassCompiler._
+
+        when:
+        pending*.run()
+
+        then:
+        1 * scriptClassCompiler.precompile(child1.buildScriptSource, classLoader, pluginsBlockOperation, _, _) >> { leases << workerLeaseService.currentWorkerLease }
+        1 * scriptClassCompiler.precompile(child1.buildScriptSource, classLoader, scriptOperation, _, ClosureCreationInterceptingVerifier.INSTANCE) >> { leases << workerLeaseService.currentWorkerLease }
+        1 * scriptClassCompiler.precompile(child2.buildScriptSource, classLoader, pluginsBlockOperation, _, _) >> { leases << workerLeaseService.currentWorkerLease }
+        1 * scriptClassCompiler.precompile(child2.buildScriptSource, classLoader, scriptOperation, _, ClosureCreationInterceptingVerifier.INSTANCE) >> { leases << workerLeaseService.currentWorkerLease }
+        leases.size() == 4
+
+        and:
+        // The worker lease is released once the script has been compiled
+        workerLeaseAvailable()
+    }
+
+    def "does not compile a script when no worker lease is available"() {
+        def precompiler = precompiler(true)
+        def parent = project("build.gradle", project("build.gradle"))
+
+        given:
+        executorFactory.create(_, _) >> executor
+        def busy = workerLeaseService.getWorkerLease().start()
+
+        when:
+        precompiler.precompileChildBuildScriptsOf(parent, projectScope)
+        pending*.run()
+
+        then:
+        0 * scriptClassCompiler._
+
+        cleanup:
+        busy?.leaseFinish()
+    }
+
+    def "ignores failure to compile a script"() {
+        def precompiler = precompiler(true)
+        def parent = project("build.gradle", project("build.gradle"))
+
+        given:
+        executorFactory.create(_, _) >> executor
+
+        when:
+        precompiler.precompileChildBuildScriptsOf(parent, projectScope)
+        pending*.run()
+
+        then:
+        1 * scriptClassCompiler.precompile(_, _, pluginsBlockOperation, _, _) >> { throw new RuntimeException("broken") }
+        0 * scriptClassCompiler._
+    }
+
+    def "does not compile Kotlin, missing or empty build scripts"() {
+        def precompiler = precompiler(true)
+        def parent = project("build.gradle", project("build.gradle.kts"), project("build.gradle", false, false), project("build.gradle", true, true))
+
+        when:
+        precompiler.precompileChildBuildScriptsOf(parent, projectScope)
+
+        then:
+        0 * executorFactory._
+        0 * scriptClassCompiler._
+    }
+
+    def "does nothing when disabled"() {
+        def precompiler = precompiler(false)
+        def parent = project("build.gradle", project("build.gradle"))
+
+        when:
+        precompiler.precompileChildBuildScriptsOf(parent, projectScope)
+
+        then:
+        0 * executorFactory._
+        0 * scriptClassCompiler._
+    }
+
+    def "does not compile scripts once stopped"() {
+        def precompiler = precompiler(true)
+        def parent = project("build.gradle", project("build.gradle"))
+
+        given:
+        executorFactory.create(_, _) >> executor
+
+        when:
+        precompiler.precompileChildBuildScriptsOf(parent, projectScope)
+        precompiler.stop()
+        pending*.run()
+        precompiler.precompileChildBuildScriptsOf(parent, projectScope)
+
+        then:
+        1 * executor.stop()
+        pending.size() == 1
+        0 * scriptClassCompiler._
+    }
+
+    private BuildScriptPrecompiler precompiler(boolean enabled) {
+        return new BuildScriptPrecompiler(scriptClassCompiler, compileOperationFactory, executorFactory, workerLeaseService, coordinationService, 1, enabled)
+    }
+
+    private boolean workerLeaseAvailable() {
+        def workerLease = workerLeaseService.getWorkerLease()
+        if (!coordinationService.withStateLock(tryLock(workerLease))) {
+            return false
+        }
+        coordinationService.withStateLock(unlock(workerLease))
+        return true
+    }
+
+    private ProjectInternal project(String scriptFileName, boolean exists, boolean empty, ProjectInternal... children) {
+        def resource = Stub(TextResource) {
+            getLocation() >> Stub(ResourceLocation) {
+                getFile() >> new File(scriptFileName)
+            }
+            getExists() >> exists
+            getHasEmptyContent() >> empty
+        }
+        def scriptSource = Stub(ScriptSource) {
+            getResource() >> resource
+            getDisplayName() >> scriptFileName
+        }
+        def childProjects = [:]
+        children.eachWithIndex { child, index -> childProjects["child${index}".toString()] = child }
+        return Stub(ProjectInternal) {
+            getBuildScriptSource() >> scriptSource
+            getChildProjects() >> childProjects
+        }
+    }
+
+    private ProjectInternal project(String scriptFileName, ProjectInternal... children) {
+        return project(scriptFileName, true, false, children)
+    }
+}
@@ -63,6 +63,7 @@ class DefaultScriptPluginFactoryTest extends Specification {
     def classpathHasher = Mock(ClasspathHasher)
     def autoAppliedPluginHandler = Mock(AutoAppliedPluginHandler)
     def compileOperationsFactory = new DefaultCompileOperationFactory(documentationRegistry)
+    def buildScriptPrecompiler = Mock(BuildScriptPrecompiler)
 
     def factory = new DefaultScriptPluginFactory(
         new DefaultServiceRegistry(),
@@ -70,7 +71,8 @@ class DefaultScriptPluginFactoryTest extends Specification {
         loggingManagerFactory,
         autoAppliedPluginHandler,
         pluginRequestApplicator,
-        compileOperationsFactory
+        compileOperationsFactory,
+        buildScriptPrecompiler
     )
 
     def setup() {
@@ -131,6 +133,29 @@ class DefaultScriptPluginFactoryTest extends Specification {
         0 * scriptRunner._
     }
 
+    void "pre-compiles child project build scripts once the plugins of a project are applied"() {
+        given:
+        def target = Mock(ProjectInternal)
+
+        when:
+        def configurer = factory.create(scriptSource, scriptHandler, targetScope, baseScope, true)
+        configurer.apply(target)
+
+        then:
+        1 * loggingManagerFactory.create() >> loggingManager
+        1 * scriptCompilerFactory.createCompiler(scriptSource) >> scriptCompiler
+        1 * scriptCompiler.compile(ProjectScript, _ as NoDataCompileOperation, baseScope, _) >> classPathScriptRunner
+
+        then:
+        1 * pluginRequestApplicator.applyPlugins(_, scriptHandler, _, targetScope)
+
+        then:
+        1 * buildScriptPrecompiler.precompileChildBuildScriptsOf(target, targetScope)
+
+        then:
+        1 * scriptCompiler.compile(ProjectScript, { it.transformer != null }, targetScope, !null) >> scriptRunner
+    }
+
     void "configures a project object using script with imperative code"() {
         given:
         def target = Mock(ProjectInternal)
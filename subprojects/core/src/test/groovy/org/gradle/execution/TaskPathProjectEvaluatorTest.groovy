@@ -19,12 +19,14 @@ package org.gradle.execution
 import org.gradle.api.BuildCancelledException
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.resources.ProjectLeaseRegistry
 import spock.lang.Specification
 
 class TaskPathProjectEvaluatorTest extends Specification {
     private cancellationToken = Mock(BuildCancellationToken)
     private project = Mock(ProjectInternal)
-    private evaluator = new TaskPathProjectEvaluator(cancellationToken)
+    private evaluator = new TaskPathProjectEvaluator(cancellationToken, Stub(BuildOperationExecutor), Stub(ProjectLeaseRegistry))
 
     def "project configuration fails when cancelled"() {
         given:
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import org.gradle.api.Action
+import org.gradle.api.Task
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectState
+import org.gradle.api.internal.project.ProjectStateRegistry
+import org.gradle.api.internal.tasks.FinalizeAction
+import org.gradle.api.internal.tasks.TaskDependencyContainer
+import org.gradle.api.internal.tasks.TaskDependencyInternal
+import org.gradle.api.internal.tasks.TaskDependencyResolveContext
+import org.gradle.api.specs.Specs
+import org.gradle.api.tasks.TaskDependency
+import org.gradle.composite.internal.IncludedBuildTaskGraph
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.resources.ProjectLeaseRegistry
+
+import java.util.function.Consumer
+
+class ParallelTaskDependencyResolutionTest extends AbstractExecutionPlanSpec {
+    def taskNodeFactory = new TaskNodeFactory(thisBuild, Stub(IncludedBuildTaskGraph))
+    def dependencyResolvers = [new TaskNodeDependencyResolver(taskNodeFactory)]
+    def rounds = []
+    def operationContext = Stub(BuildOperationContext)
+    def buildOperationExecutor = Stub(BuildOperationExecutor) {
+        runAll(_ as Action) >> { Action<BuildOperationQueue<RunnableBuildOperation>> action ->
+            def operations = []
+            action.execute([add: { RunnableBuildOperation operation -> operations << operation }] as BuildOperationQueue)
+            rounds << operations.collect { it.description().build().displayName }
+            operations.each { it.run(operationContext) }
+        }
+    }
+    def projectStateRegistry = Stub(ProjectStateRegistry) {
+        withoutMutableStateOfAllProjects(_) >> { Runnable action -> action.run() }
+    }
+    def projectLeaseRegistry = Stub(ProjectLeaseRegistry) {
+        withoutProjectLock(_ as Runnable) >> { Runnable action -> action.run() }
+    }
+    def parallelResolution = new ParallelTaskDependencyResolution(dependencyResolvers, buildOperationExecutor, projectStateRegistry, projectLeaseRegistry)
+    def results = [:]
+
+    def "resolves the tasks of each project in a separate operation and follows dependencies on other projects in later rounds"() {
+        given:
+        def projectA = childProject("a")
+        def projectB = childProject("b")
+        def projectC = childProject("c")
+        def c1 = task("c1", projectC)
+        def b1 = task("b1", projectB, dependsOn: [c1])
+        def a2 = task("a2", projectA)
+        def a1 = task("a1", projectA, dependsOn: [a2, b1])
+        def other = task("other", projectC)
+
+        when:
+        resolve(a1, other)
+
+        then:
+        rounds == [
+            ["Resolve task dependencies of project ':a'", "Resolve task dependencies of project ':c'"],
+            ["Resolve task dependencies of project ':b'"],
+            ["Resolve task dependencies of project ':c'"]
+        ]
+
+        and:
+        results[a1.taskDependencies] == nodes(a2, b1)
+        results[a2.taskDependencies] == nodes()
+        results[b1.taskDependencies] == nodes(c1)
+        results[c1.taskDependencies] == nodes()
+        results[other.taskDependencies] == nodes()
+    }
+
+    def "follows finalizers and does not follow ordering relationships"() {
+        given:
+        def projectA = childProject("a")
+        def projectB = childProject("b")
+        def finalizer = task("finalizer", projectB)
+        def later = task("later", projectB)
+        def a1 = task("a1", projectA, finalizedBy: [finalizer], mustRunAfter: [later])
+
+        when:
+        resolve(a1)
+
+        then:
+        rounds == [
+            ["Resolve task dependencies of project ':a'"],
+            ["Resolve task dependencies of project ':b'"]
+        ]
+
+        and:
+        results[a1.finalizedBy] == nodes(finalizer)
+        results[a1.mustRunAfter] == nodes(later)
+        results.containsKey(finalizer.taskDependencies)
+        !results.containsKey(later.taskDependencies)
+    }
+
+    def "does not resolve tasks that are filtered or whose dependencies have already been processed"() {
+        given:
+        def projectA = childProject("a")
+        def filtered = task("filtered", projectA)
+        def processed = task("processed", projectA)
+        def a1 = task("a1", projectA, dependsOn: [filtered, processed])
+        taskNodeFactory.getOrCreateNode(processed).dependenciesProcessed()
+
+        when:
+        parallelResolution.resolve([node(a1)], { it != filtered }, results)
+
+        then:
+        results[a1.taskDependencies] == nodes(filtered, processed)
+        !results.containsKey(filtered.taskDependencies)
+        !results.containsKey(processed.taskDependencies)
+    }
+
+    def "leaves a task to the serial resolution when resolving its dependencies fails"() {
+        given:
+        def projectA = childProject("a")
+        def a2 = task("a2", projectA)
+        def broken = task("broken", projectA, Stub(TaskDependencyInternal) {
+            visitDependencies(_) >> { throw new RuntimeException("broken") }
+        })
+        def a1 = task("a1", projectA, dependsOn: [broken, a2])
+
+        when:
+        resolve(a1)
+
+        then:
+        results[a1.taskDependencies] == nodes(broken, a2)
+        !results.containsKey(broken.taskDependencies)
+        !results.containsKey(broken.finalizedBy)
+
+        and:
+        // Other tasks of the project are resolved with a fresh context
+        results[a2.taskDependencies] == nodes()
+    }
+
+    def "leaves a task to the serial resolution when resolving its dependencies attaches an action to another task"() {
+        given:
+        def projectA = childProject("a")
+        def producer = task("producer", projectA)
+        def finalizeAction = Stub(FinalizeAction) {
+            getDependencies() >> ({ TaskDependencyResolveContext context -> context.add(producer) } as TaskDependencyContainer)
+        }
+        def consumer = task("consumer", projectA, Stub(TaskDependencyInternal) {
+            visitDependencies(_) >> { TaskDependencyResolveContext context -> context.add(finalizeAction) }
+        })
+
+        when:
+        resolve(consumer)
+
+        then:
+        results.isEmpty()
+    }
+
+    def "does nothing when there are no tasks to resolve"() {
+        when:
+        parallelResolution.resolve([], Specs.satisfyAll(), results)
+
+        then:
+        rounds.empty
+        results.isEmpty()
+    }
+
+    def "uses results resolved in parallel once and keeps other results until cleared"() {
+        given:
+        def projectA = childProject("a")
+        def a2 = task("a2", projectA)
+        def a1 = task("a1", projectA, dependsOn: [a2])
+        def a1Dependencies = a1.taskDependencies
+        def resolver = new TaskDependencyResolver(dependencyResolvers, parallelResolution)
+        def shared = Mock(TaskDependencyInternal)
+
+        when:
+        resolver.resolveInParallel([node(a1)], Specs.satisfyAll())
+
+        then:
+        rounds.size() == 1
+
+        when:
+        def dependencies = resolver.resolveDependenciesFor(a1, a1Dependencies)
+
+        then:
+        dependencies == nodes(a2)
+        0 * a1Dependencies.visitDependencies(_)
+
+        when:
+        dependencies = resolver.resolveDependenciesFor(a1, a1Dependencies)
+
+        then:
+        dependencies == nodes(a2)
+        1 * a1Dependencies.visitDependencies(_) >> { TaskDependencyResolveContext context -> context.add(a2) }
+
+        when:
+        def first = resolver.resolveDependenciesFor(a1, shared)
+        def second = resolver.resolveDependenciesFor(a2, shared)
+
+        then:
+        first == nodes(a2)
+        second == nodes(a2)
+        1 * shared.visitDependencies(_) >> { TaskDependencyResolveContext context -> context.add(a2) }
+
+        when:
+        resolver.clear()
+        resolver.resolveDependenciesFor(a1, shared)
+
+        then:
+        1 * shared.visitDependencies(_) >> { TaskDependencyResolveContext context -> context.add(a2) }
+    }
+
+    def "does not resolve in parallel when no parallel resolution is provided"() {
+        given:
+        def projectA = childProject("a")
+        def a1 = task("a1", projectA)
+        def resolver = new TaskDependencyResolver(dependencyResolvers)
+
+        when:
+        resolver.resolveInParallel([node(a1)], Specs.satisfyAll())
+
+        then:
+        rounds.empty
+    }
+
+    private void resolve(TaskInternal... tasks) {
+        parallelResolution.resolve(tasks.collect { node(it) }, Specs.satisfyAll(), results)
+    }
+
+    private Node node(Task task) {
+        return taskNodeFactory.getOrCreateNode(task)
+    }
+
+    private Set<Node> nodes(Task... tasks) {
+        return tasks.collect { node(it) } as Set
+    }
+
+    private ProjectInternal childProject(String name) {
+        def project = project(this.project, name)
+        ProjectState state = project.mutationState
+        state.applyToMutableState(_) >> { Consumer<ProjectInternal> action -> action.accept(project) }
+        project.displayName >> "project ':$name'"
+        return project
+    }
+
+    private TaskInternal task(Map options = [:], String name, ProjectInternal project) {
+        def task = createTask(name, project)
+        relationships(options, task)
+        return task
+    }
+
+    private TaskInternal task(String name, ProjectInternal project, TaskDependency dependencies) {
+        def task = createTask(name, project)
+        task.getTaskDependencies() >> dependencies
+        mustRunAfter(task, [])
+        shouldRunAfter(task, [])
+        finalizedBy(task, [])
+        return task
+    }
+
+    private void relationships(Map options, TaskInternal task) {
+        dependsOn(task, options.dependsOn ?: [])
+        mustRunAfter(task, options.mustRunAfter ?: [])
+        shouldRunAfter(task, options.shouldRunAfter ?: [])
+        finalizedBy(task, options.finalizedBy ?: [])
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal
+
+import org.gradle.api.Action
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.initialization.RootClassLoaderScope
+import org.gradle.api.internal.initialization.loadercache.DummyClassLoaderCache
+import org.gradle.cache.CacheBuilder
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.PersistentCache
+import org.gradle.configuration.ImportsReader
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.initialization.ClassLoaderScopeRegistryListener
+import org.gradle.internal.Actions
+import org.gradle.internal.Describables
+import org.gradle.internal.classpath.CachedClasspathTransformer
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.logging.progress.ProgressLoggerFactory
+import org.gradle.internal.resource.TextResource
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class FileCacheBackedScriptClassCompilerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def classLoader = getClass().classLoader
+    def compilationHandler = Mock(ScriptCompilationHandler)
+    def realCompilationHandler = new DefaultScriptCompilationHandler(TestFiles.deleter(), Stub(ImportsReader))
+    def cacheDirs = []
+    def cacheRepository = Stub(CacheRepository) {
+        cache(_ as String) >> { String key -> cacheBuilder(tmpDir.file(key)) }
+    }
+    def classLoaderHierarchyHasher = Stub(ClassLoaderHierarchyHasher) {
+        getClassLoaderHash(_) >> HashCode.fromInt(1)
+    }
+    def classpathTransformer = Stub(CachedClasspathTransformer) {
+        transform(_, _, _) >> { args -> args[0] }
+    }
+    def progressLoggerFactory = Stub(ProgressLoggerFactory)
+    def operation = new NoDataCompileOperation("test", "test", null)
+    def compiler = new FileCacheBackedScriptClassCompiler(cacheRepository, compilationHandler, progressLoggerFactory, classLoaderHierarchyHasher, classpathTransformer)
+
+    def "pre-compiles script into the cache"() {
+        def source = scriptSource("println 'hi'")
+
+        when:
+        compiler.precompile(source, classLoader, operation, TestBaseScript, Actions.doNothing())
+
+        then:
+        1 * compilationHandler.compileToDir({ it.className == RemappingScriptSource.MAPPED_SCRIPT }, classLoader, _, _, operation, TestBaseScript, _) >> { args -> realCompilationHandler.compileToDir(*args) }
+        0 * compilationHandler._
+
+        and:
+        cacheDirs.size() == 1
+        new File(cacheDirs[0], "test/${RemappingScriptSource.MAPPED_SCRIPT}.class").file
+        new File(cacheDirs[0], "metadata").directory
+    }
+
+    def "does not compile script again when it has already been pre-compiled"() {
+        def source = scriptSource("println 'hi'")
+
+        when:
+        compiler.precompile(source, classLoader, operation, TestBaseScript, Actions.doNothing())
+        compiler.precompile(source, classLoader, operation, TestBaseScript, Actions.doNothing())
+
+        then:
+        1 * compilationHandler.compileToDir(*_) >> { args -> realCompilationHandler.compileToDir(*args) }
+        0 * compilationHandler._
+    }
+
+    def "loads pre-compiled script when compiled for a scope with the same export class loader"() {
+        def source = scriptSource("println 'hi'")
+        def targetScope = new RootClassLoaderScope("test", classLoader, classLoader, new DummyClassLoaderCache(), Stub(ClassLoaderScopeRegistryListener))
+        def compiledScript = Stub(CompiledScript)
+
+        when:
+        compiler.precompile(source, classLoader, operation, TestBaseScript, Actions.doNothing())
+
+        then:
+        1 * compilationHandler.compileToDir(*_) >> { args -> realCompilationHandler.compileToDir(*args) }
+        0 * compilationHandler._
+
+        when:
+        def result = compiler.compile(source, targetScope, operation, TestBaseScript, Actions.doNothing())
+
+        then:
+        result == compiledScript
+        0 * compilationHandler.compileToDir(*_)
+        1 * compilationHandler.loadFromDir(source, source.resource.contentHash, targetScope, { it.asFiles == [new File(cacheDirs[0], "test")] }, new File(cacheDirs[0], "metadata"), operation, TestBaseScript) >> compiledScript
+    }
+
+    def "does not pre-compile empty script"() {
+        def source = scriptSource("")
+
+        when:
+        compiler.precompile(source, classLoader, operation, TestBaseScript, Actions.doNothing())
+
+        then:
+        0 * compilationHandler._
+        cacheDirs.empty
+    }
+
+    private CacheBuilder cacheBuilder(File baseDir) {
+        Action<? super PersistentCache> initializer = null
+        def cache = [
+            getBaseDir: { baseDir },
+            close: {}
+        ] as PersistentCache
+        def builder
+        builder = [
+            withDisplayName: { String displayName -> builder },
+            withInitializer: { Action<? super PersistentCache> action -> initializer = action; builder },
+            open: {
+                // Runs the initializer only when the cache has not been initialized yet, as the default cache implementation does
+                if (!baseDir.directory) {
+                    baseDir.mkdirs()
+                    cacheDirs << baseDir
+                    initializer.execute(cache)
+                }
+                cache
+            }
+        ] as CacheBuilder
+        return builder
+    }
+
+    private ScriptSource scriptSource(String scriptText) {
+        def resource = Stub(TextResource) {
+            getText() >> scriptText
+            getContentHash() >> Hashing.hashString(scriptText)
+            getHasEmptyContent() >> scriptText.empty
+            isContentCached() >> true
+        }
+        return Stub(ScriptSource) {
+            getClassName() >> "ScriptClassName"
+            getFileName() >> "script-file-name"
+            getDisplayName() >> "script-display-name"
+            getShortDisplayName() >> Describables.of("script-display-name")
+            getLongDisplayName() >> Describables.of("script-display-name")
+            getResource() >> resource
+        }
+    }
+
+    abstract static class TestBaseScript extends Script {
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace
+
+import groovy.json.JsonSlurper
+import org.gradle.StartParameter
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.DefaultBuildOperationListenerManager
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationProgressEvent
+import org.gradle.internal.operations.OperationStartEvent
+import org.gradle.test.fixtures.ConcurrentTestUtil
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class BuildOperationFlightRecorderTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def listenerManager = new DefaultBuildOperationListenerManager()
+    def executorFactory = new DefaultExecutorFactory()
+    def basePath = tmpDir.file("operations").absolutePath
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    private StartParameter enabled() {
+        def startParameter = new StartParameter()
+        startParameter.systemPropertiesArgs = [(BuildOperationFlightRecorder.SYSPROP): basePath]
+        return startParameter
+    }
+
+    def "records build operations and converts them to a tree and a chrome trace"() {
+        def recorder = new BuildOperationFlightRecorder(enabled(), listenerManager, executorFactory)
+        def listener = listenerManager.broadcaster
+        def root = BuildOperationDescriptor.displayName("Run build").build(new OperationIdentifier(1), null)
+        def child = BuildOperationDescriptor.displayName("Configure project").details("details").build(new OperationIdentifier(2), root.id)
+        def unfinished = BuildOperationDescriptor.displayName("Execute task").build(new OperationIdentifier(3), root.id)
+
+        when:
+        listener.started(root, new OperationStartEvent(10))
+        listener.started(child, new OperationStartEvent(11))
+        listener.progress(child.id, new OperationProgressEvent(12, 42))
+        listener.finished(child, new OperationFinishEvent(11, 13, new RuntimeException("broken"), null))
+        Thread.start {
+            listener.started(unfinished, new OperationStartEvent(14))
+        }.join()
+        listener.finished(root, new OperationFinishEvent(10, 20, null, null))
+        recorder.stop()
+
+        def recording = BuildOperationFlightRecording.read(BuildOperationFlightRecorder.recordingFile(basePath))
+        def tree = recording.toTree()
+
+        then:
+        tree.roots*.displayName == ["Run build"]
+        def rootRecord = tree.roots[0]
+        rootRecord.startTime == 10
+        rootRecord.endTime == 20
+        rootRecord.children*.displayName == ["Configure project", "Execute task"]
+        def childRecord = rootRecord.children[0]
+        childRecord.hasDetailsOfType(String)
+        childRecord.failure == "broken"
+        childRecord.progress*.time == [12L]
+        childRecord.progress[0].detailsClassName == Integer.name
+        rootRecord.children[1].endTime == 20
+
+        when:
+        def chromeTrace = tmpDir.file("trace.json")
+        recording.writeChromeTrace(chromeTrace)
+        def events = new JsonSlurper().parse(chromeTrace).traceEvents
+
+        then:
+        events*.name as Set == ["Run build", "Configure project", "Execute task"] as Set
+        events.find { it.name == "Configure project" }.dur == 2000
+        events.find { it.name == "Execute task" }.tid != events.find { it.name == "Run build" }.tid
+    }
+
+    def "does not split a character when truncating a long string"() {
+        def recorder = new BuildOperationFlightRecorder(enabled(), listenerManager, executorFactory)
+        def listener = listenerManager.broadcaster
+        // The first 4096 bytes end with the first byte of a 2 byte character
+        def displayName = "a" + ("\u00e9" * 3000)
+        def operation = BuildOperationDescriptor.displayName(displayName).build(new OperationIdentifier(1), null)
+
+        when:
+        listener.started(operation, new OperationStartEvent(10))
+        listener.finished(operation, new OperationFinishEvent(10, 20, null, null))
+        recorder.stop()
+        def tree = BuildOperationFlightRecording.read(BuildOperationFlightRecorder.recordingFile(basePath)).toTree()
+
+        then:
+        tree.roots[0].displayName == "a" + ("\u00e9" * 2047)
+    }
+
+    def "writes events older than a second while the build is running"() {
+        def recorder = new BuildOperationFlightRecorder(enabled(), listenerManager, executorFactory)
+        def listener = listenerManager.broadcaster
+        def root = BuildOperationDescriptor.displayName("Run build").build(new OperationIdentifier(1), null)
+        def child = BuildOperationDescriptor.displayName("Configure project").build(new OperationIdentifier(2), root.id)
+
+        when:
+        listener.started(root, new OperationStartEvent(10))
+        listener.started(child, new OperationStartEvent(2000))
+
+        then:
+        ConcurrentTestUtil.poll {
+            def tree = BuildOperationFlightRecording.read(BuildOperationFlightRecorder.recordingFile(basePath)).toTree()
+            assert tree.roots*.displayName == ["Run build"]
+            assert tree.roots[0].children.empty
+        }
+
+        cleanup:
+        recorder?.stop()
+    }
+
+    def "drops events rather than queue more than a fixed number of buffers for writing"() {
+        def pending = []
+        def writer = Stub(ManagedExecutor) {
+            execute(_) >> { Runnable action -> pending << action }
+        }
+        def executorFactory = Stub(ExecutorFactory) {
+            create(_, _) >> writer
+        }
+        def recorder = new BuildOperationFlightRecorder(enabled(), listenerManager, executorFactory)
+        def listener = listenerManager.broadcaster
+
+        when:
+        100000.times {
+            def operation = BuildOperationDescriptor.displayName("Operation $it").build(new OperationIdentifier(it + 1), null)
+            listener.started(operation, new OperationStartEvent(10))
+        }
+
+        then:
+        pending.size() == BuildOperationFlightRecorder.MAX_PENDING_BUFFERS
+
+        cleanup:
+        recorder?.stop()
+    }
+
+    def "records nothing when not enabled"() {
+        when:
+        def recorder = new BuildOperationFlightRecorder(new StartParameter(), listenerManager, executorFactory)
+        recorder.stop()
+
+        then:
+        !BuildOperationFlightRecorder.recordingFile(basePath).exists()
+    }
+}
@@ -96,7 +96,10 @@ private void validateTimeStamps() {
         }
     }
 
-    private void copyFile(File target) throws IOException {
+    /**
+     * Copies the content of this file to the given target. Elements that are backed by a file can override this to copy the file more efficiently.
+     */
+    protected void copyFile(File target) throws IOException {
         FileOutputStream outputStream = new FileOutputStream(target);
         try {
             copyTo(outputStream);
@@ -22,7 +22,10 @@
 import org.gradle.util.GFileUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 public class DefaultFileTreeElement extends AbstractFileTreeElement {
     private final File file;
@@ -71,6 +74,24 @@ public InputStream open() {
         return GFileUtils.openInputStream(file);
     }
 
+    @Override
+    protected void copyFile(File target) throws IOException {
+        // Let the OS copy the content directly between the files where it can, rather than through a buffer on the heap
+        try (FileChannel source = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             FileChannel destination = FileChannel.open(target.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = source.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = source.transferTo(position, size - position, destination);
+                if (transferred <= 0) {
+                    // The file has been truncated since its size was read
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
     @Override
     public RelativePath getRelativePath() {
         return relativePath;
@@ -23,6 +23,7 @@ import org.gradle.cache.internal.CacheKeyBuilder.CacheKeySpec
 import org.gradle.internal.classanalysis.AsmConstants.ASM_LEVEL
 import org.gradle.internal.classpath.ClassPath
 import org.gradle.internal.classpath.DefaultClassPath
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.execution.ExecutionEngine
 import org.gradle.internal.execution.InputChangesContext
 import org.gradle.internal.execution.UnitOfWork
@@ -59,17 +60,27 @@ import org.jetbrains.org.objectweb.asm.signature.SignatureVisitor
 import java.io.Closeable
 import java.io.File
 import java.util.Optional
-import javax.inject.Inject
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
 
 
-class ProjectAccessorsClassPathGenerator @Inject constructor(
+class ProjectAccessorsClassPathGenerator(
     private val classpathFingerprinter: ClasspathFingerprinter,
     private val fileCollectionFactory: FileCollectionFactory,
     private val projectSchemaProvider: ProjectSchemaProvider,
     private val executionEngine: ExecutionEngine,
-    private val workspaceProvider: KotlinDslWorkspaceProvider
+    private val workspaceProvider: KotlinDslWorkspaceProvider,
+    private val executorFactory: ExecutorFactory,
+    private val maxWorkerCount: Int
 ) {
 
+    /**
+     * Accessors already generated during this build, by project schema and class path,
+     * so projects with identical schemas share them without going through the execution engine again.
+     */
+    private
+    val generatedAccessors = ConcurrentHashMap<Pair<HashCode, ClassPath>, AccessorsClassPath>()
+
     fun projectAccessorsClassPath(project: Project, classPath: ClassPath): AccessorsClassPath =
         project.getOrCreateProperty("gradleKotlinDsl.projectAccessorsClassPath") {
             buildAccessorsClassPathFor(project, classPath)
@@ -80,6 +91,17 @@ class ProjectAccessorsClassPathGenerator @Inject constructor(
     private
     fun buildAccessorsClassPathFor(project: Project, classPath: ClassPath): AccessorsClassPath? {
         return configuredProjectSchemaOf(project)?.let { projectSchema ->
+            val key = hashCodeFor(projectSchema) to classPath
+            generatedAccessors[key] ?: executeGenerateProjectAccessors(project, projectSchema, classPath).also {
+                generatedAccessors.putIfAbsent(key, it)
+            }
+        }
+    }
+
+    private
+    fun executeGenerateProjectAccessors(project: Project, projectSchema: TypedProjectSchema, classPath: ClassPath): AccessorsClassPath {
+        val executor = executorFactory.create("Kotlin DSL accessors generation", maxWorkerCount)
+        try {
             val work = GenerateProjectAccessors(
                 project,
                 projectSchema,
@@ -87,10 +109,13 @@ class ProjectAccessorsClassPathGenerator @Inject constructor(
                 classpathFingerprinter,
                 workspaceProvider.history,
                 fileCollectionFactory,
-                workspaceProvider
+                workspaceProvider,
+                executor.takeIf { maxWorkerCount > 1 }
             )
             val result = executionEngine.execute(work, null)
-            result.executionResult.get().output as AccessorsClassPath
+            return result.executionResult.get().output as AccessorsClassPath
+        } finally {
+            executor.stop()
         }
     }
 
@@ -113,7 +138,8 @@ class GenerateProjectAccessors(
     private val classpathFingerprinter: ClasspathFingerprinter,
     private val executionHistoryStore: ExecutionHistoryStore,
     private val fileCollectionFactory: FileCollectionFactory,
-    private val workspaceProvider: KotlinDslWorkspaceProvider
+    private val workspaceProvider: KotlinDslWorkspaceProvider,
+    private val executor: Executor? = null
 ) : UnitOfWork {
 
     companion object {
@@ -129,7 +155,8 @@ class GenerateProjectAccessors(
                 projectSchema,
                 classPath,
                 srcDir = getSourcesOutputDir(context.workspace),
-                binDir = getClassesOutputDir(context.workspace)
+                binDir = getClassesOutputDir(context.workspace),
+                executor = executor
             )
         }
         return object : UnitOfWork.WorkOutput {
@@ -206,7 +233,8 @@ fun IO.buildAccessorsFor(
     srcDir: File,
     binDir: File?,
     packageName: String = kotlinDslPackageName,
-    format: AccessorFormat = AccessorFormats.default
+    format: AccessorFormat = AccessorFormats.default,
+    executor: Executor? = null
 ) {
     val availableSchema = availableProjectSchemaFor(projectSchema, classPath)
     emitAccessorsFor(
@@ -214,7 +242,8 @@ fun IO.buildAccessorsFor(
         srcDir,
         binDir,
         OutputPackage(packageName),
-        format
+        format,
+        executor
     )
 }
 
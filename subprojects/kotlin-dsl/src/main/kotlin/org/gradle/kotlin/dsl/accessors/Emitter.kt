@@ -31,6 +31,9 @@ import org.gradle.kotlin.dsl.support.bytecode.moduleFileFor
 import org.gradle.kotlin.dsl.support.bytecode.moduleMetadataBytesFor
 
 import java.io.File
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.Executor
 
 
 internal
@@ -39,23 +42,26 @@ fun IO.emitAccessorsFor(
     srcDir: File,
     binDir: File?,
     outputPackage: OutputPackage,
-    format: AccessorFormat
+    format: AccessorFormat,
+    executor: Executor? = null
 ): List<InternalName> {
 
     makeAccessorOutputDirs(srcDir, binDir, outputPackage.path)
 
     val moduleName = binDir?.name ?: "kotlin-dsl-accessors"
+    val emitClass = { io: IO, accessor: Accessor ->
+        io.emitClassFor(
+            accessor,
+            srcDir,
+            binDir,
+            outputPackage,
+            format,
+            moduleName
+        )
+    }
     val emittedClassNames =
-        accessorsFor(projectSchema).map { accessor ->
-            emitClassFor(
-                accessor,
-                srcDir,
-                binDir,
-                outputPackage,
-                format,
-                moduleName
-            )
-        }.toList()
+        if (executor == null) accessorsFor(projectSchema).map { emitClass(this, it) }.toList()
+        else emitClassesInParallel(accessorsFor(projectSchema).toList(), executor, emitClass)
 
     if (binDir != null) {
         writeFile(
@@ -68,6 +74,48 @@ fun IO.emitAccessorsFor(
 }
 
 
+/**
+ * Generates the accessor classes on the given [executor] while keeping the scheduling of
+ * their IO actions on the current thread, in the same order as a sequential generation.
+ */
+private
+fun IO.emitClassesInParallel(
+    accessors: List<Accessor>,
+    executor: Executor,
+    emitClass: (IO, Accessor) -> InternalName
+): List<InternalName> =
+    accessors.map { accessor ->
+        CompletableFuture.supplyAsync(
+            {
+                DeferredIO().let { deferredIO ->
+                    emitClass(deferredIO, accessor) to deferredIO
+                }
+            },
+            executor
+        )
+    }.map { emission ->
+        val (className, deferredIO) =
+            try {
+                emission.join()
+            } catch (e: CompletionException) {
+                throw e.cause ?: e
+            }
+        deferredIO.actions.forEach(::io)
+        className
+    }
+
+
+private
+class DeferredIO : IO {
+
+    val actions = mutableListOf<() -> Unit>()
+
+    override fun io(action: () -> Unit) {
+        actions.add(action)
+    }
+}
+
+
 internal
 fun IO.makeAccessorOutputDirs(srcDir: File, binDir: File?, packagePath: String) = io {
     srcDir.resolve(packagePath).mkdirs()
@@ -16,7 +16,9 @@
 
 package org.gradle.kotlin.dsl.accessors
 
+import org.gradle.StartParameter
 import org.gradle.api.internal.file.FileCollectionFactory
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.execution.ExecutionEngine
 import org.gradle.internal.fingerprint.classpath.ClasspathFingerprinter
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher
@@ -45,12 +47,16 @@ object GradleScopeServices {
         fileCollectionFactory: FileCollectionFactory,
         projectSchemaProvider: ProjectSchemaProvider,
         executionEngine: ExecutionEngine,
-        workspaceProvider: KotlinDslWorkspaceProvider
+        workspaceProvider: KotlinDslWorkspaceProvider,
+        executorFactory: ExecutorFactory,
+        startParameter: StartParameter
     ) = ProjectAccessorsClassPathGenerator(
         classpathFingerprinter,
         fileCollectionFactory,
         projectSchemaProvider,
         executionEngine,
-        workspaceProvider
+        workspaceProvider,
+        executorFactory,
+        startParameter.maxWorkerCount
     )
 }
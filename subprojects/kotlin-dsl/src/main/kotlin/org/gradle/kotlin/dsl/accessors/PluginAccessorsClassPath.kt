@@ -79,6 +79,7 @@ import org.jetbrains.org.objectweb.asm.MethodVisitor
 import java.io.BufferedWriter
 import java.io.File
 import java.util.Optional
+import java.util.concurrent.ConcurrentHashMap
 import javax.inject.Inject
 
 
@@ -94,23 +95,37 @@ class PluginAccessorClassPathGenerator @Inject constructor(
     private val executionEngine: ExecutionEngine,
     private val workspaceProvider: KotlinDslWorkspaceProvider
 ) {
+    private
+    val pluginSpecBuildersClassPaths = ConcurrentHashMap<Project, AccessorsClassPath>()
+
+    /**
+     * Can be called from any thread, as build scripts may be compiled ahead of their evaluation on other threads.
+     *
+     * The accessors are generated outside of the cache map, as generating them runs a unit of work that must not
+     * hold a lock of the map. Threads that race to generate the accessors of the same build share the first result.
+     */
     fun pluginSpecBuildersClassPath(project: Project): AccessorsClassPath = project.rootProject.let { rootProject ->
 
-        rootProject.getOrCreateProperty("gradleKotlinDsl.pluginAccessorsClassPath") {
-            val buildSrcClassLoaderScope = baseClassLoaderScopeOf(rootProject)
-            val classLoaderHash = requireNotNull(classLoaderHierarchyHasher.getClassLoaderHash(buildSrcClassLoaderScope.exportClassLoader))
-            val work = GeneratePluginAccessors(
-                rootProject,
-                buildSrcClassLoaderScope,
-                classLoaderHash,
-                workspaceProvider.history,
-                fileCollectionFactory,
-                workspaceProvider
-            )
-            val result = executionEngine.execute(work, null)
-            result.executionResult.get().output as AccessorsClassPath
+        pluginSpecBuildersClassPaths[rootProject] ?: generatePluginSpecBuildersClassPath(rootProject).let {
+            pluginSpecBuildersClassPaths.putIfAbsent(rootProject, it) ?: it
         }
     }
+
+    private
+    fun generatePluginSpecBuildersClassPath(rootProject: Project): AccessorsClassPath {
+        val buildSrcClassLoaderScope = baseClassLoaderScopeOf(rootProject)
+        val classLoaderHash = requireNotNull(classLoaderHierarchyHasher.getClassLoaderHash(buildSrcClassLoaderScope.exportClassLoader))
+        val work = GeneratePluginAccessors(
+            rootProject,
+            buildSrcClassLoaderScope,
+            classLoaderHash,
+            workspaceProvider.history,
+            fileCollectionFactory,
+            workspaceProvider
+        )
+        val result = executionEngine.execute(work, null)
+        return result.executionResult.get().output as AccessorsClassPath
+    }
 }
 
 
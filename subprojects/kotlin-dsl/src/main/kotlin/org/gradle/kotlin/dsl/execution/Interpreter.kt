@@ -200,6 +200,47 @@ class Interpreter(val host: Host) {
         programHost.eval(specializedProgram.programFor, scriptHost)
     }
 
+    /**
+     * Returns an action that compiles the first stage of the given top-level [Project] script into the script cache,
+     * without evaluating it, so that the compilation can run on another thread ahead of the configuration of the project.
+     *
+     * The first stage holds the `buildscript` and `plugins` blocks. The body of the script is compiled in the second stage,
+     * against the class path and accessors that result from evaluating the first stage, so it is still compiled when the
+     * script is evaluated.
+     *
+     * The parent of the target scope of the script must already be locked, as it determines the compilation class path.
+     * The plugin accessors are only computed when the returned action runs, so on the thread that compiles the script.
+     */
+    fun firstStageCompilationFor(scriptHost: KotlinScriptHost<Any>, sourceHash: HashCode): () -> Unit {
+
+        val programKind = ProgramKind.TopLevel
+
+        val programTarget = ProgramTarget.Project
+
+        val templateId =
+            templateIdFor(programTarget, programKind, "stage1")
+
+        val compilationClassPath =
+            host.compilationClassPathOf(scriptHost.targetScope.parent)
+
+        val compileClassPathHash =
+            host.hashOf(compilationClassPath)
+
+        return {
+            compileFirstStageOf(
+                scriptHost,
+                sourceHash,
+                templateId,
+                compilationClassPath,
+                compileClassPathHash,
+                programKind,
+                programTarget,
+                { host.pluginAccessorsFor(scriptHost) },
+                ahead = true
+            )
+        }
+    }
+
     private
     fun programTargetFor(target: Any): ProgramTarget =
         when (target) {
@@ -256,48 +297,16 @@ class Interpreter(val host: Host) {
         val compileClassPathHash = host.hashOf(compilationClassPath)
 
         val cachedDir =
-            host.cachedDirFor(
+            compileFirstStageOf(
                 scriptHost,
-                templateId,
                 sourceHash,
+                templateId,
+                compilationClassPath,
                 compileClassPathHash,
-                null
-            ) { cachedDir ->
-
-                startCompilerOperationFor(scriptSource, templateId).use {
-
-                    val outputDir =
-                        stage1SubDirOf(cachedDir).apply { mkdir() }
-
-                    val sourceText =
-                        scriptSource.resource!!.text
-
-                    val programSource =
-                        ProgramSource(scriptPath, sourceText)
-
-                    val program =
-                        ProgramParser.parse(programSource, programKind, programTarget)
-
-                    val residualProgram = program.map(
-                        PartialEvaluator(programKind, programTarget)::reduce
-                    )
-
-                    scriptSource.withLocationAwareExceptionHandling {
-                        ResidualProgramCompiler(
-                            outputDir = outputDir,
-                            classPath = compilationClassPath,
-                            originalSourceHash = sourceHash,
-                            programKind = programKind,
-                            programTarget = programTarget,
-                            implicitImports = host.implicitImports,
-                            logger = interpreterLogger,
-                            compileBuildOperationRunner = host::runCompileBuildOperation,
-                            pluginAccessorsClassPath = pluginAccessorsClassPath ?: ClassPath.EMPTY,
-                            packageName = residualProgram.packageName
-                        ).compile(residualProgram.document)
-                    }
-                }
-            }
+                programKind,
+                programTarget,
+                { pluginAccessorsClassPath }
+            )
 
         val classesDir =
             stage1SubDirOf(cachedDir)
@@ -312,6 +321,81 @@ class Interpreter(val host: Host) {
         )
     }
 
+    /**
+     * Compiles the first stage of the script into the script cache, if not already there, and returns the cache directory.
+     *
+     * @param ahead whether the script is compiled ahead of its evaluation, in which case the compilation is not reported
+     * as a build operation or a progress operation as the operation it would belong to might have completed already.
+     */
+    private
+    fun compileFirstStageOf(
+        scriptHost: KotlinScriptHost<Any>,
+        sourceHash: HashCode,
+        templateId: String,
+        compilationClassPath: ClassPath,
+        compileClassPathHash: HashCode,
+        programKind: ProgramKind,
+        programTarget: ProgramTarget,
+        pluginAccessorsClassPath: () -> ClassPath?,
+        ahead: Boolean = false
+    ): File {
+
+        val scriptSource =
+            scriptHost.scriptSource
+
+        val scriptPath =
+            scriptHost.fileName
+
+        return host.cachedDirFor(
+            scriptHost,
+            templateId,
+            sourceHash,
+            compileClassPathHash,
+            null
+        ) { cachedDir ->
+
+            val compilerOperation =
+                if (ahead) AutoCloseable { }
+                else startCompilerOperationFor(scriptSource, templateId)
+
+            compilerOperation.use {
+
+                val outputDir =
+                    stage1SubDirOf(cachedDir).apply { mkdir() }
+
+                val sourceText =
+                    scriptSource.resource!!.text
+
+                val programSource =
+                    ProgramSource(scriptPath, sourceText)
+
+                val program =
+                    ProgramParser.parse(programSource, programKind, programTarget)
+
+                val residualProgram = program.map(
+                    PartialEvaluator(programKind, programTarget)::reduce
+                )
+
+                scriptSource.withLocationAwareExceptionHandling {
+                    ResidualProgramCompiler(
+                        outputDir = outputDir,
+                        classPath = compilationClassPath,
+                        originalSourceHash = sourceHash,
+                        programKind = programKind,
+                        programTarget = programTarget,
+                        implicitImports = host.implicitImports,
+                        logger = interpreterLogger,
+                        compileBuildOperationRunner =
+                        if (ahead) { _, _, action -> action() }
+                        else host::runCompileBuildOperation,
+                        pluginAccessorsClassPath = pluginAccessorsClassPath() ?: ClassPath.EMPTY,
+                        packageName = residualProgram.packageName
+                    ).compile(residualProgram.document)
+                }
+            }
+        }
+    }
+
     private
     fun stage1SubDirOf(cachedDir: File) =
         cachedDir.resolve("stage-1")
@@ -16,6 +16,7 @@
 
 package org.gradle.kotlin.dsl.provider
 
+import org.gradle.StartParameter
 import org.gradle.api.internal.ClassPathRegistry
 import org.gradle.api.internal.artifacts.dsl.dependencies.DependencyFactory
 import org.gradle.api.internal.cache.StringInterner
@@ -30,13 +31,16 @@ import org.gradle.groovy.scripts.internal.ScriptSourceHasher
 import org.gradle.initialization.ClassLoaderScopeRegistry
 import org.gradle.internal.classloader.ClasspathHasher
 import org.gradle.internal.classpath.CachedClasspathTransformer
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.fingerprint.FileCollectionSnapshotter
 import org.gradle.internal.fingerprint.classpath.ClasspathFingerprinter
 import org.gradle.internal.fingerprint.classpath.impl.DefaultCompileClasspathFingerprinter
 import org.gradle.internal.logging.progress.ProgressLoggerFactory
 import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.resources.ResourceLockCoordinationService
 import org.gradle.internal.scripts.ScriptExecutionListener
+import org.gradle.internal.work.WorkerLeaseRegistry
 import org.gradle.kotlin.dsl.cache.ScriptCache
 import org.gradle.kotlin.dsl.normalization.KotlinApiClassExtractor
 import org.gradle.kotlin.dsl.support.EmbeddedKotlinProvider
@@ -99,6 +103,7 @@ object BuildServices {
         buildOperationExecutor: BuildOperationExecutor,
         cachedClasspathTransformer: CachedClasspathTransformer,
         listenerManager: ListenerManager,
+        kotlinScriptPrecompiler: KotlinScriptPrecompiler,
         @Suppress("UNUSED_PARAMETER") kotlinCompilerContextDisposer: KotlinCompilerContextDisposer
     ): KotlinScriptEvaluator =
 
@@ -117,7 +122,8 @@ object BuildServices {
             progressLoggerFactory,
             buildOperationExecutor,
             cachedClasspathTransformer,
-            listenerManager.getBroadcaster(ScriptExecutionListener::class.java)
+            listenerManager.getBroadcaster(ScriptExecutionListener::class.java),
+            kotlinScriptPrecompiler
         )
 
     @Suppress("unused")
@@ -142,10 +148,31 @@ object BuildServices {
             DefaultClasspathHasher(classpathFingerprinter, fileCollectionFactory)
 
     @Suppress("unused")
-    fun createKotlinCompilerContextDisposer(listenerManager: ListenerManager) =
-        KotlinCompilerContextDisposer(listenerManager)
+    fun createKotlinCompilerContextDisposer(listenerManager: ListenerManager, kotlinScriptPrecompiler: KotlinScriptPrecompiler) =
+        KotlinCompilerContextDisposer(listenerManager, kotlinScriptPrecompiler)
+
+    @Suppress("unused")
+    fun createKotlinScriptPrecompiler(
+        executorFactory: ExecutorFactory,
+        workerLeaseRegistry: WorkerLeaseRegistry,
+        coordinationService: ResourceLockCoordinationService,
+        startParameter: StartParameter
+    ) =
+        KotlinScriptPrecompiler(
+            executorFactory,
+            workerLeaseRegistry,
+            coordinationService,
+            startParameter.maxWorkerCount,
+            // Scripts loaded from the build cache are not compiled, and loading them is reported as build operations
+            isPrecompileScriptsEnabled && !startParameter.isBuildCacheEnabled
+        )
 
     private
     fun versionedJarCacheFor(jarCache: GeneratedGradleJarCache): JarCache =
         { id, creator -> jarCache[id, creator] }
 }
+
+
+private
+val isPrecompileScriptsEnabled: Boolean
+    get() = System.getProperty(precompileScriptsPropertyName, null) == "true"
@@ -17,11 +17,13 @@ package org.gradle.kotlin.dsl.provider
 
 import org.gradle.internal.concurrent.Stoppable
 
+import java.util.concurrent.CopyOnWriteArrayList
+
 
 open class ClassPathModeExceptionCollector : Stoppable {
 
     private
-    val collection = mutableListOf<Exception>()
+    val collection = CopyOnWriteArrayList<Exception>()
 
     val exceptions: List<Exception>
         get() = collection
@@ -31,8 +31,10 @@ import kotlin.reflect.jvm.isAccessible
 /**
  * Disposes Kotlin compiler environment once all scripts are compiled.
  */
+internal
 class KotlinCompilerContextDisposer(
-    private val listenerManager: ListenerManager
+    private val listenerManager: ListenerManager,
+    private val kotlinScriptPrecompiler: KotlinScriptPrecompiler
 ) : InternalBuildAdapter(), Stoppable {
 
     init {
@@ -44,6 +46,7 @@ class KotlinCompilerContextDisposer(
     }
 
     override fun projectsEvaluated(gradle: Gradle) {
+        kotlinScriptPrecompiler.cancelAndWait()
         // TODO replace this reflective hack by direct compiler API invocation once available
         val compilerEnvClass: KClass<*> = KotlinCoreEnvironment::class
         val companionClass: KClass<*> = compilerEnvClass.companionObject!!
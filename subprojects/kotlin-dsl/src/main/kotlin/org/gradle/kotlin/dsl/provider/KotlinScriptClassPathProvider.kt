@@ -233,7 +233,7 @@ private
 class ClassLoaderClassPathCache {
 
     private
-    val cachedClassPaths = hashMapOf<ClassLoader, Set<File>>()
+    val cachedClassPaths = ConcurrentHashMap<ClassLoader, Set<File>>()
 
     fun of(classLoader: ClassLoader): Set<File> =
         cachedClassPaths.getOrPut(classLoader) {
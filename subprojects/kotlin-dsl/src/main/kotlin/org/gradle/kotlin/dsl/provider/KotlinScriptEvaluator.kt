@@ -21,6 +21,7 @@ import org.gradle.api.initialization.dsl.ScriptHandler
 import org.gradle.api.internal.initialization.ClassLoaderScope
 import org.gradle.api.internal.initialization.ScriptHandlerInternal
 import org.gradle.api.internal.plugins.PluginAwareInternal
+import org.gradle.api.internal.project.ProjectInternal
 
 import org.gradle.cache.CacheOpenException
 import org.gradle.cache.internal.CacheKeyBuilder
@@ -61,6 +62,7 @@ import org.gradle.kotlin.dsl.support.ImplicitImports
 import org.gradle.kotlin.dsl.support.KotlinScriptHost
 import org.gradle.kotlin.dsl.support.ScriptCompilationException
 import org.gradle.kotlin.dsl.support.serviceOf
+import org.gradle.kotlin.dsl.support.serviceRegistryOf
 
 import org.gradle.plugin.management.internal.PluginRequests
 
@@ -103,7 +105,8 @@ class StandardKotlinScriptEvaluator(
     private val progressLoggerFactory: ProgressLoggerFactory,
     private val buildOperationExecutor: BuildOperationExecutor,
     private val cachedClasspathTransformer: CachedClasspathTransformer,
-    private val scriptExecutionListener: ScriptExecutionListener
+    private val scriptExecutionListener: ScriptExecutionListener,
+    private val kotlinScriptPrecompiler: KotlinScriptPrecompiler
 ) : KotlinScriptEvaluator {
 
     override fun evaluate(
@@ -202,6 +205,7 @@ class StandardKotlinScriptEvaluator(
                 scriptHost.target as PluginAwareInternal,
                 scriptHost.targetScope
             )
+            precompileChildScriptsOf(scriptHost)
         }
 
         override fun applyBasePluginsTo(project: Project) {
@@ -217,6 +221,47 @@ class StandardKotlinScriptEvaluator(
                 null,
                 scriptHost.targetScope
             )
+            precompileChildScriptsOf(scriptHost)
+        }
+
+        /**
+         * The compilation class path of a project script is only known once the class loader scope of the parent project
+         * is locked, so this is the earliest point the build scripts of the child projects can be compiled.
+         */
+        private
+        fun precompileChildScriptsOf(scriptHost: KotlinScriptHost<*>) {
+            if (!kotlinScriptPrecompiler.isEnabled) {
+                return
+            }
+            val project = scriptHost.target as? ProjectInternal
+                ?: return
+            if (scriptHost.targetScope !== project.classLoaderScope) {
+                return
+            }
+            for (child in project.childProjects.values) {
+                precompileBuildScriptOf(child as ProjectInternal)
+            }
+        }
+
+        private
+        fun precompileBuildScriptOf(project: ProjectInternal) {
+            val scriptSource = project.buildScriptSource
+            val scriptFile = scriptSource.resource.location.file
+            if (scriptFile == null || !scriptFile.name.endsWith(".kts") || !scriptSource.resource.exists) {
+                return
+            }
+            val scriptHost = KotlinScriptHost<Any>(
+                project,
+                scriptSource,
+                project.buildscript,
+                project.classLoaderScope,
+                project.baseClassLoaderScope,
+                serviceRegistryOf(project)
+            )
+            kotlinScriptPrecompiler.submit(
+                scriptSource.displayName,
+                interpreter.firstStageCompilationFor(scriptHost, scriptSourceHasher.hash(scriptSource))
+            )
         }
 
         override fun cachedClassFor(
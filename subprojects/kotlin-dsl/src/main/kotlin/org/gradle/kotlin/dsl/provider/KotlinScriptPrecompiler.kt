@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.kotlin.dsl.provider
+
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.Stoppable
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService.tryLock
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock
+import org.gradle.internal.resources.ResourceLockCoordinationService
+import org.gradle.internal.work.WorkerLeaseRegistry
+import org.gradle.kotlin.dsl.support.loggerFor
+
+
+internal
+const val precompileScriptsPropertyName = "org.gradle.kotlin.dsl.precompile-scripts"
+
+
+/**
+ * Compiles the first stage of Kotlin build scripts, that is their `buildscript` and `plugins` blocks, into the script cache
+ * on background threads, ahead of their evaluation. The body of a script depends on the plugins it applies, so it is
+ * compiled when the script is evaluated.
+ *
+ * Compilations are best-effort: a script that fails to compile here is compiled again, and its failure reported,
+ * when the script is evaluated.
+ *
+ * Each script is compiled while holding a worker lease, so that pre-compilation does not run more threads than the build
+ * is allowed to use. A script is not pre-compiled when no worker lease is free, rather than waiting for one, so that the
+ * threads that evaluate the scripts are never held up.
+ */
+internal
+class KotlinScriptPrecompiler(
+    private val executorFactory: ExecutorFactory,
+    private val workerLeaseRegistry: WorkerLeaseRegistry,
+    private val coordinationService: ResourceLockCoordinationService,
+    private val maxWorkerCount: Int,
+    val isEnabled: Boolean
+) : Stoppable {
+
+    @Volatile
+    private
+    var cancelled = false
+
+    private
+    val executor = lazy {
+        executorFactory.create("Kotlin DSL script pre-compilation", maxWorkerCount)
+    }
+
+    fun submit(displayName: String, compilation: () -> Unit) {
+        if (cancelled) {
+            return
+        }
+        executor.value.execute {
+            if (!cancelled) {
+                withWorkerLease(displayName) {
+                    try {
+                        compilation()
+                    } catch (e: Exception) {
+                        logger.debug("Could not pre-compile {}.", displayName, e)
+                    }
+                }
+            }
+        }
+    }
+
+    private
+    fun withWorkerLease(displayName: String, action: () -> Unit) {
+        val workerLease = workerLeaseRegistry.workerLease
+        if (!coordinationService.withStateLock(tryLock(workerLease))) {
+            logger.debug("Not pre-compiling {}, as no worker lease is available.", displayName)
+            return
+        }
+        try {
+            action()
+        } finally {
+            coordinationService.withStateLock(unlock(workerLease))
+        }
+    }
+
+    /**
+     * Skips pending compilations and waits for the running ones to complete.
+     */
+    fun cancelAndWait() {
+        cancelled = true
+        executor.apply {
+            if (isInitialized()) {
+                value.stop()
+            }
+        }
+    }
+
+    override fun stop() {
+        cancelAndWait()
+    }
+}
+
+
+private
+val logger = loggerFor<KotlinScriptPrecompiler>()
@@ -70,6 +70,7 @@ import java.io.File
 import java.lang.reflect.Method
 import java.lang.reflect.Modifier.PUBLIC
 import java.lang.reflect.Modifier.STATIC
+import java.util.concurrent.Executors
 
 
 class ProjectAccessorsClassPathTest : AbstractDslTest() {
@@ -128,6 +129,12 @@ class ProjectAccessorsClassPathTest : AbstractDslTest() {
         testAccessorsBuiltBy(::buildAccessorsFor)
     }
 
+    @Test
+    fun `#buildAccessorsFor (bytecode, in parallel)`() {
+
+        testAccessorsBuiltBy(::buildAccessorsInParallelFor)
+    }
+
     @Test
     fun `#buildAccessorsFor (source)`() {
 
@@ -242,6 +249,23 @@ class ProjectAccessorsClassPathTest : AbstractDslTest() {
     private
     fun isDeprecated(it: Method) = it.annotations.map { it.annotationClass }.contains(Deprecated::class)
 
+    private
+    fun buildAccessorsInParallelFor(
+        schema: TypedProjectSchema,
+        classPath: ClassPath,
+        srcDir: File,
+        binDir: File
+    ) {
+        val executor = Executors.newFixedThreadPool(4)
+        try {
+            withSynchronousIO {
+                buildAccessorsFor(schema, classPath, srcDir, binDir, executor = executor)
+            }
+        } finally {
+            executor.shutdown()
+        }
+    }
+
     private
     fun buildAccessorsFromSourceFor(
         schema: TypedProjectSchema,
@@ -23,12 +23,16 @@ import com.nhaarman.mockito_kotlin.eq
 import com.nhaarman.mockito_kotlin.inOrder
 import com.nhaarman.mockito_kotlin.isNull
 import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.never
+import com.nhaarman.mockito_kotlin.verify
 
+import org.gradle.api.Project
 import org.gradle.api.initialization.Settings
 import org.gradle.api.internal.initialization.ClassLoaderScope
 
 import org.gradle.groovy.scripts.ScriptSource
 
+import org.gradle.internal.classpath.ClassPath
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.resource.TextResource
 import org.gradle.internal.service.ServiceRegistry
@@ -38,7 +42,9 @@ import org.gradle.kotlin.dsl.fixtures.TestWithTempFiles
 import org.gradle.kotlin.dsl.fixtures.assertStandardOutputOf
 import org.gradle.kotlin.dsl.fixtures.classLoaderFor
 import org.gradle.kotlin.dsl.fixtures.testRuntimeClassPath
+import org.gradle.kotlin.dsl.support.KotlinScriptHost
 
+import org.junit.Assert.assertTrue
 import org.junit.Test
 
 import java.io.File
@@ -241,6 +247,81 @@ class InterpreterTest : TestWithTempFiles() {
         }
     }
 
+    @Test
+    fun `compiles first stage of project script ahead of its evaluation`() {
+
+        val scriptPath =
+            "/src/build.gradle.kts"
+
+        val text = """
+
+            plugins {
+                id("base")
+            }
+
+            println("stage 2")
+
+        """.trimIndent()
+
+        val sourceHash = HashCode.fromInt(42)
+        val compilationClassPathHash = HashCode.fromInt(11)
+        val stage1TemplateId = "Project/TopLevel/stage1"
+
+        val scriptSourceResource = mock<TextResource> {
+            on { getText() } doReturn text
+        }
+        val scriptSource = mock<ScriptSource> {
+            on { fileName } doReturn scriptPath
+            on { resource } doReturn scriptSourceResource
+        }
+        val parentScope = mock<ClassLoaderScope>()
+        val targetScope = mock<ClassLoaderScope> {
+            on { parent } doReturn parentScope
+        }
+
+        val stage1CacheDir = root.resolve("stage1").apply { mkdir() }
+
+        val host = mock<Interpreter.Host> {
+
+            on { hashOf(eq(testRuntimeClassPath)) } doReturn compilationClassPathHash
+
+            on { compilationClassPathOf(parentScope) } doReturn testRuntimeClassPath
+
+            on { pluginAccessorsFor(any()) } doReturn ClassPath.EMPTY
+
+            on {
+                cachedDirFor(
+                    any(),
+                    eq(stage1TemplateId),
+                    eq(sourceHash),
+                    eq(compilationClassPathHash),
+                    isNull(),
+                    any()
+                )
+            } doAnswer {
+                it.getArgument<(File) -> Unit>(5).invoke(stage1CacheDir)
+                stage1CacheDir
+            }
+        }
+
+        val scriptHost = KotlinScriptHost(mock<Project>(), scriptSource, mock(), targetScope, mock(), mock())
+        val compilation = Interpreter(host).firstStageCompilationFor(scriptHost, sourceHash)
+
+        // The plugin accessors are computed by the thread that runs the compilation
+        verify(host, never()).pluginAccessorsFor(any())
+
+        assertStandardOutputOf("") {
+            compilation()
+        }
+
+        assertTrue(stage1CacheDir.resolve("stage-1/Program.class").isFile)
+        verify(host).pluginAccessorsFor(scriptHost)
+        // The operation the compilation would belong to might have completed already
+        verify(host, never()).startCompilerOperation(any())
+        verify(host, never()).runCompileBuildOperation(any(), any(), any())
+        verify(host, never()).loadClassInChildScopeOf(any(), any(), any(), any(), any())
+    }
+
     private
     fun relocate(location: File): File {
         val newLocation = location.parentFile.resolve(location.name + "-relocated")
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.kotlin.dsl.provider
+
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.doAnswer
+import com.nhaarman.mockito_kotlin.doReturn
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.verify
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.DefaultParallelismConfiguration
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService
+import org.gradle.internal.work.DefaultWorkerLeaseService
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.notNullValue
+import org.hamcrest.MatcherAssert.assertThat
+
+import org.junit.After
+import org.junit.Test
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+
+class KotlinScriptPrecompilerTest {
+
+    private
+    val coordinationService = DefaultResourceLockCoordinationService()
+
+    private
+    val workerLeaseService = DefaultWorkerLeaseService(coordinationService, DefaultParallelismConfiguration(false, 2))
+
+    @After
+    fun stopWorkerLeaseService() {
+        workerLeaseService.stop()
+    }
+
+    @Test
+    fun `runs compilations in the background and ignores their failures`() {
+
+        val executorFactory = DefaultExecutorFactory()
+        val compiled = CopyOnWriteArrayList<String>()
+        val subject = precompilerFor(executorFactory)
+
+        try {
+            subject.submit("a") { compiled.add("a") }
+            subject.submit("broken") { throw IllegalStateException("broken") }
+            subject.submit("b") { compiled.add("b") }
+            subject.cancelAndWait()
+
+            assertThat(compiled.sorted(), equalTo(listOf("a", "b")))
+        } finally {
+            executorFactory.stop()
+        }
+    }
+
+    @Test
+    fun `skips pending compilations once cancelled`() {
+
+        val pending = mutableListOf<Runnable>()
+        val executor = mock<ManagedExecutor> {
+            on { execute(any()) } doAnswer { pending.add(it.getArgument(0)); Unit }
+        }
+        val executorFactory = mock<ExecutorFactory> {
+            on { create(any(), any()) } doReturn executor
+        }
+        val compiled = mutableListOf<String>()
+        val subject = precompilerFor(executorFactory)
+
+        subject.submit("a") { compiled.add("a") }
+        subject.cancelAndWait()
+        subject.submit("b") { compiled.add("b") }
+        pending.forEach { it.run() }
+
+        verify(executor).stop()
+        assertThat(pending.size, equalTo(1))
+        assertThat(compiled, equalTo(emptyList<String>()))
+    }
+
+    @Test
+    fun `runs compilations while holding a worker lease`() {
+
+        val pending = mutableListOf<Runnable>()
+        val subject = precompilerFor(executorFactoryCollecting(pending))
+        val leases = mutableListOf<Any>()
+
+        subject.submit("a") { leases.add(workerLeaseService.currentWorkerLease) }
+        pending.forEach { it.run() }
+
+        assertThat(leases.size, equalTo(1))
+        assertThat(leases.single(), notNullValue())
+    }
+
+    @Test
+    fun `skips compilations when no worker lease is available`() {
+
+        val pending = mutableListOf<Runnable>()
+        val subject = precompilerFor(executorFactoryCollecting(pending))
+        val compiled = mutableListOf<String>()
+        val busy = listOf(workerLeaseService.workerLease.start(), workerLeaseService.workerLease.start())
+
+        try {
+            subject.submit("a") { compiled.add("a") }
+            pending.forEach { it.run() }
+        } finally {
+            busy.forEach { it.leaseFinish() }
+        }
+
+        assertThat(compiled, equalTo(emptyList<String>()))
+    }
+
+    private
+    fun executorFactoryCollecting(pending: MutableList<Runnable>): ExecutorFactory {
+        val executor = mock<ManagedExecutor> {
+            on { execute(any()) } doAnswer { pending.add(it.getArgument(0)); Unit }
+        }
+        return mock {
+            on { create(any(), any()) } doReturn executor
+        }
+    }
+
+    private
+    fun precompilerFor(executorFactory: ExecutorFactory) =
+        KotlinScriptPrecompiler(executorFactory, workerLeaseService, coordinationService, 2, true)
+}
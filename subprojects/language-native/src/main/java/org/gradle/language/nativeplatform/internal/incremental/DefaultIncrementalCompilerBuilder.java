@@ -16,6 +16,7 @@
 package org.gradle.language.nativeplatform.internal.incremental;
 
 import com.google.common.collect.ImmutableList;
+import org.gradle.StartParameter;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.TaskOutputsInternal;
@@ -25,6 +26,8 @@
 import org.gradle.api.internal.tasks.properties.LifecycleAwareValue;
 import org.gradle.api.provider.Provider;
 import org.gradle.cache.PersistentStateCache;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.vfs.FileSystemAccess;
@@ -44,6 +47,11 @@
 import java.util.Set;
 
 public class DefaultIncrementalCompilerBuilder implements IncrementalCompilerBuilder {
+    /**
+     * When set to {@code true}, source files and the headers they include are parsed on up to max-workers threads before the include graph is analysed.
+     */
+    public static final String PARALLEL_PARSING_PROPERTY_NAME = "org.gradle.internal.native.headers.parallel-parsing";
+
     private final BuildOperationExecutor buildOperationExecutor;
     private final CompilationStateCacheFactory compilationStateCacheFactory;
     private final CSourceParser sourceParser;
@@ -51,6 +59,8 @@ public class DefaultIncrementalCompilerBuilder implements IncrementalCompilerBui
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final FileSystemAccess fileSystemAccess;
     private final TaskFileVarFactory fileVarFactory;
+    private final ExecutorFactory executorFactory;
+    private final int parsingThreads;
 
     public DefaultIncrementalCompilerBuilder(
         BuildOperationExecutor buildOperationExecutor,
@@ -59,7 +69,9 @@ public DefaultIncrementalCompilerBuilder(
         Deleter deleter,
         DirectoryFileTreeFactory directoryFileTreeFactory,
         FileSystemAccess fileSystemAccess,
-        TaskFileVarFactory fileVarFactory
+        TaskFileVarFactory fileVarFactory,
+        ExecutorFactory executorFactory,
+        StartParameter startParameter
     ) {
         this.buildOperationExecutor = buildOperationExecutor;
         this.compilationStateCacheFactory = compilationStateCacheFactory;
@@ -68,6 +80,8 @@ public DefaultIncrementalCompilerBuilder(
         this.fileSystemAccess = fileSystemAccess;
         this.fileVarFactory = fileVarFactory;
         this.sourceParser = sourceParser;
+        this.executorFactory = executorFactory;
+        this.parsingThreads = Boolean.getBoolean(PARALLEL_PARSING_PROPERTY_NAME) ? startParameter.getMaxWorkerCount() : 1;
     }
 
     @Override
@@ -84,7 +98,9 @@ public IncrementalCompiler newCompiler(TaskInternal task, FileCollection sourceF
             deleter,
             directoryFileTreeFactory,
             fileSystemAccess,
-            fileVarFactory
+            fileVarFactory,
+            executorFactory,
+            parsingThreads
         );
     }
 
@@ -95,6 +111,8 @@ private static class StateCollectingIncrementalCompiler implements IncrementalCo
         private final Deleter deleter;
         private final DirectoryFileTreeFactory directoryFileTreeFactory;
         private final FileSystemAccess fileSystemAccess;
+        private final ExecutorFactory executorFactory;
+        private final int parsingThreads;
 
         private final Map<String, String> macros;
         private final Provider<Boolean> importAware;
@@ -119,7 +137,9 @@ private static class StateCollectingIncrementalCompiler implements IncrementalCo
             Deleter deleter,
             DirectoryFileTreeFactory directoryFileTreeFactory,
             FileSystemAccess fileSystemAccess,
-            TaskFileVarFactory fileVarFactory
+            TaskFileVarFactory fileVarFactory,
+            ExecutorFactory executorFactory,
+            int parsingThreads
         ) {
             this.taskOutputs = task.getOutputs();
             this.taskPath = task.getPath();
@@ -135,6 +155,8 @@ private static class StateCollectingIncrementalCompiler implements IncrementalCo
             this.directoryFileTreeFactory = directoryFileTreeFactory;
             this.fileSystemAccess = fileSystemAccess;
             this.sourceParser = sourceParser;
+            this.executorFactory = executorFactory;
+            this.parsingThreads = parsingThreads;
         }
 
         @Override
@@ -149,13 +171,27 @@ public <T extends NativeCompileSpec> Compiler<T> createCompiler(Compiler<T> comp
         public Set<File> getFiles() {
             List<File> includeRoots = ImmutableList.copyOf(includeDirs);
             compileStateCache = compilationStateCacheFactory.create(taskPath);
-            DefaultSourceIncludesParser sourceIncludesParser = new DefaultSourceIncludesParser(sourceParser, importAware.get());
+            SourceIncludesParser sourceIncludesParser = new DefaultSourceIncludesParser(sourceParser, importAware.get());
             DefaultSourceIncludesResolver dependencyParser = new DefaultSourceIncludesResolver(includeRoots, fileSystemAccess);
-            IncludeDirectives includeDirectives = directivesForMacros(macros);
-            IncrementalCompileFilesFactory incrementalCompileFilesFactory = new IncrementalCompileFilesFactory(includeDirectives, sourceIncludesParser, dependencyParser, fileSystemAccess);
-            IncrementalCompileProcessor incrementalCompileProcessor = new IncrementalCompileProcessor(compileStateCache, incrementalCompileFilesFactory, buildOperationExecutor);
-
-            incrementalCompilation = incrementalCompileProcessor.processSourceFiles(sourceFiles.getFiles());
+            Set<File> sourceFiles = this.sourceFiles.getFiles();
+            ManagedExecutor parsingExecutor = null;
+            if (parsingThreads > 1 && sourceFiles.size() > 1) {
+                parsingExecutor = executorFactory.create("Parse native sources for " + taskPath, parsingThreads);
+                PrefetchingSourceIncludesParser prefetchingParser = new PrefetchingSourceIncludesParser(sourceIncludesParser, dependencyParser, parsingExecutor);
+                prefetchingParser.prefetch(sourceFiles);
+                sourceIncludesParser = prefetchingParser;
+            }
+            try {
+                IncludeDirectives includeDirectives = directivesForMacros(macros);
+                IncrementalCompileFilesFactory incrementalCompileFilesFactory = new IncrementalCompileFilesFactory(includeDirectives, sourceIncludesParser, dependencyParser, fileSystemAccess);
+                IncrementalCompileProcessor incrementalCompileProcessor = new IncrementalCompileProcessor(compileStateCache, incrementalCompileFilesFactory, buildOperationExecutor);
+
+                incrementalCompilation = incrementalCompileProcessor.processSourceFiles(sourceFiles);
+            } finally {
+                if (parsingExecutor != null) {
+                    parsingExecutor.stop();
+                }
+            }
             DefaultHeaderDependenciesCollector headerDependenciesCollector = new DefaultHeaderDependenciesCollector(directoryFileTreeFactory);
             return headerDependenciesCollector.collectExistingHeaderDependencies(taskPath, includeRoots, incrementalCompilation);
         }
@@ -34,17 +34,17 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
     private static final MissingIncludeFile MISSING_INCLUDE_FILE = new MissingIncludeFile();
     private final FileSystemAccess fileSystemAccess;
-    private final Map<File, DirectoryContents> includeRoots = new HashMap<File, DirectoryContents>();
+    private final Map<File, DirectoryContents> includeRoots = new ConcurrentHashMap<File, DirectoryContents>();
     private final FixedIncludePath includePath;
 
     public DefaultSourceIncludesResolver(List<File> includePaths, FileSystemAccess fileSystemAccess) {
@@ -259,12 +259,7 @@ public IncludeFile resolveInclude(@Nullable File sourceFile, String includePath)
     }
 
     private DirectoryContents toDir(File includeDir) {
-        DirectoryContents directoryContents = includeRoots.get(includeDir);
-        if (directoryContents == null) {
-            directoryContents = new DirectoryContents(includeDir);
-            includeRoots.put(includeDir, directoryContents);
-        }
-        return directoryContents;
+        return includeRoots.computeIfAbsent(includeDir, DirectoryContents::new);
     }
 
     private IncludePath prependSourceDir(File sourceFile, FixedIncludePath includePaths) {
@@ -303,7 +298,7 @@ IncludeFile searchForDependency(String includePath, boolean quotedPath) {
 
     private static class FixedIncludePath extends IncludePath {
         private final List<DirectoryContents> directories;
-        private final Map<String, CachedIncludeFile> cachedLookups = new HashMap<String, CachedIncludeFile>();
+        private final Map<String, CachedIncludeFile> cachedLookups = new ConcurrentHashMap<String, CachedIncludeFile>();
 
         FixedIncludePath(List<DirectoryContents> directories) {
             this.directories = directories;
@@ -338,7 +333,7 @@ public boolean startsWith(File sourceDir) {
 
     private class DirectoryContents {
         private final File searchDir;
-        private final Map<String, CachedIncludeFile> contents = new HashMap<String, CachedIncludeFile>();
+        private final Map<String, CachedIncludeFile> contents = new ConcurrentHashMap<String, CachedIncludeFile>();
 
         DirectoryContents(File searchDir) {
             this.searchDir = searchDir;
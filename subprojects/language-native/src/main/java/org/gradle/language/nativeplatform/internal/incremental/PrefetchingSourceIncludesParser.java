@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.language.nativeplatform.internal.Include;
+import org.gradle.language.nativeplatform.internal.IncludeDirectives;
+import org.gradle.language.nativeplatform.internal.IncludeType;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Parses source files and the headers they directly include on the given executor, ahead of the include graph analysis,
+ * which stays sequential as the macros visible in a file depend on the order of the includes.
+ *
+ * <p>Only includes of a quoted or system path are followed, includes using macros are parsed on demand during the analysis.</p>
+ */
+public class PrefetchingSourceIncludesParser implements SourceIncludesParser {
+    private final SourceIncludesParser delegate;
+    private final SourceIncludesResolver sourceIncludesResolver;
+    private final Executor executor;
+    private final ConcurrentMap<File, CompletableFuture<IncludeDirectives>> parsedFiles = new ConcurrentHashMap<>();
+
+    /**
+     * @param sourceIncludesResolver used to resolve includes from the executor threads, so must be thread-safe.
+     */
+    public PrefetchingSourceIncludesParser(SourceIncludesParser delegate, SourceIncludesResolver sourceIncludesResolver, Executor executor) {
+        this.delegate = delegate;
+        this.sourceIncludesResolver = sourceIncludesResolver;
+        this.executor = executor;
+    }
+
+    public void prefetch(Collection<File> sourceFiles) {
+        for (File sourceFile : sourceFiles) {
+            prefetch(sourceFile);
+        }
+    }
+
+    private void prefetch(File file) {
+        CompletableFuture<IncludeDirectives> parsed = new CompletableFuture<>();
+        if (parsedFiles.putIfAbsent(file, parsed) == null) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        parsed.complete(parseAndPrefetchIncludes(file));
+                    } catch (Throwable t) {
+                        parsed.completeExceptionally(t);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The executor has been stopped, so the file is parsed on demand instead
+                parsed.completeExceptionally(e);
+            }
+        }
+    }
+
+    private IncludeDirectives parseAndPrefetchIncludes(File file) {
+        IncludeDirectives includeDirectives = delegate.parseIncludes(file);
+        for (Include include : includeDirectives.getAll()) {
+            SourceIncludesResolver.IncludeFile includeFile;
+            if (include.getType() == IncludeType.QUOTED) {
+                includeFile = sourceIncludesResolver.resolveInclude(file, include.getValue());
+            } else if (include.getType() == IncludeType.SYSTEM) {
+                includeFile = sourceIncludesResolver.resolveInclude(null, include.getValue());
+            } else {
+                continue;
+            }
+            if (includeFile != null) {
+                prefetch(includeFile.getFile());
+            }
+        }
+        return includeDirectives;
+    }
+
+    @Override
+    public IncludeDirectives parseIncludes(File sourceFile) {
+        CompletableFuture<IncludeDirectives> parsed = parsedFiles.get(sourceFile);
+        if (parsed == null) {
+            return delegate.parseIncludes(sourceFile);
+        }
+        try {
+            return parsed.get();
+        } catch (ExecutionException e) {
+            // Parse again on this thread, so that the failure is reported as without prefetching, or because the file could not be prefetched
+            return delegate.parseIncludes(sourceFile);
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
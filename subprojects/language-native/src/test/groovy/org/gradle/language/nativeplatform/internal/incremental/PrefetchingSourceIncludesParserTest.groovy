@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.language.nativeplatform.internal.IncludeDirectives
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.TestIncludeParser
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
+class PrefetchingSourceIncludesParserTest extends Specification {
+    def delegate = Mock(SourceIncludesParser)
+    def resolver = Mock(SourceIncludesResolver)
+    def executorFactory = new DefaultExecutorFactory()
+    def executor = executorFactory.create("test", 4)
+    def parser = new PrefetchingSourceIncludesParser(delegate, resolver, executor)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "parses source files and the headers they include ahead of time"() {
+        given:
+        def source1 = new File("source1.c")
+        def source2 = new File("source2.c")
+        def header = new File("header.h")
+        def source1Includes = TestIncludeParser.systemIncludes(["header.h"])
+        def source2Includes = TestIncludeParser.systemIncludes(["header.h"])
+        def headerIncludes = IncludeDirectives.EMPTY
+        def parsedAll = new CountDownLatch(3)
+
+        when:
+        parser.prefetch([source1, source2])
+        // Once the header has been parsed, nothing more is scheduled, so the executor can be stopped
+        assert parsedAll.await(30, TimeUnit.SECONDS)
+        executor.stop()
+
+        then:
+        1 * delegate.parseIncludes(source1) >> { parsedAll.countDown(); source1Includes }
+        1 * delegate.parseIncludes(source2) >> { parsedAll.countDown(); source2Includes }
+        (1.._) * resolver.resolveInclude(null, "header.h") >> includeFile(header)
+        1 * delegate.parseIncludes(header) >> { parsedAll.countDown(); headerIncludes }
+
+        when:
+        def parsed = [source1, source2, header].collect { parser.parseIncludes(it) }
+
+        then:
+        parsed[0].is(source1Includes)
+        parsed[1].is(source2Includes)
+        parsed[2].is(headerIncludes)
+        0 * delegate._
+    }
+
+    def "parses files that were not prefetched on demand"() {
+        given:
+        def file = new File("other.h")
+        def includes = IncludeDirectives.EMPTY
+
+        when:
+        def parsed = parser.parseIncludes(file)
+
+        then:
+        1 * delegate.parseIncludes(file) >> includes
+        parsed.is(includes)
+    }
+
+    def "parses files on demand when they cannot be prefetched"() {
+        given:
+        def rejectingExecutor = Stub(Executor) {
+            execute(_) >> { throw new RejectedExecutionException() }
+        }
+        def parser = new PrefetchingSourceIncludesParser(delegate, resolver, rejectingExecutor)
+        def file = new File("source.c")
+        def includes = IncludeDirectives.EMPTY
+
+        when:
+        parser.prefetch([file])
+
+        then:
+        0 * delegate._
+
+        when:
+        def parsed = parser.parseIncludes(file)
+
+        then:
+        1 * delegate.parseIncludes(file) >> includes
+        parsed.is(includes)
+    }
+
+    SourceIncludesResolver.IncludeFile includeFile(File file) {
+        return Stub(SourceIncludesResolver.IncludeFile) {
+            getFile() >> file
+        }
+    }
+}
@@ -20,17 +20,26 @@
 import org.gradle.internal.logging.events.FlushOutputEvent;
 import org.gradle.internal.logging.events.OutputEvent;
 import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.logging.events.ProgressEvent;
 import org.gradle.internal.logging.events.UpdateNowEvent;
 import org.gradle.internal.time.Clock;
 
-import java.util.ArrayList;
-import java.util.List;
+import javax.annotation.Nullable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Queue output events to be forwarded and schedule flush when time passed or if end of build is signalled.
+ *
+ * <p>Events are added to a lock-free queue, so threads producing output do not wait for the console to render. The queue is drained in
+ * batches by the update thread. When the queue is full, progress updates are dropped, as a later update replaces them anyway, and the
+ * update thread is asked to drain the queue right away. Threads producing other events only wait for the update thread once the queue
+ * holds twice the maximum number of events.</p>
  */
 public class ThrottlingOutputEventListener implements OutputEventListener {
     private final OutputEventListener listener;
@@ -38,16 +47,32 @@ public class ThrottlingOutputEventListener implements OutputEventListener {
     private final ScheduledExecutorService executor;
     private final Clock clock;
     private final int throttleMs;
-    private final Object lock = new Object();
+    private final int maxQueuedEvents;
+    private final Object renderLock = new Object();
+    private final Object capacityLock = new Object();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            drainRequested.set(false);
+            renderNow(null);
+        }
+    };
 
-    private final List<OutputEvent> queue = new ArrayList<OutputEvent>();
+    private final Queue<OutputEvent> queue = new ConcurrentLinkedQueue<OutputEvent>();
+    private final AtomicInteger queuedEvents = new AtomicInteger();
 
     public ThrottlingOutputEventListener(OutputEventListener listener, Clock clock) {
-        this(listener, Integer.getInteger("org.gradle.internal.console.throttle", 100), Executors.newSingleThreadScheduledExecutor(), clock);
+        this(listener, Integer.getInteger("org.gradle.internal.console.throttle", 100), Integer.getInteger("org.gradle.internal.console.max-queued-events", 10000), Executors.newSingleThreadScheduledExecutor(), clock);
     }
 
     ThrottlingOutputEventListener(OutputEventListener listener, int throttleMs, ScheduledExecutorService executor, Clock clock) {
+        this(listener, throttleMs, Integer.MAX_VALUE, executor, clock);
+    }
+
+    ThrottlingOutputEventListener(OutputEventListener listener, int throttleMs, int maxQueuedEvents, ScheduledExecutorService executor, Clock clock) {
         this.throttleMs = throttleMs;
+        this.maxQueuedEvents = maxQueuedEvents;
         this.listener = listener;
         this.executor = executor;
         this.clock = clock;
@@ -65,34 +90,81 @@ public void run() {
 
     @Override
     public void onOutput(OutputEvent newEvent) {
-        synchronized (lock) {
-            queue.add(newEvent);
+        if (newEvent instanceof UpdateNowEvent || newEvent instanceof FlushOutputEvent) {
+            // Flush any buffered events and update the clock
+            renderNow(newEvent);
+            return;
+        }
 
-            if (newEvent instanceof UpdateNowEvent) {
-                // Flush any buffered events and update the clock
-                renderNow();
-                return;
-            }
+        if (newEvent instanceof EndOutputEvent) {
+            // Flush and clean up
+            renderNow(newEvent);
+            executor.shutdown();
+            return;
+        }
 
-            if (newEvent instanceof FlushOutputEvent) {
-                renderNow();
+        if (queuedEvents.get() >= maxQueuedEvents) {
+            if (newEvent instanceof ProgressEvent && !((ProgressEvent) newEvent).isFailing()) {
+                // Only the most recent status of an operation is shown, so drop this update rather than wait for the console
                 return;
             }
+            enqueue(newEvent);
+            requestDrain();
+            awaitCapacity();
+            return;
+        }
 
-            if (newEvent instanceof EndOutputEvent) {
-                // Flush and clean up
-                renderNow();
-                executor.shutdown();
-            }
+        // Else, wait for the next update event
+        enqueue(newEvent);
+    }
 
-            // Else, wait for the next update event
+    /**
+     * Asks the update thread to drain the queue without waiting for the next update. Drains on the calling thread once the update thread is gone.
+     */
+    private void requestDrain() {
+        if (executor.isShutdown()) {
+            renderNow(null);
+        } else if (drainRequested.compareAndSet(false, true)) {
+            executor.execute(drain);
+        }
+    }
+
+    /**
+     * Blocks while the queue holds more than twice the maximum number of events, so that the queue stays bounded when events are produced
+     * faster than the console renders them.
+     */
+    private void awaitCapacity() {
+        synchronized (capacityLock) {
+            while (queuedEvents.get() >= 2L * maxQueuedEvents && !executor.isShutdown()) {
+                requestDrain();
+                try {
+                    capacityLock.wait(throttleMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
         }
     }
 
-    private void renderNow() {
-        for (OutputEvent event : queue) {
-            listener.onOutput(event);
+    private void enqueue(OutputEvent event) {
+        queue.add(event);
+        queuedEvents.incrementAndGet();
+    }
+
+    private void renderNow(@Nullable OutputEvent newEvent) {
+        synchronized (renderLock) {
+            if (newEvent != null) {
+                enqueue(newEvent);
+            }
+            OutputEvent event;
+            while ((event = queue.poll()) != null) {
+                queuedEvents.decrementAndGet();
+                listener.onOutput(event);
+            }
+        }
+        synchronized (capacityLock) {
+            capacityLock.notifyAll();
         }
-        queue.clear();
     }
 }
@@ -19,8 +19,11 @@ import org.gradle.internal.logging.OutputSpecification
 import org.gradle.internal.logging.events.EndOutputEvent
 import org.gradle.internal.logging.events.FlushOutputEvent
 import org.gradle.internal.logging.events.OutputEventListener
+import org.gradle.internal.logging.events.ProgressEvent
 import org.gradle.internal.logging.events.UpdateNowEvent
+import org.gradle.internal.operations.OperationIdentifier
 import org.gradle.internal.time.MockClock
+import org.gradle.test.fixtures.ConcurrentTestUtil
 import org.gradle.util.MockExecutor
 import spock.lang.Subject
 
@@ -139,4 +142,89 @@ class ThrottlingOutputEventListenerTest extends OutputSpecification {
         then:
         executor.isShutdown()
     }
+
+    def "drops progress updates and hands other events to the update thread when queue is full"() {
+        def boundedRenderer = new ThrottlingOutputEventListener(listener, 100, 2, executor, clock)
+        def event1 = event('1')
+        def event2 = event('2')
+        def progress = new ProgressEvent(new OperationIdentifier(1), "status", false)
+        def failingProgress = new ProgressEvent(new OperationIdentifier(1), "failed", true)
+        def event3 = event('3')
+
+        when:
+        boundedRenderer.onOutput(event1)
+        boundedRenderer.onOutput(event2)
+        boundedRenderer.onOutput(progress)
+        boundedRenderer.onOutput(failingProgress)
+
+        then:
+        0 * _
+
+        when:
+        executor.runSingleScheduledActionsNow()
+
+        then:
+        1 * listener.onOutput(event1)
+
+        then:
+        1 * listener.onOutput(event2)
+
+        then:
+        1 * listener.onOutput(failingProgress)
+        0 * _
+
+        when:
+        boundedRenderer.onOutput(event3)
+
+        then:
+        0 * _
+    }
+
+    def "blocks producers until the update thread drains the queue when queue holds twice the maximum number of events"() {
+        def boundedRenderer = new ThrottlingOutputEventListener(listener, 100, 1, executor, clock)
+        def event1 = event('1')
+        def event2 = event('2')
+        boundedRenderer.onOutput(event1)
+
+        when:
+        def producer = Thread.start {
+            boundedRenderer.onOutput(event2)
+        }
+        ConcurrentTestUtil.poll {
+            assert producer.state == Thread.State.TIMED_WAITING
+        }
+
+        then:
+        0 * _
+
+        when:
+        executor.runSingleScheduledActionsNow()
+        producer.join(5000)
+
+        then:
+        !producer.alive
+        1 * listener.onOutput(event1)
+
+        then:
+        1 * listener.onOutput(event2)
+        0 * _
+    }
+
+    def "drains on the producing thread when queue is full after end of output"() {
+        def boundedRenderer = new ThrottlingOutputEventListener(listener, 100, 1, executor, clock)
+        def event1 = event('1')
+        def event2 = event('2')
+        boundedRenderer.onOutput(new EndOutputEvent())
+        boundedRenderer.onOutput(event1)
+
+        when:
+        boundedRenderer.onOutput(event2)
+
+        then:
+        1 * listener.onOutput(event1)
+
+        then:
+        1 * listener.onOutput(event2)
+        0 * _
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.instantiation.generator;
+
+import org.gradle.api.Transformer;
+import org.gradle.cache.internal.CrossBuildInMemoryCache;
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
+import org.gradle.internal.instantiation.InstanceFactory;
+import org.gradle.internal.instantiation.InstanceGenerator;
+import org.gradle.internal.instantiation.PropertyRoleAnnotationHandler;
+import org.gradle.internal.service.DefaultServiceRegistry;
+import org.gradle.internal.state.ModelObject;
+import org.openjdk.jmh.annotations.*;
+
+import javax.inject.Inject;
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the creation of objects with services injected into their constructor, as is done for tasks, extensions and other DSL objects.
+ */
+@Fork(2)
+@Threads(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class DependencyInjectingInstantiatorBenchmark {
+
+    private InstanceGenerator instantiator;
+    private InstanceFactory<InjectedBean> factory;
+    private DefaultServiceRegistry services;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        services = new DefaultServiceRegistry();
+        services.add(FirstService.class, new FirstService());
+        services.add(SecondService.class, new SecondService());
+        DefaultInstantiatorFactory instantiatorFactory = new DefaultInstantiatorFactory(new MapBackedCacheFactory(), Collections.emptyList(), new NoRoleAnnotationHandler());
+        instantiator = instantiatorFactory.inject(services);
+        factory = instantiatorFactory.injectScheme().forType(InjectedBean.class);
+    }
+
+    @Benchmark
+    public Object injectServices() {
+        return instantiator.newInstance(InjectedBean.class);
+    }
+
+    @Benchmark
+    public Object injectServicesAndParameters() {
+        return instantiator.newInstance(InjectedBeanWithName.class, "name");
+    }
+
+    @Benchmark
+    public Object injectParameters() {
+        return instantiator.newInstance(InjectedBeanWithName.class, "name", new FirstService(), new SecondService());
+    }
+
+    @Benchmark
+    public Object factoryInjectServices() {
+        return factory.newInstance(services);
+    }
+
+    public static class FirstService {
+    }
+
+    public static class SecondService {
+    }
+
+    public static class InjectedBean {
+        @Inject
+        public InjectedBean(FirstService first, SecondService second) {
+        }
+    }
+
+    public static class InjectedBeanWithName {
+        @Inject
+        public InjectedBeanWithName(String name, FirstService first, SecondService second) {
+        }
+    }
+
+    private static class NoRoleAnnotationHandler implements PropertyRoleAnnotationHandler {
+        @Override
+        public Set<Class<? extends Annotation>> getAnnotationTypes() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void applyRoleTo(ModelObject owner, Object target) {
+        }
+    }
+
+    private static class MapBackedCacheFactory implements CrossBuildInMemoryCacheFactory {
+        @Override
+        public <K, V> CrossBuildInMemoryCache<K, V> newCache() {
+            return new MapBackedCache<>();
+        }
+
+        @Override
+        public <V> CrossBuildInMemoryCache<Class<?>, V> newClassCache() {
+            return new MapBackedCache<>();
+        }
+
+        @Override
+        public <V> CrossBuildInMemoryCache<Class<?>, V> newClassMap() {
+            return new MapBackedCache<>();
+        }
+    }
+
+    private static class MapBackedCache<K, V> implements CrossBuildInMemoryCache<K, V> {
+        private final Map<K, V> values = new ConcurrentHashMap<>();
+
+        @Override
+        public V get(K key, Transformer<V, K> factory) {
+            return values.computeIfAbsent(key, factory::transform);
+        }
+
+        @Override
+        public V get(K key) {
+            return values.get(key);
+        }
+
+        @Override
+        public void put(K key, V value) {
+            values.put(key, value);
+        }
+
+        @Override
+        public void clear() {
+            values.clear();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.metaobject;
+
+import groovy.lang.GroovyObjectSupport;
+import groovy.lang.MetaClassImpl;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the dynamic property and method access made by the Groovy DSL, such as {@code version = '1.0'} or {@code dependsOn 'compile'} in a
+ * configuration closure. The {@code uncached} variant uses a subclass of {@link MetaClassImpl}, for which lookups are not cached.
+ */
+@Fork(2)
+@Threads(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BeanDynamicObjectBenchmark {
+
+    @Param({"cached", "uncached"})
+    String lookups;
+
+    private BeanDynamicObject dynamicObject;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        DslBean bean = new DslBean();
+        if (lookups.equals("uncached")) {
+            MetaClassImpl metaClass = new MetaClassImpl(DslBean.class) {
+            };
+            metaClass.initialize();
+            bean.setMetaClass(metaClass);
+        }
+        dynamicObject = new BeanDynamicObject(bean);
+    }
+
+    @Benchmark
+    public Object getProperty() {
+        return dynamicObject.tryGetProperty("version").getValue();
+    }
+
+    @Benchmark
+    public boolean setProperty() {
+        return dynamicObject.trySetProperty("version", "1.0").isFound();
+    }
+
+    @Benchmark
+    public boolean getMissingProperty() {
+        // What happens for each enclosing scope when a closure resolves a name through its delegates
+        return dynamicObject.tryGetProperty("missing").isFound();
+    }
+
+    @Benchmark
+    public Object invokeMethod() {
+        return dynamicObject.tryInvokeMethod("dependsOn", "compile").getValue();
+    }
+
+    @Benchmark
+    public boolean invokeMissingMethod() {
+        return dynamicObject.tryInvokeMethod("missing", "compile").isFound();
+    }
+
+    public static class DslBean extends GroovyObjectSupport {
+        private String version;
+
+        public String getVersion() {
+            return version;
+        }
+
+        public void setVersion(String version) {
+            this.version = version;
+        }
+
+        public DslBean dependsOn(Object path) {
+            return this;
+        }
+    }
+}
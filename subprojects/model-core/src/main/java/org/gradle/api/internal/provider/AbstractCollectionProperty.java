@@ -235,6 +235,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return false;
         }
 
+        @Override
+        public long getValueVersion() {
+            return MemoizedValue.FIXED;
+        }
+
         @Override
         public Value<? extends C> calculateValue(ValueConsumer consumer) {
             return value;
@@ -263,6 +268,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return true;
         }
 
+        @Override
+        public long getValueVersion() {
+            return MemoizedValue.FIXED;
+        }
+
         @Override
         public Value<? extends C> calculateValue(ValueConsumer consumer) {
             return Value.of(emptyCollection());
@@ -297,6 +307,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return true;
         }
 
+        @Override
+        public long getValueVersion() {
+            return MemoizedValue.FIXED;
+        }
+
         @Override
         public Value<? extends C> calculateValue(ValueConsumer consumer) {
             return Value.of(value);
@@ -320,6 +335,7 @@ public ValueProducer getProducer() {
 
     private class CollectingSupplier implements CollectionSupplier<T, C> {
         private final Collector<T> value;
+        private volatile MemoizedValue<Value<C>> memoized;
 
         public CollectingSupplier(Collector<T> value) {
             this.value = value;
@@ -330,8 +346,24 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return value.calculatePresence(consumer);
         }
 
+        @Override
+        public long getValueVersion() {
+            return value.getValueVersion();
+        }
+
         @Override
         public Value<C> calculateValue(ValueConsumer consumer) {
+            long version = MemoizedValue.versionFor(value, consumer);
+            MemoizedValue<Value<C>> memoized = this.memoized;
+            if (memoized != null && memoized.isAt(version)) {
+                return memoized.get();
+            }
+            Value<C> result = collectValue(consumer);
+            this.memoized = MemoizedValue.of(version, result);
+            return result;
+        }
+
+        private Value<C> collectValue(ValueConsumer consumer) {
             // TODO - don't make a copy when the collector already produces an immutable collection
             ImmutableCollection.Builder<T> builder = collectionFactory.get();
             Value<Void> result = value.collectEntries(consumer, valueCollector, builder);
@@ -435,6 +467,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return left.calculatePresence(consumer) && right.calculatePresence(consumer);
         }
 
+        @Override
+        public long getValueVersion() {
+            return MemoizedValue.combine(left.getValueVersion(), right.getValueVersion());
+        }
+
         @Override
         public int size() {
             return left.size() + right.size();
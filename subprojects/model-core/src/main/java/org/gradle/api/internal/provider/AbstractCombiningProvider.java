@@ -18,7 +18,7 @@
 
 import javax.annotation.Nullable;
 
-public abstract class AbstractCombiningProvider<OUT, BASE, IN> extends AbstractMinimalProvider<OUT> {
+public abstract class AbstractCombiningProvider<OUT, BASE, IN> extends AbstractMemoizingProvider<OUT> {
     private final Class<OUT> type;
     private final ProviderInternal<? extends BASE> left;
     private final ProviderInternal<? extends IN> right;
@@ -41,7 +41,12 @@ public boolean calculatePresence(ValueConsumer consumer) {
     }
 
     @Override
-    protected Value<OUT> calculateOwnValue(ValueConsumer consumer) {
+    public long getValueVersion() {
+        return MemoizedValue.combine(left.getValueVersion(), right.getValueVersion());
+    }
+
+    @Override
+    protected Value<OUT> calculateFreshValue(ValueConsumer consumer) {
         Value<? extends BASE> leftValue = left.calculateValue(consumer);
         if (leftValue.isMissing()) {
             return leftValue.asType();
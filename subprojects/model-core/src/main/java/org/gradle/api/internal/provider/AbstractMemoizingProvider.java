@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.provider;
+
+/**
+ * A provider that calculates its value from other providers, and that can reuse the value it calculated while the version of its upstream values
+ * is unchanged and the value cannot be changed by its callers. Subclasses must implement {@link #getValueVersion()} and
+ * {@link #calculateFreshValue(ValueConsumer)}. See {@link MemoizedValue}.
+ */
+public abstract class AbstractMemoizingProvider<T> extends AbstractMinimalProvider<T> {
+    private volatile MemoizedValue<Value<? extends T>> memoized;
+
+    @Override
+    protected final Value<? extends T> calculateOwnValue(ValueConsumer consumer) {
+        long version = MemoizedValue.versionFor(this, consumer);
+        MemoizedValue<Value<? extends T>> memoized = this.memoized;
+        if (memoized != null && memoized.isAt(version)) {
+            return memoized.get();
+        }
+        Value<? extends T> value = calculateFreshValue(consumer);
+        this.memoized = MemoizedValue.canShare(value) ? MemoizedValue.of(version, value) : null;
+        return value;
+    }
+
+    /**
+     * Calculates the value of this provider from its upstream values.
+     */
+    protected abstract Value<? extends T> calculateFreshValue(ValueConsumer consumer);
+}
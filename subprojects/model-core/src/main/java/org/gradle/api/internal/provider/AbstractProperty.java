@@ -37,6 +37,7 @@
     private DisplayName displayName;
     private FinalizationState<S> state;
     private S value;
+    private long version = MemoizedValue.FIXED;
 
     public AbstractProperty(PropertyHost host) {
         state = new NonFinalizedValue<>(host);
@@ -116,6 +117,15 @@ protected S getSupplier() {
         return value;
     }
 
+    @Override
+    public long getValueVersion() {
+        if (producer != null || state.isFinalizedOnRead()) {
+            // Reading the value has side effects, or the value is produced by a task
+            return MemoizedValue.UNTRACKED;
+        }
+        return MemoizedValue.combine(version, value.getValueVersion());
+    }
+
     protected Value<? extends T> calculateOwnValueNoProducer(ValueConsumer consumer) {
         beforeRead(null, consumer);
         return doCalculateValue(consumer);
@@ -211,11 +221,17 @@ public void disallowUnsafeRead() {
     protected void setSupplier(S supplier) {
         assertCanMutate();
         this.value = state.explicitValue(supplier);
+        valueChanged();
     }
 
     protected void setConvention(S convention) {
         assertCanMutate();
         this.value = state.applyConvention(value, convention);
+        valueChanged();
+    }
+
+    private void valueChanged() {
+        version = MemoizedValue.nextVersion();
     }
 
     /**
@@ -242,6 +258,7 @@ private void finalizeNow(ValueConsumer consumer) {
             }
         }
         state = state.finalState();
+        valueChanged();
     }
 
     /**
@@ -257,6 +274,7 @@ protected S getExplicitValue(S defaultValue) {
     protected void discardValue() {
         assertCanMutate();
         value = state.implicitValue();
+        valueChanged();
     }
 
     protected void assertCanMutate() {
@@ -330,6 +348,11 @@ public PropertyQueryException(String message, Throwable cause) {
         public abstract void beforeMutate(DisplayName displayName);
 
         public abstract ValueConsumer forUpstream(ValueConsumer consumer);
+
+        /**
+         * Returns true when the value will be finalized the next time it is read.
+         */
+        public abstract boolean isFinalizedOnRead();
     }
 
     private static class NonFinalizedValue<S> extends FinalizationState<S> {
@@ -397,6 +420,11 @@ public void finalizeOnNextGet() {
             finalizeOnNextGet = true;
         }
 
+        @Override
+        public boolean isFinalizedOnRead() {
+            return finalizeOnNextGet;
+        }
+
         @Override
         public void disallowUnsafeRead() {
             disallowUnsafeRead = true;
@@ -473,6 +501,11 @@ public void finalizeOnNextGet() {
             // Finalized already
         }
 
+        @Override
+        public boolean isFinalizedOnRead() {
+            return false;
+        }
+
         @Override
         public void disallowUnsafeRead() {
             // Finalized already so read is safe
@@ -21,7 +21,7 @@
 import javax.annotation.Nullable;
 import java.util.function.BiFunction;
 
-class BiProvider<R, A, B> extends AbstractMinimalProvider<R> {
+class BiProvider<R, A, B> extends AbstractMemoizingProvider<R> {
 
     private final BiFunction<A, B, R> combiner;
     private final ProviderInternal<A> left;
@@ -45,7 +45,12 @@ private boolean isChangingValue(ProviderInternal<?> provider) {
     }
 
     @Override
-    protected Value<? extends R> calculateOwnValue(ValueConsumer consumer) {
+    public long getValueVersion() {
+        return MemoizedValue.combine(left.getValueVersion(), right.getValueVersion());
+    }
+
+    @Override
+    protected Value<? extends R> calculateFreshValue(ValueConsumer consumer) {
         Value<? extends A> lv = assertHasValue(left.calculateValue(consumer), left);
         Value<? extends B> rv = assertHasValue(right.calculateValue(consumer), right);
         return Value.of(combiner.apply(lv.get(), rv.get()));
@@ -42,6 +42,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return true;
         }
 
+        @Override
+        public long getValueVersion() {
+            return MemoizedValue.FIXED;
+        }
+
         @Override
         public Value<Void> collectEntries(ValueConsumer consumer, ValueCollector<T> collector, ImmutableCollection.Builder<T> collection) {
             collector.add(element, collection);
@@ -93,6 +98,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return provider.calculatePresence(consumer);
         }
 
+        @Override
+        public long getValueVersion() {
+            return provider.getValueVersion();
+        }
+
         @Override
         public Value<Void> collectEntries(ValueConsumer consumer, ValueCollector<T> collector, ImmutableCollection.Builder<T> collection) {
             Value<? extends T> value = provider.calculateValue(consumer);
@@ -211,6 +221,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return provider.calculatePresence(consumer);
         }
 
+        @Override
+        public long getValueVersion() {
+            return provider.getValueVersion();
+        }
+
         @Override
         public Value<Void> collectEntries(ValueConsumer consumer, ValueCollector<T> collector, ImmutableCollection.Builder<T> collection) {
             Value<? extends Iterable<? extends T>> value = provider.calculateValue(consumer);
@@ -320,6 +335,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return delegate.calculatePresence(consumer);
         }
 
+        @Override
+        public long getValueVersion() {
+            return delegate.getValueVersion();
+        }
+
         public void collectInto(ImmutableCollection.Builder<T> builder) {
             collectEntries(ValueConsumer.IgnoreUnsafeRead, valueCollector, builder);
         }
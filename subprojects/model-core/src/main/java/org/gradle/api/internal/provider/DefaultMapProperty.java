@@ -309,6 +309,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return false;
         }
 
+        @Override
+        public long getValueVersion() {
+            return MemoizedValue.FIXED;
+        }
+
         @Override
         public Value<? extends Map<K, V>> calculateValue(ValueConsumer consumer) {
             return value;
@@ -342,6 +347,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return true;
         }
 
+        @Override
+        public long getValueVersion() {
+            return MemoizedValue.FIXED;
+        }
+
         @Override
         public Value<? extends Map<K, V>> calculateValue(ValueConsumer consumer) {
             return Value.of(ImmutableMap.of());
@@ -381,6 +391,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return true;
         }
 
+        @Override
+        public long getValueVersion() {
+            return MemoizedValue.FIXED;
+        }
+
         @Override
         public Value<? extends Map<K, V>> calculateValue(ValueConsumer consumer) {
             return Value.of(entries);
@@ -409,6 +424,7 @@ public ValueProducer getProducer() {
 
     private class CollectingSupplier implements MapSupplier<K, V> {
         private final MapCollector<K, V> collector;
+        private volatile MemoizedValue<Value<? extends Map<K, V>>> memoized;
 
         public CollectingSupplier(MapCollector<K, V> collector) {
             this.collector = collector;
@@ -430,8 +446,24 @@ public Value<? extends Set<K>> calculateKeys(ValueConsumer consumer) {
             return Value.of(ImmutableSet.copyOf(builder.build()));
         }
 
+        @Override
+        public long getValueVersion() {
+            return collector.getValueVersion();
+        }
+
         @Override
         public Value<? extends Map<K, V>> calculateValue(ValueConsumer consumer) {
+            long version = MemoizedValue.versionFor(collector, consumer);
+            MemoizedValue<Value<? extends Map<K, V>>> memoized = this.memoized;
+            if (memoized != null && memoized.isAt(version)) {
+                return memoized.get();
+            }
+            Value<? extends Map<K, V>> result = collectValue(consumer);
+            this.memoized = MemoizedValue.of(version, result);
+            return result;
+        }
+
+        private Value<? extends Map<K, V>> collectValue(ValueConsumer consumer) {
             // TODO - don't make a copy when the collector already produces an immutable collection
             // Cannot use ImmutableMap.Builder here, as it does not allow multiple entries with the same key, however the contract
             // for MapProperty allows a provider to override the entries of earlier providers and so there can be multiple entries
@@ -531,6 +563,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return left.calculatePresence(consumer) && right.calculatePresence(consumer);
         }
 
+        @Override
+        public long getValueVersion() {
+            return MemoizedValue.combine(left.getValueVersion(), right.getValueVersion());
+        }
+
         @Override
         public Value<Void> collectEntries(ValueConsumer consumer, MapEntryCollector<K, V> collector, Map<K, V> dest) {
             Value<Void> result = left.collectEntries(consumer, collector, dest);
@@ -24,6 +24,7 @@
 public class FlatMapProvider<S, T> extends AbstractMinimalProvider<S> {
     private final ProviderInternal<? extends T> provider;
     private final Transformer<? extends Provider<? extends S>, ? super T> transformer;
+    private volatile MemoizedValue<ProviderInternal<? extends S>> mapped;
 
     FlatMapProvider(ProviderInternal<? extends T> provider, Transformer<? extends Provider<? extends S>, ? super T> transformer) {
         this.provider = provider;
@@ -41,13 +42,31 @@ public boolean calculatePresence(ValueConsumer consumer) {
         return backingProvider(consumer).calculatePresence(consumer);
     }
 
+    @Override
+    public long getValueVersion() {
+        // The version of the mapped provider is only known once it has been calculated for the current upstream value
+        long version = provider.getValueVersion();
+        MemoizedValue<ProviderInternal<? extends S>> mapped = this.mapped;
+        if (mapped == null || !mapped.isAt(version)) {
+            return MemoizedValue.UNTRACKED;
+        }
+        return MemoizedValue.combine(version, mapped.get().getValueVersion());
+    }
+
     @Override
     protected Value<? extends S> calculateOwnValue(ValueConsumer consumer) {
+        long version = MemoizedValue.versionFor(provider, consumer);
+        MemoizedValue<ProviderInternal<? extends S>> mapped = this.mapped;
+        if (mapped != null && mapped.isAt(version)) {
+            return mapped.get().calculateValue(consumer);
+        }
         Value<? extends T> value = provider.calculateValue(consumer);
         if (value.isMissing()) {
             return value.asType();
         }
-        return doMapValue(value.get()).calculateValue(consumer);
+        ProviderInternal<? extends S> mappedProvider = doMapValue(value.get());
+        this.mapped = MemoizedValue.of(version, mappedProvider);
+        return mappedProvider.calculateValue(consumer);
     }
 
     private ProviderInternal<? extends S> doMapValue(T value) {
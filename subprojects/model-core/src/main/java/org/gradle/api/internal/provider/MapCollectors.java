@@ -40,6 +40,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return true;
         }
 
+        @Override
+        public long getValueVersion() {
+            return MemoizedValue.FIXED;
+        }
+
         @Override
         public Value<Void> collectEntries(ValueConsumer consumer, MapEntryCollector<K, V> collector, Map<K, V> dest) {
             collector.add(key, value, dest);
@@ -94,6 +99,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return providerOfValue.calculatePresence(consumer);
         }
 
+        @Override
+        public long getValueVersion() {
+            return providerOfValue.getValueVersion();
+        }
+
         @Override
         public Value<Void> collectEntries(ValueConsumer consumer, MapEntryCollector<K, V> collector, Map<K, V> dest) {
             Value<? extends V> value = providerOfValue.calculateValue(consumer);
@@ -181,6 +191,11 @@ public boolean calculatePresence(ValueConsumer consumer) {
             return providerOfEntries.calculatePresence(consumer);
         }
 
+        @Override
+        public long getValueVersion() {
+            return providerOfEntries.getValueVersion();
+        }
+
         @Override
         public Value<Void> collectEntries(ValueConsumer consumer, MapEntryCollector<K, V> collector, Map<K, V> dest) {
             Value<? extends Map<? extends K, ? extends V>> value = providerOfEntries.calculateValue(consumer);
@@ -23,7 +23,7 @@
 /**
  * A mapping provider that uses a transform that 1. does not use the value contents and 2. always produces a value.
  */
-public class MappingProvider<OUT, IN> extends AbstractMinimalProvider<OUT> {
+public class MappingProvider<OUT, IN> extends AbstractMemoizingProvider<OUT> {
     private final Class<OUT> type;
     private final ProviderInternal<? extends IN> provider;
     private final Transformer<? extends OUT, ? super IN> transformer;
@@ -51,7 +51,12 @@ public boolean calculatePresence(ValueConsumer consumer) {
     }
 
     @Override
-    protected Value<OUT> calculateOwnValue(ValueConsumer consumer) {
+    public long getValueVersion() {
+        return provider.getValueVersion();
+    }
+
+    @Override
+    protected Value<OUT> calculateFreshValue(ValueConsumer consumer) {
         Value<? extends IN> value = provider.calculateValue(consumer);
         if (value.isMissing()) {
             return value.asType();
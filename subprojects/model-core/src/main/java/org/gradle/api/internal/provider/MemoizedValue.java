@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.provider;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableMap;
+import org.gradle.api.file.FileSystemLocation;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A value calculated by a provider, together with the version of the upstream values it was calculated from. The value can be reused for as long as
+ * the upstream values report the same version. See {@link ValueSupplier#getValueVersion()}.
+ *
+ * <p>Versions are allocated from a single counter, so that a change to any upstream value produces a version that is greater than all versions seen before it.
+ * This means that the version of a value calculated from several upstream values is the greatest of their versions.</p>
+ *
+ * <p>Memoization is opt-in, using the {@value #MEMOIZATION_PROPERTY} system property. Values are reused only when queried with {@link ValueSupplier.ValueConsumer#IgnoreUnsafeRead},
+ * and transformers are assumed to calculate their result only from their input. The result of a transformer is only reused when it cannot be changed by
+ * its callers, see {@link #canShare(ValueSupplier.Value)}.</p>
+ */
+class MemoizedValue<T> {
+    /**
+     * When set to true, providers reuse the values they calculate for as long as their upstream values do not change.
+     */
+    static final String MEMOIZATION_PROPERTY = "org.gradle.internal.provider.memoize";
+
+    /**
+     * The version of a value for which changes are not tracked.
+     */
+    static final long UNTRACKED = -1;
+
+    /**
+     * The version of a value that never changes.
+     */
+    static final long FIXED = 0;
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private static volatile boolean enabled = Boolean.getBoolean(MEMOIZATION_PROPERTY);
+
+    private final long version;
+    private final T value;
+
+    private MemoizedValue(long version, T value) {
+        this.version = version;
+        this.value = value;
+    }
+
+    @VisibleForTesting
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    @VisibleForTesting
+    static void setEnabled(boolean enabled) {
+        MemoizedValue.enabled = enabled;
+    }
+
+    /**
+     * Allocates a version for a value that has changed.
+     */
+    static long nextVersion() {
+        return VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * Returns the version of a value that is calculated from values with the given versions.
+     */
+    static long combine(long version1, long version2) {
+        if (version1 == UNTRACKED || version2 == UNTRACKED) {
+            return UNTRACKED;
+        }
+        return Math.max(version1, version2);
+    }
+
+    /**
+     * Returns the version of the given supplier to use to reuse a value for the given consumer, or {@link #UNTRACKED} when a value should not be reused.
+     */
+    static long versionFor(ValueSupplier supplier, ValueSupplier.ValueConsumer consumer) {
+        if (!enabled || consumer != ValueSupplier.ValueConsumer.IgnoreUnsafeRead) {
+            return UNTRACKED;
+        }
+        return supplier.getValueVersion();
+    }
+
+    /**
+     * Returns a memoized value with the given version, or null when the version is not tracked.
+     */
+    @Nullable
+    static <T> MemoizedValue<T> of(long version, T value) {
+        if (version == UNTRACKED) {
+            return null;
+        }
+        return new MemoizedValue<>(version, value);
+    }
+
+    /**
+     * Returns true when the given calculated value can be shared by all callers, because it is missing or cannot be changed by them. A transformer can
+     * return a new mutable object each time it is called, which each caller may then change.
+     */
+    static boolean canShare(ValueSupplier.Value<?> value) {
+        if (value.isMissing()) {
+            return true;
+        }
+        Object object = value.get();
+        return object instanceof String
+            || object instanceof Boolean
+            || object instanceof Integer
+            || object instanceof Long
+            || object instanceof Short
+            || object instanceof Byte
+            || object instanceof Character
+            || object instanceof Double
+            || object instanceof Float
+            || object instanceof BigInteger
+            || object instanceof BigDecimal
+            || object instanceof Enum
+            || object instanceof Class
+            || object instanceof File
+            || object instanceof Path
+            || object instanceof URI
+            || object instanceof FileSystemLocation
+            || object instanceof ImmutableCollection
+            || object instanceof ImmutableMap;
+    }
+
+    /**
+     * Returns true when this value was calculated from upstream values with the given version.
+     */
+    boolean isAt(long version) {
+        return version != UNTRACKED && this.version == version;
+    }
+
+    T get() {
+        return value;
+    }
+}
@@ -48,6 +48,11 @@ public ValueProducer getProducer() {
         return ValueProducer.unknown();
     }
 
+    @Override
+    public long getValueVersion() {
+        return provider.getValueVersion();
+    }
+
     @Override
     public ExecutionTimeValue<? extends T> calculateExecutionTimeValue() {
         ExecutionTimeValue<? extends T> value = provider.calculateExecutionTimeValue();
@@ -42,6 +42,11 @@ public ValueProducer getProducer() {
         }
     }
 
+    @Override
+    public long getValueVersion() {
+        return MemoizedValue.combine(left.getValueVersion(), right.getValueVersion());
+    }
+
     @Override
     public boolean calculatePresence(ValueConsumer consumer) {
         return left.calculatePresence(consumer) || right.calculatePresence(consumer);
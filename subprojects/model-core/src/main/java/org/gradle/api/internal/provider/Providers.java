@@ -90,6 +90,11 @@ protected Value<? extends T> calculateOwnValue(ValueConsumer consumer) {
             return Value.of(value);
         }
 
+        @Override
+        public long getValueVersion() {
+            return MemoizedValue.FIXED;
+        }
+
         @Override
         public ProviderInternal<T> withFinalValue(ValueConsumer consumer) {
             return this;
@@ -115,6 +120,12 @@ public FixedValueWithChangingContentProvider(T value) {
         public ExecutionTimeValue<? extends T> calculateExecutionTimeValue() {
             return super.calculateExecutionTimeValue().withChangingContent();
         }
+
+        @Override
+        public long getValueVersion() {
+            // Values calculated from the content should not be reused
+            return MemoizedValue.UNTRACKED;
+        }
     }
 
     private static class NoValueProvider<T> extends AbstractMinimalProvider<T> {
@@ -135,6 +146,11 @@ public boolean isImmutable() {
             return true;
         }
 
+        @Override
+        public long getValueVersion() {
+            return MemoizedValue.FIXED;
+        }
+
         @Nullable
         @Override
         public Class<T> getType() {
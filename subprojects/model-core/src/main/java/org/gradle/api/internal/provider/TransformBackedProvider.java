@@ -22,7 +22,7 @@
 
 import javax.annotation.Nullable;
 
-public class TransformBackedProvider<OUT, IN> extends AbstractMinimalProvider<OUT> {
+public class TransformBackedProvider<OUT, IN> extends AbstractMemoizingProvider<OUT> {
     private final Transformer<? extends OUT, ? super IN> transformer;
     private final ProviderInternal<? extends IN> provider;
 
@@ -59,7 +59,13 @@ public ExecutionTimeValue<? extends OUT> calculateExecutionTimeValue() {
     }
 
     @Override
-    protected Value<? extends OUT> calculateOwnValue(ValueConsumer consumer) {
+    public long getValueVersion() {
+        return provider.getValueVersion();
+    }
+
+    @Override
+    protected Value<? extends OUT> calculateFreshValue(ValueConsumer consumer) {
+        // The upstream value is only tracked when it is not produced by a task, so it is enough to check this when calculating the value
         beforeRead();
         Value<? extends IN> value = provider.calculateValue(consumer);
         return mapValue(value);
@@ -36,6 +36,16 @@ public interface ValueSupplier {
 
     boolean calculatePresence(ValueConsumer consumer);
 
+    /**
+     * Returns a version for the value of this supplier, which changes whenever the value may have changed. Does not calculate the value.
+     *
+     * <p>Returns {@link MemoizedValue#UNTRACKED} when changes to the value are not tracked, for example because the value is calculated each time it is queried,
+     * or because querying the value has side effects.</p>
+     */
+    default long getValueVersion() {
+        return MemoizedValue.UNTRACKED;
+    }
+
     enum ValueConsumer {
         DisallowUnsafeRead, IgnoreUnsafeRead
     }
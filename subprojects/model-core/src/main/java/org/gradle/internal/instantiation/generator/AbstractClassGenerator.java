@@ -457,10 +457,14 @@ public Object newInstance(ServiceLookup services, InstanceGenerator nested) thro
         private class GeneratedConstructorImpl implements GeneratedConstructor<Object> {
             private final Constructor<?> constructor;
             private final InstantiationStrategy strategy;
+            // Constructor returns a copy of these on each call
+            private final Class<?>[] parameterTypes;
+            private volatile Type[] genericParameterTypes;
 
             public GeneratedConstructorImpl(Constructor<?> constructor) {
                 this.constructor = constructor;
                 this.strategy = createUsingConstructor(constructor);
+                this.parameterTypes = constructor.getParameterTypes();
             }
 
             @Override
@@ -470,7 +474,7 @@ public Object newInstance(ServiceLookup services, InstanceGenerator nested, @Nul
 
             @Override
             public boolean requiresService(Class<?> serviceType) {
-                for (Class<?> parameterType : constructor.getParameterTypes()) {
+                for (Class<?> parameterType : parameterTypes) {
                     if (parameterType.isAssignableFrom(serviceType)) {
                         return true;
                     }
@@ -490,12 +494,16 @@ public boolean serviceInjectionTriggeredByAnnotation(Class<? extends Annotation>
 
             @Override
             public Class<?>[] getParameterTypes() {
-                return constructor.getParameterTypes();
+                return parameterTypes;
             }
 
             @Override
             public Type[] getGenericParameterTypes() {
-                return constructor.getGenericParameterTypes();
+                // Resolved on first use, as only some constructors have services injected
+                if (genericParameterTypes == null) {
+                    genericParameterTypes = constructor.getGenericParameterTypes();
+                }
+                return genericParameterTypes;
             }
 
             @Nullable
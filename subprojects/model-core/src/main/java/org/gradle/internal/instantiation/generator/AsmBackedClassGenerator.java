@@ -41,6 +41,7 @@
 import org.gradle.internal.DisplayName;
 import org.gradle.internal.Pair;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
 import org.gradle.internal.extensibility.ConventionAwareHelper;
 import org.gradle.internal.instantiation.ClassGenerationException;
 import org.gradle.internal.instantiation.InjectAnnotationHandler;
@@ -133,6 +134,7 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
     private final boolean decorate;
     private final String suffix;
     private final int factoryId;
+    private final GeneratedClassBytecodeStore bytecodeStore;
 
     private static final String GET_DISPLAY_NAME_FOR_NEXT_METHOD_NAME = "getDisplayNameForNext";
 
@@ -169,21 +171,36 @@ private AsmBackedClassGenerator(boolean decorate, String suffix,
                                     Collection<Class<? extends Annotation>> enabledInjectAnnotations,
                                     PropertyRoleAnnotationHandler roleHandler,
                                     CrossBuildInMemoryCache<Class<?>, GeneratedClassImpl> generatedClasses,
-                                    int factoryId) {
+                                    int factoryId,
+                                    @Nullable GeneratedClassBytecodeStore bytecodeStore) {
         super(allKnownAnnotations, enabledInjectAnnotations, roleHandler, generatedClasses);
         this.decorate = decorate;
         this.suffix = suffix;
         this.factoryId = factoryId;
+        this.bytecodeStore = bytecodeStore;
     }
 
     /**
      * Returns a generator that applies DSL mix-in, extensibility and service injection for generated classes.
      */
-    static ClassGenerator decorateAndInject(Collection<? extends InjectAnnotationHandler> allKnownAnnotations,
+    static AsmBackedClassGenerator decorateAndInject(Collection<? extends InjectAnnotationHandler> allKnownAnnotations,
                                             PropertyRoleAnnotationHandler roleHandler,
                                             Collection<Class<? extends Annotation>> enabledInjectAnnotations,
                                             CrossBuildInMemoryCacheFactory cacheFactory,
                                             int factoryId) {
+        return decorateAndInject(allKnownAnnotations, roleHandler, enabledInjectAnnotations, cacheFactory, factoryId, null);
+    }
+
+    /**
+     * Returns a generator that applies DSL mix-in, extensibility and service injection for generated classes, and reuses the classes generated by other
+     * processes from the given store. The generated class names must be stable across processes.
+     */
+    static AsmBackedClassGenerator decorateAndInject(Collection<? extends InjectAnnotationHandler> allKnownAnnotations,
+                                            PropertyRoleAnnotationHandler roleHandler,
+                                            Collection<Class<? extends Annotation>> enabledInjectAnnotations,
+                                            CrossBuildInMemoryCacheFactory cacheFactory,
+                                            int factoryId,
+                                            @Nullable GeneratedClassBytecodeStore bytecodeStore) {
         String suffix;
         CrossBuildInMemoryCache<Class<?>, GeneratedClassImpl> generatedClasses;
         if (enabledInjectAnnotations.isEmpty()) {
@@ -204,7 +221,9 @@ static ClassGenerator decorateAndInject(Collection<? extends InjectAnnotationHan
             generatedClasses = cacheFactory.newClassMap();
         }
 
-        return new AsmBackedClassGenerator(true, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler, generatedClasses, factoryId);
+        // Only the shared suffix produces class names that are stable across processes
+        GeneratedClassBytecodeStore store = enabledInjectAnnotations.isEmpty() ? bytecodeStore : null;
+        return new AsmBackedClassGenerator(true, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler, generatedClasses, factoryId, store);
     }
 
     /**
@@ -218,7 +237,7 @@ static ClassGenerator injectOnly(Collection<? extends InjectAnnotationHandler> a
         // TODO - the suffix should be a deterministic function of the known and enabled annotations
         // For now, just assign using a counter
         String suffix = ClassGeneratorSuffixRegistry.assign("$Inject");
-        return new AsmBackedClassGenerator(false, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler, cacheFactory.newClassMap(), factoryId);
+        return new AsmBackedClassGenerator(false, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler, cacheFactory.newClassMap(), factoryId, null);
     }
 
     @Override
@@ -249,7 +268,7 @@ protected ClassInspectionVisitor start(Class<?> type) {
             formatter.append(" is not a class or interface.");
             throw new ClassGenerationException(formatter.toString());
         }
-        return new ClassInspectionVisitorImpl(type, decorate, suffix, factoryId);
+        return new ClassInspectionVisitorImpl(type, decorate, suffix, factoryId, bytecodeStore);
     }
 
     private static class ClassInspectionVisitorImpl implements ClassInspectionVisitor {
@@ -257,6 +276,7 @@ private static class ClassInspectionVisitorImpl implements ClassInspectionVisito
         private final boolean decorate;
         private final String suffix;
         private final int factoryId;
+        private final GeneratedClassBytecodeStore bytecodeStore;
         private boolean extensible;
         private boolean serviceInjection;
         private boolean conventionAware;
@@ -267,11 +287,12 @@ private static class ClassInspectionVisitorImpl implements ClassInspectionVisito
         private boolean requiresFactory;
         private final List<Pair<PropertyMetadata, Boolean>> propertiesToAttach = new ArrayList<>();
 
-        public ClassInspectionVisitorImpl(Class<?> type, boolean decorate, String suffix, int factoryId) {
+        public ClassInspectionVisitorImpl(Class<?> type, boolean decorate, String suffix, int factoryId, @Nullable GeneratedClassBytecodeStore bytecodeStore) {
             this.type = type;
             this.decorate = decorate;
             this.suffix = suffix;
             this.factoryId = factoryId;
+            this.bytecodeStore = bytecodeStore;
         }
 
         @Override
@@ -346,9 +367,16 @@ public ClassGenerationVisitor builder() {
                 formatter.append(" is final.");
                 throw new ClassGenerationException(formatter.toString());
             }
+            if (bytecodeStore != null) {
+                String generatedClassName = type.getName() + suffix;
+                byte[] bytecode = bytecodeStore.load(type, generatedClassName);
+                if (bytecode != null) {
+                    return new PreviouslyGeneratedBuilder(type, generatedClassName, bytecode, managed, factoryId);
+                }
+            }
             boolean requiresServicesMethod = (extensible || serviceInjection) && !providesOwnServicesImplementation;
             boolean requiresToString = !providesOwnToStringImplementation;
-            ClassBuilderImpl builder = new ClassBuilderImpl(type, decorate, suffix, factoryId, extensible, conventionAware, managed, providesOwnDynamicObjectImplementation, requiresToString, requiresServicesMethod, requiresFactory, propertiesToAttach);
+            ClassBuilderImpl builder = new ClassBuilderImpl(type, decorate, suffix, factoryId, extensible, conventionAware, managed, providesOwnDynamicObjectImplementation, requiresToString, requiresServicesMethod, requiresFactory, propertiesToAttach, bytecodeStore);
             builder.startClass();
             return builder;
         }
@@ -464,6 +492,7 @@ private static class ClassBuilderImpl implements ClassGenerationVisitor {
         private final List<Pair<PropertyMetadata, Boolean>> propertiesToAttach;
         private final boolean requiresServicesMethod;
         private final boolean requiresFactory;
+        private final GeneratedClassBytecodeStore bytecodeStore;
 
         private ClassBuilderImpl(
             Class<?> type,
@@ -477,7 +506,8 @@ private ClassBuilderImpl(
             boolean requiresToString,
             boolean requiresServicesMethod,
             boolean requiresFactory,
-            List<Pair<PropertyMetadata, Boolean>> propertiesToAttach
+            List<Pair<PropertyMetadata, Boolean>> propertiesToAttach,
+            @Nullable GeneratedClassBytecodeStore bytecodeStore
         ) {
             this.type = type;
             this.factoryId = factoryId;
@@ -494,6 +524,7 @@ private ClassBuilderImpl(
             this.providesOwnDynamicObject = providesOwnDynamicObject;
             this.requiresServicesMethod = requiresServicesMethod;
             this.requiresFactory = requiresFactory;
+            this.bytecodeStore = bytecodeStore;
         }
 
         public void startClass() {
@@ -1746,7 +1777,7 @@ private Object getAnnotationParameterValue(Annotation annotation, Method method)
             }
         }
 
-        private void attachFactoryIdToImplType(Class<?> implClass, int id) {
+        private static void attachFactoryIdToImplType(Class<?> implClass, int id) {
             try {
                 Field factoryField = implClass.getDeclaredField(FACTORY_ID_FIELD);
                 factoryField.setAccessible(true);
@@ -1761,12 +1792,17 @@ public Class<?> generate() {
             writeGenericReturnTypeFields();
             visitor.visitEnd();
 
-            Class<?> generatedClass = classGenerator.define();
+            byte[] bytecode = visitor.toByteArray();
+            Class<?> generatedClass = ClassLoaderUtils.defineDecorator(type, type.getClassLoader(), classGenerator.getGeneratedTypeName(), bytecode);
 
             if (managed) {
                 attachFactoryIdToImplType(generatedClass, factoryId);
             }
 
+            if (bytecodeStore != null) {
+                bytecodeStore.store(type, classGenerator.getGeneratedTypeName(), bytecode);
+            }
+
             return generatedClass;
         }
 
@@ -1952,6 +1988,35 @@ public Class<?> generate() {
         }
     }
 
+    /**
+     * Defines a class generated by a previous process, instead of generating it again.
+     */
+    private static class PreviouslyGeneratedBuilder extends NoOpBuilder {
+        private final Class<?> type;
+        private final String generatedClassName;
+        private final byte[] bytecode;
+        private final boolean managed;
+        private final int factoryId;
+
+        public PreviouslyGeneratedBuilder(Class<?> type, String generatedClassName, byte[] bytecode, boolean managed, int factoryId) {
+            super(type);
+            this.type = type;
+            this.generatedClassName = generatedClassName;
+            this.bytecode = bytecode;
+            this.managed = managed;
+            this.factoryId = factoryId;
+        }
+
+        @Override
+        public Class<?> generate() {
+            Class<?> generatedClass = ClassLoaderUtils.defineDecorator(type, type.getClassLoader(), generatedClassName, bytecode);
+            if (managed) {
+                ClassBuilderImpl.attachFactoryIdToImplType(generatedClass, factoryId);
+            }
+            return generatedClass;
+        }
+    }
+
     private static class InvokeConstructorStrategy implements InstantiationStrategy {
         private final Constructor<?> constructor;
         private final PropertyRoleAnnotationHandler roleHandler;
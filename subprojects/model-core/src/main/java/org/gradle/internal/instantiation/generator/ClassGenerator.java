@@ -74,8 +74,14 @@ interface ClassGenerator {
          */
         boolean serviceInjectionTriggeredByAnnotation(Class<? extends Annotation> serviceAnnotation);
 
+        /**
+         * Returns the parameter types of this constructor. The returned array is shared and must not be modified.
+         */
         Class<?>[] getParameterTypes();
 
+        /**
+         * Returns the generic parameter types of this constructor. The returned array is shared and must not be modified.
+         */
         Type[] getGenericParameterTypes();
 
         @Nullable
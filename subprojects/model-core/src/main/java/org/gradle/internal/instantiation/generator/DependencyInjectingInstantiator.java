@@ -16,6 +16,9 @@
 
 package org.gradle.internal.instantiation.generator;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import org.gradle.api.Describable;
 import org.gradle.api.reflect.ObjectInstantiationException;
 import org.gradle.internal.instantiation.InstanceFactory;
@@ -31,14 +34,26 @@
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * An {@link Instantiator} that applies dependency injection, delegating to a {@link ConstructorSelector} to decide which constructor to use to create instances.
+ *
+ * <p>The services injected into the parameters of each constructor are looked up once and then reused for each instance created with the same services.</p>
  */
 class DependencyInjectingInstantiator implements InstanceGenerator {
     private static final DefaultServiceRegistry NO_SERVICES = new DefaultServiceRegistry();
     private final ServiceLookup services;
     private final ConstructorSelector constructorSelector;
+    // Weak keys, so that the bindings do not keep generated constructors, and so their classes, alive when this instantiator is long lived
+    private final LoadingCache<ClassGenerator.GeneratedConstructor<?>, ServiceBinding> serviceBindings = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(new CacheLoader<ClassGenerator.GeneratedConstructor<?>, ServiceBinding>() {
+            @Override
+            public ServiceBinding load(ClassGenerator.GeneratedConstructor<?> constructor) {
+                return new ServiceBinding(services, constructor);
+            }
+        });
 
     public DependencyInjectingInstantiator(ConstructorSelector constructorSelector, ServiceLookup services) {
         this.services = services;
@@ -59,7 +74,7 @@ public <T> T newInstance(Class<? extends T> type, Object... parameters) {
     private <T> T doCreate(Class<? extends T> type, @Nullable Describable displayName, Object[] parameters) {
         try {
             ClassGenerator.GeneratedConstructor<? extends T> constructor = constructorSelector.forParams(type, parameters);
-            Object[] resolvedParameters = convertParameters(type, constructor, services, parameters);
+            Object[] resolvedParameters = convertParameters(type, constructor, serviceBindingFor(constructor), parameters);
             try {
                 return constructor.newInstance(services, this, displayName, resolvedParameters);
             } catch (InvocationTargetException e) {
@@ -70,9 +85,16 @@ private <T> T doCreate(Class<? extends T> type, @Nullable Describable displayNam
         }
     }
 
+    private ServiceBinding serviceBindingFor(ClassGenerator.GeneratedConstructor<?> constructor) {
+        return serviceBindings.getUnchecked(constructor);
+    }
+
     public <T> InstanceFactory<T> factoryFor(final Class<T> type) {
         final ClassGenerator.GeneratedConstructor<? extends T> constructor = constructorSelector.forType(type);
         return new InstanceFactory<T>() {
+            // The services of the most recent call, as a factory is usually used with the same services each time
+            private volatile ServiceBinding serviceBinding;
+
             @Override
             public boolean serviceInjectionTriggeredByAnnotation(Class<? extends Annotation> injectAnnotation) {
                 return constructor.serviceInjectionTriggeredByAnnotation(injectAnnotation);
@@ -86,7 +108,12 @@ public boolean requiresService(Class<?> serviceType) {
             @Override
             public T newInstance(ServiceLookup services, Object... parameters) {
                 try {
-                    Object[] resolvedParameters = convertParameters(type, constructor, services, parameters);
+                    ServiceBinding binding = serviceBinding;
+                    if (binding == null || binding.services != services) {
+                        binding = new ServiceBinding(services, constructor);
+                        serviceBinding = binding;
+                    }
+                    Object[] resolvedParameters = convertParameters(type, constructor, binding, parameters);
                     try {
                         return constructor.newInstance(services, DependencyInjectingInstantiator.this, null, resolvedParameters);
                     } catch (InvocationTargetException e) {
@@ -104,7 +131,7 @@ public T newInstance(Object... params) {
         };
     }
 
-    private Object[] convertParameters(Class<?> type, ClassGenerator.GeneratedConstructor<?> constructor, ServiceLookup services, Object[] parameters) {
+    private Object[] convertParameters(Class<?> type, ClassGenerator.GeneratedConstructor<?> constructor, ServiceBinding services, Object[] parameters) {
         constructorSelector.vetoParameters(constructor, parameters);
         Class<?>[] parameterTypes = constructor.getParameterTypes();
         if (parameterTypes.length < parameters.length) {
@@ -157,7 +184,7 @@ private void nullPrimitiveType(int index, Class<?> paramType) {
         throw new IllegalArgumentException(formatter.toString());
     }
 
-    private Object[] addServicesToParameters(Class<?> type, ClassGenerator.GeneratedConstructor<?> constructor, ServiceLookup services, Object[] parameters) {
+    private Object[] addServicesToParameters(Class<?> type, ClassGenerator.GeneratedConstructor<?> constructor, ServiceBinding services, Object[] parameters) {
         Class<?>[] parameterTypes = constructor.getParameterTypes();
         Type[] genericTypes = constructor.getGenericParameterTypes();
         Object[] resolvedParameters = new Object[parameterTypes.length];
@@ -179,7 +206,7 @@ private Object[] addServicesToParameters(Class<?> type, ClassGenerator.Generated
                     continue;
                 }
             }
-            Object service = services.find(serviceType);
+            Object service = services.find(i, serviceType);
             if (service != null) {
                 resolvedParameters[i] = service;
                 continue;
@@ -210,4 +237,30 @@ private Object[] addServicesToParameters(Class<?> type, ClassGenerator.Generated
 
         return resolvedParameters;
     }
+
+    /**
+     * The services to inject into the parameters of a constructor, looked up from a particular set of services.
+     */
+    private static class ServiceBinding {
+        private final ServiceLookup services;
+        private final AtomicReferenceArray<Object> servicesByParameter;
+
+        ServiceBinding(ServiceLookup services, ClassGenerator.GeneratedConstructor<?> constructor) {
+            this.services = services;
+            this.servicesByParameter = new AtomicReferenceArray<Object>(constructor.getParameterTypes().length);
+        }
+
+        @Nullable
+        Object find(int parameterIndex, Type serviceType) {
+            Object service = servicesByParameter.get(parameterIndex);
+            if (service == null) {
+                service = services.find(serviceType);
+                // A service that is not found is looked up again next time, as it may be registered later
+                if (service != null) {
+                    servicesByParameter.set(parameterIndex, service);
+                }
+            }
+            return service;
+        }
+    }
 }
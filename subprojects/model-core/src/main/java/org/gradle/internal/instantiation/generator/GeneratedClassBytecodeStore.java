@@ -0,0 +1,32 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.instantiation.generator;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the bytecode of generated classes beyond the lifetime of the current process, so that another process does not have to generate them again.
+ */
+public interface GeneratedClassBytecodeStore {
+    /**
+     * Returns the bytecode previously stored for the given generated class, or null when there is none or when it may be out of date.
+     */
+    @Nullable
+    byte[] load(Class<?> type, String generatedClassName);
+
+    void store(Class<?> type, String generatedClassName, byte[] bytecode);
+}
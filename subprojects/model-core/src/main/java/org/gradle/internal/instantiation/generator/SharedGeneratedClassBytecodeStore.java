@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.instantiation.generator;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A process wide {@link GeneratedClassBytecodeStore} that delegates to the stores of the Gradle user homes currently in use.
+ * Bytecode is loaded from the first store that has it and written to all of them.
+ */
+public class SharedGeneratedClassBytecodeStore implements GeneratedClassBytecodeStore {
+    private final List<GeneratedClassBytecodeStore> stores = new CopyOnWriteArrayList<>();
+
+    public void add(GeneratedClassBytecodeStore store) {
+        stores.add(store);
+    }
+
+    public void remove(GeneratedClassBytecodeStore store) {
+        stores.remove(store);
+    }
+
+    @Nullable
+    @Override
+    public byte[] load(Class<?> type, String generatedClassName) {
+        for (GeneratedClassBytecodeStore store : stores) {
+            byte[] bytecode = store.load(type, generatedClassName);
+            if (bytecode != null) {
+                return bytecode;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void store(Class<?> type, String generatedClassName, byte[] bytecode) {
+        for (GeneratedClassBytecodeStore store : stores) {
+            store.store(type, generatedClassName, bytecode);
+        }
+    }
+}
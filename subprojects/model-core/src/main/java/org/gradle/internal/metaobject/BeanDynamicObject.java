@@ -33,13 +33,10 @@
 import org.gradle.api.internal.coerce.PropertySetTransformer;
 import org.gradle.api.internal.coerce.StringToEnumTransformer;
 import org.gradle.internal.Cast;
-import org.gradle.internal.UncheckedException;
 import org.gradle.internal.reflect.JavaPropertyReflectionUtil;
 import org.gradle.internal.state.ModelObject;
 
 import javax.annotation.Nullable;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.Collections;
@@ -55,10 +52,6 @@
  * coercion and error reporting. Enjoy.
  */
 public class BeanDynamicObject extends AbstractDynamicObject {
-    private static final Method META_PROP_METHOD;
-    private static final Field MISSING_PROPERTY_GET_METHOD;
-    private static final Field MISSING_PROPERTY_SET_METHOD;
-    private static final Field MISSING_METHOD_METHOD;
     private final Object bean;
     private final boolean includeProperties;
     private final MetaClassAdapter delegate;
@@ -72,21 +65,6 @@ public class BeanDynamicObject extends AbstractDynamicObject {
     private BeanDynamicObject withNoProperties;
     private BeanDynamicObject withNoImplementsMissing;
 
-    static {
-        try {
-            META_PROP_METHOD = MetaClassImpl.class.getDeclaredMethod("getMetaProperty", String.class, boolean.class);
-            META_PROP_METHOD.setAccessible(true);
-            MISSING_PROPERTY_GET_METHOD = MetaClassImpl.class.getDeclaredField("propertyMissingGet");
-            MISSING_PROPERTY_GET_METHOD.setAccessible(true);
-            MISSING_PROPERTY_SET_METHOD = MetaClassImpl.class.getDeclaredField("propertyMissingSet");
-            MISSING_PROPERTY_SET_METHOD.setAccessible(true);
-            MISSING_METHOD_METHOD = MetaClassImpl.class.getDeclaredField("methodMissing");
-            MISSING_METHOD_METHOD.setAccessible(true);
-        } catch (Exception e) {
-            throw UncheckedException.throwAsUncheckedException(e);
-        }
-    }
-
     public BeanDynamicObject(Object bean) {
         this(bean, null, true, true, StringToEnumTransformer.INSTANCE, StringToEnumTransformer.INSTANCE);
     }
@@ -272,12 +250,7 @@ protected DynamicInvokeResult getOpaqueProperty(String name) {
         @Nullable
         private MetaMethod findGetPropertyMissingMethod(MetaClass metaClass) {
             if (metaClass instanceof MetaClassImpl) {
-                // Reach into meta class to avoid lookup
-                try {
-                    return (MetaMethod) MISSING_PROPERTY_GET_METHOD.get(metaClass);
-                } catch (IllegalAccessException e) {
-                    throw UncheckedException.throwAsUncheckedException(e);
-                }
+                return MetaClassLookupCache.findGetPropertyMissingMethod((MetaClassImpl) metaClass);
             }
 
             // Query the declared methods of the meta class
@@ -292,12 +265,7 @@ private MetaMethod findGetPropertyMissingMethod(MetaClass metaClass) {
         @Nullable
         private MetaMethod findSetPropertyMissingMethod(MetaClass metaClass) {
             if (metaClass instanceof MetaClassImpl) {
-                // Reach into meta class to avoid lookup
-                try {
-                    return (MetaMethod) MISSING_PROPERTY_SET_METHOD.get(metaClass);
-                } catch (IllegalAccessException e) {
-                    throw UncheckedException.throwAsUncheckedException(e);
-                }
+                return MetaClassLookupCache.findSetPropertyMissingMethod((MetaClassImpl) metaClass);
             }
 
             // Query the declared methods of the meta class
@@ -312,12 +280,7 @@ private MetaMethod findSetPropertyMissingMethod(MetaClass metaClass) {
         @Nullable
         private MetaMethod findMethodMissingMethod(MetaClass metaClass) {
             if (metaClass instanceof MetaClassImpl) {
-                // Reach into meta class to avoid lookup
-                try {
-                    return (MetaMethod) MISSING_METHOD_METHOD.get(metaClass);
-                } catch (IllegalAccessException e) {
-                    throw UncheckedException.throwAsUncheckedException(e);
-                }
+                return MetaClassLookupCache.findMethodMissingMethod((MetaClassImpl) metaClass);
             }
 
             // Query the declared methods of the meta class
@@ -329,24 +292,9 @@ private MetaMethod findMethodMissingMethod(MetaClass metaClass) {
             return null;
         }
 
-        /*
-         * MetaClass.getMetaProperty(name) is very expensive when the property is not known.
-         * Instead, we reach into the meta class to call a much more efficient lookup method.
-         * Since we do this in a hot code path, we also reuse the argument array used for the
-         * reflective call to save memory.
-         */
         @Nullable
         protected MetaProperty lookupProperty(MetaClass metaClass, String name) {
-            if (metaClass instanceof MetaClassImpl) {
-                try {
-                    return (MetaProperty) META_PROP_METHOD.invoke(metaClass, name, false);
-                } catch (Throwable e) {
-                    throw UncheckedException.throwAsUncheckedException(e);
-                }
-            }
-
-            // Some other meta-class implementation - fall back to the public API
-            return metaClass.getMetaProperty(name);
+            return MetaClassLookupCache.lookupProperty(metaClass, name);
         }
 
         public DynamicInvokeResult setProperty(final String name, Object value) {
@@ -513,7 +461,7 @@ public DynamicInvokeResult invokeMethod(String name, Object... arguments) {
 
         @Nullable
         protected MetaMethod lookupMethod(MetaClass metaClass, String name, Class[] arguments) {
-            return metaClass.pickMethod(name, arguments);
+            return MetaClassLookupCache.lookupMethod(metaClass, name, arguments);
         }
 
         protected DynamicInvokeResult invokeOpaqueMethod(MetaClass metaClass, String name, Object[] arguments) {
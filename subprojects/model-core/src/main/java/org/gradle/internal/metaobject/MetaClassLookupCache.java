@@ -0,0 +1,325 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.metaobject;
+
+import com.google.common.annotations.VisibleForTesting;
+import groovy.lang.MetaClass;
+import groovy.lang.MetaClassImpl;
+import groovy.lang.MetaMethod;
+import groovy.lang.MetaProperty;
+import org.gradle.internal.UncheckedException;
+
+import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Looks up properties and methods on a meta-class for {@link BeanDynamicObject}, and caches the results, including the names that are not found.
+ *
+ * <p>The results are cached per type, together with the meta-class instance they were looked up on. Using a different meta-class for the type, for example
+ * because the meta-class has been replaced in the registry or because an object has its own meta-class, discards the cached results. Only plain
+ * {@link MetaClassImpl} instances are cached, as their properties and methods cannot change once they are initialized. Other meta-classes, such as
+ * {@link groovy.lang.ExpandoMetaClass}, are queried on each lookup.</p>
+ *
+ * <p>The cached results for a type are discarded along with the type. At most {@link #MAX_CACHED_LOOKUPS} property names and method signatures are
+ * cached per type, so that looking up many different names, most of which are usually not found, cannot grow the cache without bound. Lookups beyond
+ * that are not cached. The argument types of cached method signatures are only weakly referenced, so that the cache does not keep the class loaders
+ * of the arguments alive, for example those of build script closures passed to a method of a type loaded by Gradle.</p>
+ */
+class MetaClassLookupCache {
+    private static final Method META_PROP_METHOD;
+    private static final Field MISSING_PROPERTY_GET_METHOD;
+    private static final Field MISSING_PROPERTY_SET_METHOD;
+    private static final Field MISSING_METHOD_METHOD;
+    @VisibleForTesting
+    static final int MAX_CACHED_LOOKUPS = 1000;
+    private static final Object NOT_FOUND = new Object();
+    private static final ClassValue<CacheHolder> CACHES = new ClassValue<CacheHolder>() {
+        @Override
+        protected CacheHolder computeValue(Class<?> type) {
+            return new CacheHolder();
+        }
+    };
+
+    static {
+        try {
+            META_PROP_METHOD = MetaClassImpl.class.getDeclaredMethod("getMetaProperty", String.class, boolean.class);
+            META_PROP_METHOD.setAccessible(true);
+            MISSING_PROPERTY_GET_METHOD = MetaClassImpl.class.getDeclaredField("propertyMissingGet");
+            MISSING_PROPERTY_GET_METHOD.setAccessible(true);
+            MISSING_PROPERTY_SET_METHOD = MetaClassImpl.class.getDeclaredField("propertyMissingSet");
+            MISSING_PROPERTY_SET_METHOD.setAccessible(true);
+            MISSING_METHOD_METHOD = MetaClassImpl.class.getDeclaredField("methodMissing");
+            MISSING_METHOD_METHOD.setAccessible(true);
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private final MetaClassImpl metaClass;
+    private final MetaMethod propertyMissingGet;
+    private final MetaMethod propertyMissingSet;
+    private final MetaMethod methodMissing;
+    private final ConcurrentMap<String, Object> properties = new ConcurrentHashMap<String, Object>();
+    private final ConcurrentMap<MethodSignature, Object> methods = new ConcurrentHashMap<MethodSignature, Object>();
+
+    private MetaClassLookupCache(MetaClassImpl metaClass) {
+        this.metaClass = metaClass;
+        this.propertyMissingGet = readMetaMethod(MISSING_PROPERTY_GET_METHOD, metaClass);
+        this.propertyMissingSet = readMetaMethod(MISSING_PROPERTY_SET_METHOD, metaClass);
+        this.methodMissing = readMetaMethod(MISSING_METHOD_METHOD, metaClass);
+    }
+
+    @Nullable
+    private static MetaClassLookupCache forMetaClass(MetaClass metaClass) {
+        if (metaClass.getClass() != MetaClassImpl.class) {
+            return null;
+        }
+        CacheHolder holder = CACHES.get(metaClass.getTheClass());
+        MetaClassLookupCache cache = holder.cache;
+        if (cache == null || cache.metaClass != metaClass) {
+            cache = new MetaClassLookupCache((MetaClassImpl) metaClass);
+            holder.cache = cache;
+        }
+        return cache;
+    }
+
+    /*
+     * MetaClass.getMetaProperty(name) is very expensive when the property is not known.
+     * Instead, we reach into the meta class to call a much more efficient lookup method.
+     */
+    @Nullable
+    static MetaProperty lookupProperty(MetaClass metaClass, String name) {
+        MetaClassLookupCache cache = forMetaClass(metaClass);
+        if (cache != null) {
+            Object property = cache.properties.get(name);
+            if (property == null) {
+                property = lookupPropertyUncached(metaClass, name);
+                if (property == null) {
+                    property = NOT_FOUND;
+                }
+                if (cache.properties.size() < MAX_CACHED_LOOKUPS) {
+                    cache.properties.put(name, property);
+                }
+            }
+            return property == NOT_FOUND ? null : (MetaProperty) property;
+        }
+        return lookupPropertyUncached(metaClass, name);
+    }
+
+    @Nullable
+    private static MetaProperty lookupPropertyUncached(MetaClass metaClass, String name) {
+        if (metaClass instanceof MetaClassImpl) {
+            try {
+                return (MetaProperty) META_PROP_METHOD.invoke(metaClass, name, false);
+            } catch (Throwable e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        // Some other meta-class implementation - fall back to the public API
+        return metaClass.getMetaProperty(name);
+    }
+
+    @Nullable
+    static MetaMethod lookupMethod(MetaClass metaClass, String name, Class[] arguments) {
+        MetaClassLookupCache cache = forMetaClass(metaClass);
+        if (cache != null) {
+            Object method = cache.methods.get(new LookupMethodSignature(name, arguments));
+            if (method == null) {
+                method = metaClass.pickMethod(name, arguments);
+                if (method == null) {
+                    method = NOT_FOUND;
+                }
+                if (cache.methods.size() < MAX_CACHED_LOOKUPS) {
+                    cache.methods.put(new CachedMethodSignature(name, arguments), method);
+                }
+            }
+            return method == NOT_FOUND ? null : (MetaMethod) method;
+        }
+        return metaClass.pickMethod(name, arguments);
+    }
+
+    /**
+     * Returns the {@code propertyMissing(String)} method of the given meta-class, when it is a {@link MetaClassImpl}.
+     */
+    @Nullable
+    static MetaMethod findGetPropertyMissingMethod(MetaClassImpl metaClass) {
+        MetaClassLookupCache cache = forMetaClass(metaClass);
+        return cache != null ? cache.propertyMissingGet : readMetaMethod(MISSING_PROPERTY_GET_METHOD, metaClass);
+    }
+
+    /**
+     * Returns the {@code propertyMissing(String, Object)} method of the given meta-class, when it is a {@link MetaClassImpl}.
+     */
+    @Nullable
+    static MetaMethod findSetPropertyMissingMethod(MetaClassImpl metaClass) {
+        MetaClassLookupCache cache = forMetaClass(metaClass);
+        return cache != null ? cache.propertyMissingSet : readMetaMethod(MISSING_PROPERTY_SET_METHOD, metaClass);
+    }
+
+    /**
+     * Returns the {@code methodMissing(String, Object)} method of the given meta-class, when it is a {@link MetaClassImpl}.
+     */
+    @Nullable
+    static MetaMethod findMethodMissingMethod(MetaClassImpl metaClass) {
+        MetaClassLookupCache cache = forMetaClass(metaClass);
+        return cache != null ? cache.methodMissing : readMetaMethod(MISSING_METHOD_METHOD, metaClass);
+    }
+
+    /**
+     * Returns the number of property names and method signatures cached for the given meta-class.
+     */
+    @VisibleForTesting
+    static int cachedLookupCount(MetaClass metaClass) {
+        MetaClassLookupCache cache = forMetaClass(metaClass);
+        return cache == null ? 0 : cache.properties.size() + cache.methods.size();
+    }
+
+    @Nullable
+    private static MetaMethod readMetaMethod(Field field, MetaClassImpl metaClass) {
+        // Reach into meta class to avoid lookup
+        try {
+            return (MetaMethod) field.get(metaClass);
+        } catch (IllegalAccessException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static class CacheHolder {
+        volatile MetaClassLookupCache cache;
+    }
+
+    /**
+     * A method name and argument types, which are compared by identity. Null argument types stand for null arguments.
+     */
+    private static abstract class MethodSignature {
+        private final String name;
+        private final int hashCode;
+
+        MethodSignature(String name, Class<?>[] arguments) {
+            this.name = name;
+            int hashCode = name.hashCode();
+            for (Class<?> argument : arguments) {
+                hashCode = 31 * hashCode + System.identityHashCode(argument);
+            }
+            this.hashCode = hashCode;
+        }
+
+        abstract int getArgumentCount();
+
+        abstract boolean isNullArgument(int index);
+
+        @Nullable
+        abstract Class<?> getArgument(int index);
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MethodSignature)) {
+                return false;
+            }
+            MethodSignature other = (MethodSignature) obj;
+            if (hashCode != other.hashCode || !name.equals(other.name) || getArgumentCount() != other.getArgumentCount()) {
+                return false;
+            }
+            for (int i = 0; i < getArgumentCount(); i++) {
+                if (isNullArgument(i) != other.isNullArgument(i)) {
+                    return false;
+                }
+                if (!isNullArgument(i)) {
+                    // An argument type that has been collected is null here, and does not match anything
+                    Class<?> argument = getArgument(i);
+                    if (argument == null || argument != other.getArgument(i)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * The signature of a method call being looked up. Only used for the duration of the lookup.
+     */
+    private static class LookupMethodSignature extends MethodSignature {
+        private final Class<?>[] arguments;
+
+        LookupMethodSignature(String name, Class<?>[] arguments) {
+            super(name, arguments);
+            this.arguments = arguments;
+        }
+
+        @Override
+        int getArgumentCount() {
+            return arguments.length;
+        }
+
+        @Nullable
+        @Override
+        Class<?> getArgument(int index) {
+            return arguments[index];
+        }
+
+        @Override
+        boolean isNullArgument(int index) {
+            return arguments[index] == null;
+        }
+    }
+
+    /**
+     * The signature of a cached method lookup, which does not keep its argument types alive.
+     */
+    private static class CachedMethodSignature extends MethodSignature {
+        private final WeakReference<?>[] arguments;
+
+        CachedMethodSignature(String name, Class<?>[] arguments) {
+            super(name, arguments);
+            this.arguments = new WeakReference<?>[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                this.arguments[i] = arguments[i] == null ? null : new WeakReference<Class<?>>(arguments[i]);
+            }
+        }
+
+        @Override
+        int getArgumentCount() {
+            return arguments.length;
+        }
+
+        @Nullable
+        @Override
+        Class<?> getArgument(int index) {
+            WeakReference<?> argument = arguments[index];
+            return argument == null ? null : (Class<?>) argument.get();
+        }
+
+        @Override
+        boolean isNullArgument(int index) {
+            return arguments[index] == null;
+        }
+    }
+}
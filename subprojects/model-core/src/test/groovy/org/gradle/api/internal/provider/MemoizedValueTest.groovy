@@ -0,0 +1,233 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.provider
+
+import org.gradle.api.Transformer
+import spock.lang.Specification
+
+class MemoizedValueTest extends Specification {
+    boolean wasEnabled
+
+    def setup() {
+        wasEnabled = MemoizedValue.isEnabled()
+        MemoizedValue.setEnabled(true)
+    }
+
+    def cleanup() {
+        MemoizedValue.setEnabled(wasEnabled)
+    }
+
+    def "mapped value is calculated once while the upstream property is unchanged"() {
+        def transformer = Mock(Transformer)
+        def property = new DefaultProperty<String>(PropertyHost.NO_OP, String)
+        property.set("a")
+        def provider = property.map(transformer)
+
+        when:
+        def result1 = provider.get()
+        def result2 = provider.get()
+
+        then:
+        result1 == "A"
+        result2 == "A"
+        1 * transformer.transform("a") >> "A"
+        0 * _
+
+        when:
+        property.set("b")
+        def result3 = provider.get()
+        def result4 = provider.get()
+
+        then:
+        result3 == "B"
+        result4 == "B"
+        1 * transformer.transform("b") >> "B"
+        0 * _
+    }
+
+    def "mapped value is calculated each time when it can be changed by the caller"() {
+        def property = new DefaultProperty<String>(PropertyHost.NO_OP, String)
+        property.set("a")
+        def provider = property.map { [it] }
+
+        when:
+        def result1 = provider.get()
+        result1.add("b")
+        def result2 = provider.get()
+
+        then:
+        result1 == ["a", "b"]
+        result2 == ["a"]
+        !result2.is(result1)
+    }
+
+    def "zipped value is calculated each time when it can be changed by the caller"() {
+        def left = new DefaultProperty<String>(PropertyHost.NO_OP, String)
+        left.set("a")
+        def right = new DefaultProperty<String>(PropertyHost.NO_OP, String)
+        right.set("b")
+        def provider = left.zip(right) { a, b -> new StringBuilder(a).append(b) }
+
+        when:
+        def result1 = provider.get()
+        result1.append("c")
+        def result2 = provider.get()
+
+        then:
+        result1.toString() == "abc"
+        result2.toString() == "ab"
+    }
+
+    def "mapped value is recalculated when a property further upstream changes"() {
+        def transformer = Mock(Transformer)
+        def upstream = new DefaultProperty<String>(PropertyHost.NO_OP, String)
+        upstream.set("a")
+        def property = new DefaultProperty<String>(PropertyHost.NO_OP, String)
+        property.set(upstream.map { it + "1" })
+        def provider = property.map(transformer)
+
+        when:
+        provider.get()
+        provider.get()
+        upstream.set("b")
+        def result = provider.get()
+
+        then:
+        result == "B1"
+        1 * transformer.transform("a1") >> "A1"
+        1 * transformer.transform("b1") >> "B1"
+        0 * _
+    }
+
+    def "mapped value is calculated each time when the upstream value is not tracked"() {
+        def transformer = Mock(Transformer)
+        def provider = new DefaultProvider({ "a" }).map(transformer)
+
+        when:
+        provider.get()
+        provider.get()
+
+        then:
+        2 * transformer.transform("a") >> "A"
+    }
+
+    def "mapped value is reused once the property has been finalized on read"() {
+        def transformer = Mock(Transformer)
+        def property = new DefaultProperty<String>(PropertyHost.NO_OP, String)
+        property.set("a")
+        property.finalizeValueOnRead()
+        def provider = property.map(transformer)
+
+        when:
+        provider.get()
+
+        then:
+        1 * transformer.transform("a") >> "A"
+
+        when:
+        provider.get()
+        provider.get()
+
+        then:
+        // The property is finalized by the first read, so the value can be reused from the next read
+        1 * transformer.transform("a") >> "A"
+    }
+
+    def "collection property reuses collected value until it changes"() {
+        def element = new DefaultProperty<String>(PropertyHost.NO_OP, String)
+        element.set("b")
+        def property = new DefaultListProperty<String>(PropertyHost.NO_OP, String)
+        property.add("a")
+        property.add(element)
+
+        expect:
+        def value = property.get()
+        value == ["a", "b"]
+        property.get().is(value)
+
+        when:
+        element.set("c")
+
+        then:
+        property.get() == ["a", "c"]
+
+        when:
+        property.add("d")
+
+        then:
+        property.get() == ["a", "c", "d"]
+    }
+
+    def "map property reuses collected value until it changes"() {
+        def value = new DefaultProperty<String>(PropertyHost.NO_OP, String)
+        value.set("b")
+        def property = new DefaultMapProperty<String, String>(PropertyHost.NO_OP, String, String)
+        property.put("a", value)
+
+        expect:
+        def entries = property.get()
+        entries == [a: "b"]
+        property.get().is(entries)
+
+        when:
+        value.set("c")
+
+        then:
+        property.get() == [a: "c"]
+    }
+
+    def "collection property set from a collection is collected on each query"() {
+        def elements = ["a"]
+        def property = new DefaultListProperty<String>(PropertyHost.NO_OP, String)
+        property.set(elements)
+
+        expect:
+        property.get() == ["a"]
+
+        when:
+        elements.add("b")
+
+        then:
+        property.get() == ["a", "b"]
+    }
+
+    def "flat mapped provider is calculated once while the upstream property is unchanged"() {
+        def transformer = Mock(Transformer)
+        def property = new DefaultProperty<String>(PropertyHost.NO_OP, String)
+        property.set("a")
+        def provider = property.flatMap(transformer)
+
+        when:
+        def result1 = provider.get()
+        def result2 = provider.get()
+
+        then:
+        result1 == "A"
+        result2 == "A"
+        1 * transformer.transform("a") >> Providers.of("A")
+        0 * _
+
+        when:
+        property.set("b")
+        def result3 = provider.get()
+
+        then:
+        result3 == "B"
+        1 * transformer.transform("b") >> Providers.of("B")
+        0 * _
+    }
+}
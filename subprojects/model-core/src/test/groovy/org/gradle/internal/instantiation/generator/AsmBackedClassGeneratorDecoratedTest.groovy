@@ -487,6 +487,71 @@ class AsmBackedClassGeneratorDecoratedTest extends AbstractClassGeneratorSpec {
         doubleTester.value == 3.14d
         doubleTester.reference.is(reference)
     }
+
+    def "defines decorated class from bytecode stored by another generator"() {
+        def store = Mock(GeneratedClassBytecodeStore)
+        def generator1 = AsmBackedClassGenerator.decorateAndInject([], Stub(PropertyRoleAnnotationHandler), [], new TestCrossBuildInMemoryCacheFactory(), 0, store)
+        def generator2 = AsmBackedClassGenerator.decorateAndInject([], Stub(PropertyRoleAnnotationHandler), [], new TestCrossBuildInMemoryCacheFactory(), 0, store)
+        // Use a fresh copy of the type for each generator, as a new process would
+        def type1 = new BeanClassLoader().loadClass(Bean.name)
+        def type2 = new BeanClassLoader().loadClass(Bean.name)
+        def generatedClassName = Bean.name + "_Decorated"
+        byte[] bytecode = null
+
+        when:
+        create(generator1, type1)
+
+        then:
+        1 * store.load(type1, generatedClassName) >> null
+        1 * store.store(type1, generatedClassName, _) >> { args -> bytecode = args[2] }
+        0 * store._
+
+        when:
+        def bean = create(generator2, type2)
+
+        then:
+        1 * store.load(type2, generatedClassName) >> { bytecode }
+        0 * store._
+
+        and:
+        bean.getClass().name == generatedClassName
+        bean.getClass().classLoader.is(type2.classLoader)
+        type2.isInstance(bean)
+        bean instanceof ExtensionAware
+        bean instanceof IConventionAware
+
+        when:
+        bean.prop = "value"
+        bean.extensions.add("thing", "other")
+
+        then:
+        bean.prop == "value"
+        bean.thing == "other"
+    }
+
+    /**
+     * Defines its own copy of {@link Bean} and delegates everything else to the parent.
+     */
+    private static class BeanClassLoader extends ClassLoader {
+        BeanClassLoader() {
+            super(Bean.classLoader)
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name != Bean.name) {
+                return super.loadClass(name, resolve)
+            }
+            synchronized (getClassLoadingLock(name)) {
+                def type = findLoadedClass(name)
+                if (type == null) {
+                    def bytes = Bean.getResourceAsStream("/${name.replace('.', '/')}.class").bytes
+                    type = defineClass(name, bytes, 0, bytes.length)
+                }
+                return type
+            }
+        }
+    }
 }
 
 enum TestEnum {
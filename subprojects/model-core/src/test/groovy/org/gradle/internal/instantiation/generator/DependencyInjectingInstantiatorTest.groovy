@@ -57,6 +57,35 @@ class DependencyInjectingInstantiatorTest extends Specification {
         result.param2 == 12
     }
 
+    def "looks up each injected service once"() {
+        when:
+        def result1 = instantiator.newInstance(HasInjectConstructor, 12)
+        def result2 = instantiator.newInstance(HasInjectConstructor, 13)
+
+        then:
+        result1.param1 == "string"
+        result2.param1 == "string"
+        1 * services.find(String) >> "string"
+        0 * services._
+    }
+
+    def "factory looks up injected services again when used with different services"() {
+        def otherServices = Mock(ServiceLookup)
+        def factory = instantiator.factoryFor(HasInjectConstructor)
+
+        when:
+        def result1 = factory.newInstance(services, 12)
+        def result2 = factory.newInstance(services, 13)
+        def result3 = factory.newInstance(otherServices, 14)
+
+        then:
+        result1.param1 == "string"
+        result2.param1 == "string"
+        result3.param1 == "other"
+        1 * services.find(String) >> "string"
+        1 * otherServices.find(String) >> "other"
+    }
+
     def "unboxes primitive types"() {
         when:
         def result = instantiator.newInstance(AcceptsPrimitiveTypes, 12, true)
@@ -715,6 +715,34 @@ class BeanDynamicObjectTest extends Specification {
         e.message == "Could not find method unknown() for arguments [] on <bean> of type ${bean.getClass().name}."
     }
 
+    def "finds property and method added to the meta-class of an object after they were not found"() {
+        def bean = new Bean()
+        def dynamicObject = new BeanDynamicObject(bean)
+
+        expect:
+        dynamicObject.getProperty("prop") == null
+        !dynamicObject.hasProperty("added")
+        !dynamicObject.hasMethod("addedMethod", [] as Object[])
+
+        when:
+        def metaClass = new ExpandoMetaClass(Bean, false, true)
+        metaClass.getAdded = { -> "value" }
+        metaClass.addedMethod = { -> "result" }
+        metaClass.initialize()
+        bean.metaClass = metaClass
+
+        then:
+        dynamicObject.hasProperty("added")
+        dynamicObject.getProperty("added") == "value"
+        dynamicObject.invokeMethod("addedMethod", [] as Object[]) == "result"
+
+        and:
+        def other = new BeanDynamicObject(new Bean())
+        other.hasProperty("prop")
+        !other.hasProperty("added")
+        !other.hasMethod("addedMethod", [] as Object[])
+    }
+
     enum SomeEnum {
         A, B, C
     }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.metaobject
+
+import groovy.transform.CompileStatic
+import org.gradle.test.fixtures.ConcurrentTestUtil
+import spock.lang.Specification
+
+import java.lang.ref.WeakReference
+
+class MetaClassLookupCacheTest extends Specification {
+    def type = new GroovyClassLoader(getClass().classLoader).parseClass("""
+        class Target {
+            String prop
+            String accept(Object arg) { "accepted" }
+        }
+    """)
+    def metaClass = GroovySystem.metaClassRegistry.getMetaClass(type)
+
+    def "caches properties and methods that are found and not found"() {
+        expect:
+        MetaClassLookupCache.lookupProperty(metaClass, "prop") != null
+        MetaClassLookupCache.lookupProperty(metaClass, "unknown") == null
+        MetaClassLookupCache.lookupMethod(metaClass, "accept", [String] as Class[]) != null
+        MetaClassLookupCache.lookupMethod(metaClass, "unknown", [String] as Class[]) == null
+        MetaClassLookupCache.cachedLookupCount(metaClass) == 4
+    }
+
+    def "does not cache more than a limited number of lookups per type"() {
+        def max = MetaClassLookupCache.MAX_CACHED_LOOKUPS
+
+        when:
+        (max + 10).times {
+            MetaClassLookupCache.lookupProperty(metaClass, "unknown$it")
+        }
+
+        then:
+        MetaClassLookupCache.cachedLookupCount(metaClass) == max
+
+        and:
+        MetaClassLookupCache.lookupProperty(metaClass, "unknown${max + 5}") == null
+        MetaClassLookupCache.lookupProperty(metaClass, "prop") != null
+        MetaClassLookupCache.lookupMethod(metaClass, "accept", [String] as Class[]) != null
+        MetaClassLookupCache.cachedLookupCount(metaClass) == max
+    }
+
+    def "does not hold strong reference to argument types"() {
+        given:
+        def argumentType = lookUpWithArgumentFromOtherClassLoader(metaClass)
+
+        expect:
+        MetaClassLookupCache.cachedLookupCount(metaClass) == 1
+
+        and:
+        ConcurrentTestUtil.poll(10) {
+            System.gc()
+            assert argumentType.get() == null
+        }
+
+        and:
+        MetaClassLookupCache.lookupMethod(metaClass, "accept", [String] as Class[]) != null
+    }
+
+    @CompileStatic
+    // must be compile static to avoid call sites being created with soft class refs
+    private static WeakReference<Class<?>> lookUpWithArgumentFromOtherClassLoader(MetaClass metaClass) {
+        def classLoader = new GroovyClassLoader(MetaClassLookupCacheTest.classLoader)
+        Class<?> argumentType = classLoader.parseClass("class Argument { }")
+        assert MetaClassLookupCache.lookupMethod(metaClass, "accept", [argumentType] as Class[]) != null
+        classLoader.clearCache()
+        return new WeakReference<Class<?>>(argumentType)
+    }
+}
@@ -63,12 +63,21 @@ void onClose(Object cache) {
 
     @Override
     public PersistentCache open(File cacheDir, String displayName, Map<String, ?> properties, CacheBuilder.LockTarget lockTarget, LockOptions lockOptions, Action<? super PersistentCache> initializer, CleanupAction cleanup) throws CacheOpenException {
+        ReferenceTrackingCache cache;
         lock.lock();
         try {
-            return doOpen(cacheDir, displayName, properties, lockTarget, lockOptions, initializer, cleanup);
+            cache = doOpen(cacheDir, displayName, properties, lockTarget, lockOptions, initializer, cleanup);
         } finally {
             lock.unlock();
         }
+        // Open the cache, which may run a long initializer, without holding the lock, so that caches in other directories can be opened meanwhile
+        try {
+            cache.reference.openIfRequired();
+        } catch (RuntimeException e) {
+            cache.close();
+            throw e;
+        }
+        return cache;
     }
 
     @Override
@@ -82,7 +91,7 @@ public void close() {
         }
     }
 
-    private PersistentCache doOpen(File cacheDir, String displayName, Map<String, ?> properties, CacheBuilder.LockTarget lockTarget, LockOptions lockOptions, @Nullable Action<? super PersistentCache> initializer, @Nullable CleanupAction cleanup) {
+    private ReferenceTrackingCache doOpen(File cacheDir, String displayName, Map<String, ?> properties, CacheBuilder.LockTarget lockTarget, LockOptions lockOptions, @Nullable Action<? super PersistentCache> initializer, @Nullable CleanupAction cleanup) {
         File canonicalDir = FileUtils.canonicalize(cacheDir);
         DirCacheReference dirCacheReference = dirCaches.get(canonicalDir);
         if (dirCacheReference == null) {
@@ -92,7 +101,6 @@ private PersistentCache doOpen(File cacheDir, String displayName, Map<String, ?>
             } else {
                 cache = new DefaultPersistentDirectoryStore(canonicalDir, displayName, lockTarget, lockOptions, cleanup, lockManager, executorFactory, progressLoggerFactory);
             }
-            cache.open();
             dirCacheReference = new DirCacheReference(cache, properties, lockTarget, lockOptions);
             dirCaches.put(canonicalDir, dirCacheReference);
         } else {
@@ -115,12 +123,33 @@ private class DirCacheReference implements Closeable {
         private final LockOptions lockOptions;
         private final ReferencablePersistentCache cache;
         private final Set<ReferenceTrackingCache> references = new HashSet<>();
+        private boolean opened;
+        private RuntimeException failure;
 
         DirCacheReference(ReferencablePersistentCache cache, Map<String, ?> properties, CacheBuilder.LockTarget lockTarget, LockOptions lockOptions) {
             this.cache = cache;
             this.properties = properties;
             this.lockTarget = lockTarget;
             this.lockOptions = lockOptions;
+        }
+
+        /**
+         * Opens the cache the first time it is referenced. Other threads that reference the same cache wait until it is open.
+         */
+        public synchronized void openIfRequired() {
+            if (failure != null) {
+                throw failure;
+            }
+            if (opened) {
+                return;
+            }
+            try {
+                cache.open();
+            } catch (RuntimeException e) {
+                failure = e;
+                throw e;
+            }
+            opened = true;
             onOpen(cache);
         }
 
@@ -141,10 +170,15 @@ public void release(ReferenceTrackingCache cache) {
 
         @Override
         public void close() {
-            onClose(cache);
             dirCaches.values().remove(this);
             references.clear();
-            cache.close();
+            synchronized (this) {
+                if (opened) {
+                    opened = false;
+                    onClose(cache);
+                    cache.close();
+                }
+            }
         }
     }
 
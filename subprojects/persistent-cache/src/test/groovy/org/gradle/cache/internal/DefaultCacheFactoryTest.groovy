@@ -81,6 +81,27 @@ class DefaultCacheFactoryTest extends Specification {
         factory.close()
     }
 
+    void "can open other caches while a cache is being initialized"() {
+        def otherCacheOpened = false
+        def initializer = { cache ->
+            def thread = Thread.start {
+                factory.open(tmpDir.file("other"), null, [prop: 'value'], CacheBuilder.LockTarget.DefaultTarget, mode(Exclusive), null, null).close()
+                otherCacheOpened = true
+            }
+            thread.join(10000)
+        } as Action
+
+        when:
+        def cache = factory.open(tmpDir.file("initialized"), null, [prop: 'value'], CacheBuilder.LockTarget.DefaultTarget, mode(Exclusive), initializer, null)
+
+        then:
+        otherCacheOpened
+        cache.reference.cache instanceof DefaultPersistentDirectoryCache
+
+        cleanup:
+        factory.close()
+    }
+
     void "closes cache instance when factory is closed"() {
         def implementation
 
@@ -23,6 +23,7 @@ gradlebuildJava.usedInWorkers()
 
 dependencies {
     implementation(project(":base-services"))
+    implementation(project(":hashing"))
     implementation(project(":messaging"))
     implementation(project(":native"))
     implementation(project(":logging"))
@@ -25,7 +25,11 @@
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.LinkedHashMap;
@@ -110,6 +114,20 @@ public boolean apply(DelegateProvider delegateProvider) {
                 });
     }
 
+    @Nullable
+    @Override
+    public HashCode getOutputHash(long id) {
+        Hasher hasher = Hashing.newHasher();
+        for (DelegateProvider delegateProvider : classOutputProviders.get(id)) {
+            HashCode outputHash = delegateProvider.provider.getOutputHash(delegateProvider.id);
+            if (outputHash == null) {
+                return null;
+            }
+            hasher.putHash(outputHash);
+        }
+        return hasher.hash();
+    }
+
     @Override
     public void writeAllOutput(long id, TestOutputEvent.Destination destination, Writer writer) {
         for (DelegateProvider delegateProvider : classOutputProviders.get(id)) {
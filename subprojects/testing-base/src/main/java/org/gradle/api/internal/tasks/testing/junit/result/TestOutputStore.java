@@ -18,23 +18,31 @@
 
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.io.RandomAccessFileInputStream;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
+import javax.annotation.Nullable;
 import java.io.*;
 import java.nio.charset.Charset;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class TestOutputStore {
+    private static final HashCode NO_OUTPUT = Hashing.signature("no output");
 
     private final File resultsDir;
     private final Charset messageStorageCharset;
+    private Optional<Index> index;
 
     public TestOutputStore(File resultsDir) {
         this.resultsDir = resultsDir;
@@ -73,6 +81,7 @@ public class Writer implements Closeable {
         private final KryoBackedEncoder output;
 
         private final Map<Long, Map<Long, TestCaseRegion>> index = new LinkedHashMap<Long, Map<Long, TestCaseRegion>>();
+        private final Map<Long, Hasher> outputHashers = new HashMap<Long, Hasher>();
 
         public Writer() {
             try {
@@ -86,6 +95,7 @@ public Writer() {
         public void close() {
             output.close();
             writeIndex();
+            discardIndex();
         }
 
         public void onOutput(long classId, TestOutputEvent outputEvent) {
@@ -108,6 +118,16 @@ public void onOutput(long classId, long testId, TestOutputEvent outputEvent) {
             }
             output.writeSmallInt(bytes.length);
             output.writeBytes(bytes, 0, bytes.length);
+
+            Hasher hasher = outputHashers.get(classId);
+            if (hasher == null) {
+                hasher = Hashing.newHasher();
+                outputHashers.put(classId, hasher);
+            }
+            hasher.putBoolean(stdout);
+            hasher.putLong(testId);
+            hasher.putInt(bytes.length);
+            hasher.putBytes(bytes);
         }
 
         private void mark(long classId, long testId, boolean isStdout) {
@@ -160,6 +180,10 @@ private void writeIndex() {
                         indexOutput.writeLong(region.stdErrRegion.start);
                         indexOutput.writeLong(region.stdErrRegion.stop);
                     }
+
+                    byte[] outputHash = outputHashers.get(classId).hash().toByteArray();
+                    indexOutput.writeInt(outputHash.length, true);
+                    indexOutput.writeBytes(outputHash);
                 }
             } finally {
                 indexOutput.close();
@@ -175,17 +199,18 @@ private static class Index {
         final ImmutableMap<Long, Index> children;
         final Region stdOut;
         final Region stdErr;
+        @Nullable
+        final HashCode outputHash;
 
         private Index(Region stdOut, Region stdErr) {
-            this.children = ImmutableMap.of();
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
+            this(ImmutableMap.<Long, Index>of(), stdOut, stdErr, null);
         }
 
-        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr) {
+        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr, @Nullable HashCode outputHash) {
             this.children = children;
             this.stdOut = stdOut;
             this.stdErr = stdErr;
+            this.outputHash = outputHash;
         }
     }
 
@@ -212,67 +237,88 @@ void add(long key, Index index) {
             children.put(key, index);
         }
 
-        Index build() {
-            return new Index(children.build(), stdOut, stdErr);
+        Index build(@Nullable HashCode outputHash) {
+            return new Index(children.build(), stdOut, stdErr, outputHash);
         }
     }
 
-    public class Reader implements Closeable {
-        private final Index index;
-        private final RandomAccessFile dataFile;
+    /**
+     * Reads the index file. The index is immutable once read, so it is shared by all readers of this store.
+     */
+    @Nullable
+    private synchronized Index getIndex() {
+        if (index == null) {
+            index = readIndex();
+        }
+        return index.orNull();
+    }
 
-        public Reader() {
-            File indexFile = getIndexFile();
-            File outputsFile = getOutputsFile();
+    private synchronized void discardIndex() {
+        index = null;
+    }
 
-            if (outputsFile.exists()) {
-                if (!indexFile.exists()) {
-                    throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
-                }
+    private Optional<Index> readIndex() {
+        File indexFile = getIndexFile();
+        File outputsFile = getOutputsFile();
 
-                Input input;
-                try {
-                    input = new Input(new FileInputStream(indexFile));
-                } catch (FileNotFoundException e) {
-                    throw new UncheckedIOException(e);
-                }
+        if (outputsFile.exists()) {
+            if (!indexFile.exists()) {
+                throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
+            }
 
-                IndexBuilder rootBuilder = null;
-                try {
-                    int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
-
-                    for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
-                        long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
-
-                        int numEntries = input.readInt(true);
-                        for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
-                            long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
-                        }
+            Input input;
+            try {
+                input = new Input(new FileInputStream(indexFile));
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
+            }
 
-                        rootBuilder.add(classId, classBuilder.build());
+            IndexBuilder rootBuilder = null;
+            try {
+                int numClasses = input.readInt(true);
+                rootBuilder = new IndexBuilder();
+
+                for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
+                    long classId = input.readLong(true);
+                    IndexBuilder classBuilder = new IndexBuilder();
+
+                    int numEntries = input.readInt(true);
+                    for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
+                        long testId = input.readLong(true);
+                        Region stdOut = new Region(input.readLong(), input.readLong());
+                        Region stdErr = new Region(input.readLong(), input.readLong());
+                        classBuilder.add(testId, new Index(stdOut, stdErr));
                     }
-                } finally {
-                    input.close();
+
+                    HashCode outputHash = HashCode.fromBytes(input.readBytes(input.readInt(true)));
+                    rootBuilder.add(classId, classBuilder.build(outputHash));
                 }
+            } finally {
+                input.close();
+            }
 
-                index = rootBuilder.build();
+            return Optional.of(rootBuilder.build(null));
+        } else { // no outputs file
+            if (indexFile.exists()) {
+                throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
+            }
+            return Optional.absent();
+        }
+    }
+
+    public class Reader implements Closeable {
+        private final Index index;
+        private final RandomAccessFile dataFile;
 
+        public Reader() {
+            index = getIndex();
+            if (index != null) {
                 try {
                     dataFile = new RandomAccessFile(getOutputsFile(), "r");
                 } catch (FileNotFoundException e) {
                     throw new UncheckedIOException(e);
                 }
-            } else { // no outputs file
-                if (indexFile.exists()) {
-                    throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
-                }
-
-                index = null;
+            } else {
                 dataFile = null;
             }
         }
@@ -298,6 +344,17 @@ public boolean hasOutput(long classId, TestOutputEvent.Destination destination)
             }
         }
 
+        /**
+         * Returns a hash of all output of the given test class, as recorded when the output was written.
+         */
+        public HashCode getOutputHash(long classId) {
+            if (dataFile == null) {
+                return NO_OUTPUT;
+            }
+            Index classIndex = index.children.get(classId);
+            return classIndex == null ? NO_OUTPUT : classIndex.outputHash;
+        }
+
         public void writeAllOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
             doRead(classId, 0, true, destination, writer);
         }
@@ -19,6 +19,7 @@
 import com.google.common.collect.Maps;
 import org.gradle.api.Action;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.hash.HashCode;
 
 import java.io.IOException;
 import java.util.concurrent.ConcurrentMap;
@@ -36,6 +37,11 @@ protected void withReader(Action<TestOutputStore.Reader> action) {
         action.execute(getReader());
     }
 
+    @Override
+    public HashCode getOutputHash(long id) {
+        return getReader().getOutputHash(id);
+    }
+
     private TestOutputStore.Reader getReader() {
         Thread thread = Thread.currentThread();
         TestOutputStore.Reader reader = readers.get(thread);
@@ -18,7 +18,9 @@
 
 import org.gradle.api.Action;
 import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.hash.HashCode;
 
+import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.Writer;
 
@@ -46,5 +48,12 @@ public interface TestResultsProvider extends Closeable {
 
     boolean hasOutput(long id, TestOutputEvent.Destination destination);
 
+    /**
+     * Returns a hash of all output of the given test class, recorded when the output was written, or null when the output is not hashed up-front.
+     * This method must be called only after {@link #visitClasses(org.gradle.api.Action)}.
+     */
+    @Nullable
+    HashCode getOutputHash(long id);
+
     boolean isHasResults();
 }
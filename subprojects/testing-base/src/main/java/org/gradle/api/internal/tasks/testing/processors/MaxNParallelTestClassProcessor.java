@@ -18,7 +18,11 @@
 
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.actor.Actor;
@@ -27,28 +31,79 @@
 import org.gradle.internal.dispatch.DispatchException;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
- * processors.
+ * Manages a set of parallel TestClassProcessors.
+ *
+ * <p>Test classes are kept in a shared queue, ordered by their duration in the previous execution, longest first, so that the slow test
+ * classes do not end up at the tail of the run. Test classes that failed in the previous execution stay ahead of all others, and test
+ * classes with the same estimate, or without durations, keep the order in which they were received. When the test framework executes each
+ * test class as soon as it arrives in the worker, a processor is only handed the next test class from the queue once it has
+ * (almost) finished the classes it is working on, so that idle processors pick up the remaining work. Towards the end of the
+ * queue each processor only gets a single class at a time, so that the tail of the run is spread over all processors.</p>
+ *
+ * <p>Otherwise, each test class is assigned to the processor with the smallest estimated amount of work, which for test classes
+ * without a previous duration degrades to round-robin.</p>
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
+    /**
+     * How long to wait for any activity of the processors before handing out the remaining test classes regardless of their state.
+     */
+    private static final long STALL_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAX_CLASSES_IN_FLIGHT = 2;
+
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final TestClassDurations durations;
+    private final boolean workStealing;
+    private final Set<String> runFirst;
+    private final Lock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    private final Queue<QueuedTestClass> queue = new PriorityQueue<QueuedTestClass>();
     private TestResultProcessor resultProcessor;
-    private int pos;
+    private List<ProcessorSlot> slots = new ArrayList<ProcessorSlot>();
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<TestClassProcessor> rawProcessors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
     private Actor resultProcessorActor;
+    private long lastActivity;
+    private long received;
     private volatile boolean stoppedNow;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, TestClassDurations.EMPTY, false);
+    }
+
+    /**
+     * @param workStealing whether the processors run each test class as soon as they receive it, and report its completion before starting the next one.
+     */
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, TestClassDurations durations, boolean workStealing) {
+        this(maxProcessors, factory, actorFactory, durations, workStealing, Collections.<String>emptySet());
+    }
+
+    /**
+     * @param runFirst the names of the test classes to take from the queue before all others, regardless of their duration.
+     */
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, TestClassDurations durations, boolean workStealing, Set<String> runFirst) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.durations = durations;
+        this.workStealing = workStealing;
+        this.runFirst = runFirst;
     }
 
     @Override
@@ -64,24 +119,76 @@ public void processTestClass(TestClassRunInfo testClass) {
             return;
         }
 
-        TestClassProcessor processor;
-        if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            rawProcessors.add(processor);
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
+        lock.lock();
+        try {
+            if (queue.isEmpty()) {
+                onActivity();
+            }
+            String className = testClass.getTestClassName();
+            queue.add(new QueuedTestClass(testClass, runFirst.contains(className), durations.estimate(className), received++));
+            dispatch(isStalled());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands out queued test classes to processors that can accept more work, starting new processors as required.
+     */
+    private void dispatch(boolean force) {
+        while (!queue.isEmpty() && !stoppedNow) {
+            ProcessorSlot slot = selectSlot(force);
+            if (slots.size() < maxProcessors && (slot == null || slot.isBusy())) {
+                slot = startProcessor();
+            }
+            if (slot == null) {
+                return;
+            }
+            slot.process(queue.poll().testClass);
+        }
+    }
+
+    private ProcessorSlot selectSlot(boolean force) {
+        ProcessorSlot selected = null;
+        if (workStealing && !force) {
+            int limit = queue.size() > slots.size() ? MAX_CLASSES_IN_FLIGHT : 1;
+            for (ProcessorSlot slot : slots) {
+                if (slot.inFlight.size() < limit && (selected == null || slot.inFlight.size() < selected.inFlight.size())) {
+                    selected = slot;
+                }
+            }
         } else {
-            processor = processors.get(pos);
-            pos = (pos + 1) % processors.size();
+            for (ProcessorSlot slot : slots) {
+                if (selected == null || slot.assignedWork < selected.assignedWork) {
+                    selected = slot;
+                }
+            }
         }
-        processor.processTestClass(testClass);
+        return selected;
+    }
+
+    private ProcessorSlot startProcessor() {
+        TestClassProcessor processor = factory.create();
+        rawProcessors.add(processor);
+        Actor actor = actorFactory.createActor(processor);
+        processor = actor.getProxy(TestClassProcessor.class);
+        actors.add(actor);
+        processors.add(processor);
+        ProcessorSlot slot = new ProcessorSlot(processor);
+        slots.add(slot);
+        processor.startProcessing(workStealing ? new CompletionTrackingResultProcessor(slot, resultProcessor) : resultProcessor);
+        return slot;
     }
 
     @Override
     public void stop() {
+        lock.lock();
+        try {
+            awaitQueueDrained();
+        } finally {
+            lock.unlock();
+        }
+
         try {
             CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
         } catch (DispatchException e) {
@@ -89,11 +196,153 @@ public void stop() {
         }
     }
 
+    private void awaitQueueDrained() {
+        onActivity();
+        while (!queue.isEmpty() && !stoppedNow) {
+            long remaining = lastActivity + STALL_TIMEOUT_MILLIS - System.currentTimeMillis();
+            if (remaining <= 0) {
+                // Stop waiting for the processors
+                dispatch(true);
+                return;
+            }
+            try {
+                stateChanged.await(remaining, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+
     @Override
     public void stopNow() {
         stoppedNow = true;
-        for (TestClassProcessor processor : rawProcessors) {
+        List<TestClassProcessor> toStop;
+        lock.lock();
+        try {
+            stateChanged.signalAll();
+            toStop = new ArrayList<TestClassProcessor>(rawProcessors);
+        } finally {
+            lock.unlock();
+        }
+        for (TestClassProcessor processor : toStop) {
             processor.stopNow();
         }
     }
+
+    /**
+     * Returns true when test classes are waiting and none of the processors reported any activity for a while, so they might have failed.
+     */
+    private boolean isStalled() {
+        return !queue.isEmpty() && System.currentTimeMillis() - lastActivity >= STALL_TIMEOUT_MILLIS;
+    }
+
+    private void onActivity() {
+        lastActivity = System.currentTimeMillis();
+    }
+
+    private void onTestClassCompleted(ProcessorSlot slot, String testClassName) {
+        slot.inFlight.remove(testClassName);
+        dispatch(false);
+        stateChanged.signalAll();
+    }
+
+    private static class QueuedTestClass implements Comparable<QueuedTestClass> {
+        private final TestClassRunInfo testClass;
+        private final boolean first;
+        private final long estimate;
+        private final long sequence;
+
+        QueuedTestClass(TestClassRunInfo testClass, boolean first, long estimate, long sequence) {
+            this.testClass = testClass;
+            this.first = first;
+            this.estimate = estimate;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(QueuedTestClass other) {
+            if (first != other.first) {
+                return first ? -1 : 1;
+            }
+            if (estimate != other.estimate) {
+                return estimate > other.estimate ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+
+    private class ProcessorSlot {
+        private final TestClassProcessor processor;
+        private final Set<String> inFlight = new HashSet<String>();
+        private long assignedWork;
+
+        ProcessorSlot(TestClassProcessor processor) {
+            this.processor = processor;
+        }
+
+        boolean isBusy() {
+            return workStealing ? !inFlight.isEmpty() : assignedWork > 0;
+        }
+
+        void process(TestClassRunInfo testClass) {
+            if (workStealing) {
+                inFlight.add(testClass.getTestClassName());
+            }
+            assignedWork += durations.estimate(testClass.getTestClassName());
+            processor.processTestClass(testClass);
+        }
+    }
+
+    /**
+     * Watches the results of a single processor for the completion of the test classes handed to it.
+     */
+    private class CompletionTrackingResultProcessor implements TestResultProcessor {
+        private final ProcessorSlot slot;
+        private final TestResultProcessor delegate;
+        private final Map<Object, String> runningTestClasses = new HashMap<Object, String>();
+
+        CompletionTrackingResultProcessor(ProcessorSlot slot, TestResultProcessor delegate) {
+            this.slot = slot;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            lock.lock();
+            try {
+                onActivity();
+                if (test.isComposite() && test.getClassName() != null && slot.inFlight.contains(test.getClassName())) {
+                    runningTestClasses.put(test.getId(), test.getClassName());
+                }
+            } finally {
+                lock.unlock();
+            }
+            delegate.started(test, event);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            delegate.completed(testId, event);
+            lock.lock();
+            try {
+                onActivity();
+                String testClassName = runningTestClasses.remove(testId);
+                if (testClassName != null) {
+                    onTestClassCompleted(slot, testClassName);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            delegate.output(testId, event);
+        }
+
+        @Override
+        public void failure(Object testId, Throwable result) {
+            delegate.failure(testId, result);
+        }
+    }
 }
@@ -25,7 +25,8 @@
 
 /**
  * In order to speed up the development feedback cycle, this class guarantee previous failed test classes
- * to be passed to its delegate first.
+ * to be passed to its delegate first. Previously failed test classes are passed on as soon as they are received,
+ * as are all test classes when there were no previous failures.
  */
 public class RunPreviousFailedFirstTestClassProcessor implements TestClassProcessor {
     private final Set<String> previousFailedTestClasses;
@@ -45,8 +46,10 @@ public void startProcessing(TestResultProcessor resultProcessor) {
 
     @Override
     public void processTestClass(TestClassRunInfo testClass) {
-        if (previousFailedTestClasses.contains(testClass.getTestClassName())) {
-            prioritizedTestClasses.add(testClass);
+        if (previousFailedTestClasses.isEmpty() || previousFailedTestClasses.contains(testClass.getTestClassName())) {
+            if (prioritizedTestClasses.add(testClass)) {
+                delegate.processTestClass(testClass);
+            }
         } else {
             otherTestClasses.add(testClass);
         }
@@ -54,9 +57,6 @@ public void processTestClass(TestClassRunInfo testClass) {
 
     @Override
     public void stop() {
-        for (TestClassRunInfo test : prioritizedTestClasses) {
-            delegate.processTestClass(test);
-        }
         for (TestClassRunInfo test : otherTestClasses) {
             delegate.processTestClass(test);
         }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Estimated execution times of test classes, based on the results of a previous execution of the same test task.
+ */
+public class TestClassDurations {
+    public static final TestClassDurations EMPTY = new TestClassDurations(Collections.<String, Long>emptyMap());
+
+    private final Map<String, Long> durations;
+    private final long defaultDuration;
+
+    public TestClassDurations(Map<String, Long> durations) {
+        this.durations = durations;
+        long total = 0;
+        for (Long duration : durations.values()) {
+            total += duration;
+        }
+        this.defaultDuration = durations.isEmpty() ? 1 : Math.max(1, total / durations.size());
+    }
+
+    public boolean isEmpty() {
+        return durations.isEmpty();
+    }
+
+    /**
+     * Returns the estimated duration of the given test class. Classes that did not run previously are assumed to take the average time.
+     */
+    public long estimate(String testClassName) {
+        Long duration = durations.get(testClassName);
+        return duration == null ? defaultDuration : Math.max(1, duration);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.report;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.tasks.testing.junit.result.TestFailure;
+import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.GradleVersion;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tracks the content hash of the results rendered into each class page of a report, so that pages for classes whose
+ * results did not change since the report was last generated do not need to be rendered again.
+ *
+ * <p>The hashes are kept outside of the report directory. The file is removed while the report is generated and only written
+ * once all pages were generated, so that an incomplete report is rendered from scratch the next time.</p>
+ */
+class ClassPageHashes {
+    private final File hashesFile;
+    private final File reportDir;
+    private final Map<String, HashCode> previousHashes;
+    private final ConcurrentMap<String, HashCode> currentHashes = new ConcurrentHashMap<String, HashCode>();
+
+    private ClassPageHashes(File hashesFile, File reportDir, Map<String, HashCode> previousHashes) {
+        this.hashesFile = hashesFile;
+        this.reportDir = reportDir;
+        this.previousHashes = previousHashes;
+    }
+
+    /**
+     * Loads and removes the hashes recorded in the given file for the given report directory. When the file cannot be read, or was
+     * recorded for another report directory, all pages are considered as changed.
+     */
+    static ClassPageHashes load(File hashesFile, File reportDir) {
+        Map<String, HashCode> hashes = new HashMap<String, HashCode>();
+        if (hashesFile.isFile()) {
+            try {
+                KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(hashesFile));
+                try {
+                    readHashes(decoder, reportDir, hashes);
+                } finally {
+                    decoder.close();
+                }
+            } catch (Exception e) {
+                hashes.clear();
+            }
+            GFileUtils.forceDelete(hashesFile);
+        }
+        return new ClassPageHashes(hashesFile, reportDir, hashes);
+    }
+
+    private static void readHashes(Decoder decoder, File reportDir, Map<String, HashCode> hashes) throws IOException {
+        if (!reportDir.getAbsolutePath().equals(decoder.readString())) {
+            return;
+        }
+        int count = decoder.readSmallInt();
+        for (int i = 0; i < count; i++) {
+            String pageUrl = decoder.readString();
+            HashCode hash = HashCode.fromBytes(decoder.readBinary());
+            hashes.put(pageUrl, hash);
+        }
+    }
+
+    /**
+     * Records the hash of the given class results, and returns true when the page rendered previously for the same results can be reused.
+     */
+    boolean isUpToDate(ClassTestResults classResults, TestResultsProvider resultsProvider, File pageFile) {
+        HashCode hash = hash(classResults, resultsProvider);
+        currentHashes.put(classResults.getBaseUrl(), hash);
+        return hash.equals(previousHashes.get(classResults.getBaseUrl())) && pageFile.isFile();
+    }
+
+    /**
+     * Records the hashes of the pages that were generated. Must only be called once all pages were generated.
+     */
+    void store() {
+        try {
+            GFileUtils.mkdirs(hashesFile.getParentFile());
+            KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(hashesFile));
+            try {
+                encoder.writeString(reportDir.getAbsolutePath());
+                encoder.writeSmallInt(currentHashes.size());
+                for (Map.Entry<String, HashCode> entry : currentHashes.entrySet()) {
+                    encoder.writeString(entry.getKey());
+                    encoder.writeBinary(entry.getValue().toByteArray());
+                }
+            } finally {
+                encoder.close();
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static HashCode hash(ClassTestResults classResults, TestResultsProvider resultsProvider) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(GradleVersion.current().getVersion());
+        // Only what is rendered into the page, for example the formatted durations instead of the exact ones
+        hasher.putString(classResults.getName());
+        putNullable(hasher, classResults.getDisplayName());
+        hasher.putString(classResults.getFormattedDuration());
+        for (TestResult test : classResults.getTestResults()) {
+            hasher.putString(test.getName());
+            putNullable(hasher, test.getDisplayName());
+            hasher.putString(test.getFormattedDuration());
+            hasher.putString(test.getResultType().name());
+            for (TestFailure failure : test.getFailures()) {
+                putNullable(hasher, failure.getMessage());
+                putNullable(hasher, failure.getStackTrace());
+                putNullable(hasher, failure.getExceptionType());
+            }
+        }
+        HashCode outputHash = resultsProvider.getOutputHash(classResults.getId());
+        if (outputHash != null) {
+            hasher.putHash(outputHash);
+        } else {
+            // Fall back to reading the output for providers that do not hash it when it is written
+            for (TestOutputEvent.Destination destination : TestOutputEvent.Destination.values()) {
+                hasher.putString(destination.name());
+                if (resultsProvider.hasOutput(classResults.getId(), destination)) {
+                    resultsProvider.writeAllOutput(classResults.getId(), destination, new HashingWriter(hasher));
+                }
+            }
+        }
+        return hasher.hash();
+    }
+
+    private static void putNullable(Hasher hasher, @Nullable String value) {
+        if (value == null) {
+            hasher.putNull();
+        } else {
+            hasher.putString(value);
+        }
+    }
+
+    private static class HashingWriter extends Writer {
+        private final Hasher hasher;
+
+        HashingWriter(Hasher hasher) {
+            this.hasher = hasher;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            hasher.putString(new String(cbuf, off, len));
+        }
+
+        @Override
+        public void write(String str) {
+            hasher.putString(str);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
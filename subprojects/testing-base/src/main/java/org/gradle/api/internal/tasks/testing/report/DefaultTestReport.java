@@ -33,20 +33,34 @@
 import org.gradle.reporting.HtmlReportBuilder;
 import org.gradle.reporting.HtmlReportRenderer;
 import org.gradle.reporting.ReportRenderer;
+import org.gradle.reporting.TabbedPageRenderer;
 import org.gradle.util.GFileUtils;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED;
 
 public class DefaultTestReport implements TestReporter {
     private final BuildOperationExecutor buildOperationExecutor;
+    private final File classPageHashesFile;
     private final static Logger LOG = Logging.getLogger(DefaultTestReport.class);
 
     public DefaultTestReport(BuildOperationExecutor buildOperationExecutor) {
+        this(buildOperationExecutor, null);
+    }
+
+    /**
+     * @param classPageHashesFile where to keep track of the results rendered into the class pages, so that unchanged class pages are not rendered again. Must not be located in the report directory.
+     */
+    public DefaultTestReport(BuildOperationExecutor buildOperationExecutor, @Nullable File classPageHashesFile) {
         this.buildOperationExecutor = buildOperationExecutor;
+        this.classPageHashesFile = classPageHashesFile;
     }
 
     @Override
@@ -82,15 +96,20 @@ public void execute(TestClassResult classResult) {
         return model;
     }
 
-    private void generateFiles(AllTestResults model, final TestResultsProvider resultsProvider, final File reportDir) {
+    private void generateFiles(final AllTestResults model, final TestResultsProvider resultsProvider, final File reportDir) {
         try {
             HtmlReportRenderer htmlRenderer = new HtmlReportRenderer();
+            final ClassPageHashes classPageHashes = classPageHashesFile == null ? null : ClassPageHashes.load(classPageHashesFile, reportDir);
             buildOperationExecutor.run(new RunnableBuildOperation() {
                 @Override
                 public void run(BuildOperationContext context) {
-                    // Clean-up old HTML report directories
+                    // Clean-up old HTML report directories, keeping the pages of classes that are still present
                     GFileUtils.deleteQuietly(new File(reportDir, "packages"));
-                    GFileUtils.deleteQuietly(new File(reportDir, "classes"));
+                    if (classPageHashes == null) {
+                        GFileUtils.deleteQuietly(new File(reportDir, "classes"));
+                    } else {
+                        deleteStaleClassPages(model, reportDir);
+                    }
                 }
 
                 @Override
@@ -109,18 +128,42 @@ public void execute(BuildOperationQueue<HtmlReportFileGenerator<? extends Compos
                             for (PackageTestResults packageResults : model.getPackages()) {
                                 queue.add(generator(packageResults.getBaseUrl(), packageResults, new PackagePageRenderer(), output));
                                 for (ClassTestResults classResults : packageResults.getClasses()) {
-                                    queue.add(generator(classResults.getBaseUrl(), classResults, new ClassPageRenderer(resultsProvider), output));
+                                    if (classPageHashes == null) {
+                                        queue.add(generator(classResults.getBaseUrl(), classResults, new ClassPageRenderer(resultsProvider), output));
+                                    } else {
+                                        queue.add(new ClassPageFileGenerator(classResults, resultsProvider, classPageHashes, new File(reportDir, classResults.getBaseUrl()), output));
+                                    }
                                 }
                             }
                         }
                     });
                 }
             }, reportDir);
+            if (classPageHashes != null) {
+                classPageHashes.store();
+            }
         } catch (Exception e) {
             throw new GradleException(String.format("Could not generate test report to '%s'.", reportDir), e);
         }
     }
 
+    private static void deleteStaleClassPages(AllTestResults model, File reportDir) {
+        Set<String> classPages = new HashSet<String>();
+        for (PackageTestResults packageResults : model.getPackages()) {
+            for (ClassTestResults classResults : packageResults.getClasses()) {
+                classPages.add(classResults.getBaseUrl());
+            }
+        }
+        File[] files = new File(reportDir, "classes").listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!classPages.contains("classes/" + file.getName())) {
+                    GFileUtils.deleteQuietly(file);
+                }
+            }
+        }
+    }
+
     public static <T extends CompositeTestResults> HtmlReportFileGenerator<T> generator(String fileUrl, T results, PageRenderer<T> renderer, HtmlReportBuilder output) {
         return new HtmlReportFileGenerator<T>(fileUrl, results, renderer, output);
     }
@@ -148,4 +191,39 @@ public void run(BuildOperationContext context) {
             output.renderHtmlPage(fileUrl, results, renderer);
         }
     }
+
+    /**
+     * Renders the page of a single class, unless the results of the class did not change since the page was rendered.
+     * In that case, only the date in the footer of the page is updated.
+     */
+    private static class ClassPageFileGenerator extends HtmlReportFileGenerator<ClassTestResults> {
+        private final ClassTestResults results;
+        private final TestResultsProvider resultsProvider;
+        private final ClassPageHashes classPageHashes;
+        private final File pageFile;
+
+        ClassPageFileGenerator(ClassTestResults results, TestResultsProvider resultsProvider, ClassPageHashes classPageHashes, File pageFile, HtmlReportBuilder output) {
+            super(results.getBaseUrl(), results, new ClassPageRenderer(resultsProvider), output);
+            this.results = results;
+            this.resultsProvider = resultsProvider;
+            this.classPageHashes = classPageHashes;
+            this.pageFile = pageFile;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            if (!classPageHashes.isUpToDate(results, resultsProvider, pageFile) || !updateFooterDate()) {
+                super.run(context);
+            }
+        }
+
+        private boolean updateFooterDate() {
+            String page = TabbedPageRenderer.withGeneratedDate(GFileUtils.readFile(pageFile, "utf-8"), new Date());
+            if (page == null) {
+                return false;
+            }
+            GFileUtils.writeFile(page, pageFile, "utf-8");
+            return true;
+        }
+    }
 }
@@ -23,19 +23,25 @@
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.JavaForkOptions;
 import org.gradle.process.internal.ExecException;
+import org.gradle.process.internal.health.memory.MemoryAmount;
 import org.gradle.process.internal.worker.WorkerProcess;
 import org.gradle.process.internal.worker.WorkerProcessBuilder;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 import org.gradle.util.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -49,9 +55,11 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final List<String> testWorkerImplementationModules;
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final ModuleRegistry moduleRegistry;
+    private final ReusableTestWorkerPool workerPool;
     private final Lock lock = new ReentrantLock();
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
+    private ReusableTestWorkerProcess reusableWorker;
     private TestResultProcessor resultProcessor;
     private WorkerLeaseRegistry.WorkerLeaseCompletion completion;
     private final DocumentationRegistry documentationRegistry;
@@ -60,6 +68,16 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options,
                                      Iterable<File> classPath, Iterable<File> modulePath, List<String> testWorkerImplementationModules,
                                      Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry) {
+        this(parentWorkerLease, workerFactory, processorFactory, options, classPath, modulePath, testWorkerImplementationModules, buildConfigAction, moduleRegistry, documentationRegistry, null);
+    }
+
+    /**
+     * @param workerPool the pool to reuse test worker processes from, or null to start a new process that is stopped at the end.
+     */
+    public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options,
+                                     Iterable<File> classPath, Iterable<File> modulePath, List<String> testWorkerImplementationModules,
+                                     Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry,
+                                     @Nullable ReusableTestWorkerPool workerPool) {
         this.currentWorkerLease = parentWorkerLease;
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
@@ -70,6 +88,7 @@ public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLea
         this.buildConfigAction = buildConfigAction;
         this.moduleRegistry = moduleRegistry;
         this.documentationRegistry = documentationRegistry;
+        this.workerPool = workerPool;
     }
 
     @Override
@@ -88,7 +107,7 @@ public void processTestClass(TestClassRunInfo testClass) {
             if (remoteProcessor == null) {
                 completion = currentWorkerLease.startChild();
                 try {
-                    remoteProcessor = forkProcess();
+                    remoteProcessor = workerPool == null ? forkProcess() : reuseOrForkProcess();
                 } catch (RuntimeException e) {
                     completion.leaseFinish();
                     completion = null;
@@ -103,18 +122,7 @@ public void processTestClass(TestClassRunInfo testClass) {
     }
 
     RemoteTestClassProcessor forkProcess() {
-        WorkerProcessBuilder builder = workerFactory.create(new TestWorker(processorFactory));
-        builder.setBaseName("Gradle Test Executor");
-        builder.setImplementationClasspath(getTestWorkerImplementationClasspath());
-        builder.setImplementationModulePath(getTestWorkerImplementationModulePath());
-        builder.applicationClasspath(classPath);
-        builder.applicationModulePath(modulePath);
-        options.copyTo(builder.getJavaCommand());
-        builder.getJavaCommand().getModularity().getInferModulePath().set(modulePath.iterator().hasNext());
-        builder.getJavaCommand().jvmArgs("-Dorg.gradle.native=false");
-        buildConfigAction.execute(builder);
-
-        workerProcess = builder.build();
+        workerProcess = createWorkerProcess(new TestWorker(processorFactory), classPath);
         workerProcess.start();
 
         ObjectConnection connection = workerProcess.getConnection();
@@ -126,6 +134,72 @@ RemoteTestClassProcessor forkProcess() {
         return remoteProcessor;
     }
 
+    private RemoteTestClassProcessor reuseOrForkProcess() {
+        HashCode key = getWorkerKey();
+        reusableWorker = workerPool.reserveIdleWorker(key);
+        if (reusableWorker == null) {
+            // The whole test runtime classpath is loaded for each session. Only the jars are also visible to the test framework implementation
+            List<File> jars = new ArrayList<File>();
+            for (File file : classPath) {
+                if (!file.isDirectory()) {
+                    jars.add(file);
+                }
+            }
+            WorkerProcess process = createWorkerProcess(TestWorker.reusable(classPath), jars);
+            process.start();
+            reusableWorker = new ReusableTestWorkerProcess(key, process, MemoryAmount.parseNotation(options.getMaxHeapSize()));
+            reusableWorker.connect();
+            workerPool.add(reusableWorker);
+        }
+        return reusableWorker.startSession(resultProcessor, processorFactory);
+    }
+
+    /**
+     * A worker can only be reused for the same test framework, JVM and classpath. The content of jars is taken into account,
+     * as the test framework is loaded from them once per worker.
+     */
+    private HashCode getWorkerKey() {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(processorFactory.getClass().getName());
+        hasher.putString(String.valueOf(options.getExecutable()));
+        hasher.putString(options.getWorkingDir().getAbsolutePath());
+        for (String jvmArg : options.getAllJvmArgs()) {
+            hasher.putString(jvmArg);
+        }
+        for (Map.Entry<String, Object> entry : options.getEnvironment().entrySet()) {
+            hasher.putString(entry.getKey());
+            hasher.putString(String.valueOf(entry.getValue()));
+        }
+        putFiles(hasher, classPath);
+        hasher.putNull();
+        putFiles(hasher, modulePath);
+        return hasher.hash();
+    }
+
+    private static void putFiles(Hasher hasher, Iterable<File> files) {
+        for (File file : files) {
+            hasher.putString(file.getAbsolutePath());
+            if (file.isFile()) {
+                hasher.putLong(file.length());
+                hasher.putLong(file.lastModified());
+            }
+        }
+    }
+
+    private WorkerProcess createWorkerProcess(TestWorker testWorker, Iterable<File> applicationClasspath) {
+        WorkerProcessBuilder builder = workerFactory.create(testWorker);
+        builder.setBaseName("Gradle Test Executor");
+        builder.setImplementationClasspath(getTestWorkerImplementationClasspath());
+        builder.setImplementationModulePath(getTestWorkerImplementationModulePath());
+        builder.applicationClasspath(applicationClasspath);
+        builder.applicationModulePath(modulePath);
+        options.copyTo(builder.getJavaCommand());
+        builder.getJavaCommand().getModularity().getInferModulePath().set(modulePath.iterator().hasNext());
+        builder.getJavaCommand().jvmArgs("-Dorg.gradle.native=false");
+        buildConfigAction.execute(builder);
+        return builder.build();
+    }
+
     List<URL> getTestWorkerImplementationClasspath() {
         return CollectionUtils.flattenCollections(URL.class,
             moduleRegistry.getModule("gradle-core-api").getImplementationClasspath().getAsURLs(),
@@ -172,7 +246,14 @@ public void stop() {
                 } finally {
                     lock.unlock();
                 }
-                workerProcess.waitForStop();
+                if (reusableWorker != null) {
+                    reusableWorker.waitForSessionToStop();
+                    if (!stoppedNow) {
+                        workerPool.release(reusableWorker);
+                    }
+                } else {
+                    workerProcess.waitForStop();
+                }
             }
         } catch (ExecException e) {
             if (!stoppedNow) {
@@ -193,7 +274,9 @@ public void stopNow() {
         lock.lock();
         try {
             stoppedNow = true;
-            if (remoteProcessor != null) {
+            if (reusableWorker != null) {
+                reusableWorker.stopNow();
+            } else if (remoteProcessor != null) {
                 workerProcess.stopNow();
             }
         } finally {
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+
+/**
+ * The protocol of a test worker that is kept alive to execute several sessions, each one for a single test task execution.
+ * {@link #stop()} stops the current session only.
+ *
+ * @see ReusableTestResultProcessor
+ */
+public interface ReusableRemoteTestClassProcessor extends RemoteTestClassProcessor {
+    /**
+     * Starts a new session, which executes the test classes using a fresh processor created by the given factory. Does not block.
+     */
+    void startSession(WorkerTestClassProcessorFactory processorFactory);
+
+    /**
+     * Stops the worker. Does not block.
+     */
+    void shutdown();
+}
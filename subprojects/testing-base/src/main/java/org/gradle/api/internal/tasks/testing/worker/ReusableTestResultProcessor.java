@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+
+/**
+ * Receives the results of a reusable test worker. Notifications are delivered in order, so all results of a session have been received
+ * once {@link #sessionStopped()} is called.
+ *
+ * @see ReusableRemoteTestClassProcessor
+ */
+public interface ReusableTestResultProcessor extends TestResultProcessor {
+    /**
+     * Notifies this processor that the current session has finished, and the worker can start another one.
+     */
+    void sessionStopped();
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.ManagedScheduledExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.time.Clock;
+import org.gradle.internal.time.Time;
+import org.gradle.process.internal.health.memory.MemoryHolder;
+import org.gradle.process.internal.health.memory.MemoryManager;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps test worker processes alive between test task executions, so that a later execution with the same fork options
+ * and classpath can use them instead of starting new processes.
+ *
+ * <p>Idle workers are stopped when the pool is stopped, when more than the maximum number of workers are idle, when they were idle
+ * for longer than the idle timeout, or when the system runs low on memory. A worker is also stopped once it executed the maximum number
+ * of sessions, as each session leaves loaded classes behind in the worker.</p>
+ */
+public class ReusableTestWorkerPool implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(ReusableTestWorkerPool.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+    private static final int MAX_SESSIONS_PER_WORKER = 20;
+    private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(3);
+    private static final long EXPIRY_CHECK_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final Object lock = new Object();
+    private final List<ReusableTestWorkerProcess> allWorkers = new ArrayList<ReusableTestWorkerProcess>();
+    // Idle workers with the time at which they became idle, the longest idle first
+    private final Map<ReusableTestWorkerProcess, Long> idleWorkers = new LinkedHashMap<ReusableTestWorkerProcess, Long>();
+    private final ManagedExecutor processWatchers;
+    private final ManagedScheduledExecutor expiryChecker;
+    private final MemoryManager memoryManager;
+    private final MemoryHolder memoryHolder = new IdleWorkersMemoryHolder();
+    private final Clock clock;
+    private final int maxIdleWorkers;
+    private final int maxSessionsPerWorker;
+    private final long idleTimeoutMillis;
+
+    public ReusableTestWorkerPool(ExecutorFactory executorFactory, MemoryManager memoryManager) {
+        this(executorFactory, memoryManager, Time.clock(), Runtime.getRuntime().availableProcessors(), MAX_SESSIONS_PER_WORKER, IDLE_TIMEOUT_MILLIS);
+    }
+
+    ReusableTestWorkerPool(ExecutorFactory executorFactory, MemoryManager memoryManager, Clock clock, int maxIdleWorkers, int maxSessionsPerWorker, long idleTimeoutMillis) {
+        this.processWatchers = executorFactory.create("Test worker process watcher");
+        this.expiryChecker = executorFactory.createScheduled("Test worker expiry", 1);
+        this.memoryManager = memoryManager;
+        this.clock = clock;
+        this.maxIdleWorkers = maxIdleWorkers;
+        this.maxSessionsPerWorker = maxSessionsPerWorker;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        expiryChecker.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                stopExpiredWorkers();
+            }
+        }, EXPIRY_CHECK_INTERVAL_MILLIS, EXPIRY_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        memoryManager.addMemoryHolder(memoryHolder);
+    }
+
+    @Nullable
+    ReusableTestWorkerProcess reserveIdleWorker(HashCode key) {
+        synchronized (lock) {
+            Iterator<ReusableTestWorkerProcess> it = idleWorkers.keySet().iterator();
+            while (it.hasNext()) {
+                ReusableTestWorkerProcess candidate = it.next();
+                if (candidate.isCompatibleWith(key)) {
+                    it.remove();
+                    if (!candidate.isStopped()) {
+                        return candidate;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Adds a newly started worker to this pool. The worker is reserved by the caller until it is released.
+     */
+    void add(final ReusableTestWorkerProcess worker) {
+        synchronized (lock) {
+            allWorkers.add(worker);
+        }
+        processWatchers.execute(new Runnable() {
+            @Override
+            public void run() {
+                worker.waitForStop();
+                synchronized (lock) {
+                    allWorkers.remove(worker);
+                    idleWorkers.remove(worker);
+                }
+            }
+        });
+    }
+
+    void release(ReusableTestWorkerProcess worker) {
+        ReusableTestWorkerProcess evicted = null;
+        synchronized (lock) {
+            if (worker.isStopped()) {
+                return;
+            }
+            if (worker.getUses() >= maxSessionsPerWorker) {
+                evicted = worker;
+            } else {
+                idleWorkers.put(worker, clock.getCurrentTime());
+            }
+            if (evicted == null && idleWorkers.size() > maxIdleWorkers) {
+                // Stop the worker that was idle for the longest time
+                evicted = idleWorkers.keySet().iterator().next();
+                idleWorkers.remove(evicted);
+            }
+        }
+        if (evicted != null) {
+            LOGGER.debug("Stopping test worker {}, used {} time(s).", evicted, evicted.getUses());
+            evicted.shutdown();
+        }
+    }
+
+    /**
+     * Stops the workers that were idle for longer than the idle timeout.
+     */
+    void stopExpiredWorkers() {
+        List<ReusableTestWorkerProcess> expired = new ArrayList<ReusableTestWorkerProcess>();
+        synchronized (lock) {
+            long now = clock.getCurrentTime();
+            Iterator<Map.Entry<ReusableTestWorkerProcess, Long>> it = idleWorkers.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<ReusableTestWorkerProcess, Long> entry = it.next();
+                if (now - entry.getValue() < idleTimeoutMillis) {
+                    break;
+                }
+                expired.add(entry.getKey());
+                it.remove();
+            }
+        }
+        if (!expired.isEmpty()) {
+            LOGGER.debug("Stopping {} test worker(s) that were idle for {}ms.", expired.size(), idleTimeoutMillis);
+        }
+        for (ReusableTestWorkerProcess worker : expired) {
+            worker.shutdown();
+        }
+    }
+
+    @Override
+    public void stop() {
+        memoryManager.removeMemoryHolder(memoryHolder);
+        expiryChecker.stop();
+        List<ReusableTestWorkerProcess> workers;
+        synchronized (lock) {
+            workers = new ArrayList<ReusableTestWorkerProcess>(allWorkers);
+            idleWorkers.clear();
+        }
+        if (!workers.isEmpty()) {
+            LOGGER.debug("Stopping {} test worker(s).", workers.size());
+        }
+        for (ReusableTestWorkerProcess worker : workers) {
+            worker.shutdown();
+        }
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+        for (ReusableTestWorkerProcess worker : workers) {
+            if (!worker.waitForStop(Math.max(0, deadline - System.currentTimeMillis()))) {
+                worker.stopNow();
+            }
+        }
+        processWatchers.stop();
+    }
+
+    /**
+     * Stops idle workers, the longest idle first, when the system needs memory.
+     */
+    private class IdleWorkersMemoryHolder implements MemoryHolder {
+        @Override
+        public long attemptToRelease(long memoryAmountBytes) throws IllegalArgumentException {
+            if (memoryAmountBytes < 0) {
+                throw new IllegalArgumentException("Negative memory amount");
+            }
+            long releasedBytes = 0;
+            List<ReusableTestWorkerProcess> toStop = new ArrayList<ReusableTestWorkerProcess>();
+            synchronized (lock) {
+                Iterator<ReusableTestWorkerProcess> it = idleWorkers.keySet().iterator();
+                while (releasedBytes < memoryAmountBytes && it.hasNext()) {
+                    ReusableTestWorkerProcess worker = it.next();
+                    releasedBytes += worker.getMemoryUsage();
+                    toStop.add(worker);
+                    it.remove();
+                }
+            }
+            if (!toStop.isEmpty()) {
+                LOGGER.debug("Stopping {} idle test worker(s) to free some system memory.", toStop.size());
+            }
+            for (ReusableTestWorkerProcess worker : toStop) {
+                worker.shutdown();
+            }
+            return releasedBytes;
+        }
+    }
+}
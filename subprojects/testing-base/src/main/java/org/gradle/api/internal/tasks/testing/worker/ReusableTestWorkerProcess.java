@@ -0,0 +1,205 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.process.internal.ExecException;
+import org.gradle.process.internal.worker.WorkerProcess;
+
+/**
+ * A test worker process that is kept alive by the {@link ReusableTestWorkerPool} between test task executions.
+ * Results of the current session are forwarded to the result processor of the session.
+ */
+class ReusableTestWorkerProcess implements ReusableTestResultProcessor {
+    private final HashCode key;
+    private final WorkerProcess workerProcess;
+    private final long maxHeapBytes;
+    private final Object lock = new Object();
+    private ReusableRemoteTestClassProcessor remoteProcessor;
+    private volatile TestResultProcessor resultProcessor;
+    private boolean sessionRunning;
+    private boolean stopped;
+    private ExecException failure;
+    private int uses;
+
+    /**
+     * @param maxHeapBytes the maximum heap size of the process, or -1 when not known.
+     */
+    ReusableTestWorkerProcess(HashCode key, WorkerProcess workerProcess, long maxHeapBytes) {
+        this.key = key;
+        this.workerProcess = workerProcess;
+        this.maxHeapBytes = maxHeapBytes;
+    }
+
+    void connect() {
+        ObjectConnection connection = workerProcess.getConnection();
+        connection.useParameterSerializers(TestEventSerializer.create());
+        connection.addIncoming(ReusableTestResultProcessor.class, this);
+        remoteProcessor = connection.addOutgoing(ReusableRemoteTestClassProcessor.class);
+        connection.connect();
+    }
+
+    boolean isCompatibleWith(HashCode key) {
+        return this.key.equals(key);
+    }
+
+    int getUses() {
+        synchronized (lock) {
+            return uses;
+        }
+    }
+
+    /**
+     * Returns the memory committed by the process, as last reported by the process, or its maximum heap size when it did not report it.
+     */
+    long getMemoryUsage() {
+        try {
+            return workerProcess.getJvmMemoryStatus().getCommittedMemory();
+        } catch (UnsupportedOperationException e) {
+            // The process does not report its memory usage
+        } catch (IllegalStateException e) {
+            // The process did not report its memory usage yet
+        }
+        return Math.max(0, maxHeapBytes);
+    }
+
+    boolean isStopped() {
+        synchronized (lock) {
+            return stopped;
+        }
+    }
+
+    /**
+     * Starts a new session, and returns the processor to send the test classes of the session to. Stopping the returned processor stops the session.
+     */
+    RemoteTestClassProcessor startSession(TestResultProcessor resultProcessor, WorkerTestClassProcessorFactory processorFactory) {
+        synchronized (lock) {
+            this.resultProcessor = resultProcessor;
+            sessionRunning = true;
+            uses++;
+        }
+        remoteProcessor.startSession(processorFactory);
+        return remoteProcessor;
+    }
+
+    /**
+     * Blocks until all results of the current session have been received, or the process has stopped.
+     *
+     * @throws ExecException when the process failed during the session.
+     */
+    void waitForSessionToStop() {
+        synchronized (lock) {
+            try {
+                while (sessionRunning && !stopped) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            if (sessionRunning && failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Waits for the process to stop. Called by the pool, on a dedicated thread, for the whole lifetime of the process.
+     */
+    void waitForStop() {
+        ExecException failure = null;
+        try {
+            workerProcess.waitForStop();
+        } catch (ExecException e) {
+            failure = e;
+        } finally {
+            synchronized (lock) {
+                this.failure = failure;
+                stopped = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits at most the given time for the process to stop, and returns whether it did stop.
+     */
+    boolean waitForStop(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (lock) {
+            try {
+                long remaining = timeoutMillis;
+                while (!stopped && remaining > 0) {
+                    lock.wait(remaining);
+                    remaining = deadline - System.currentTimeMillis();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            return stopped;
+        }
+    }
+
+    void shutdown() {
+        remoteProcessor.shutdown();
+    }
+
+    void stopNow() {
+        workerProcess.stopNow();
+    }
+
+    @Override
+    public void sessionStopped() {
+        synchronized (lock) {
+            resultProcessor = null;
+            sessionRunning = false;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        resultProcessor.started(test, event);
+    }
+
+    @Override
+    public void completed(Object testId, TestCompleteEvent event) {
+        resultProcessor.completed(testId, event);
+    }
+
+    @Override
+    public void output(Object testId, TestOutputEvent event) {
+        resultProcessor.output(testId, event);
+    }
+
+    @Override
+    public void failure(Object testId, Throwable result) {
+        resultProcessor.failure(testId, result);
+    }
+
+    @Override
+    public String toString() {
+        return workerProcess.toString();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.internal.UncheckedException;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+/**
+ * Loads the classes of the test runtime classpath again for each session of a reusable test worker, so that the static state
+ * of test classes, classes under test and libraries does not leak from one session into the next one, and changes to these classes
+ * are picked up.
+ *
+ * <p>Classes of the test frameworks are loaded by the parent, so that the test framework implementation of the worker and the tests
+ * of the session share them. This includes the libraries that the test frameworks expose in their API, such as Hamcrest for JUnit 4.</p>
+ */
+class TestSessionClassLoader extends URLClassLoader {
+    private static final String[] SHARED_PACKAGE_PREFIXES = {
+        "junit.",
+        "org.junit.",
+        "org.hamcrest.",
+        "org.opentest4j.",
+        "org.apiguardian.",
+        "org.testng.",
+        "com.beust.jcommander.",
+        "bsh."
+    };
+
+    TestSessionClassLoader(List<File> classpath, ClassLoader parent) {
+        super(toUrls(classpath), parent);
+    }
+
+    private static URL[] toUrls(List<File> files) {
+        URL[] urls = new URL[files.size()];
+        for (int i = 0; i < urls.length; i++) {
+            try {
+                urls[i] = files.get(i).toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        return urls;
+    }
+
+    private static boolean isShared(String className) {
+        for (String prefix : SHARED_PACKAGE_PREFIXES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (isShared(name)) {
+            return super.loadClass(name, resolve);
+        }
+        Class<?> loadedClass = findLoadedClass(name);
+        if (loadedClass == null) {
+            try {
+                loadedClass = findClass(name);
+            } catch (ClassNotFoundException e) {
+                return super.loadClass(name, resolve);
+            }
+        }
+        if (resolve) {
+            resolveClass(loadedClass);
+        }
+        return loadedClass;
+    }
+
+    @Override
+    public URL getResource(String name) {
+        URL resource = findResource(name);
+        return resource != null ? resource : super.getResource(name);
+    }
+}
@@ -25,6 +25,7 @@
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.actor.ActorFactory;
 import org.gradle.internal.actor.internal.DefaultActorFactory;
+import org.gradle.internal.classloader.ClassLoaderUtils;
 import org.gradle.internal.concurrent.DefaultExecutorFactory;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.Stoppable;
@@ -40,20 +41,55 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.io.Serializable;
 import java.security.AccessControlException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 import java.util.concurrent.CountDownLatch;
 
-public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClassProcessor, Serializable, Stoppable {
+public class TestWorker implements Action<WorkerProcessContext>, ReusableRemoteTestClassProcessor, Serializable, Stoppable {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestWorker.class);
     public static final String WORKER_ID_SYS_PROPERTY = "org.gradle.test.worker";
     private final WorkerTestClassProcessorFactory factory;
+    private final List<File> sessionClasspath;
     private CountDownLatch completed;
     private TestClassProcessor processor;
     private TestResultProcessor resultProcessor;
+    private WorkerProcessContext workerProcessContext;
+    private ServiceRegistry testServices;
+    private ReusableTestResultProcessor sessionResultProcessor;
+    private SecurityManager sessionSecurityManager;
+    private Properties sessionSystemProperties;
+    private ClassLoader sessionClassLoader;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
         this.factory = factory;
+        this.sessionClasspath = null;
+    }
+
+    private TestWorker(List<File> sessionClasspath) {
+        this.factory = null;
+        this.sessionClasspath = sessionClasspath;
+    }
+
+    /**
+     * Creates a worker that executes several sessions, loading the classes from the given test runtime classpath again for each session.
+     *
+     * @see ReusableRemoteTestClassProcessor
+     */
+    public static TestWorker reusable(Iterable<File> sessionClasspath) {
+        List<File> files = new ArrayList<File>();
+        for (File file : sessionClasspath) {
+            files.add(file);
+        }
+        return new TestWorker(files);
+    }
+
+    private boolean isReusable() {
+        return sessionClasspath != null;
     }
 
     @Override
@@ -66,7 +102,11 @@ public void execute(final WorkerProcessContext workerProcessContext) {
         System.setProperty(WORKER_ID_SYS_PROPERTY, workerProcessContext.getWorkerId().toString());
 
         DefaultServiceRegistry testServices = new TestFrameworkServiceRegistry(workerProcessContext);
-        startReceivingTests(workerProcessContext, testServices);
+        if (isReusable()) {
+            startReceivingSessions(workerProcessContext, testServices);
+        } else {
+            startReceivingTests(workerProcessContext, testServices);
+        }
 
         try {
             try {
@@ -77,33 +117,82 @@ public void execute(final WorkerProcessContext workerProcessContext) {
         } finally {
             LOGGER.info("{} finished executing tests.", workerProcessContext.getDisplayName());
 
-            if (System.getSecurityManager() != securityManager) {
-                try {
-                    // Reset security manager the tests seem to have installed
-                    System.setSecurityManager(securityManager);
-                } catch (SecurityException e) {
-                    LOGGER.warn("Unable to reset SecurityManager. Continuing anyway...", e);
-                }
-            }
+            resetSecurityManager(securityManager);
             testServices.close();
         }
     }
 
+    private static void resetSecurityManager(@Nullable SecurityManager securityManager) {
+        if (System.getSecurityManager() != securityManager) {
+            try {
+                // Reset security manager the tests seem to have installed
+                System.setSecurityManager(securityManager);
+            } catch (SecurityException e) {
+                LOGGER.warn("Unable to reset SecurityManager. Continuing anyway...", e);
+            }
+        }
+    }
+
     private void startReceivingTests(WorkerProcessContext workerProcessContext, ServiceRegistry testServices) {
+        processor = createProcessor(factory, workerProcessContext, testServices, workerProcessContext.getApplicationClassLoader());
+
+        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
+        serverConnection.useParameterSerializers(TestEventSerializer.create());
+        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
+        serverConnection.connect();
+    }
+
+    private void startReceivingSessions(WorkerProcessContext workerProcessContext, ServiceRegistry testServices) {
+        this.workerProcessContext = workerProcessContext;
+        this.testServices = testServices;
+
+        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
+        serverConnection.useParameterSerializers(TestEventSerializer.create());
+        this.sessionResultProcessor = serverConnection.addOutgoing(ReusableTestResultProcessor.class);
+        this.resultProcessor = sessionResultProcessor;
+        serverConnection.addIncoming(ReusableRemoteTestClassProcessor.class, this);
+        serverConnection.connect();
+    }
+
+    private static TestClassProcessor createProcessor(WorkerTestClassProcessorFactory factory, WorkerProcessContext workerProcessContext, ServiceRegistry testServices, ClassLoader applicationClassLoader) {
         TestClassProcessor targetProcessor = factory.create(testServices);
         IdGenerator<Object> idGenerator = Cast.uncheckedNonnullCast(testServices.get(IdGenerator.class));
 
         targetProcessor = new WorkerTestClassProcessor(targetProcessor, idGenerator.generateId(),
                 workerProcessContext.getDisplayName(), testServices.get(Clock.class));
         ContextClassLoaderProxy<TestClassProcessor> proxy = new ContextClassLoaderProxy<TestClassProcessor>(
-                TestClassProcessor.class, targetProcessor, workerProcessContext.getApplicationClassLoader());
-        processor = proxy.getSource();
+                TestClassProcessor.class, targetProcessor, applicationClassLoader);
+        return proxy.getSource();
+    }
 
-        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
-        serverConnection.useParameterSerializers(TestEventSerializer.create());
-        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
-        serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
-        serverConnection.connect();
+    @Override
+    public void startSession(WorkerTestClassProcessorFactory processorFactory) {
+        Thread.currentThread().setName("Test worker");
+        sessionSecurityManager = System.getSecurityManager();
+        sessionSystemProperties = (Properties) System.getProperties().clone();
+        sessionClassLoader = new TestSessionClassLoader(sessionClasspath, workerProcessContext.getApplicationClassLoader());
+        processor = createProcessor(processorFactory, workerProcessContext, testServices, sessionClassLoader);
+        processor.startProcessing(resultProcessor);
+    }
+
+    private void endSession() {
+        try {
+            resetSecurityManager(sessionSecurityManager);
+            // Undo any changes the tests made to the system properties
+            System.setProperties(sessionSystemProperties);
+            ClassLoaderUtils.tryClose(sessionClassLoader);
+        } finally {
+            processor = null;
+            sessionClassLoader = null;
+            sessionSystemProperties = null;
+            sessionResultProcessor.sessionStopped();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        completed.countDown();
     }
 
     @Override
@@ -132,7 +221,11 @@ public void stop() {
         try {
             processor.stop();
         } finally {
-            completed.countDown();
+            if (isReusable()) {
+                endSession();
+            } else {
+                completed.countDown();
+            }
             // Clean the interrupted status
             // because some test class processors do work here, e.g. JUnitPlatform
             Thread.interrupted();
@@ -532,7 +532,7 @@ private void createReporting(Map<String, TestClassResult> results, TestOutputSto
 
         try {
             if (testReporter == null) {
-                testReporter = new DefaultTestReport(getBuildOperationExecutor());
+                testReporter = new DefaultTestReport(getBuildOperationExecutor(), new File(getTemporaryDir(), "html-report-class-pages.bin"));
             }
 
             JUnitXmlReport junitXml = reports.getJunitXml();
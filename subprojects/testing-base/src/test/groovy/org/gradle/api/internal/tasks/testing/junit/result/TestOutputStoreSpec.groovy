@@ -145,6 +145,36 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "records a hash of the output of each test class when it is written"() {
+        when:
+        def first = outputHashes(testDirectory.createDir("first"), "[out-2]")
+        def second = outputHashes(testDirectory.createDir("second"), "[out-2]")
+        def changed = outputHashes(testDirectory.createDir("changed"), "[out-3]")
+
+        then:
+        first[1] == second[1]
+        first[2] == second[2]
+        first[1] != changed[1]
+        first[2] == changed[2]
+        first[1] != first[2]
+        first[3] == second[3]
+    }
+
+    private List outputHashes(File dir, String message) {
+        def store = new TestOutputStore(dir)
+        def writer = store.writer()
+        writer.onOutput(1, output(StdOut, "[out-1]"))
+        writer.onOutput(1, 1, output(StdErr, message))
+        writer.onOutput(2, 1, output(StdOut, "[out-1]"))
+        writer.close()
+        def reader = store.reader()
+        try {
+            return [null, reader.getOutputHash(1), reader.getOutputHash(2), reader.getOutputHash(3)]
+        } finally {
+            reader.close()
+        }
+    }
+
     def "can open empty reader"() {
         // neither file
         expect:
@@ -16,9 +16,13 @@
 
 package org.gradle.api.internal.tasks.testing.processors
 
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
 import org.gradle.internal.actor.Actor
 import org.gradle.internal.actor.ActorFactory
 import spock.lang.Specification
@@ -202,4 +206,132 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * processor1.stopNow()
         1 * processor2.stopNow()
     }
+
+    def "assigns test classes to the processor with the least estimated work"() {
+        def workProcessor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, new TestClassDurations([Slow: 100L, Fast1: 10L, Fast2: 10L, Fast3: 10L]), false)
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        factory.create() >>> [Mock(TestClassProcessor), Mock(TestClassProcessor)]
+        actorFactory.createActor(_) >>> [Stub(Actor) { getProxy(TestClassProcessor) >> asyncProcessor1 }, Stub(Actor) { getProxy(TestClassProcessor) >> asyncProcessor2 }]
+        workProcessor.startProcessing(resultProcessor)
+
+        when:
+        ['Slow', 'Fast1', 'Fast2', 'Fast3'].each { workProcessor.processTestClass(new DefaultTestClassRunInfo(it)) }
+
+        then:
+        1 * asyncProcessor1.processTestClass(new DefaultTestClassRunInfo('Slow'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Fast1'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Fast2'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Fast3'))
+        0 * asyncProcessor1.processTestClass(_)
+    }
+
+    def "idle processors take the next test class from the shared queue when work stealing"() {
+        def workProcessor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, TestClassDurations.EMPTY, true)
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        TestResultProcessor processor1Results = null
+        TestResultProcessor processor2Results = null
+        actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        factory.create() >>> [Mock(TestClassProcessor), Mock(TestClassProcessor)]
+        actorFactory.createActor(_) >>> [Stub(Actor) { getProxy(TestClassProcessor) >> asyncProcessor1 }, Stub(Actor) { getProxy(TestClassProcessor) >> asyncProcessor2 }]
+        asyncProcessor1.startProcessing(_) >> { processor1Results = it[0] }
+        asyncProcessor2.startProcessing(_) >> { processor2Results = it[0] }
+        workProcessor.startProcessing(resultProcessor)
+
+        when:
+        ['A', 'B', 'C', 'D'].each { workProcessor.processTestClass(new DefaultTestClassRunInfo(it)) }
+
+        then:
+        1 * asyncProcessor1.processTestClass(new DefaultTestClassRunInfo('A'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('B'))
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        def classB = new DefaultTestClassDescriptor('id-b', 'B')
+        processor2Results.started(classB, new TestStartEvent(0))
+        processor2Results.completed('id-b', new TestCompleteEvent(0))
+
+        then:
+        1 * asyncResultProcessor.started(classB, _)
+        1 * asyncResultProcessor.completed('id-b', _)
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('C'))
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        def classA = new DefaultTestClassDescriptor('id-a', 'A')
+        processor1Results.started(classA, new TestStartEvent(0))
+        processor1Results.completed('id-a', new TestCompleteEvent(0))
+
+        then:
+        1 * asyncProcessor1.processTestClass(new DefaultTestClassRunInfo('D'))
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        workProcessor.stop()
+
+        then:
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+    }
+
+    def "idle processors take the longest queued test class, after the previously failed test classes"() {
+        def durations = new TestClassDurations([A: 10L, B: 10L, Short: 5L, Long: 100L, Failed: 1L])
+        def workProcessor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, durations, true, ['Failed'] as Set)
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        TestResultProcessor processor1Results = null
+        TestResultProcessor processor2Results = null
+        actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        factory.create() >>> [Mock(TestClassProcessor), Mock(TestClassProcessor)]
+        actorFactory.createActor(_) >>> [Stub(Actor) { getProxy(TestClassProcessor) >> asyncProcessor1 }, Stub(Actor) { getProxy(TestClassProcessor) >> asyncProcessor2 }]
+        asyncProcessor1.startProcessing(_) >> { processor1Results = it[0] }
+        asyncProcessor2.startProcessing(_) >> { processor2Results = it[0] }
+        workProcessor.startProcessing(resultProcessor)
+
+        when:
+        ['A', 'B', 'Short', 'Long', 'Failed'].each { workProcessor.processTestClass(new DefaultTestClassRunInfo(it)) }
+
+        then:
+        1 * asyncProcessor1.processTestClass(new DefaultTestClassRunInfo('A'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('B'))
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        processor2Results.started(new DefaultTestClassDescriptor('id-b', 'B'), new TestStartEvent(0))
+        processor2Results.completed('id-b', new TestCompleteEvent(0))
+
+        then:
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Failed'))
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        processor1Results.started(new DefaultTestClassDescriptor('id-a', 'A'), new TestStartEvent(0))
+        processor1Results.completed('id-a', new TestCompleteEvent(0))
+
+        then:
+        1 * asyncProcessor1.processTestClass(new DefaultTestClassRunInfo('Long'))
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        processor2Results.started(new DefaultTestClassDescriptor('id-failed', 'Failed'), new TestStartEvent(0))
+        processor2Results.completed('id-failed', new TestCompleteEvent(0))
+
+        then:
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Short'))
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        workProcessor.stop()
+
+        then:
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+    }
 }
@@ -46,4 +46,23 @@ class RunPreviousFailedFirstTestClassProcessorTest extends Specification {
         then:
         1 * delegate.stop()
     }
+
+    def 'test classes are passed to delegate immediately when there are no previous failures'() {
+        given:
+        processor = new RunPreviousFailedFirstTestClassProcessor([] as Set, delegate)
+        processor.startProcessing(testResultProcessor)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('Class1'))
+
+        then:
+        1 * delegate.processTestClass(new DefaultTestClassRunInfo('Class1'))
+
+        when:
+        processor.stop()
+
+        then:
+        0 * delegate.processTestClass(_)
+        1 * delegate.stop()
+    }
 }
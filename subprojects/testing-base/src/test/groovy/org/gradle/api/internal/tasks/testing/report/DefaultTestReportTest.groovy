@@ -15,11 +15,15 @@
  */
 package org.gradle.api.internal.tasks.testing.report
 
+import org.gradle.api.GradleException
 import org.gradle.api.internal.tasks.testing.BuildableTestResultsProvider
 import org.gradle.api.internal.tasks.testing.junit.result.AggregateTestResultsProvider
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider
 import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.concurrent.DefaultParallelismConfiguration
+import org.gradle.internal.hash.HashCode
 import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.internal.operations.BuildOperationListener
 import org.gradle.internal.operations.DefaultBuildOperationExecutor
@@ -36,6 +40,8 @@ import org.junit.Rule
 import spock.lang.Specification
 import spock.lang.Unroll
 
+import static org.gradle.api.tasks.testing.TestResult.ResultType.SUCCESS
+
 class DefaultTestReportTest extends Specification {
     @Rule
     public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
@@ -43,15 +49,16 @@ class DefaultTestReportTest extends Specification {
     DefaultTestReport report
     final TestFile reportDir = tmpDir.file('report')
     final TestFile indexFile = reportDir.file('index.html')
+    final TestFile classPageHashesFile = tmpDir.file('tmp/class-pages.bin')
     final TestResultsProvider testResultProvider = Mock()
     final WorkerLeaseService workerLeaseService = new TestWorkerLeaseService()
 
-    def reportWithMaxThreads(int numThreads) {
+    def reportWithMaxThreads(int numThreads, File classPageHashesFile = null) {
         def parallelismConfiguration = new DefaultParallelismConfiguration(false, numThreads)
         buildOperationExecutor = new DefaultBuildOperationExecutor(
             Mock(BuildOperationListener), Mock(Clock), new NoOpProgressLoggerFactory(),
             new DefaultBuildOperationQueueFactory(workerLeaseService), new DefaultExecutorFactory(), parallelismConfiguration, new DefaultBuildOperationIdFactory())
-        return new DefaultTestReport(buildOperationExecutor)
+        return new DefaultTestReport(buildOperationExecutor, classPageHashesFile)
     }
 
     def generatesReportWhenThereAreNoTestResults() {
@@ -533,6 +540,136 @@ class DefaultTestReportTest extends Specification {
         testClassFile.assertHasStandardError('err:\u0102')
     }
 
+    def "only renders class pages whose results changed since the previous report"() {
+        given:
+        report = reportWithMaxThreads(1, classPageHashesFile)
+        def passedPage = reportDir.file('classes/org.gradle.passing.Passed.html')
+        def alsoPassedPage = reportDir.file('classes/org.gradle.passing.subpackage.AlsoPassed.html')
+        report.generateReport(passingBuildResults(), reportDir)
+        passedPage.text = passedPage.text.replaceFirst('</a> at [^<]*', '</a> at some time ago')
+        alsoPassedPage.text = "unchanged"
+
+        when:
+        report.generateReport(buildResults {
+            testClassResult("org.gradle.passing.Passed") {
+                testcase("passed") {
+                    duration = 1000;
+                }
+            }
+            testClassResult("org.gradle.passing.subpackage.AlsoPassed") {
+                testcase("passedToo") {
+                    duration = 2000;
+                    stdout "this is\nstandard output"
+                    stderr "this is\nstandard error"
+                }
+            }
+        }, reportDir)
+
+        then:
+        // The footer date is updated in the page that is not rendered again
+        !passedPage.text.contains('some time ago')
+        passedPage.text.contains("Generated by")
+        results(alsoPassedPage).testDetails('passedToo').assertDuration("2.000s")
+        classPageHashesFile.file
+        !reportDir.file('classes').list().any { it.endsWith('.bin') }
+    }
+
+    def "renders all class pages when the report directory changes"() {
+        given:
+        report = reportWithMaxThreads(1, classPageHashesFile)
+        def otherReportDir = tmpDir.file('other-report')
+        report.generateReport(passingBuildResults(), otherReportDir)
+        report.generateReport(passingBuildResults(), reportDir)
+        def passedPage = reportDir.file('classes/org.gradle.passing.Passed.html')
+        passedPage.text = "unchanged"
+
+        when:
+        report.generateReport(passingBuildResults(), otherReportDir)
+        report.generateReport(passingBuildResults(), reportDir)
+
+        then:
+        results(passedPage).testDetails('passed').assertDuration("1.000s")
+    }
+
+    def "renders all class pages when the previous report was not completed"() {
+        given:
+        report = reportWithMaxThreads(1, classPageHashesFile)
+        def failingResults = Mock(TestResultsProvider)
+        report.generateReport(passingBuildResults(), reportDir)
+        def passedPage = reportDir.file('classes/org.gradle.passing.Passed.html')
+        passedPage.text = "unchanged"
+
+        when:
+        report.generateReport(failingResults, reportDir)
+
+        then:
+        1 * failingResults.visitClasses(_) >> { args ->
+            args[0].execute(new TestClassResult(1, "org.gradle.passing.Passed", 0).add(new TestMethodResult(1, "passed", SUCCESS, 1000, 0)))
+        }
+        _ * failingResults.hasOutput(_, _) >> { throw new RuntimeException("broken") }
+        thrown(GradleException)
+        !classPageHashesFile.exists()
+
+        when:
+        report.generateReport(passingBuildResults(), reportDir)
+
+        then:
+        results(passedPage).testDetails('passed').assertDuration("1.000s")
+    }
+
+    def "uses the output hash recorded by the results provider instead of reading the output"() {
+        given:
+        report = reportWithMaxThreads(1, classPageHashesFile)
+        def previousResults = Stub(TestResultsProvider) {
+            visitClasses(_) >> { args -> args[0].execute(passedClass()) }
+            getOutputHash(1) >> HashCode.fromInt(1)
+        }
+        def unchangedResults = Mock(TestResultsProvider)
+        def changedResults = Mock(TestResultsProvider)
+        report.generateReport(previousResults, reportDir)
+
+        when:
+        report.generateReport(unchangedResults, reportDir)
+
+        then:
+        1 * unchangedResults.visitClasses(_) >> { args -> args[0].execute(passedClass()) }
+        1 * unchangedResults.getOutputHash(1) >> HashCode.fromInt(1)
+        0 * unchangedResults.hasOutput(_, _)
+        0 * unchangedResults.writeAllOutput(_, _, _)
+
+        when:
+        report.generateReport(changedResults, reportDir)
+
+        then:
+        1 * changedResults.visitClasses(_) >> { args -> args[0].execute(passedClass()) }
+        1 * changedResults.getOutputHash(1) >> HashCode.fromInt(2)
+        (1.._) * changedResults.hasOutput(1, _) >> false
+    }
+
+    private static TestClassResult passedClass() {
+        new TestClassResult(1, "org.gradle.passing.Passed", 0).add(new TestMethodResult(1, "passed", SUCCESS, 1000, 0))
+    }
+
+    def "removes class pages of classes no longer in the results"() {
+        given:
+        report = reportWithMaxThreads(1, classPageHashesFile)
+        report.generateReport(passingBuildResults(), reportDir)
+
+        when:
+        report.generateReport(buildResults {
+            testClassResult("org.gradle.passing.Passed") {
+                testcase("passed") {
+                    duration = 1000;
+                }
+            }
+        }, reportDir)
+
+        then:
+        reportDir.file('classes/org.gradle.passing.Passed.html').file
+        !reportDir.file('classes/org.gradle.passing.subpackage.AlsoPassed.html').exists()
+        !reportDir.file('packages/org.gradle.passing.subpackage.html').exists()
+    }
+
     TestResultsProvider buildResults(Closure closure) {
         ConfigureUtil.configure(closure, new BuildableTestResultsProvider())
     }
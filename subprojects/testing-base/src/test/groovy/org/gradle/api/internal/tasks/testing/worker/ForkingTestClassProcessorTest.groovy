@@ -21,13 +21,19 @@ import org.gradle.api.internal.DocumentationRegistry
 import org.gradle.api.internal.classpath.Module
 import org.gradle.api.internal.classpath.ModuleRegistry
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
 import org.gradle.internal.classpath.ClassPath
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.concurrent.ManagedScheduledExecutor
 import org.gradle.internal.remote.ObjectConnection
+import org.gradle.internal.time.Time
 import org.gradle.internal.work.WorkerLeaseRegistry
 import org.gradle.process.JavaForkOptions
 import org.gradle.process.internal.ExecException
 import org.gradle.process.internal.JavaExecHandleBuilder
+import org.gradle.process.internal.health.memory.MemoryManager
 import org.gradle.process.internal.worker.WorkerProcess
 import org.gradle.process.internal.worker.WorkerProcessBuilder
 import org.gradle.process.internal.worker.WorkerProcessFactory
@@ -141,6 +147,92 @@ class ForkingTestClassProcessorTest extends Specification {
         notThrown(ExecException)
     }
 
+    def "reuses worker process of a previous session with the same configuration"() {
+        def pool = new ReusableTestWorkerPool(executorFactory(), Stub(MemoryManager))
+        def remoteProcessor = Mock(ReusableRemoteTestClassProcessor)
+        def processorFactory = Mock(WorkerTestClassProcessorFactory)
+        ReusableTestResultProcessor incoming = null
+        def connection = Stub(ObjectConnection) {
+            addOutgoing(ReusableRemoteTestClassProcessor) >> remoteProcessor
+            addIncoming(ReusableTestResultProcessor, _) >> { incoming = it[1] }
+        }
+        options.getWorkingDir() >> new File("work")
+        options.getAllJvmArgs() >> ["-Xmx64m"]
+        options.getEnvironment() >> [:]
+        workerProcess.getConnection() >> connection
+
+        when:
+        2.times {
+            def processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, processorFactory, options, [new File("classpath.jar")], [], [], Mock(Action), moduleRegistry, documentationRegistry, pool)
+            processor.startProcessing(Mock(TestResultProcessor))
+            processor.processTestClass(Mock(TestClassRunInfo))
+            processor.stop()
+        }
+
+        then:
+        1 * workerProcess.start()
+        2 * remoteProcessor.startSession(processorFactory)
+        2 * remoteProcessor.processTestClass(_)
+        2 * remoteProcessor.stop() >> { incoming.sessionStopped() }
+        0 * workerProcess.waitForStop()
+        _ * moduleRegistry.getModule(_) >> { module(it[0]) }
+        _ * moduleRegistry.getExternalModule(_) >> { module(it[0]) }
+    }
+
+    def "stops reused worker process once it executed the maximum number of sessions"() {
+        def pool = new ReusableTestWorkerPool(executorFactory(), Stub(MemoryManager), Time.clock(), 4, 2, 60000)
+        def remoteProcessor = Mock(ReusableRemoteTestClassProcessor)
+        def processorFactory = Mock(WorkerTestClassProcessorFactory)
+        ReusableTestResultProcessor incoming = null
+        def connection = Stub(ObjectConnection) {
+            addOutgoing(ReusableRemoteTestClassProcessor) >> remoteProcessor
+            addIncoming(ReusableTestResultProcessor, _) >> { incoming = it[1] }
+        }
+        options.getWorkingDir() >> new File("work")
+        options.getAllJvmArgs() >> []
+        options.getEnvironment() >> [:]
+        workerProcess.getConnection() >> connection
+
+        when:
+        3.times {
+            def processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, processorFactory, options, [new File("classpath.jar")], [], [], Mock(Action), moduleRegistry, documentationRegistry, pool)
+            processor.startProcessing(Mock(TestResultProcessor))
+            processor.processTestClass(Mock(TestClassRunInfo))
+            processor.stop()
+        }
+
+        then:
+        2 * workerProcess.start()
+        3 * remoteProcessor.startSession(processorFactory)
+        3 * remoteProcessor.stop() >> { incoming.sessionStopped() }
+        1 * remoteProcessor.shutdown()
+        _ * moduleRegistry.getModule(_) >> { module(it[0]) }
+        _ * moduleRegistry.getExternalModule(_) >> { module(it[0]) }
+    }
+
+    def "reusable worker process loads the directories of the test runtime classpath only for each session"() {
+        def pool = new ReusableTestWorkerPool(executorFactory(), Stub(MemoryManager))
+        def classesDir = File.createTempDir()
+        def jar = new File("classpath.jar")
+        options.getWorkingDir() >> new File("work")
+        options.getAllJvmArgs() >> []
+        options.getEnvironment() >> [:]
+        workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(ReusableRemoteTestClassProcessor) }
+
+        when:
+        def processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [classesDir, jar], [], [], Mock(Action), moduleRegistry, documentationRegistry, pool)
+        processor.startProcessing(Mock(TestResultProcessor))
+        processor.processTestClass(Mock(TestClassRunInfo))
+
+        then:
+        1 * workerProcessBuilder.applicationClasspath([jar])
+        _ * moduleRegistry.getModule(_) >> { module(it[0]) }
+        _ * moduleRegistry.getExternalModule(_) >> { module(it[0]) }
+
+        cleanup:
+        classesDir?.deleteDir()
+    }
+
     def module(String module) {
         return Stub(Module) {
             _ * getImplementationClasspath() >> {
@@ -150,4 +242,11 @@ class ForkingTestClassProcessorTest extends Specification {
             }
         }
     }
+
+    private ExecutorFactory executorFactory() {
+        Stub(ExecutorFactory) {
+            create(_) >> Mock(ManagedExecutor)
+            createScheduled(_, _) >> Mock(ManagedScheduledExecutor)
+        }
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.concurrent.ManagedScheduledExecutor
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.time.Clock
+import org.gradle.process.internal.health.memory.MemoryHolder
+import org.gradle.process.internal.health.memory.MemoryManager
+import spock.lang.Specification
+
+class ReusableTestWorkerPoolTest extends Specification {
+    def key = HashCode.fromInt(1)
+    def now = 0L
+    def clock = Stub(Clock) {
+        getCurrentTime() >> { now }
+    }
+    def executorFactory = Stub(ExecutorFactory) {
+        create(_) >> Mock(ManagedExecutor)
+        createScheduled(_, _) >> Mock(ManagedScheduledExecutor)
+    }
+    MemoryHolder memoryHolder
+    def memoryManager = Mock(MemoryManager) {
+        addMemoryHolder(_) >> { MemoryHolder holder -> memoryHolder = holder }
+    }
+    def pool = new ReusableTestWorkerPool(executorFactory, memoryManager, clock, 4, 20, 1000)
+
+    def "stops workers that were idle for longer than the idle timeout"() {
+        def first = worker()
+        def second = worker()
+        pool.add(first)
+        pool.add(second)
+        pool.release(first)
+        now = 500
+        pool.release(second)
+
+        when:
+        now = 999
+        pool.stopExpiredWorkers()
+
+        then:
+        0 * first.shutdown()
+        0 * second.shutdown()
+
+        when:
+        now = 1000
+        pool.stopExpiredWorkers()
+
+        then:
+        1 * first.shutdown()
+        0 * second.shutdown()
+
+        and:
+        pool.reserveIdleWorker(key) == second
+    }
+
+    def "does not stop workers that are in use when they expire"() {
+        def worker = worker()
+        pool.add(worker)
+        pool.release(worker)
+        pool.reserveIdleWorker(key)
+
+        when:
+        now = 5000
+        pool.stopExpiredWorkers()
+
+        then:
+        0 * worker.shutdown()
+    }
+
+    def "stops idle workers, the longest idle first, until the requested memory is released"() {
+        def first = worker(100)
+        def second = worker(200)
+        def third = worker(400)
+        def busy = worker(800)
+        [first, second, third, busy].each { pool.add(it) }
+        [first, second, third].each { pool.release(it) }
+
+        when:
+        def released = memoryHolder.attemptToRelease(250)
+
+        then:
+        released == 300
+        1 * first.shutdown()
+        1 * second.shutdown()
+        0 * third.shutdown()
+        0 * busy.shutdown()
+
+        and:
+        pool.reserveIdleWorker(key) == third
+        pool.reserveIdleWorker(key) == null
+    }
+
+    def "stops monitoring memory and expiry when stopped"() {
+        when:
+        pool.stop()
+
+        then:
+        1 * memoryManager.removeMemoryHolder(memoryHolder)
+    }
+
+    private ReusableTestWorkerProcess worker(long memoryUsage = 0) {
+        def worker = Mock(ReusableTestWorkerProcess)
+        worker.isCompatibleWith(key) >> true
+        worker.getMemoryUsage() >> memoryUsage
+        worker.waitForStop(_) >> true
+        return worker
+    }
+}
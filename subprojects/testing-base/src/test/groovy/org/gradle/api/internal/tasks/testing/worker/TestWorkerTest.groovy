@@ -76,4 +76,42 @@ public class TestWorkerTest extends ConcurrentSpec {
         1 * processor.processTestClass(test)
         1 * processor.stop()
     }
+
+    def reusableWorkerExecutesSessionsUntilShutdown() {
+        def worker = TestWorker.reusable([])
+        def resultProcessor = Mock(ReusableTestResultProcessor)
+        workerContext.applicationClassLoader >> getClass().classLoader
+
+        when:
+        async {
+            worker.execute(workerContext)
+            instant.completed
+        }
+
+        then:
+        instant.completed > instant.shutdown
+        System.properties['session.property'] == null
+
+        and:
+        2 * factory.create(_) >> processor
+        1 * connection.addOutgoing(ReusableTestResultProcessor) >> resultProcessor
+        1 * connection.addIncoming(ReusableRemoteTestClassProcessor, worker)
+        1 * connection.connect() >> {
+            start {
+                2.times {
+                    worker.startSession(factory)
+                    worker.processTestClass(test)
+                    System.setProperty('session.property', 'value')
+                    worker.stop()
+                }
+                thread.block()
+                instant.shutdown
+                worker.shutdown()
+            }
+        }
+        2 * processor.startProcessing(resultProcessor)
+        2 * processor.processTestClass(test)
+        2 * processor.stop()
+        2 * resultProcessor.sessionStopped()
+    }
 }
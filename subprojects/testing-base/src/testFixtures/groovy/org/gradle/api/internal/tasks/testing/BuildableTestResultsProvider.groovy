@@ -23,6 +23,7 @@ import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider
 import org.gradle.api.tasks.testing.TestOutputEvent
 import org.gradle.api.tasks.testing.TestResult
+import org.gradle.internal.hash.HashCode
 import org.gradle.util.ConfigureUtil
 
 import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdErr
@@ -75,6 +76,11 @@ class BuildableTestResultsProvider implements TestResultsProvider {
         testClasses[classId]?.outputEvents?.find { it.testOutputEvent.destination == destination }
     }
 
+    HashCode getOutputHash(long id) {
+        // Output is not hashed up-front
+        null
+    }
+
     static class BuildableOutputEvent {
         long testId
         TestOutputEvent testOutputEvent
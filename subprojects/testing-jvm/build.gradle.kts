@@ -26,6 +26,8 @@ dependencies {
     implementation(project(":messaging"))
     implementation(project(":native"))
     implementation(project(":logging"))
+    implementation(project(":hashing"))
+    implementation(project(":persistent-cache"))
     implementation(project(":process-services"))
     implementation(project(":file-collections"))
     implementation(project(":jvm-services"))
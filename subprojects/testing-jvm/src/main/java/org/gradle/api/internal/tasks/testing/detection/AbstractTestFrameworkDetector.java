@@ -24,6 +24,10 @@
 import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
 import org.gradle.internal.IoActions;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 import org.slf4j.Logger;
@@ -34,13 +38,16 @@
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
+/**
+ * Detects test classes by reading the class files with ASM. Class files can be processed concurrently.
+ */
 public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor> implements TestFrameworkDetector {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTestFrameworkDetector.class);
     private static final String JAVA_LANG_OBJECT = "java/lang/Object";
@@ -49,6 +56,8 @@
     private final ClassFileExtractionManager classFileExtractionManager;
     private final Map<File, Boolean> superClasses;
     private TestClassProcessor testClassProcessor;
+    private TestClassDetectionCache detectionCache;
+    private FileHasher fileHasher;
 
     private Set<File> testClassesDirectories;
     private Set<File> testClasspath;
@@ -56,7 +65,7 @@
     protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
         assert classFileExtractionManager != null;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.superClasses = new ConcurrentHashMap<File, Boolean>();
     }
 
     protected abstract T createClassVisitor();
@@ -82,11 +91,13 @@ private File getSuperTestClassFile(String superClassName) {
             return null;
         } else {
             // super test class file not in test class directories
-            return classFileExtractionManager.getLibraryClassFile(superClassName);
+            synchronized (classFileExtractionManager) {
+                return classFileExtractionManager.getLibraryClassFile(superClassName);
+            }
         }
     }
 
-    private void prepareClasspath() {
+    private synchronized void prepareClasspath() {
         if (testClassDirectories != null) {
             return;
         }
@@ -117,7 +128,38 @@ public void setTestClasspath(Set<File> testClasspath) {
         this.testClasspath = testClasspath;
     }
 
+    @Override
+    public void setDetectionCache(TestClassDetectionCache detectionCache, FileHasher fileHasher) {
+        this.detectionCache = detectionCache;
+        this.fileHasher = fileHasher;
+    }
+
     private TestClass readClassFile(File testClassFile, Factory<String> fallbackClassNameProvider) {
+        if (detectionCache == null) {
+            return parseClassFile(testClassFile, fallbackClassNameProvider);
+        }
+
+        HashCode cacheKey;
+        try {
+            Hasher hasher = Hashing.newHasher();
+            hasher.putString(getClass().getName());
+            hasher.putHash(fileHasher.hash(testClassFile));
+            cacheKey = hasher.hash();
+        } catch (Exception e) {
+            return parseClassFile(testClassFile, fallbackClassNameProvider);
+        }
+
+        TestClass testClass = detectionCache.get(cacheKey);
+        if (testClass == null) {
+            testClass = parseClassFile(testClassFile, fallbackClassNameProvider);
+            if (testClass.isParseable()) {
+                detectionCache.put(cacheKey, testClass);
+            }
+        }
+        return testClass;
+    }
+
+    private TestClass parseClassFile(File testClassFile, Factory<String> fallbackClassNameProvider) {
         final TestClassVisitor classVisitor = createClassVisitor();
 
         InputStream classStream = null;
@@ -201,7 +243,9 @@ private boolean processSuperClass(File testClassFile, String superClassName) {
     private void publishTestClass(boolean isTest, TestClass testClass, boolean superClass) {
         if (isTest && !testClass.isAbstract() && !superClass) {
             String className = Type.getObjectType(testClass.getClassName()).getClassName();
-            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            synchronized (testClassProcessor) {
+                testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            }
         }
     }
 
@@ -210,27 +254,33 @@ public void startDetection(TestClassProcessor testClassProcessor) {
         this.testClassProcessor = testClassProcessor;
     }
 
-    private static class TestClass {
+    static class TestClass {
+        private final boolean parseable;
         private final boolean test;
         private final boolean isAbstract;
         private final String className;
         private final String superClassName;
 
         static TestClass forParseableFile(TestClassVisitor testClassVisitor) {
-            return new TestClass(testClassVisitor.isTest(), testClassVisitor.isAbstract(), testClassVisitor.getClassName(), testClassVisitor.getSuperClassName());
+            return new TestClass(true, testClassVisitor.isTest(), testClassVisitor.isAbstract(), testClassVisitor.getClassName(), testClassVisitor.getSuperClassName());
         }
 
         static TestClass forUnparseableFile(String className) {
-            return new TestClass(true, false, className, null);
+            return new TestClass(false, true, false, className, null);
         }
 
-        private TestClass(boolean test, boolean isAbstract, String className, String superClassName) {
+        private TestClass(boolean parseable, boolean test, boolean isAbstract, String className, String superClassName) {
+            this.parseable = parseable;
             this.test = test;
             this.isAbstract = isAbstract;
             this.className = className;
             this.superClassName = superClassName;
         }
 
+        boolean isParseable() {
+            return parseable;
+        }
+
         boolean isTest() {
             return test;
         }
@@ -23,24 +23,45 @@
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.work.WorkerLeaseRegistry;
 
+import javax.annotation.Nullable;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.regex.Pattern;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
- * a detection or filename scan is performed to find test classes.
+ * a detection or filename scan is performed to find test classes. When an executor factory is available,
+ * the class files are passed to the detector from multiple threads, each of which holds a worker lease.
  */
 public class DefaultTestClassScanner implements Runnable {
     private static final Pattern ANONYMOUS_CLASS_NAME = Pattern.compile(".*\\$\\d+");
+    private static final RelativeFile END_OF_CLASS_FILES = new RelativeFile(null, null);
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final ExecutorFactory executorFactory;
+    private final WorkerLeaseRegistry.WorkerLease parentWorkerLease;
+    private final int maxThreads;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null, null, 1);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, @Nullable ExecutorFactory executorFactory,
+                                   @Nullable WorkerLeaseRegistry.WorkerLease parentWorkerLease, int maxThreads) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.executorFactory = executorFactory;
+        this.parentWorkerLease = parentWorkerLease;
+        this.maxThreads = maxThreads;
     }
 
     @Override
@@ -54,12 +75,64 @@ public void run() {
 
     private void detectionScan() {
         testFrameworkDetector.startDetection(testClassProcessor);
-        candidateClassFiles.visit(new ClassFileVisitor() {
-            @Override
-            public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(new RelativeFile(fileDetails.getFile(), fileDetails.getRelativePath()));
+        if (executorFactory == null || parentWorkerLease == null || maxThreads <= 1) {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                @Override
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    testFrameworkDetector.processTestClass(new RelativeFile(fileDetails.getFile(), fileDetails.getRelativePath()));
+                }
+            });
+            return;
+        }
+
+        final BlockingQueue<RelativeFile> classFiles = new LinkedBlockingQueue<RelativeFile>();
+        ManagedExecutor executor = executorFactory.create("Test class detection", maxThreads);
+        try {
+            for (int i = 0; i < maxThreads; i++) {
+                executor.execute(new DetectionWorker(classFiles));
             }
-        });
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                @Override
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    classFiles.add(new RelativeFile(fileDetails.getFile(), fileDetails.getRelativePath()));
+                }
+            });
+        } finally {
+            for (int i = 0; i < maxThreads; i++) {
+                classFiles.add(END_OF_CLASS_FILES);
+            }
+            // Waits for the queued class files and rethrows any failure
+            executor.stop();
+        }
+    }
+
+    /**
+     * Passes class files to the detector until the end of the class files is reached. Holds a worker lease while doing so.
+     */
+    private class DetectionWorker implements Runnable {
+        private final BlockingQueue<RelativeFile> classFiles;
+
+        DetectionWorker(BlockingQueue<RelativeFile> classFiles) {
+            this.classFiles = classFiles;
+        }
+
+        @Override
+        public void run() {
+            WorkerLeaseRegistry.WorkerLeaseCompletion workerLease = parentWorkerLease.startChild();
+            try {
+                while (true) {
+                    RelativeFile classFile = classFiles.take();
+                    if (classFile == END_OF_CLASS_FILES) {
+                        return;
+                    }
+                    testFrameworkDetector.processTestClass(classFile);
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } finally {
+                workerLease.leaseFinish();
+            }
+        }
     }
 
     private void filenameScan() {
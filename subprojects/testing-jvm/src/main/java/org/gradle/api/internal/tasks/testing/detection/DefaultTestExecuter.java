@@ -27,16 +27,21 @@
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
+import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.PatternMatchTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RunPreviousFailedFirstTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.TestClassDurations;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.worker.ReusableTestWorkerPool;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.Factory;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.time.Clock;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
@@ -52,6 +57,12 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
 
     private static final Logger LOGGER = Logging.getLogger(DefaultTestExecuter.class);
 
+    /**
+     * When set to true, test worker processes are kept alive after a test task has executed, and are reused by later executions
+     * with the same fork options and classpath.
+     */
+    public static final String REUSE_TEST_WORKERS_PROPERTY = "org.gradle.internal.testing.reuse-workers";
+
     private final WorkerProcessFactory workerFactory;
     private final ActorFactory actorFactory;
     private final ModuleRegistry moduleRegistry;
@@ -60,11 +71,17 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
     private final Clock clock;
     private final DocumentationRegistry documentationRegistry;
     private final DefaultTestFilter testFilter;
+    private final TestClassDetectionCache detectionCache;
+    private final FileHasher fileHasher;
+    private final ExecutorFactory executorFactory;
+    private final ReusableTestWorkerPool workerPool;
     private TestClassProcessor processor;
 
     public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry,
                                WorkerLeaseRegistry workerLeaseRegistry, int maxWorkerCount,
-                               Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter) {
+                               Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter,
+                               TestClassDetectionCache detectionCache, FileHasher fileHasher, ExecutorFactory executorFactory,
+                               ReusableTestWorkerPool workerPool) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
         this.moduleRegistry = moduleRegistry;
@@ -73,6 +90,10 @@ public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory acto
         this.clock = clock;
         this.documentationRegistry = documentationRegistry;
         this.testFilter = testFilter;
+        this.detectionCache = detectionCache;
+        this.fileHasher = fileHasher;
+        this.executorFactory = executorFactory;
+        this.workerPool = workerPool;
     }
 
     @Override
@@ -83,11 +104,12 @@ public void execute(final JvmTestExecutionSpec testExecutionSpec, TestResultProc
         final Set<File> classpath = ImmutableSet.copyOf(testExecutionSpec.getClasspath());
         final Set<File> modulePath = ImmutableSet.copyOf(testExecutionSpec.getModulePath());
         final List<String> testWorkerImplementationModules = testFramework.getTestWorkerImplementationModules();
+        final ReusableTestWorkerPool reusableWorkers = canReuseWorkers(testExecutionSpec) ? workerPool : null;
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             @Override
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(currentWorkerLease, workerFactory, testInstanceFactory, testExecutionSpec.getJavaForkOptions(),
-                    classpath, modulePath, testWorkerImplementationModules, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry);
+                    classpath, modulePath, testWorkerImplementationModules, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry, reusableWorkers);
             }
         };
         final Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -96,10 +118,14 @@ public TestClassProcessor create() {
                 return new RestartEveryNTestClassProcessor(forkingProcessorFactory, testExecutionSpec.getForkEvery());
             }
         };
-        processor =
-            new PatternMatchTestClassProcessor(testFilter,
-                new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
-                    new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory)));
+        int maxParallelForks = getMaxParallelForks(testExecutionSpec);
+        // Start the slowest test classes first, so they do not end up running alone at the end
+        TestClassDurations durations = maxParallelForks > 1 ? new TestClassDurations(testExecutionSpec.getPreviousTestClassDurations()) : TestClassDurations.EMPTY;
+        Set<String> previousFailedTestClasses = testExecutionSpec.getPreviousFailedTestClasses();
+        TestClassProcessor parallelProcessor =
+            new RunPreviousFailedFirstTestClassProcessor(previousFailedTestClasses,
+                new MaxNParallelTestClassProcessor(maxParallelForks, reforkingProcessorFactory, actorFactory, durations, isExecutingTestClassesIncrementally(testFramework), previousFailedTestClasses));
+        processor = new PatternMatchTestClassProcessor(testFilter, parallelProcessor);
 
         final FileTree testClassFiles = testExecutionSpec.getCandidateClassFiles();
 
@@ -108,7 +134,8 @@ public TestClassProcessor create() {
             TestFrameworkDetector testFrameworkDetector = testFramework.getDetector();
             testFrameworkDetector.setTestClasses(testExecutionSpec.getTestClassesDirs().getFiles());
             testFrameworkDetector.setTestClasspath(classpath);
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            testFrameworkDetector.setDetectionCache(detectionCache, fileHasher);
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor, executorFactory, currentWorkerLease, maxWorkerCount);
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
         }
@@ -123,6 +150,19 @@ public void stopNow() {
         }
     }
 
+    private static boolean canReuseWorkers(JvmTestExecutionSpec testExecutionSpec) {
+        if (!Boolean.getBoolean(REUSE_TEST_WORKERS_PROPERTY) || testExecutionSpec.getForkEvery() > 0 || testExecutionSpec.getJavaForkOptions().getDebug()) {
+            return false;
+        }
+        for (String jvmArg : testExecutionSpec.getJavaForkOptions().getAllJvmArgs()) {
+            // Agents, such as the JaCoCo one, usually only write their results when the process exits
+            if (jvmArg.startsWith("-javaagent:") || jvmArg.startsWith("-agentlib:") || jvmArg.startsWith("-agentpath:")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private int getMaxParallelForks(JvmTestExecutionSpec testExecutionSpec) {
         int maxParallelForks = testExecutionSpec.getMaxParallelForks();
         if (maxParallelForks > maxWorkerCount) {
@@ -131,4 +171,13 @@ private int getMaxParallelForks(JvmTestExecutionSpec testExecutionSpec) {
         }
         return maxParallelForks;
     }
+
+    /**
+     * Returns true when the test class processor created in each worker process executes each test class as soon as it receives it,
+     * and reports the completion of that test class before executing the next one. Test classes can then be handed to the worker
+     * processes as they become idle. JUnit Platform and TestNG collect the test classes and only execute them when the processor is stopped.
+     */
+    private static boolean isExecutingTestClassesIncrementally(TestFramework testFramework) {
+        return testFramework instanceof JUnitTestFramework;
+    }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.cache.internal.CrossBuildInMemoryCache;
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
+import org.gradle.internal.hash.HashCode;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Retains what test detection read from each class file, keyed by the detector type and the content hash of the class file,
+ * so that unchanged class files are not parsed again by later test executions in the same daemon.
+ */
+@ThreadSafe
+public class TestClassDetectionCache {
+    private final CrossBuildInMemoryCache<HashCode, AbstractTestFrameworkDetector.TestClass> testClasses;
+
+    public TestClassDetectionCache(CrossBuildInMemoryCacheFactory cacheFactory) {
+        this.testClasses = cacheFactory.newCache();
+    }
+
+    @Nullable
+    AbstractTestFrameworkDetector.TestClass get(HashCode key) {
+        return testClasses.get(key);
+    }
+
+    void put(HashCode key, AbstractTestFrameworkDetector.TestClass testClass) {
+        testClasses.put(key, testClass);
+    }
+}
@@ -17,6 +17,7 @@
 
 import org.gradle.api.internal.file.RelativeFile;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.internal.hash.FileHasher;
 
 import java.io.File;
 import java.util.Set;
@@ -24,9 +25,18 @@
 public interface TestFrameworkDetector {
     void startDetection(TestClassProcessor testClassProcessor);
 
+    /**
+     * Checks whether the given class file is a test class, and passes it to the test class processor if so.
+     * May be called concurrently for different class files.
+     */
     boolean processTestClass(RelativeFile testClassFile);
 
     void setTestClasses(Set<File> testClasses);
 
     void setTestClasspath(Set<File> classpath);
+
+    /**
+     * Reuses the information read from unchanged class files by previous detections.
+     */
+    void setDetectionCache(TestClassDetectionCache detectionCache, FileHasher fileHasher);
 }
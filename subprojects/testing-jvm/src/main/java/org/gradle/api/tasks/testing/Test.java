@@ -34,12 +34,14 @@
 import org.gradle.api.internal.tasks.testing.TestExecuter;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultSerializer;
 import org.gradle.api.internal.tasks.testing.junitplatform.JUnitPlatformTestFramework;
 import org.gradle.api.internal.tasks.testing.testng.TestNGTestFramework;
+import org.gradle.api.internal.tasks.testing.worker.ReusableTestWorkerPool;
 import org.gradle.api.jvm.ModularitySpec;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.Property;
@@ -64,7 +66,9 @@
 import org.gradle.internal.Cast;
 import org.gradle.internal.Factory;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.deprecation.DeprecationLogger;
+import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.jvm.DefaultModularitySpec;
 import org.gradle.internal.jvm.JavaModuleDetector;
 import org.gradle.internal.jvm.Jvm;
@@ -85,7 +89,7 @@
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -640,7 +644,8 @@ protected JvmTestExecutionSpec createTestExecutionSpec() {
         boolean testIsModule = javaModuleDetector.isModule(modularity.getInferModulePath().get(), getTestClassesDirs());
         FileCollection classpath = javaModuleDetector.inferClasspath(testIsModule, stableClasspath);
         FileCollection modulePath = javaModuleDetector.inferModulePath(testIsModule, stableClasspath);
-        return new JvmTestExecutionSpec(getTestFramework(), classpath, modulePath, getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), getPreviousFailedTestClasses());
+        PreviousTestClassResults previousResults = getPreviousTestClassResults();
+        return new JvmTestExecutionSpec(getTestFramework(), classpath, modulePath, getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), previousResults.failedTestClasses, previousResults.testClassDurations);
     }
 
     private void validateToolchainConfiguration() {
@@ -649,21 +654,25 @@ private void validateToolchainConfiguration() {
         }
     }
 
-    private Set<String> getPreviousFailedTestClasses() {
+    private PreviousTestClassResults getPreviousTestClassResults() {
         TestResultSerializer serializer = new TestResultSerializer(getBinResultsDir());
+        PreviousTestClassResults results = new PreviousTestClassResults();
         if (serializer.isHasResults()) {
-            final Set<String> previousFailedTestClasses = new HashSet<String>();
-            serializer.read(new Action<TestClassResult>() {
-                @Override
-                public void execute(TestClassResult testClassResult) {
-                    if (testClassResult.getFailuresCount() > 0) {
-                        previousFailedTestClasses.add(testClassResult.getClassName());
-                    }
-                }
-            });
-            return previousFailedTestClasses;
-        } else {
-            return Collections.emptySet();
+            serializer.read(results);
+        }
+        return results;
+    }
+
+    private static class PreviousTestClassResults implements Action<TestClassResult> {
+        private final Set<String> failedTestClasses = new HashSet<String>();
+        private final Map<String, Long> testClassDurations = new HashMap<String, Long>();
+
+        @Override
+        public void execute(TestClassResult testClassResult) {
+            if (testClassResult.getFailuresCount() > 0) {
+                failedTestClasses.add(testClassResult.getClassName());
+            }
+            testClassDurations.put(testClassResult.getClassName(), testClassResult.getDuration());
         }
     }
 
@@ -694,7 +703,11 @@ protected TestExecuter<JvmTestExecutionSpec> createTestExecuter() {
                 getServices().get(StartParameter.class).getMaxWorkerCount(),
                 getServices().get(Clock.class),
                 getServices().get(DocumentationRegistry.class),
-                (DefaultTestFilter) getFilter());
+                (DefaultTestFilter) getFilter(),
+                getServices().get(TestClassDetectionCache.class),
+                getServices().get(FileHasher.class),
+                getServices().get(ExecutorFactory.class),
+                getServices().get(ReusableTestWorkerPool.class));
         } else {
             return testExecuter;
         }
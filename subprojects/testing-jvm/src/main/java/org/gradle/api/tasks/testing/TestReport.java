@@ -136,7 +136,7 @@ void generateReport() {
         TestResultsProvider resultsProvider = createAggregateProvider();
         try {
             if (resultsProvider.isHasResults()) {
-                DefaultTestReport testReport = new DefaultTestReport(getBuildOperationExecutor());
+                DefaultTestReport testReport = new DefaultTestReport(getBuildOperationExecutor(), new File(getTemporaryDir(), "html-report-class-pages.bin"));
                 testReport.generateReport(resultsProvider, getDestinationDir());
             } else {
                 getLogger().info("{} - no binary test results found in dirs: {}.", getPath(), getTestResultDirs().getFiles());
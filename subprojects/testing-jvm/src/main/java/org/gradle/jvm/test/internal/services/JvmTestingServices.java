@@ -16,13 +16,33 @@
 
 package org.gradle.jvm.test.internal.services;
 
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
+import org.gradle.api.internal.tasks.testing.worker.ReusableTestWorkerPool;
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.AbstractPluginServiceRegistry;
 import org.gradle.jvm.test.internal.JUnitTestSuiteBinaryRenderer;
+import org.gradle.process.internal.health.memory.MemoryManager;
 
 public class JvmTestingServices extends AbstractPluginServiceRegistry {
     @Override
     public void registerGlobalServices(ServiceRegistration registration) {
         registration.add(JUnitTestSuiteBinaryRenderer.class);
     }
+
+    @Override
+    public void registerGradleUserHomeServices(ServiceRegistration registration) {
+        registration.addProvider(new GradleUserHomeServices());
+    }
+
+    private static class GradleUserHomeServices {
+        TestClassDetectionCache createTestClassDetectionCache(CrossBuildInMemoryCacheFactory cacheFactory) {
+            return new TestClassDetectionCache(cacheFactory);
+        }
+
+        ReusableTestWorkerPool createReusableTestWorkerPool(ExecutorFactory executorFactory, MemoryManager memoryManager) {
+            return new ReusableTestWorkerPool(executorFactory, memoryManager);
+        }
+    }
 }
@@ -22,6 +22,8 @@ import org.gradle.api.file.FileVisitor
 import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.file.DefaultFileVisitDetails
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.work.WorkerLeaseRegistry
 import org.junit.Test
 import spock.lang.Specification
 import spock.lang.Subject
@@ -78,6 +80,30 @@ class DefaultTestClassScannerTest extends Specification {
         0 * _._
     }
 
+    @Test
+    void passesClassFilesToTestClassDetectorFromMultipleThreads() {
+        given:
+        def workerLease = Mock(WorkerLeaseRegistry.WorkerLease)
+        def workerLeaseCompletion = Mock(WorkerLeaseRegistry.WorkerLeaseCompletion)
+        def parallelScanner = new DefaultTestClassScanner(files, detector, processor, new DefaultExecutorFactory(), workerLease, 4)
+        def classFiles = (1..20).collect { stubFileVisitDetails("class$it") }
+
+        when:
+        parallelScanner.run()
+
+        then:
+        1 * detector.startDetection(processor)
+        1 * files.visit(_) >> { args ->
+            FileVisitor visitor = args[0]
+            classFiles.each { visitor.visitFile(it) }
+        }
+        20 * detector.processTestClass(_)
+        4 * workerLease.startChild() >> workerLeaseCompletion
+        4 * workerLeaseCompletion.leaseFinish()
+
+        0 * _._
+    }
+
     FileVisitDetails stubFileVisitDetails(String className) {
         return new DefaultFileVisitDetails(new File("${className}.class"), new RelativePath(false, "${className}.class"), null, null, null)
     }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.RelativeFile
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.junit.ATestClass
+import org.gradle.api.internal.tasks.testing.junit.JUnitDetector
+import org.gradle.cache.internal.TestCrossBuildInMemoryCacheFactory
+import org.gradle.internal.Factory
+import org.gradle.internal.hash.FileHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestClassDetectionCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider(getClass())
+    def cache = new TestClassDetectionCache(new TestCrossBuildInMemoryCacheFactory())
+    def fileHasher = Mock(FileHasher)
+    def processor = Mock(TestClassProcessor)
+
+    def "reuses what was read from a class file with unchanged content hash"() {
+        def classFile = tmp.file("SomeTest.class")
+        classFile.bytes = classBytes(ATestClass)
+
+        when:
+        detect(classFile)
+
+        then:
+        1 * fileHasher.hash(classFile) >> HashCode.fromInt(1)
+        1 * processor.processTestClass(new DefaultTestClassRunInfo(ATestClass.name))
+        0 * _
+
+        when:
+        // The class file is not read again, so the change goes unnoticed
+        classFile.bytes = classBytes(TestClassDetectionCache)
+        detect(classFile)
+
+        then:
+        1 * fileHasher.hash(classFile) >> HashCode.fromInt(1)
+        1 * processor.processTestClass(new DefaultTestClassRunInfo(ATestClass.name))
+        0 * _
+    }
+
+    def "reads class file again when its content hash changes"() {
+        def classFile = tmp.file("SomeTest.class")
+        classFile.bytes = classBytes(ATestClass)
+
+        when:
+        detect(classFile)
+
+        then:
+        1 * fileHasher.hash(classFile) >> HashCode.fromInt(1)
+        1 * processor.processTestClass(new DefaultTestClassRunInfo(ATestClass.name))
+        0 * _
+
+        when:
+        classFile.bytes = classBytes(TestClassDetectionCache)
+        detect(classFile)
+
+        then:
+        1 * fileHasher.hash(classFile) >> HashCode.fromInt(2)
+        0 * _
+    }
+
+    private void detect(TestFile classFile) {
+        def detector = new JUnitDetector(new ClassFileExtractionManager({ tmp.createDir("tmp") } as Factory))
+        detector.setDetectionCache(cache, fileHasher)
+        detector.startDetection(processor)
+        detector.processTestClass(new RelativeFile(classFile, RelativePath.parse(true, classFile.name)))
+    }
+
+    private static byte[] classBytes(Class<?> type) {
+        return type.getResourceAsStream("/${type.name.replace('.', '/')}.class").bytes
+    }
+}
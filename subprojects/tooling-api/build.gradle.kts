@@ -20,6 +20,7 @@ plugins {
     id("gradlebuild.distribution.api-java")
     id("gradlebuild.publish-public-libraries")
     id("gradlebuild.shaded-jar")
+    id("gradlebuild.jmh")
 }
 
 shadedJar {
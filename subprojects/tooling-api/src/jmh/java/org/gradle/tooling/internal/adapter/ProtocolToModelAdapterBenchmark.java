@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.adapter;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures adapting a model graph shaped like an IDE model of a large build, and querying the adapted views.
+ * Run with {@code -prof gc} to also see the memory allocated per adapted graph. The memory retained per adapted graph
+ * is reported by {@link #retainAdapted(RetainedHeap, Blackhole)}.
+ */
+@Fork(2)
+@Threads(2)
+@Warmup(iterations = 5)
+@State(Scope.Benchmark)
+public class ProtocolToModelAdapterBenchmark {
+    private static final int RETAINED_GRAPH_COUNT = 20;
+
+    @Param({"100", "1000"})
+    private int moduleCount;
+
+    private final ProtocolToModelAdapter adapter = new ProtocolToModelAdapter();
+    private ProtocolProject project;
+    private Project adaptedProject;
+
+    @Setup(Level.Trial)
+    public void createModel() {
+        project = new ProtocolProject();
+        for (int i = 0; i < moduleCount; i++) {
+            ProtocolModule module = new ProtocolModule("module" + i);
+            for (int j = Math.max(0, i - 10); j < i; j++) {
+                module.dependencies.add(project.modules.get(j));
+            }
+            project.modules.add(module);
+        }
+        adaptedProject = adapter.adapt(Project.class, project);
+    }
+
+    @Benchmark
+    public void adaptAndTraverse(Blackhole bh) {
+        traverse(adapter.adapt(Project.class, project), bh);
+    }
+
+    @Benchmark
+    public void traverseAdapted(Blackhole bh) {
+        traverse(adaptedProject, bh);
+    }
+
+    /**
+     * Adapts and traverses a number of graphs, keeping them reachable, and reports the growth of the used heap after a full GC
+     * as the {@code retainedBytesPerGraph} secondary result. The time taken is not meaningful, as it includes the GCs.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Threads(1)
+    @Measurement(iterations = 10)
+    public Object retainAdapted(RetainedHeap retainedHeap, Blackhole bh) {
+        long before = usedHeapAfterGc();
+        Project[] adapted = new Project[RETAINED_GRAPH_COUNT];
+        for (int i = 0; i < adapted.length; i++) {
+            adapted[i] = adapter.adapt(Project.class, project);
+            // Traverse the graph, so that the views hold the values they cache
+            traverse(adapted[i], bh);
+        }
+        long after = usedHeapAfterGc();
+        retainedHeap.retainedBytesPerGraph = (after - before) / adapted.length;
+        return adapted;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void traverse(Project project, Blackhole bh) {
+        for (Module module : project.getModules()) {
+            bh.consume(module.getName());
+            bh.consume(module.getDescription());
+            for (Module dependency : module.getDependencies()) {
+                bh.consume(dependency.getName());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RetainedHeap {
+        public long retainedBytesPerGraph;
+    }
+
+    public interface Project {
+        List<? extends Module> getModules();
+    }
+
+    public interface Module {
+        String getName();
+
+        String getDescription();
+
+        List<? extends Module> getDependencies();
+    }
+
+    public static class ProtocolProject {
+        private final List<ProtocolModule> modules = new ArrayList<ProtocolModule>();
+
+        public List<ProtocolModule> getModules() {
+            return modules;
+        }
+    }
+
+    public static class ProtocolModule {
+        private final String name;
+        private final List<ProtocolModule> dependencies = new ArrayList<ProtocolModule>();
+
+        ProtocolModule(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return "Module " + name;
+        }
+
+        public List<ProtocolModule> getDependencies() {
+            return dependencies;
+        }
+    }
+}
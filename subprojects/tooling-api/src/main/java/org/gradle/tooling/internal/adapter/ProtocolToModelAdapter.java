@@ -42,11 +42,13 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -479,9 +481,12 @@ public void invoke(MethodInvocation invocation) throws Throwable {
         }
     }
 
+    /**
+     * Caches the source method to use for a given view method. Lookups do not lock, as views are typically queried concurrently
+     * by the IDE and every call on a view goes through this cache.
+     */
     private static class MethodInvocationCache {
-        private final Map<MethodInvocationKey, Optional<Method>> store = new HashMap<MethodInvocationKey, Optional<Method>>();
-        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final ConcurrentMap<MethodInvocationKey, Optional<Method>> store = new ConcurrentHashMap<MethodInvocationKey, Optional<Method>>();
         private final static long MINIMAL_CLEANUP_INTERVAL = 30000;
 
         // For stats we don't really care about thread safety
@@ -491,16 +496,12 @@ private static class MethodInvocationCache {
 
         private CountdownTimer cleanupTimer = Time.startCountdownTimer(MINIMAL_CLEANUP_INTERVAL);
 
-        private static class MethodInvocationKey {
-            private final SoftReference<Class<?>> lookupClass;
+        private static abstract class MethodInvocationKey {
             private final String methodName;
-            private final SoftReference<Class<?>[]> parameterTypes;
             private final int hashCode;
 
             private MethodInvocationKey(Class<?> lookupClass, String methodName, Class<?>[] parameterTypes) {
-                this.lookupClass = new SoftReference<Class<?>>(lookupClass);
                 this.methodName = methodName;
-                this.parameterTypes = new SoftReference<Class<?>[]>(parameterTypes);
                 // hashcode will always be used, so we precompute it in order to make sure we
                 // won't compute it multiple times during comparisons
                 int result = lookupClass != null ? lookupClass.hashCode() : 0;
@@ -509,8 +510,14 @@ private MethodInvocationKey(Class<?> lookupClass, String methodName, Class<?>[]
                 this.hashCode = result;
             }
 
+            @Nullable
+            protected abstract Class<?> getLookupClass();
+
+            @Nullable
+            protected abstract Class<?>[] getParameterTypes();
+
             public boolean isDirty() {
-                return lookupClass.get() == null || parameterTypes.get() == null;
+                return getLookupClass() == null || getParameterTypes() == null;
             }
 
             @Override
@@ -518,7 +525,7 @@ public boolean equals(Object o) {
                 if (this == o) {
                     return true;
                 }
-                if (o == null || getClass() != o.getClass()) {
+                if (!(o instanceof MethodInvocationKey)) {
                     return false;
                 }
 
@@ -527,20 +534,17 @@ public boolean equals(Object o) {
                 if (isDirty() && that.isDirty()) {
                     return true;
                 }
-                if (!eq(lookupClass, that.lookupClass)) {
+                if (hashCode != that.hashCode) {
+                    return false;
+                }
+                if (!eq(getLookupClass(), that.getLookupClass())) {
                     return false;
                 }
                 if (!methodName.equals(that.methodName)) {
                     return false;
                 }
-                return eq(parameterTypes, that.parameterTypes);
-
-            }
+                return eq(getParameterTypes(), that.getParameterTypes());
 
-            private static boolean eq(SoftReference<?> aRef, SoftReference<?> bRef) {
-                Object a = aRef.get();
-                Object b = bRef.get();
-                return eq(a, b);
             }
 
             private static boolean eq(Object a, Object b) {
@@ -562,63 +566,93 @@ public int hashCode() {
             }
         }
 
+        /**
+         * A key used to query the cache. Holds on to the types strongly, so that querying the cache does not allocate any references.
+         */
+        private static class LookupKey extends MethodInvocationKey {
+            private final Class<?> lookupClass;
+            private final Class<?>[] parameterTypes;
+
+            private LookupKey(Class<?> lookupClass, String methodName, Class<?>[] parameterTypes) {
+                super(lookupClass, methodName, parameterTypes);
+                this.lookupClass = lookupClass;
+                this.parameterTypes = parameterTypes;
+            }
+
+            @Override
+            protected Class<?> getLookupClass() {
+                return lookupClass;
+            }
+
+            @Override
+            protected Class<?>[] getParameterTypes() {
+                return parameterTypes;
+            }
+        }
+
+        /**
+         * A key stored in the cache. Does not prevent the types from being collected.
+         */
+        private static class StoredKey extends MethodInvocationKey {
+            private final SoftReference<Class<?>> lookupClass;
+            private final SoftReference<Class<?>[]> parameterTypes;
+
+            private StoredKey(Class<?> lookupClass, String methodName, Class<?>[] parameterTypes) {
+                super(lookupClass, methodName, parameterTypes);
+                this.lookupClass = new SoftReference<Class<?>>(lookupClass);
+                this.parameterTypes = new SoftReference<Class<?>[]>(parameterTypes);
+            }
+
+            @Override
+            protected Class<?> getLookupClass() {
+                return lookupClass.get();
+            }
+
+            @Override
+            protected Class<?>[] getParameterTypes() {
+                return parameterTypes.get();
+            }
+        }
+
         public Method get(MethodInvocation invocation) {
             Class<?> owner = invocation.getDelegate().getClass();
             String name = invocation.getName();
             Class<?>[] parameterTypes = invocation.getParameterTypes();
-            MethodInvocationKey key = new MethodInvocationKey(
-                owner,
-                name,
-                parameterTypes
-            );
-            lock.readLock().lock();
-            Optional<Method> cached = store.get(key);
+            Optional<Method> cached = store.get(new LookupKey(owner, name, parameterTypes));
             if (cached == null) {
                 cacheMiss++;
-                lock.readLock().unlock();
-                lock.writeLock().lock();
-                try {
-                    cached = store.get(key);
-                    if (cached == null) {
-                        cached = lookup(owner, name, parameterTypes);
-                        if (cacheMiss % 10 == 0) {
-                            removeDirtyEntries();
-                        }
-                        store.put(key, cached);
-                    }
-                    lock.readLock().lock();
-                } finally {
-                    lock.writeLock().unlock();
+                cached = lookup(owner, name, parameterTypes);
+                if (cacheMiss % 10 == 0) {
+                    removeDirtyEntries();
+                }
+                Optional<Method> existing = store.putIfAbsent(new StoredKey(owner, name, parameterTypes), cached);
+                if (existing != null) {
+                    cached = existing;
                 }
             } else {
                 cacheHit++;
             }
-            try {
-                return cached.orNull();
-            } finally {
-                lock.readLock().unlock();
-            }
+            return cached.orNull();
         }
 
         /**
          * Removes dirty entries from the cache. Calling System.currentTimeMillis() is costly so we should try to limit calls to this method. This method will only trigger cleanup at most once per
          * 30s.
          */
-        private void removeDirtyEntries() {
+        private synchronized void removeDirtyEntries() {
             if (!cleanupTimer.hasExpired()) {
                 return;
             }
-            lock.writeLock().lock();
             try {
-                for (MethodInvocationKey key : new LinkedList<MethodInvocationKey>(store.keySet())) {
-                    if (key.isDirty()) {
+                Iterator<MethodInvocationKey> keys = store.keySet().iterator();
+                while (keys.hasNext()) {
+                    if (keys.next().isDirty()) {
                         evict++;
-                        store.remove(key);
+                        keys.remove();
                     }
                 }
             } finally {
                 cleanupTimer.reset();
-                lock.writeLock().unlock();
             }
         }
 
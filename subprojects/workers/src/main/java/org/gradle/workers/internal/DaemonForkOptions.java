@@ -21,6 +21,8 @@
 import org.gradle.process.JavaForkOptions;
 import org.gradle.process.internal.JavaForkOptionsInternal;
 
+import java.util.Arrays;
+
 public class DaemonForkOptions {
     private final JavaForkOptionsInternal forkOptions;
     private final KeepAliveMode keepAliveMode;
@@ -46,6 +48,15 @@ public ClassLoaderStructure getClassLoaderStructure() {
         return classLoaderStructure;
     }
 
+    /**
+     * Returns a key that is equal for all options that are compatible with each other, so worker daemons can be indexed by it.
+     * Options with the same key are not necessarily compatible, as {@link #isCompatibleWith(DaemonForkOptions)} also accepts
+     * options that ask for less memory, or for a subset of the JVM arguments.
+     */
+    public Object getCompatibilityKey() {
+        return Arrays.asList(forkOptions.getExecutable(), forkOptions.getWorkingDir(), keepAliveMode, classLoaderStructure);
+    }
+
     public boolean isCompatibleWith(DaemonForkOptions other) {
         return forkOptions.isCompatibleWith(other.forkOptions)
                 && keepAliveMode == other.getKeepAliveMode()
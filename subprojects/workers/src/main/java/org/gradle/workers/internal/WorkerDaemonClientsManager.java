@@ -16,7 +16,11 @@
 
 package org.gradle.workers.internal;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
 import org.gradle.api.Action;
 import org.gradle.api.Transformer;
 import org.gradle.api.logging.LogLevel;
@@ -24,6 +28,8 @@
 import org.gradle.api.logging.Logging;
 import org.gradle.initialization.SessionLifecycleListener;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.exceptions.DefaultMultiCauseException;
@@ -31,24 +37,44 @@
 import org.gradle.internal.logging.events.LogLevelChangeEvent;
 import org.gradle.internal.logging.events.OutputEvent;
 import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.time.Timer;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.health.memory.OsMemoryInfo;
 import org.gradle.process.internal.worker.WorkerProcess;
 import org.gradle.util.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.Comparator.*;
 
 public class WorkerDaemonClientsManager implements Stoppable {
 
     private static final Logger LOGGER = Logging.getLogger(WorkerDaemonClientsManager.class);
+    public static final String DISABLE_PREWARMING_PROPERTY_KEY = "org.gradle.workers.internal.disable-daemons-prewarming";
 
     private final Object lock = new Object();
     private final List<WorkerDaemonClient> allClients = new ArrayList<WorkerDaemonClient>();
     private final List<WorkerDaemonClient> idleClients = new ArrayList<WorkerDaemonClient>();
+    // Idle clients indexed by the compatibility key of their fork options, in the same order as idleClients
+    private final ListMultimap<Object, WorkerDaemonClient> idleClientsByKey = ArrayListMultimap.create();
+    private final Map<WorkerDaemonClient, Object> clientKeys = new HashMap<>();
+    // Number of daemons being started in the background, by compatibility key
+    private final Multiset<Object> pendingStarts = HashMultiset.create();
+    // Demand for daemons by compatibility key, with one entry for each distinct set of fork options
+    private ListMultimap<Object, DaemonDemand> sessionDemand = ArrayListMultimap.create();
+    private ListMultimap<Object, DaemonDemand> previousSessionDemand = ArrayListMultimap.create();
+    private final Map<WorkerDaemonClient, DaemonDemand> busyClients = new HashMap<>();
+    private int hits;
+    private int misses;
+    private int prewarmed;
+    private long startupWaitMillis;
+    private boolean stopped;
     private final Action<WorkerProcess> workerProcessCleanupAction = new WorkerProcessCleanupAction();
 
     private final WorkerDaemonStarter workerDaemonStarter;
@@ -59,9 +85,18 @@ public class WorkerDaemonClientsManager implements Stoppable {
     private final OutputEventListener logLevelChangeEventListener;
     private final WorkerDaemonExpiration workerDaemonExpiration;
     private final MemoryManager memoryManager;
+    private final ManagedExecutor prewarmExecutor;
     private volatile LogLevel currentLogLevel;
 
     public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo) {
+        this(workerDaemonStarter, listenerManager, loggingManager, memoryManager, memoryInfo, null);
+    }
+
+    /**
+     * @param executorFactory used to start the worker daemons that the previous build session needed when a new session starts, or null to only start daemons on demand.
+     */
+    public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo, @Nullable ExecutorFactory executorFactory) {
+        this.prewarmExecutor = executorFactory == null || Boolean.getBoolean(DISABLE_PREWARMING_PROPERTY_KEY) ? null : executorFactory.create("Worker daemon pre-start");
         this.workerDaemonStarter = workerDaemonStarter;
         this.listenerManager = listenerManager;
         this.loggingManager = loggingManager;
@@ -76,9 +111,38 @@ public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, Liste
         memoryManager.addMemoryHolder(workerDaemonExpiration);
     }
 
+    /**
+     * Reserves an idle client that is compatible with the given options. When a compatible client is being started in the background, waits for it.
+     */
     // TODO - should supply and check for the same parameters as passed to reserveNewClient()
+    @Nullable
     public WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions) {
-        return reserveIdleClient(forkOptions, idleClients);
+        Object key = forkOptions.getCompatibilityKey();
+        Timer timer = null;
+        synchronized (lock) {
+            while (true) {
+                WorkerDaemonClient client = reserveIdleClient(forkOptions, idleClientsByKey.get(key));
+                if (client != null) {
+                    hits++;
+                    if (timer != null) {
+                        startupWaitMillis += timer.getElapsedMillis();
+                    }
+                    recordBusy(client, key, forkOptions);
+                    return client;
+                }
+                if (!pendingStarts.contains(key)) {
+                    return null;
+                }
+                if (timer == null) {
+                    timer = Time.startTimer();
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        }
     }
 
     WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<WorkerDaemonClient> clients) {
@@ -88,9 +152,12 @@ WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<WorkerD
                 WorkerDaemonClient candidate = it.next();
                 if (candidate.isCompatibleWith(forkOptions)) {
                     it.remove();
+                    idleClients.remove(candidate);
                     if (candidate.getLogLevel() != currentLogLevel) {
                         // TODO: Send a message to workers to change their log level rather than stopping
                         LOGGER.info("Log level has changed, stopping idle worker daemon with out-of-date log level.");
+                        allClients.remove(candidate);
+                        clientKeys.remove(candidate);
                         candidate.stop();
                     } else {
                         return candidate;
@@ -103,27 +170,135 @@ WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<WorkerD
 
     public WorkerDaemonClient reserveNewClient(DaemonForkOptions forkOptions) {
         //allow the daemon to be started concurrently
+        Timer timer = Time.startTimer();
         WorkerDaemonClient client = workerDaemonStarter.startDaemon(forkOptions, workerProcessCleanupAction);
         synchronized (lock) {
+            Object key = forkOptions.getCompatibilityKey();
             allClients.add(client);
+            clientKeys.put(client, key);
+            misses++;
+            startupWaitMillis += timer.getElapsedMillis();
+            recordBusy(client, key, forkOptions);
         }
         return client;
     }
 
     public void release(WorkerDaemonClient client) {
         synchronized (lock) {
+            Object key = clientKeys.get(client);
+            DaemonDemand demand = busyClients.remove(client);
+            if (demand != null && demand.busy > 0) {
+                demand.busy--;
+            }
             if (!client.isFailed()) {
-                idleClients.add(client);
+                addIdleClient(client, key);
+            }
+        }
+    }
+
+    public WorkerDaemonPoolStatistics getStatistics() {
+        synchronized (lock) {
+            return new WorkerDaemonPoolStatistics(hits, misses, prewarmed, startupWaitMillis);
+        }
+    }
+
+    private void addIdleClient(WorkerDaemonClient client, Object key) {
+        idleClients.add(client);
+        idleClientsByKey.put(key, client);
+    }
+
+    private void recordBusy(WorkerDaemonClient client, Object key, DaemonForkOptions forkOptions) {
+        DaemonDemand demand = null;
+        for (DaemonDemand candidate : sessionDemand.get(key)) {
+            if (candidate.isFor(forkOptions)) {
+                demand = candidate;
+                break;
+            }
+        }
+        if (demand == null) {
+            demand = new DaemonDemand(forkOptions);
+            sessionDemand.put(key, demand);
+        }
+        demand.busy++;
+        demand.peak = Math.max(demand.peak, demand.busy);
+        busyClients.put(client, demand);
+    }
+
+    /**
+     * Starts in the background as many daemons for each set of fork options as were used concurrently in the previous session,
+     * minus the compatible ones that are still alive.
+     */
+    private void prewarm() {
+        if (prewarmExecutor == null) {
+            return;
+        }
+        synchronized (lock) {
+            for (final Object key : previousSessionDemand.keySet()) {
+                List<WorkerDaemonClient> unclaimedClients = new ArrayList<>(idleClientsByKey.get(key));
+                int unclaimedPendingStarts = pendingStarts.count(key);
+                for (DaemonDemand demand : previousSessionDemand.get(key)) {
+                    final DaemonForkOptions forkOptions = demand.forkOptions;
+                    int available = 0;
+                    Iterator<WorkerDaemonClient> it = unclaimedClients.iterator();
+                    while (available < demand.peak && it.hasNext()) {
+                        if (it.next().isCompatibleWith(forkOptions)) {
+                            it.remove();
+                            available++;
+                        }
+                    }
+                    int claimedPendingStarts = Math.min(unclaimedPendingStarts, demand.peak - available);
+                    unclaimedPendingStarts -= claimedPendingStarts;
+                    available += claimedPendingStarts;
+                    for (int i = available; i < demand.peak; i++) {
+                        pendingStarts.add(key);
+                        prewarmExecutor.execute(() -> startIdleClient(key, forkOptions));
+                    }
+                }
+            }
+        }
+    }
+
+    private void startIdleClient(Object key, DaemonForkOptions forkOptions) {
+        WorkerDaemonClient client = null;
+        try {
+            client = workerDaemonStarter.startDaemon(forkOptions, workerProcessCleanupAction);
+        } catch (Exception e) {
+            LOGGER.debug("Could not pre-start worker daemon with fork options {}.", forkOptions, e);
+        } finally {
+            synchronized (lock) {
+                pendingStarts.remove(key);
+                if (client != null && !stopped) {
+                    allClients.add(client);
+                    clientKeys.put(client, key);
+                    addIdleClient(client, key);
+                    prewarmed++;
+                    client = null;
+                }
+                lock.notifyAll();
             }
         }
+        if (client != null) {
+            // Stopped while the daemon was starting
+            client.stop();
+        }
     }
 
     @Override
     public void stop() {
         synchronized (lock) {
-            stopWorkers(allClients);
+            stopped = true;
+        }
+        if (prewarmExecutor != null) {
+            prewarmExecutor.stop();
+        }
+        synchronized (lock) {
+            // Stopping a client removes it from the list of clients
+            stopWorkers(new ArrayList<>(allClients));
             allClients.clear();
             idleClients.clear();
+            idleClientsByKey.clear();
+            clientKeys.clear();
+            busyClients.clear();
             listenerManager.removeListener(stopSessionScopeWorkers);
             memoryManager.removeMemoryHolder(workerDaemonExpiration);
         }
@@ -166,8 +341,9 @@ private void stopWorkers(List<WorkerDaemonClient> clientsToStop) {
                     failures.add(e);
                 }
             }
-            idleClients.removeAll(clientsToStop);
-            allClients.removeAll(clientsToStop);
+            for (WorkerDaemonClient client : clientsToStop) {
+                removeClient(client);
+            }
             if (!failures.isEmpty()) {
                 if (failures.size() == 1) {
                     throw UncheckedException.throwAsUncheckedException(failures.get(0));
@@ -180,13 +356,50 @@ private void stopWorkers(List<WorkerDaemonClient> clientsToStop) {
         }
     }
 
+    private void removeClient(WorkerDaemonClient client) {
+        idleClients.remove(client);
+        allClients.remove(client);
+        Object key = clientKeys.remove(client);
+        if (key != null) {
+            idleClientsByKey.remove(key, client);
+        }
+    }
+
+    private static class DaemonDemand {
+        private final DaemonForkOptions forkOptions;
+        private int busy;
+        private int peak;
+
+        DaemonDemand(DaemonForkOptions forkOptions) {
+            this.forkOptions = forkOptions;
+        }
+
+        /**
+         * Fork options do not implement equality, so treat options that are compatible with each other as the same.
+         */
+        boolean isFor(DaemonForkOptions forkOptions) {
+            return this.forkOptions.isCompatibleWith(forkOptions) && forkOptions.isCompatibleWith(this.forkOptions);
+        }
+    }
+
     private class StopSessionScopedWorkers implements SessionLifecycleListener {
         @Override
-        public void afterStart() { }
+        public void afterStart() {
+            prewarm();
+        }
 
         @Override
         public void beforeComplete() {
             synchronized (lock) {
+                if (hits + misses > 0) {
+                    LOGGER.info("Worker daemon usage for this build session: {}.", getStatistics());
+                }
+                previousSessionDemand = sessionDemand;
+                sessionDemand = ArrayListMultimap.create();
+                hits = 0;
+                misses = 0;
+                prewarmed = 0;
+                startupWaitMillis = 0;
                 List<WorkerDaemonClient> sessionScopedClients = CollectionUtils.filter(allClients, client -> client.getKeepAliveMode() == KeepAliveMode.SESSION);
                 stopWorkers(sessionScopedClients);
             }
@@ -213,6 +426,11 @@ public void execute(WorkerProcess workerProcess) {
                     if (client.isProcess(workerProcess)) {
                         client.setFailed(true);
                         iterator.remove();
+                        idleClients.remove(client);
+                        Object key = clientKeys.remove(client);
+                        if (key != null) {
+                            idleClientsByKey.remove(key, client);
+                        }
                     }
                 }
             }
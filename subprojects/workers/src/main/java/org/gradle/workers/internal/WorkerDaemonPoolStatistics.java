@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+/**
+ * Statistics about how worker daemon requests of the current build session were served by the {@link WorkerDaemonClientsManager}.
+ */
+public class WorkerDaemonPoolStatistics {
+    private final int hits;
+    private final int misses;
+    private final int prewarmed;
+    private final long startupWaitMillis;
+
+    public WorkerDaemonPoolStatistics(int hits, int misses, int prewarmed, long startupWaitMillis) {
+        this.hits = hits;
+        this.misses = misses;
+        this.prewarmed = prewarmed;
+        this.startupWaitMillis = startupWaitMillis;
+    }
+
+    /**
+     * The number of requests served by an idle worker daemon, including those that were pre-started.
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * The number of requests that had to start a new worker daemon.
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * The number of worker daemons that were started in the background, before any request needed them.
+     */
+    public int getPrewarmed() {
+        return prewarmed;
+    }
+
+    /**
+     * The total time requests spent waiting for a worker daemon to start.
+     */
+    public long getStartupWaitMillis() {
+        return startupWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return hits + " hit(s), " + misses + " miss(es), " + prewarmed + " pre-started, " + startupWaitMillis + "ms waiting for startup";
+    }
+}
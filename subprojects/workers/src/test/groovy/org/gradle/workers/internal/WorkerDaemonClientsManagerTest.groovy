@@ -19,6 +19,7 @@ package org.gradle.workers.internal
 import org.gradle.api.Transformer
 import org.gradle.api.logging.LogLevel
 import org.gradle.initialization.SessionLifecycleListener
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.event.DefaultListenerManager
 import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.exceptions.DefaultMultiCauseException
@@ -31,9 +32,10 @@ import org.gradle.process.internal.health.memory.MBeanOsMemoryInfo
 import org.gradle.process.internal.health.memory.MemoryManager
 import org.gradle.util.ConcurrentSpecification
 import spock.lang.Subject
+import spock.lang.Unroll
 
 class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
-    def options = Stub(DaemonForkOptions)
+    def options = Stub(DaemonForkOptions) { getCompatibilityKey() >> "options" }
     def starter = Stub(WorkerDaemonStarter)
     def listenerManager = Stub(ListenerManager)
     def loggingManager = Stub(LoggingManagerInternal)
@@ -92,6 +94,37 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         1 * client2.stop()
     }
 
+    @Unroll
+    def "can stop #count created clients"() {
+        // Each client is expected to be stopped exactly once
+        def clients = (1..count).collect { Mock(WorkerDaemonClient) { 1 * stop() } }
+        starter.startDaemon(options, _) >>> clients
+
+        when:
+        count.times { manager.reserveNewClient(options) }
+        manager.stop()
+
+        then:
+        noExceptionThrown()
+
+        where:
+        count << [1, 3]
+    }
+
+    def "can stop created clients that are idle and busy"() {
+        def clients = (1..3).collect { Mock(WorkerDaemonClient) { 1 * stop() } }
+        starter.startDaemon(options, _) >>> clients
+
+        when:
+        def reserved = (1..3).collect { manager.reserveNewClient(options) }
+        manager.release(reserved[0])
+        manager.release(reserved[2])
+        manager.stop()
+
+        then:
+        noExceptionThrown()
+    }
+
     def "stops all other clients when a client fails to stop"() {
         def client1 = Mock(WorkerDaemonClient)
         def client2 = Mock(WorkerDaemonClient)
@@ -289,6 +322,130 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         1 * client3.stop()
     }
 
+    def "does not look at idle clients with a different compatibility key"() {
+        def otherOptions = Stub(DaemonForkOptions) { getCompatibilityKey() >> "other" }
+        def client = Mock(WorkerDaemonClient) {
+            getLogLevel() >> LogLevel.DEBUG
+        }
+        starter.startDaemon(otherOptions, _) >> client
+
+        when:
+        manager.reserveNewClient(otherOptions)
+        manager.release(client)
+        def reserved = manager.reserveIdleClient(options)
+
+        then:
+        reserved == null
+        0 * client.isCompatibleWith(_)
+
+        when:
+        reserved = manager.reserveIdleClient(otherOptions)
+
+        then:
+        reserved == client
+        1 * client.isCompatibleWith(otherOptions) >> true
+    }
+
+    def "keeps statistics on reserved clients"() {
+        def client = Mock(WorkerDaemonClient) {
+            isCompatibleWith(_) >> true
+            getLogLevel() >> LogLevel.DEBUG
+        }
+        starter.startDaemon(options, _) >> client
+
+        when:
+        manager.reserveIdleClient(options)
+        manager.reserveNewClient(options)
+        manager.release(client)
+        manager.reserveIdleClient(options)
+
+        then:
+        manager.statistics.hits == 1
+        manager.statistics.misses == 1
+        manager.statistics.prewarmed == 0
+    }
+
+    def "pre-starts the clients used by the previous session when a session starts"() {
+        listenerManager = new DefaultListenerManager(Scopes.BuildSession)
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), new DefaultExecutorFactory())
+        def clients = (1..4).collect {
+            Mock(WorkerDaemonClient) {
+                isCompatibleWith(_) >> true
+                getLogLevel() >> LogLevel.DEBUG
+                getKeepAliveMode() >> KeepAliveMode.SESSION
+            }
+        }
+        starter.startDaemon(options, _) >>> clients
+        def sessionListener = listenerManager.getBroadcaster(SessionLifecycleListener)
+
+        when:
+        sessionListener.afterStart()
+        manager.reserveNewClient(options)
+        manager.reserveNewClient(options)
+        manager.release(clients[0])
+        manager.release(clients[1])
+        sessionListener.beforeComplete()
+
+        then:
+        1 * clients[0].stop()
+        1 * clients[1].stop()
+
+        when:
+        sessionListener.afterStart()
+        def first = manager.reserveIdleClient(options)
+        def second = manager.reserveIdleClient(options)
+
+        then:
+        [first, second] as Set == [clients[2], clients[3]] as Set
+        manager.statistics.hits == 2
+        manager.statistics.misses == 0
+        manager.statistics.prewarmed == 2
+
+        cleanup:
+        manager.stop()
+    }
+
+    def "pre-starts clients with the fork options each was used with in the previous session"() {
+        listenerManager = new DefaultListenerManager(Scopes.BuildSession)
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), new DefaultExecutorFactory())
+        def smallOptions = Stub(DaemonForkOptions) { getCompatibilityKey() >> "options" }
+        def largeOptions = Stub(DaemonForkOptions) { getCompatibilityKey() >> "options" }
+        smallOptions.isCompatibleWith(smallOptions) >> true
+        largeOptions.isCompatibleWith(largeOptions) >> true
+        def smallClients = (1..2).collect { sessionScopedClient(smallOptions) }
+        def largeClients = (1..2).collect { sessionScopedClient(largeOptions) }
+        starter.startDaemon(smallOptions, _) >>> smallClients
+        starter.startDaemon(largeOptions, _) >>> largeClients
+        def sessionListener = listenerManager.getBroadcaster(SessionLifecycleListener)
+
+        when:
+        sessionListener.afterStart()
+        manager.reserveNewClient(smallOptions)
+        manager.reserveNewClient(largeOptions)
+        manager.release(smallClients[0])
+        manager.release(largeClients[0])
+        sessionListener.beforeComplete()
+        sessionListener.afterStart()
+        def small = manager.reserveIdleClient(smallOptions)
+        def large = manager.reserveIdleClient(largeOptions)
+
+        then:
+        small == smallClients[1]
+        large == largeClients[1]
+        manager.statistics.prewarmed == 2
+
+        cleanup:
+        manager.stop()
+    }
+
+    private WorkerDaemonClient sessionScopedClient(DaemonForkOptions forkOptions) {
+        return Mock(WorkerDaemonClient) {
+            isCompatibleWith(forkOptions) >> true
+            getLogLevel() >> LogLevel.DEBUG
+            getKeepAliveMode() >> KeepAliveMode.SESSION
+        }
+    }
+
     def "registers/deregisters a worker daemon expiration with the memory manager"() {
         WorkerDaemonExpiration workerDaemonExpiration
 